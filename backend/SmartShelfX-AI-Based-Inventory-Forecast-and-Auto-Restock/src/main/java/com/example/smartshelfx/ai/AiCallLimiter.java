@@ -0,0 +1,98 @@
+package com.example.smartshelfx.ai;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of ChatModel calls in flight.
+ *
+ * With virtual threads the request pool no longer caps concurrency, so a burst of AI requests
+ * would otherwise all reach the provider at once and trip its rate limits. Callers wait up to
+ * {@code app.ai.acquire-timeout-ms} for a permit; other requests are unaffected because a
+ * waiting virtual thread holds no carrier.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AiCallLimiter {
+
+    private final ChatModel chatModel;
+
+    @Value("${app.ai.max-concurrent-calls:16}")
+    private int maxConcurrentCalls;
+
+    @Value("${app.ai.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Semaphore permits;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder callNanos = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrentCalls), true);
+    }
+
+    public String call(String prompt) {
+        return limited(() -> chatModel.call(prompt));
+    }
+
+    public ChatResponse call(Prompt prompt) {
+        return limited(() -> chatModel.call(prompt));
+    }
+
+    private <T> T limited(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the AI service", e);
+        }
+        if (!acquired) {
+            rejected.increment();
+            log.warn("AI call rejected: {} calls already in flight", maxConcurrentCalls);
+            throw new IllegalStateException("AI service is busy, please try again shortly");
+        }
+
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed.increment();
+            throw e;
+        } finally {
+            calls.increment();
+            callNanos.add(System.nanoTime() - started);
+            permits.release();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long total = calls.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentCalls", maxConcurrentCalls);
+        stats.put("inFlight", maxConcurrentCalls - permits.availablePermits());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("calls", total);
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgCallMs", total == 0 ? 0 : callNanos.sum() / total / 1_000_000);
+        return stats;
+    }
+}
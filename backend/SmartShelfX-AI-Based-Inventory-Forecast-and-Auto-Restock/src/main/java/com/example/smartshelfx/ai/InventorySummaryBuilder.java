@@ -0,0 +1,236 @@
+package com.example.smartshelfx.ai;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the inventory context for analytics prompts without loading products into memory.
+ *
+ * Category totals and anomaly counts come from one GROUP BY ... WITH ROLLUP query over a
+ * per-product stats CTE (window demand, recent demand, quantity on order); a second query
+ * returns only the top-K products ranked by days of cover. The result is pipe-separated text
+ * with a column header per section, which costs far fewer tokens than JSON objects. Sections
+ * are added in priority order (totals, anomalies, categories by value, risk products) until
+ * the token budget is reached; truncated sections end with a "+N more" line.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventorySummaryBuilder {
+
+    // Rough average for English text and short numbers; only used to stay under the budget
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private static final String STATS_CTE = """
+            WITH sales AS (
+                SELECT product_id,
+                       SUM(quantity) AS window_out,
+                       SUM(CASE WHEN `timestamp` >= ? THEN quantity ELSE 0 END) AS recent_out
+                FROM stock_transactions
+                WHERE type = 'OUT' AND `timestamp` >= ?
+                GROUP BY product_id
+            ), on_order AS (
+                SELECT product_id, SUM(quantity) AS qty
+                FROM purchase_orders
+                WHERE status IN ('APPROVED', 'ORDERED')
+                GROUP BY product_id
+            ), stats AS (
+                SELECT p.id, p.sku, p.name, p.category,
+                       COALESCE(p.current_stock, 0) AS stock,
+                       COALESCE(p.reorder_level, 0) AS reorder_level,
+                       COALESCE(p.safety_stock, 0) AS safety_stock,
+                       COALESCE(p.lead_time_days, 7) AS lead_time,
+                       COALESCE(p.current_stock, 0) * COALESCE(p.price, 0) AS stock_value,
+                       COALESCE(s.window_out, 0) / ? AS avg_daily,
+                       COALESCE(s.recent_out, 0) / ? AS avg_recent,
+                       COALESCE(o.qty, 0) AS on_order
+                FROM products p
+                LEFT JOIN sales s ON s.product_id = p.id
+                LEFT JOIN on_order o ON o.product_id = p.id
+                WHERE COALESCE(p.active, TRUE)
+            )
+            """;
+
+    private static final String CATEGORY_SQL = STATS_CTE + """
+            SELECT category,
+                   COUNT(*) AS products,
+                   SUM(stock) AS stock,
+                   SUM(stock_value) AS stock_value,
+                   SUM(avg_daily) AS avg_daily,
+                   SUM(stock = 0) AS out_of_stock,
+                   SUM(stock > 0 AND stock <= safety_stock) AS below_safety,
+                   SUM(stock > safety_stock AND stock <= reorder_level) AS below_reorder,
+                   SUM(avg_daily > 0 AND stock / avg_daily < lead_time) AS cover_below_lead,
+                   SUM(avg_daily > 0 AND stock / avg_daily > ?) AS overstock,
+                   SUM(avg_daily = 0 AND stock > 0) AS no_demand,
+                   SUM(avg_daily > 0 AND avg_recent > ? * avg_daily) AS demand_spike
+            FROM stats
+            GROUP BY category WITH ROLLUP
+            """;
+
+    private static final String RISK_SQL = STATS_CTE + """
+            SELECT sku, name, category, stock, reorder_level, safety_stock, lead_time, avg_daily, on_order,
+                   CASE WHEN avg_daily > 0 THEN stock / avg_daily END AS cover_days
+            FROM stats
+            WHERE avg_daily > 0 OR stock <= reorder_level
+            ORDER BY CASE WHEN avg_daily > 0 THEN stock / avg_daily ELSE ? END, stock - reorder_level
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ai.summary.token-budget:2000}")
+    private int tokenBudget;
+
+    @Value("${app.ai.summary.top-k:50}")
+    private int topK;
+
+    @Value("${app.ai.summary.window-days:30}")
+    private int windowDays;
+
+    @Value("${app.ai.summary.recent-days:7}")
+    private int recentDays;
+
+    @Value("${app.ai.summary.overstock-days:180}")
+    private int overstockDays;
+
+    @Value("${app.ai.summary.spike-factor:2.0}")
+    private double spikeFactor;
+
+    public record InventorySummary(String text, int chars, int estimatedTokens, int tokenBudget,
+                                   int categories, int categoriesTotal, int riskProducts, long buildMs) {
+    }
+
+    private record CategoryRow(String category, long products, long stock, double value, double avgDaily,
+                               long outOfStock, long belowSafety, long belowReorder, long coverBelowLead,
+                               long overstock, long noDemand, long demandSpike) {
+    }
+
+    @Transactional(readOnly = true)
+    public InventorySummary build() {
+        long started = System.nanoTime();
+        int budgetChars = Math.max(1, tokenBudget) * CHARS_PER_TOKEN;
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp windowStart = Timestamp.valueOf(now.minusDays(windowDays));
+        Timestamp recentStart = Timestamp.valueOf(now.minusDays(recentDays));
+
+        List<CategoryRow> categories = new ArrayList<>();
+        CategoryRow[] total = new CategoryRow[1];
+        jdbcTemplate.query(CATEGORY_SQL, (RowCallbackHandler) rs -> {
+            CategoryRow row = categoryRow(rs);
+            if (row.category() == null) {
+                total[0] = row;
+            } else {
+                categories.add(row);
+            }
+        }, recentStart, windowStart, windowDays, recentDays, overstockDays, spikeFactor);
+        categories.sort(Comparator.comparingDouble(CategoryRow::value).reversed());
+
+        StringBuilder out = new StringBuilder(budgetChars + 256);
+        out.append("#inventory as_of=").append(LocalDate.now())
+                .append(" demand_window=").append(windowDays).append("d recent=").append(recentDays).append("d\n");
+        CategoryRow t = total[0];
+        if (t == null) {
+            out.append("no active products\n");
+            return finish(out, 0, 0, 0, started);
+        }
+        out.append("totals|products=").append(t.products())
+                .append("|units=").append(t.stock())
+                .append("|value=").append(Math.round(t.value()))
+                .append("|avg_daily_out=").append(fmt(t.avgDaily())).append('\n');
+        out.append("anomalies|out_of_stock=").append(t.outOfStock())
+                .append("|below_safety=").append(t.belowSafety())
+                .append("|below_reorder=").append(t.belowReorder())
+                .append("|cover_below_lead_time=").append(t.coverBelowLead())
+                .append("|overstock_gt_").append(overstockDays).append("d=").append(t.overstock())
+                .append("|no_demand=").append(t.noDemand())
+                .append("|demand_spike=").append(t.demandSpike()).append('\n');
+
+        // Categories may use at most half of what is left, so risk products always get room
+        int categoryLimit = out.length() + (budgetChars - out.length()) / 2;
+        out.append("categories|cols=category,products,units,value,avg_daily_out,oos,below_safety,below_reorder,cover_lt_lead,overstock,no_demand,spike\n");
+        int categoriesWritten = 0;
+        for (CategoryRow c : categories) {
+            String line = clean(c.category()) + '|' + c.products() + '|' + c.stock() + '|' + Math.round(c.value())
+                    + '|' + fmt(c.avgDaily()) + '|' + c.outOfStock() + '|' + c.belowSafety() + '|' + c.belowReorder()
+                    + '|' + c.coverBelowLead() + '|' + c.overstock() + '|' + c.noDemand() + '|' + c.demandSpike() + '\n';
+            if (out.length() + line.length() > categoryLimit) break;
+            out.append(line);
+            categoriesWritten++;
+        }
+        moreLine(out, categories.size() - categoriesWritten);
+
+        out.append("risk_products(lowest cover first)|cols=sku,name,category,stock,reorder,safety,lead_d,avg_daily_out,cover_d,on_order\n");
+        int[] riskWritten = {0};
+        int[] riskSkipped = {0};
+        jdbcTemplate.query(RISK_SQL, (RowCallbackHandler) rs -> {
+            if (riskSkipped[0] > 0) {
+                riskSkipped[0]++;
+                return;
+            }
+            double cover = rs.getDouble("cover_days");
+            String coverText = rs.wasNull() ? "-" : fmt(cover);
+            String line = clean(rs.getString("sku")) + '|' + clean(rs.getString("name")) + '|'
+                    + clean(rs.getString("category")) + '|' + rs.getLong("stock") + '|' + rs.getLong("reorder_level")
+                    + '|' + rs.getLong("safety_stock") + '|' + rs.getInt("lead_time") + '|'
+                    + fmt(rs.getDouble("avg_daily")) + '|' + coverText + '|' + rs.getLong("on_order") + '\n';
+            if (out.length() + line.length() > budgetChars) {
+                riskSkipped[0]++;
+                return;
+            }
+            out.append(line);
+            riskWritten[0]++;
+        }, recentStart, windowStart, windowDays, recentDays, Integer.MAX_VALUE, Math.max(0, topK));
+        moreLine(out, riskSkipped[0]);
+
+        return finish(out, categoriesWritten, categories.size(), riskWritten[0], started);
+    }
+
+    private InventorySummary finish(StringBuilder out, int categories, int categoriesTotal, int risk, long started) {
+        String text = out.toString();
+        int tokens = (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+        long buildMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Inventory summary: {} chars (~{} tokens, budget {}), {}/{} categories, {} risk products in {} ms",
+                text.length(), tokens, tokenBudget, categories, categoriesTotal, risk, buildMs);
+        return new InventorySummary(text, text.length(), tokens, tokenBudget, categories, categoriesTotal, risk, buildMs);
+    }
+
+    private static CategoryRow categoryRow(ResultSet rs) throws SQLException {
+        return new CategoryRow(rs.getString("category"), rs.getLong("products"), rs.getLong("stock"),
+                rs.getDouble("stock_value"), rs.getDouble("avg_daily"), rs.getLong("out_of_stock"),
+                rs.getLong("below_safety"), rs.getLong("below_reorder"), rs.getLong("cover_below_lead"),
+                rs.getLong("overstock"), rs.getLong("no_demand"), rs.getLong("demand_spike"));
+    }
+
+    private static void moreLine(StringBuilder out, int more) {
+        if (more > 0) out.append("+").append(more).append(" more\n");
+    }
+
+    private static String fmt(double value) {
+        if (value >= 100) return Long.toString(Math.round(value));
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String clean(String value) {
+        if (value == null) return "";
+        String cleaned = value.replace('|', '/').replace('\n', ' ').replace('\r', ' ').strip();
+        return cleaned.length() > MAX_NAME_LENGTH ? cleaned.substring(0, MAX_NAME_LENGTH) : cleaned;
+    }
+}
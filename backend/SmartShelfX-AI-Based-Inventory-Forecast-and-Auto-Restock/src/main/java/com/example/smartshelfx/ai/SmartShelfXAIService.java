@@ -2,6 +2,8 @@ package com.example.smartshelfx.ai;
 import com.example.smartshelfx.ai.dto.AiForecastDecisionResult;
 import com.example.smartshelfx.model.*;
 import com.example.smartshelfx.repository.*;
+import com.example.smartshelfx.search.ProductSearchIndex;
+import com.example.smartshelfx.service.InventoryValuationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -10,11 +12,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,13 +31,17 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class SmartShelfXAIService {
 
-    private final ChatModel chatModel;
+    private final AiCallLimiter aiCallLimiter;
     private static final Logger log = LoggerFactory.getLogger(SmartShelfXAIService.class);
     private final ProductRepository productRepository;
     private final StockTransactionRepository stockTransactionRepository;
     private final ForecastRepository forecastRepository;
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final AlertRepository alertRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final InventorySummaryBuilder inventorySummaryBuilder;
+    private final ProductSearchIndex productSearchIndex;
+    private final InventoryValuationService inventoryValuationService;
 
 
 
@@ -43,7 +50,7 @@ public class SmartShelfXAIService {
 //    }
 
     private String askModel(String prompt) {
-        ChatResponse response =chatModel.call(new Prompt(new UserMessage(prompt)));
+        ChatResponse response =aiCallLimiter.call(new Prompt(new UserMessage(prompt)));
         return response.getResult()
                 .getOutput()
                 .getText();
@@ -143,7 +150,7 @@ public class SmartShelfXAIService {
                 You are SmartShelfX AI. Return ONLY JSON.
                 Analyze inventory data.
 
-                Inventory JSON:
+                Inventory data:
                 %s
 
                 JSON:
@@ -158,9 +165,26 @@ public class SmartShelfXAIService {
         return askModel(prompt);
     }
 
-    // 6️⃣ Free-form chat
+    // 6️⃣ Free-form chat, grounded with the catalog products that best match the message
     public String chat(String message) {
-        return askModel(message);
+        List<ProductSearchIndex.ProductMatch> matches = productSearchIndex.findRelevantProducts(message);
+        if (matches.isEmpty()) {
+            return askModel(message);
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are SmartShelfX AI, an inventory assistant.\n");
+        prompt.append("Use the live inventory below when it is relevant. It lists the catalog products that best ")
+                .append("match the question, not the whole catalog.\n\n");
+        prompt.append("Matching products (sku|name|category|stock|reorder_level|safety_stock|status):\n");
+        for (ProductSearchIndex.ProductMatch p : matches) {
+            String status = p.stock() <= 0 ? "OUT" : p.stock() <= p.reorderLevel() ? "LOW" : "OK";
+            prompt.append(p.sku()).append('|').append(p.name()).append('|').append(p.category()).append('|')
+                    .append(p.stock()).append('|').append(p.reorderLevel()).append('|')
+                    .append(p.safetyStock()).append('|').append(status).append('\n');
+        }
+        prompt.append("\nQuestion: ").append(message);
+        return askModel(prompt.toString());
     }
 
         // ----------------------------------------------------------------
@@ -175,7 +199,7 @@ public class SmartShelfXAIService {
 
             // Recent sales history (last 90 days, OUT transactions)
             List<StockTransaction> recentTx =
-                    stockTransactionRepository.findRecentTransactionsByProduct(productId)
+                    stockTransactionRepository.findRecentTransactionsByProduct(productId, last90Days)
                             .stream()
                             .filter(tx -> tx.getType() == StockTransaction.TransactionType.OUT)
                             .filter(tx -> tx.getTimestamp().isAfter(last90Days))
@@ -238,7 +262,7 @@ public class SmartShelfXAIService {
             log.info("Sending forecast prompt to AI for product {} ({})", productId, product.getName());
 
             // Use the simple String call – this is what we know works in your project
-            return chatModel.call(prompt);
+            return aiCallLimiter.call(prompt);
         }
 
         // ----------------------------------------------------------------
@@ -252,7 +276,7 @@ public class SmartShelfXAIService {
             LocalDateTime last60Days = now.minusDays(60);
 
             List<StockTransaction> recentTx =
-                    stockTransactionRepository.findRecentTransactionsByProduct(productId)
+                    stockTransactionRepository.findRecentTransactionsByProduct(productId, last60Days)
                             .stream()
                             .filter(tx -> tx.getType() == StockTransaction.TransactionType.OUT)
                             .filter(tx -> tx.getTimestamp().isAfter(last60Days))
@@ -302,18 +326,25 @@ public class SmartShelfXAIService {
             String prompt = context.toString();
             log.info("Sending restock prompt to AI for product {} ({})", productId, product.getName());
 
-            return chatModel.call(prompt);
+            return aiCallLimiter.call(prompt);
         }
 
         // ----------------------------------------------------------------
         // 3) AI-POWERED INVENTORY ANALYTICS OVERVIEW
         // ----------------------------------------------------------------
         public String analyticsOverview() {
+            // Gather the data in a read-only transaction (replica when configured) and release
+            // the connection before the model call
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            String prompt = readOnly.execute(status -> buildAnalyticsOverviewPrompt());
 
-            Double totalInventoryValue = productRepository.calculateTotalInventoryValue();
-            if (totalInventoryValue == null) {
-                totalInventoryValue = 0.0;
-            }
+            log.info("Sending analytics overview prompt to AI");
+            return aiCallLimiter.call(prompt);
+        }
+
+        private String buildAnalyticsOverviewPrompt() {
+            Double totalInventoryValue = inventoryValuationService.getInventoryValue().doubleValue();
 
             List<Product> lowStock = productRepository.findLowStockProducts();
             List<Product> criticalStock = productRepository.findCriticalStockProducts();
@@ -362,10 +393,7 @@ public class SmartShelfXAIService {
             context.append(" - top 3 actions they should take today\n");
             context.append("Keep it short and actionable.\n");
 
-            String prompt = context.toString();
-            log.info("Sending analytics overview prompt to AI");
-
-            return chatModel.call(prompt);
+            return context.toString();
         }
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -458,7 +486,7 @@ public class SmartShelfXAIService {
                 forecastPeriodDays
         );
 
-        String rawJson = chatModel.call(prompt);
+        String rawJson = aiCallLimiter.call(prompt);
 
         try {
             return objectMapper.readValue(rawJson, AiForecastDecisionResult.class);
@@ -468,36 +496,12 @@ public class SmartShelfXAIService {
     }
 
 
+    /**
+     * SQL-aggregated, token-budgeted inventory context; see InventorySummaryBuilder.
+     */
     public String buildCompressedInventorySummary() {
         try {
-            List<Product> products = productRepository.findAll();
-
-            List<Map<String, Object>> productSummary = products.stream().map(p -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("name", p.getName());
-                map.put("sku", p.getSku());
-                map.put("stock", p.getCurrentStock());
-                map.put("reorderLevel", p.getReorderLevel());
-                map.put("safetyStock", p.getSafetyStock());
-                map.put("category", p.getCategory());
-                return map;
-            }).toList();
-
-            int totalTransactions = stockTransactionRepository.countTransactions();
-            int totalOut = stockTransactionRepository.countType(StockTransaction.TransactionType.valueOf("OUT"));
-            int totalIn = stockTransactionRepository.countType(StockTransaction.TransactionType.valueOf("IN"));
-
-            int activePOs = purchaseOrderRepository.countActivePOs();
-
-            Map<String, Object> map = new HashMap<>();
-            map.put("products", productSummary);
-            map.put("totalTransactions", totalTransactions);
-            map.put("totalIn", totalIn);
-            map.put("totalOut", totalOut);
-            map.put("activePOs", activePOs);
-
-            return new ObjectMapper().writeValueAsString(map);
-
+            return inventorySummaryBuilder.build().text();
         } catch (Exception e) {
             throw new RuntimeException("Failed to build compressed inventory summary: " + e.getMessage());
         }
@@ -0,0 +1,271 @@
+package com.example.smartshelfx.archive;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed columnar file holding one archived month of stock_transactions.
+ *
+ * Layout: magic, format version, row count, column count, then each column's ordinal and
+ * compressed length, followed by the column blocks in the same order. Every block is deflated
+ * on its own, so a scan inflates only the columns it asks for and skips the others.
+ * Integers are zig-zag varints; id and timestamp are delta-encoded (rows are written in
+ * timestamp order), strings are length-prefixed UTF-8 with 0 meaning null.
+ */
+public final class ColumnarTransactionFile {
+
+    private static final int MAGIC = 0x53545843; // "STXC"
+    private static final int VERSION = 1;
+
+    public enum Column {
+        ID, PRODUCT_ID, QUANTITY, TYPE, TIMESTAMP, HANDLED_BY, NOTES, REFERENCE_NUMBER
+    }
+
+    /**
+     * One decoded row; columns that were not requested keep their zero/null value.
+     */
+    public record Row(long id, long productId, int quantity, String type, LocalDateTime timestamp,
+                      Long handledBy, String notes, String referenceNumber) {
+    }
+
+    private ColumnarTransactionFile() {
+    }
+
+    // ----------------------------------------------------------------
+    // WRITING
+    // ----------------------------------------------------------------
+
+    /**
+     * Buffers compressed columns in memory (a month compresses to a few MB) and writes the
+     * file atomically on {@link #finish()}.
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final ByteArrayOutputStream[] blocks = new ByteArrayOutputStream[Column.values().length];
+        private final OutputStream[] streams = new OutputStream[Column.values().length];
+        private final Deflater[] deflaters = new Deflater[Column.values().length];
+        private long rows;
+        private long lastId;
+        private long lastMicros;
+
+        public Writer(Path target) {
+            this.target = target;
+            for (int c = 0; c < blocks.length; c++) {
+                blocks[c] = new ByteArrayOutputStream(1 << 16);
+                deflaters[c] = new Deflater(Deflater.DEFAULT_COMPRESSION);
+                streams[c] = new BufferedOutputStream(new DeflaterOutputStream(blocks[c], deflaters[c], 1 << 16), 1 << 16);
+            }
+        }
+
+        public void append(long id, long productId, int quantity, String type, LocalDateTime timestamp,
+                           Long handledBy, String notes, String referenceNumber) throws IOException {
+            long micros = toMicros(timestamp);
+            writeVarLong(streams[Column.ID.ordinal()], id - lastId);
+            writeVarLong(streams[Column.PRODUCT_ID.ordinal()], productId);
+            writeVarLong(streams[Column.QUANTITY.ordinal()], quantity);
+            streams[Column.TYPE.ordinal()].write("OUT".equals(type) ? 1 : 0);
+            writeVarLong(streams[Column.TIMESTAMP.ordinal()], micros - lastMicros);
+            writeVarLong(streams[Column.HANDLED_BY.ordinal()], handledBy == null ? 0 : handledBy + 1);
+            writeString(streams[Column.NOTES.ordinal()], notes);
+            writeString(streams[Column.REFERENCE_NUMBER.ordinal()], referenceNumber);
+            lastId = id;
+            lastMicros = micros;
+            rows++;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public void finish() throws IOException {
+            for (OutputStream stream : streams) {
+                stream.close(); // flushes the buffer and finishes the deflater; the target is in memory
+            }
+
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.createDirectories(target.getParent());
+            try (OutputStream file = Files.newOutputStream(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(rows);
+                out.writeInt(blocks.length);
+                for (int c = 0; c < blocks.length; c++) {
+                    out.writeInt(c);
+                    out.writeLong(blocks[c].size());
+                }
+                for (ByteArrayOutputStream block : blocks) {
+                    block.writeTo(out);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() {
+            for (Deflater deflater : deflaters) {
+                deflater.end();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // READING
+    // ----------------------------------------------------------------
+
+    public static long rowCount(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in, file);
+        }
+    }
+
+    /**
+     * Streams every row to {@code consumer}, decoding only the requested columns.
+     *
+     * @return number of rows read
+     */
+    public static long scan(Path file, Set<Column> columns, Consumer<Row> consumer) throws IOException {
+        EnumSet<Column> wanted = columns.isEmpty() ? EnumSet.noneOf(Column.class) : EnumSet.copyOf(columns);
+        InputStream[] decoders = new InputStream[Column.values().length];
+
+        long rows;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            rows = readHeader(in, file);
+            int count = in.readInt();
+            int[] ordinals = new int[count];
+            long[] lengths = new long[count];
+            for (int i = 0; i < count; i++) {
+                ordinals[i] = in.readInt();
+                lengths[i] = in.readLong();
+            }
+            for (int i = 0; i < count; i++) {
+                Column column = Column.values()[ordinals[i]];
+                if (wanted.contains(column)) {
+                    byte[] block = in.readNBytes(Math.toIntExact(lengths[i]));
+                    decoders[column.ordinal()] = new BufferedInputStream(
+                            new InflaterInputStream(new ByteArrayInputStream(block)), 1 << 16);
+                } else {
+                    in.skipNBytes(lengths[i]);
+                }
+            }
+        }
+
+        try {
+            long id = 0;
+            long micros = 0;
+            for (long r = 0; r < rows; r++) {
+                long productId = 0;
+                int quantity = 0;
+                String type = null;
+                LocalDateTime timestamp = null;
+                Long handledBy = null;
+                String notes = null;
+                String reference = null;
+
+                if (decoders[Column.ID.ordinal()] != null) id += readVarLong(decoders[Column.ID.ordinal()]);
+                if (decoders[Column.PRODUCT_ID.ordinal()] != null) productId = readVarLong(decoders[Column.PRODUCT_ID.ordinal()]);
+                if (decoders[Column.QUANTITY.ordinal()] != null) quantity = (int) readVarLong(decoders[Column.QUANTITY.ordinal()]);
+                if (decoders[Column.TYPE.ordinal()] != null) type = readByte(decoders[Column.TYPE.ordinal()]) == 1 ? "OUT" : "IN";
+                if (decoders[Column.TIMESTAMP.ordinal()] != null) {
+                    micros += readVarLong(decoders[Column.TIMESTAMP.ordinal()]);
+                    timestamp = fromMicros(micros);
+                }
+                if (decoders[Column.HANDLED_BY.ordinal()] != null) {
+                    long value = readVarLong(decoders[Column.HANDLED_BY.ordinal()]);
+                    handledBy = value == 0 ? null : value - 1;
+                }
+                if (decoders[Column.NOTES.ordinal()] != null) notes = readString(decoders[Column.NOTES.ordinal()]);
+                if (decoders[Column.REFERENCE_NUMBER.ordinal()] != null) reference = readString(decoders[Column.REFERENCE_NUMBER.ordinal()]);
+
+                consumer.accept(new Row(id, productId, quantity, type, timestamp, handledBy, notes, reference));
+            }
+        } finally {
+            for (InputStream decoder : decoders) {
+                if (decoder != null) decoder.close();
+            }
+        }
+        return rows;
+    }
+
+    private static long readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a stock transaction archive: " + file);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported archive version " + version + ": " + file);
+        }
+        return in.readLong();
+    }
+
+    // ----------------------------------------------------------------
+    // ENCODING
+    // ----------------------------------------------------------------
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte(in);
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Truncated archive column");
+        return b;
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) return null;
+        byte[] bytes = in.readNBytes(length - 1);
+        if (bytes.length != length - 1) throw new EOFException("Truncated archive column");
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
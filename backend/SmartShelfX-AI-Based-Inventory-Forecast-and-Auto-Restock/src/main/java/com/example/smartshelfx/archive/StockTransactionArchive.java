@@ -0,0 +1,222 @@
+package com.example.smartshelfx.archive;
+
+import com.example.smartshelfx.archive.ColumnarTransactionFile.Column;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the stock_transactions archive: one columnar file per month that
+ * TransactionPartitionService moved out of the database.
+ *
+ * Archived months are always older than every partition still in the table, so callers
+ * query the database as before and add the archive for the part of their range that lies
+ * before {@link #archivedUntil()}. Daily OUT totals per month are cached because the
+ * forecasting jobs ask for them once per product chunk.
+ */
+@Component
+@Slf4j
+public class StockTransactionArchive {
+
+    private static final Pattern FILE_NAME = Pattern.compile("stock_transactions-(\\d{4})-(\\d{2})\\.stxc");
+
+    @Value("${app.stock-tx.archive.dir:./data/archive}")
+    private Path directory;
+
+    @Value("${app.stock-tx.archive.cached-months:2}")
+    private int cachedMonths;
+
+    private final NavigableMap<YearMonth, Path> months = new ConcurrentSkipListMap<>();
+    private final Map<YearMonth, Map<Long, long[]>> dailySalesCache = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface DailySaleConsumer {
+        void accept(long productId, LocalDate day, long quantity);
+    }
+
+    @FunctionalInterface
+    public interface MovementConsumer {
+        void accept(long productId, LocalDateTime timestamp, long signedQuantity);
+    }
+
+    @FunctionalInterface
+    public interface StockOutConsumer {
+        void accept(long productId, LocalDateTime timestamp, int quantity, String referenceNumber);
+    }
+
+    @PostConstruct
+    void loadIndex() {
+        if (!Files.isDirectory(directory)) return;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (m.matches()) {
+                    months.put(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))), file);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Could not list stock transaction archive {}: {}", directory, e.getMessage());
+        }
+        if (!months.isEmpty()) {
+            log.info("Stock transaction archive: {} months ({} .. {})", months.size(), months.firstKey(), months.lastKey());
+        }
+    }
+
+    public Path fileFor(YearMonth month) {
+        return directory.resolve(String.format("stock_transactions-%04d-%02d.stxc", month.getYear(), month.getMonthValue()));
+    }
+
+    /**
+     * Called once a month's file is written and verified and its partition dropped.
+     */
+    public void register(YearMonth month, Path file) {
+        months.put(month, file);
+        dailySalesCache.remove(month);
+    }
+
+    public List<YearMonth> getArchivedMonths() {
+        return List.copyOf(months.keySet());
+    }
+
+    /**
+     * First day that is not archived, or {@code null} when nothing is archived.
+     */
+    public LocalDate archivedUntil() {
+        return months.isEmpty() ? null : months.lastKey().plusMonths(1).atDay(1);
+    }
+
+    public boolean isArchived(LocalDateTime timestamp) {
+        LocalDate until = archivedUntil();
+        return until != null && timestamp.isBefore(until.atStartOfDay());
+    }
+
+    // ----------------------------------------------------------------
+    // QUERIES
+    // ----------------------------------------------------------------
+
+    /**
+     * Daily OUT quantities for the given products on archived days in [from, toExclusive).
+     */
+    public void forEachDailySale(Collection<Long> productIds, LocalDate from, LocalDate toExclusive,
+                                 DailySaleConsumer consumer) {
+        for (Map.Entry<YearMonth, Path> month : overlapping(from.atStartOfDay(), toExclusive.atStartOfDay()).entrySet()) {
+            Map<Long, long[]> daily = dailySales(month.getKey(), month.getValue());
+            for (Long productId : productIds) {
+                long[] days = daily.get(productId);
+                if (days == null) continue;
+                for (int d = 0; d < days.length; d++) {
+                    if (days[d] == 0) continue;
+                    LocalDate day = month.getKey().atDay(d + 1);
+                    if (!day.isBefore(from) && day.isBefore(toExclusive)) {
+                        consumer.accept(productId, day, days[d]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Total OUT quantity per product for archived rows with start <= timestamp <= end,
+     * matching StockTransactionRepository.findSalesBetweenDates.
+     */
+    public Map<Long, Long> salesByProduct(LocalDateTime start, LocalDateTime end) {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Path file : overlapping(start, end.plusNanos(1)).values()) {
+            scan(file, EnumSet.of(Column.PRODUCT_ID, Column.QUANTITY, Column.TYPE, Column.TIMESTAMP), row -> {
+                if ("OUT".equals(row.type()) && !row.timestamp().isBefore(start) && !row.timestamp().isAfter(end)) {
+                    totals.merge(row.productId(), (long) row.quantity(), Long::sum);
+                }
+            });
+        }
+        return totals;
+    }
+
+    /**
+     * Archived rows with from <= timestamp < toExclusive as signed movements (IN positive,
+     * OUT negative). {@code productId} null means every product, {@code from} null means
+     * from the first archived month.
+     */
+    public void forEachMovement(Long productId, LocalDateTime from, LocalDateTime toExclusive,
+                                MovementConsumer consumer) {
+        if (months.isEmpty()) return;
+        LocalDateTime start = from != null ? from : months.firstKey().atDay(1).atStartOfDay();
+        for (Path file : overlapping(start, toExclusive).values()) {
+            scan(file, EnumSet.of(Column.PRODUCT_ID, Column.QUANTITY, Column.TYPE, Column.TIMESTAMP), row -> {
+                if (productId != null && row.productId() != productId) return;
+                if (row.timestamp().isBefore(start) || !row.timestamp().isBefore(toExclusive)) return;
+                consumer.accept(row.productId(), row.timestamp(),
+                        "IN".equals(row.type()) ? row.quantity() : -row.quantity());
+            });
+        }
+    }
+
+    /**
+     * Archived OUT rows with from <= timestamp < toExclusive, with their reference numbers so
+     * callers can tell sales from stock corrections.
+     */
+    public void forEachStockOut(LocalDateTime from, LocalDateTime toExclusive, StockOutConsumer consumer) {
+        for (Path file : overlapping(from, toExclusive).values()) {
+            scan(file, EnumSet.of(Column.PRODUCT_ID, Column.QUANTITY, Column.TYPE, Column.TIMESTAMP,
+                    Column.REFERENCE_NUMBER), row -> {
+                if (!"OUT".equals(row.type())) return;
+                if (row.timestamp().isBefore(from) || !row.timestamp().isBefore(toExclusive)) return;
+                consumer.accept(row.productId(), row.timestamp(), row.quantity(), row.referenceNumber());
+            });
+        }
+    }
+
+    private NavigableMap<YearMonth, Path> overlapping(LocalDateTime from, LocalDateTime toExclusive) {
+        if (months.isEmpty() || !from.isBefore(toExclusive)) return Collections.emptyNavigableMap();
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(toExclusive.minusNanos(1));
+        return months.subMap(first, true, last, true);
+    }
+
+    private Map<Long, long[]> dailySales(YearMonth month, Path file) {
+        Map<Long, long[]> daily = dailySalesCache.computeIfAbsent(month, m -> {
+            Map<Long, long[]> byProduct = new HashMap<>();
+            int length = m.lengthOfMonth();
+            scan(file, EnumSet.of(Column.PRODUCT_ID, Column.QUANTITY, Column.TYPE, Column.TIMESTAMP), row -> {
+                if ("OUT".equals(row.type())) {
+                    byProduct.computeIfAbsent(row.productId(), id -> new long[length])
+                            [row.timestamp().getDayOfMonth() - 1] += row.quantity();
+                }
+            });
+            return byProduct;
+        });
+
+        // Keep at most cachedMonths months, dropping the oldest other than the one just used
+        while (dailySalesCache.size() > Math.max(1, cachedMonths)) {
+            Optional<YearMonth> oldest = dailySalesCache.keySet().stream()
+                    .filter(m -> !m.equals(month))
+                    .min(Comparator.naturalOrder());
+            if (oldest.isEmpty()) break;
+            dailySalesCache.remove(oldest.get());
+        }
+        return daily;
+    }
+
+    private static void scan(Path file, Set<Column> columns, Consumer<ColumnarTransactionFile.Row> consumer) {
+        try {
+            ColumnarTransactionFile.scan(file, columns, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stock transaction archive " + file, e);
+        }
+    }
+}
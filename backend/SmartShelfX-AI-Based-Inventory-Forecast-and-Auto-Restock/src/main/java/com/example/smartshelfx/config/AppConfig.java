@@ -1,16 +1,33 @@
 package com.example.smartshelfx.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Scheduling and @Async use Boot's auto-configured executors, which run on virtual threads
+ * when spring.threads.virtual.enabled is set (and on the bounded platform pools otherwise).
+ */
 @Configuration
 @EnableScheduling
-public class AppConfig {
+@EnableAsync
+@Slf4j
+public class AppConfig implements AsyncConfigurer {
 
     @Bean
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) ->
+                log.error("Async {}.{} failed: {}", method.getDeclaringClass().getSimpleName(), method.getName(),
+                        ex.getMessage(), ex);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.example.smartshelfx.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary pool from spring.datasource.*, plus an optional read replica pool when
+ * app.datasource.replica.url is set. Each side has its own spring.datasource.hikari.* /
+ * app.datasource.replica.hikari.* sizing.
+ *
+ * Without a replica the application DataSource is the primary pool, exactly as before.
+ */
+@Configuration
+@Slf4j
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariConfig replicaPoolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setReadOnly(true);
+        return config;
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${app.datasource.replica.url:}' != ''")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            HikariConfig replicaPoolConfig,
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password,
+            @Value("${app.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${app.datasource.replica.require-replication:true}") boolean requireReplication) {
+        replicaPoolConfig.setJdbcUrl(url);
+        replicaPoolConfig.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        replicaPoolConfig.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPoolConfig, maxLagSeconds, requireReplication);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if (routing == null) {
+            return primaryDataSource;
+        }
+        log.info("Read-only service transactions are routed to the read replica");
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.smartshelfx.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends connections for read-only service transactions to the replica pool and everything
+ * else to the primary.
+ *
+ * Only transactions declared by our own code count: Spring Data opens an implicit read-only
+ * transaction around every repository call, and routing those would let read-modify-write
+ * code that runs without a transaction read stale stock levels. The replica is used only while
+ * its last lag check passed; otherwise read-only transactions fall back to the primary.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy so the target is chosen at the first
+ * statement, after the transaction's read-only flag and name are bound.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String SPRING_DATA_TRANSACTION = "org.springframework.data.";
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final HikariDataSource replica;
+    private final long maxLagSeconds;
+    private final boolean requireReplication;
+
+    private volatile boolean replicaUsable;
+    private volatile Long lastLagSeconds;
+    private volatile String lastProblem = "not checked yet";
+
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbackConnections = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, HikariConfig replicaConfig,
+                                    long maxLagSeconds, boolean requireReplication) {
+        // Start even when the replica is down; the lag check keeps reads on the primary meanwhile
+        replicaConfig.setInitializationFailTimeout(-1);
+        this.replica = new HikariDataSource(replicaConfig);
+        this.maxLagSeconds = maxLagSeconds;
+        this.requireReplication = requireReplication;
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicaLag();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(SPRING_DATA_TRANSACTION)) {
+            return Target.PRIMARY;
+        }
+        if (replicaUsable) {
+            replicaConnections.increment();
+            return Target.REPLICA;
+        }
+        fallbackConnections.increment();
+        return Target.PRIMARY;
+    }
+
+    // ----------------------------------------------------------------
+    // LAG CHECK
+    // ----------------------------------------------------------------
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        Long lag = null;
+        String problem = null;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(replicaStatusSql())) {
+            if (!rs.next()) {
+                // A plain second instance (e.g. a local stand-in) has no replication status
+                if (requireReplication) problem = "server is not a replica";
+            } else {
+                long seconds = rs.getLong("Seconds_Behind_Source");
+                if (rs.wasNull()) {
+                    problem = "replication is not running";
+                } else {
+                    lag = seconds;
+                    if (seconds > maxLagSeconds) problem = "lag " + seconds + "s exceeds " + maxLagSeconds + "s";
+                }
+            }
+        } catch (SQLException e) {
+            problem = "unreachable: " + e.getMessage();
+        }
+
+        boolean usable = problem == null;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica back in use (lag {}s)", lag);
+            } else {
+                log.warn("Read replica bypassed, read-only transactions use the primary: {}", problem);
+            }
+        }
+        lastLagSeconds = lag;
+        lastProblem = problem;
+        replicaUsable = usable;
+    }
+
+    // Must return a Seconds_Behind_Source column; tests point it at a table on an embedded stand-in
+    String replicaStatusSql() {
+        return "SHOW REPLICA STATUS";
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("replicaUsable", replicaUsable);
+        status.put("lagSeconds", lastLagSeconds);
+        status.put("maxLagSeconds", maxLagSeconds);
+        status.put("problem", lastProblem);
+        status.put("replicaConnections", replicaConnections.sum());
+        status.put("fallbackConnections", fallbackConnections.sum());
+        return status;
+    }
+
+    @Override
+    public void destroy() {
+        replica.close();
+    }
+}
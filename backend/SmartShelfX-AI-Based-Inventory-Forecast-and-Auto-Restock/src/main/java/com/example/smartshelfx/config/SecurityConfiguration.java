@@ -42,8 +42,13 @@ public class SecurityConfiguration {
                         // ⭐ MUST ALLOW OPTIONS PRE-FLIGHT OR JWT FILTER NEVER RUNS
                         .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // SSE (/api/stream) completes on an async dispatch; the original request was already authorized
+                        .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll()
+
                         // Public
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Product images and thumbnails for <img> tags (random, unguessable names)
+                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/upload/images/*").permitAll()
 
                         // ⭐ Add this — Analytics requires token, not roles here
                         .requestMatchers("/api/analytics/**").authenticated()
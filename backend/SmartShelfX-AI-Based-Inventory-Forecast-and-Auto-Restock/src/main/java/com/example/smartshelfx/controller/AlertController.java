@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/alerts")
@@ -62,16 +63,58 @@ public class AlertController {
 
     @PutMapping("/read-all")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ApiResponse<String>> markAllAsRead() {
+    public ResponseEntity<ApiResponse<Integer>> markAllAsRead() {
         try {
-            alertService.markAllAsRead();
-            return ResponseEntity.ok(ApiResponse.success("All alerts marked as read", null));
+            int updated = alertService.markAllAsRead();
+            return ResponseEntity.ok(ApiResponse.success("All alerts marked as read", updated));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to mark all alerts as read", null));
         }
     }
 
+    @PutMapping("/read")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Integer>> markSelectedAsRead(@RequestBody List<Long> alertIds) {
+        try {
+            int updated = alertService.markAsRead(alertIds);
+            return ResponseEntity.ok(ApiResponse.success(updated + " alerts marked as read", updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to mark alerts as read", null));
+        }
+    }
+
+    @PutMapping("/resolve")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Integer>> resolveAlerts(@RequestParam Alert.AlertType type,
+                                                              @RequestParam(required = false) Long productId) {
+        try {
+            int resolved = productId != null
+                    ? alertService.resolveByProduct(productId, type)
+                    : alertService.resolveByType(type);
+            return ResponseEntity.ok(ApiResponse.success(resolved + " alerts resolved", resolved));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to resolve alerts", null));
+        }
+    }
+
+    @PostMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> purgeExpiredAlerts() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Expired alerts purged", alertService.expireAndPurge()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to purge expired alerts", null));
+        }
+    }
+
     @GetMapping("/product/{productId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<ApiResponse<List<Alert>>> getProductAlerts(@PathVariable Long productId) {
@@ -1,9 +1,11 @@
 package com.example.smartshelfx.controller;
 
+import com.example.smartshelfx.config.ReplicaRoutingDataSource;
 import com.example.smartshelfx.dto.ApiResponse;
 import com.example.smartshelfx.service.AnalyticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,7 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
 
     @GetMapping("/dashboard")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -82,4 +85,14 @@ public class AnalyticsController {
                     .body(ApiResponse.error("Failed to retrieve alert analytics", null));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/datasource")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDataSourceStatus() {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        Map<String, Object> status = routing != null
+                ? routing.getStatus()
+                : Map.of("replicaConfigured", false);
+        return ResponseEntity.ok(ApiResponse.success("Datasource status retrieved", status));
+    }
+}
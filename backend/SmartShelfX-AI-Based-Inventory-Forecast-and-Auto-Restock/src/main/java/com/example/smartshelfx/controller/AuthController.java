@@ -6,6 +6,7 @@ import com.example.smartshelfx.dto.RegisterRequest;
 import com.example.smartshelfx.model.Role;
 import com.example.smartshelfx.model.User;
 import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.security.JwtFilter;
 import com.example.smartshelfx.security.JwtUtil;
 import com.example.smartshelfx.security.TokenBlacklist;
 import com.example.smartshelfx.service.UserService;
@@ -16,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -34,6 +36,7 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final UserService userService;
     private final TokenBlacklist tokenBlacklist;
+    private final JwtFilter jwtFilter;
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<Map<String, String>>> login(@RequestBody AuthRequest request, HttpServletResponse response) {
@@ -46,8 +49,8 @@ public class AuthController {
             String email = userDetails.getUsername();
             String role = userDetails.getAuthorities().iterator().next().getAuthority();
 
-            String accessToken = jwtUtil.generateAccessToken(email, role);
-            String refreshToken = jwtUtil.generateRefreshToken(email, role);
+            String accessToken = jwtUtil.generateAccessToken(email, role, userDetails.getId());
+            String refreshToken = jwtUtil.generateRefreshToken(email, role, userDetails.getId());
 
             // Set refresh token in HttpOnly cookie
             ResponseCookie cookie = ResponseCookie.from("refreshToken", refreshToken)
@@ -96,7 +99,8 @@ public class AuthController {
     }
     @PostMapping("/refresh")
     public ResponseEntity<ApiResponse<Map<String, String>>> refreshToken(@CookieValue(name = "refreshToken", required = false) String refreshToken) {
-        if (refreshToken == null || jwtUtil.isTokenExpired(refreshToken)) {
+        if (refreshToken == null || jwtUtil.parseValidClaims(refreshToken) == null
+                || tokenBlacklist.isBlacklisted(refreshToken)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Invalid or expired refresh token", null));
         }
@@ -106,7 +110,7 @@ public class AuthController {
             CustomUserDetails user = (CustomUserDetails) userService.loadUserByUsername(email);
             String role = user.getAuthorities().iterator().next().getAuthority();
 
-            String newAccessToken = jwtUtil.generateAccessToken(email, role);
+            String newAccessToken = jwtUtil.generateAccessToken(email, role, user.getId());
 
             Map<String, String> tokens = Map.of(
                     "accessToken", newAccessToken,
@@ -121,7 +125,8 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<String>> logout(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<String>> logout(HttpServletRequest request,
+                                                      @CookieValue(name = "refreshToken", required = false) String refreshToken) {
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -132,6 +137,7 @@ public class AuthController {
 
         // Add token to blacklist
         tokenBlacklist.blacklist(token);
+        tokenBlacklist.blacklist(refreshToken);
 
         // Clear authentication context
         SecurityContextHolder.clearContext();
@@ -139,6 +145,12 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success("Logged out successfully", null));
     }
 
+    @GetMapping("/filter-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFilterStats() {
+        return ResponseEntity.ok(ApiResponse.success("JWT filter statistics", jwtFilter.getStats()));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<User>> getCurrentUser() {
         try {
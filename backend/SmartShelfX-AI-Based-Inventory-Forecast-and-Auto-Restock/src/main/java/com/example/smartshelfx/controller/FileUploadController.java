@@ -1,20 +1,30 @@
 package com.example.smartshelfx.controller;
 
 import com.example.smartshelfx.dto.ApiResponse;
-import com.example.smartshelfx.model.Product;
-import com.example.smartshelfx.service.CSVImportService;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.BlobStoreService;
 import com.example.smartshelfx.service.FileStorageService;
+import com.example.smartshelfx.service.ImageThumbnailService;
+import com.example.smartshelfx.service.JobService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.Map;
 
 @RestController
@@ -24,12 +34,27 @@ import java.util.Map;
 public class FileUploadController {
 
     private final FileStorageService fileStorageService;
-    private final CSVImportService csvImportService;
+    private final JobService jobService;
+    private final ImageThumbnailService thumbnailService;
+    private final BlobStoreService blobStore;
+
+    // Request attributes understood by Tomcat's NIO connector (same ones its DefaultServlet sets)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${app.upload.image-cache-days:365}")
+    private long imageCacheDays;
+
+    @Value("${app.upload.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes;
 
     @PostMapping("/products/csv")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> importProductsFromCSV(
-            @RequestParam("file") MultipartFile file) { // Removed vendorId parameter
+    public ResponseEntity<ApiResponse<Job>> importProductsFromCSV(
+            @RequestParam("file") MultipartFile file, // Removed vendorId parameter
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
 
         try {
             if (file.isEmpty()) {
@@ -43,16 +68,10 @@ public class FileUploadController {
                         .body(ApiResponse.error("Please upload a CSV file", null));
             }
 
-            List<Product> importedProducts = csvImportService.importProductsFromCSV(file);
-
-            Map<String, Object> result = Map.of(
-                    "successCount", importedProducts.size(),
-                    "errorCount", 0,
-                    "importedProducts", importedProducts,
-                    "message", "Products imported successfully"
-            );
-
-            return ResponseEntity.ok(ApiResponse.success("CSV import completed successfully", result));
+            // The rows are imported by a job; the upload is kept so a restarted job can resume
+            String stored = fileStorageService.storeCSVFile(file);
+            Job job = jobService.submit(Job.Type.PRODUCT_IMPORT, Map.of("file", stored), userDetails.getUsername());
+            return JobController.accepted(job, "CSV import queued");
 
         } catch (Exception e) {
             log.error("Error importing products from CSV: {}", e.getMessage());
@@ -89,33 +108,122 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Streams a stored file without buffering it in the heap.
+     *
+     * ETag/Last-Modified come from the file's size and mtime, so repeat views are answered with
+     * 304. Range requests get 206 regions from Spring's Resource handling. Complete GETs of larger
+     * files are handed to Tomcat's sendfile (FileChannel.transferTo) when the connector supports
+     * it. Images are stored under unique names and never change, so they are cacheable for a year;
+     * with {@code size} (longest side in pixels) an image request gets the smallest pre-generated
+     * thumbnail that is at least that large. While that thumbnail is still being generated the
+     * original is served with no-cache instead, so it is not kept under the thumbnail's URL.
+     */
     @GetMapping("/files/{filename}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'VENDOR')")
-    public ResponseEntity<byte[]> getFile(
+    public ResponseEntity<Resource> getFile(
             @PathVariable String filename,
-            @RequestParam String type) { // type: 'images', 'csv', 'reports'
+            @RequestParam String type, // type: 'images', 'csv', 'reports'
+            @RequestParam(required = false) Integer size,
+            ServletWebRequest webRequest) {
 
         try {
-            String directory = getDirectoryByType(type);
-            byte[] fileContent = fileStorageService.loadFile(filename, directory);
+            boolean image = "images".equalsIgnoreCase(type);
+            Path path = image
+                    ? fileStorageService.resolveImage(filename, size)
+                    : fileStorageService.resolveFile(filename, type);
+            String servedName = downloadName(filename, path.getFileName().toString());
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long length = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+            MediaType mediaType = MediaTypeFactory.getMediaType(servedName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+            // SVG can carry script, so it is never rendered inline
+            boolean inline = image && !"svg+xml".equals(mediaType.getSubtype());
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(etag);
+            headers.setLastModified(lastModified);
+            boolean provisional = image && size != null && !thumbnailService.isVariant(path.getFileName().toString())
+                    && thumbnailService.variantsPending(path);
+            headers.setCacheControl(image && !provisional
+                    ? CacheControl.maxAge(Duration.ofDays(imageCacheDays)).cachePrivate().immutable()
+                    : CacheControl.noCache().cachePrivate());
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+            }
+
+            headers.setContentType(mediaType);
+            headers.setContentDisposition((inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                    .filename(servedName).build());
+
+            HttpServletRequest request = webRequest.getRequest();
+            if ("GET".equals(request.getMethod())
+                    && request.getHeader(HttpHeaders.RANGE) == null
+                    && length >= sendfileMinBytes
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return ResponseEntity.ok().headers(headers).contentLength(length).build();
+            }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(fileContent);
+            return ResponseEntity.ok().headers(headers).body(new FileSystemResource(path));
 
         } catch (IOException e) {
-            log.error("Error retrieving file {}: {}", filename, e.getMessage());
+            log.debug("File {} ({}) not served: {}", filename, type, e.getMessage());
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
-    private String getDirectoryByType(String type) {
-        switch (type.toLowerCase()) {
-            case "images": return "uploads/images";
-            case "csv": return "uploads/csv";
-            case "reports": return "uploads/reports";
-            default: throw new IllegalArgumentException("Invalid file type: " + type);
+    /**
+     * Product images for {@code <img>} tags, which cannot send the bearer token. Image names are
+     * random per upload, so only a client that was given the URL can load it, and nothing but
+     * images is served here.
+     */
+    @GetMapping("/images/{filename}")
+    public ResponseEntity<Resource> getImage(
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer size,
+            ServletWebRequest webRequest) {
+        return getFile(filename, "images", size, webRequest);
+    }
+
+    /**
+     * Name the client sees: blobs are named by hash, so the requested name is kept, with the
+     * variant suffix (".t256.jpg") carried over when a thumbnail is served.
+     */
+    private static String downloadName(String filename, String servedName) {
+        int suffix = servedName.indexOf('.');
+        if (suffix < 0 || servedName.equals(filename)) return filename;
+        int extension = filename.lastIndexOf('.');
+        return (extension > 0 ? filename.substring(0, extension) : filename) + servedName.substring(suffix);
+    }
+
+    @GetMapping("/blobs/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getBlobStats() {
+        return ResponseEntity.ok(ApiResponse.success("Upload store status", blobStore.getStats()));
+    }
+
+    @PostMapping("/blobs/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> collectBlobGarbage() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Unreferenced uploads removed", blobStore.collectGarbage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), null));
         }
     }
+
+    @GetMapping("/images/thumbnails/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getThumbnailStats() {
+        return ResponseEntity.ok(ApiResponse.success("Thumbnail pipeline status", thumbnailService.getStats()));
+    }
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.example.smartshelfx.controller;
 
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.security.CustomUserDetails;
 import com.example.smartshelfx.service.CSVImportService;
+import com.example.smartshelfx.service.FileStorageService;
+import com.example.smartshelfx.service.JobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,9 +27,16 @@ public class ImportExportController {
     @Autowired
     private CSVImportService csvService; // Changed to CSVImportService
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private JobService jobService;
+
     @PostMapping("/import/products")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<?> importProductsFromCSV(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importProductsFromCSV(@RequestParam("file") MultipartFile file,
+                                                   @AuthenticationPrincipal CustomUserDetails userDetails) {
         try {
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -36,13 +49,9 @@ public class ImportExportController {
                         .body(Map.of("error", "Please upload a CSV file"));
             }
 
-            var importedProducts = csvService.importProductsFromCSV(file);
-
-            return ResponseEntity.ok(Map.of(
-                    "message", "Products imported successfully",
-                    "importedCount", importedProducts.size(),
-                    "products", importedProducts
-            ));
+            String stored = fileStorageService.storeCSVFile(file);
+            Job job = jobService.submit(Job.Type.PRODUCT_IMPORT, Map.of("file", stored), userDetails.getUsername());
+            return JobController.accepted(job, "Product import queued");
 
         } catch (IOException e) {
             return ResponseEntity.internalServerError()
@@ -89,6 +98,22 @@ public class ImportExportController {
         }
     }
 
+    // Same exports as jobs, for catalogs too large to build within a request; the job result
+    // holds the download URL of the stored report
+    @PostMapping("/export/products/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Job>> startProductExport(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.PRODUCT_EXPORT, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Product export queued");
+    }
+
+    @PostMapping("/export/low-stock-report/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Job>> startLowStockExport(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.LOW_STOCK_EXPORT, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Low stock report queued");
+    }
+
     @GetMapping("/export/template")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<byte[]> downloadCSVTemplate() {
@@ -4,7 +4,6 @@ import com.example.smartshelfx.dto.ApiResponse;
 import com.example.smartshelfx.dto.StockInRequest;
 import com.example.smartshelfx.dto.StockOutRequest;
 import com.example.smartshelfx.model.StockTransaction;
-import com.example.smartshelfx.model.User;
 import com.example.smartshelfx.security.CustomUserDetails;
 import com.example.smartshelfx.service.InventoryService;
 import lombok.RequiredArgsConstructor;
@@ -30,13 +29,12 @@ public class InventoryController {
             @RequestBody StockInRequest request,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         try {
-            User currentUser = userDetails.getUser();
             StockTransaction transaction = inventoryService.addStock(
                     request.getProductId(),
                     request.getQuantity(),
                     request.getNotes(),
                     request.getReferenceNumber(),
-                    currentUser
+                    userDetails.getId()
             );
             return ResponseEntity.ok(ApiResponse.success("Stock added successfully", transaction));
         } catch (Exception e) {
@@ -51,13 +49,12 @@ public class InventoryController {
             @RequestBody StockOutRequest request,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         try {
-            User currentUser = userDetails.getUser();
             StockTransaction transaction = inventoryService.removeStock(
                     request.getProductId(),
                     request.getQuantity(),
                     request.getNotes(),
                     request.getReferenceNumber(),
-                    currentUser
+                    userDetails.getId()
             );
             return ResponseEntity.ok(ApiResponse.success("Stock removed successfully", transaction));
         } catch (Exception e) {
@@ -68,9 +65,11 @@ public class InventoryController {
 
     @GetMapping("/transactions")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ApiResponse<List<StockTransaction>>> getAllTransactions() {
+    public ResponseEntity<ApiResponse<List<StockTransaction>>> getAllTransactions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<StockTransaction> transactions = inventoryService.getAllTransactions();
+            List<StockTransaction> transactions = inventoryService.getAllTransactions(page, size);
             return ResponseEntity.ok(ApiResponse.success("Transactions fetched successfully", transactions));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -92,9 +91,12 @@ public class InventoryController {
 
     @GetMapping("/products/{productId}/transactions")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ApiResponse<List<StockTransaction>>> getProductTransactions(@PathVariable Long productId) {
+    public ResponseEntity<ApiResponse<List<StockTransaction>>> getProductTransactions(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<StockTransaction> transactions = inventoryService.getTransactionsByProduct(productId);
+            List<StockTransaction> transactions = inventoryService.getTransactionsByProduct(productId, page, size);
             return ResponseEntity.ok(ApiResponse.success("Product transactions fetched", transactions));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -0,0 +1,42 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.InventoryValuationService;
+import com.example.smartshelfx.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/valuation")
+@RequiredArgsConstructor
+public class InventoryValuationController {
+
+    private final InventoryValuationService inventoryValuationService;
+    private final JobService jobService;
+
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<InventoryValuationService.Totals> getSummary() {
+        return ApiResponse.success("Inventory valuation", inventoryValuationService.getTotals());
+    }
+
+    @GetMapping("/products/{productId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<Map<String, Object>> getProductValuation(@PathVariable Long productId) {
+        return ApiResponse.success("Product valuation", inventoryValuationService.getProductValuation(productId));
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> rebuild(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.VALUATION_REBUILD, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Inventory valuation rebuild queued");
+    }
+}
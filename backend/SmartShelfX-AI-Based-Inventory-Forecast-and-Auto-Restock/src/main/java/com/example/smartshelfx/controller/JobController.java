@@ -0,0 +1,58 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    /** 202 answer for endpoints that hand their work to a job: poll the Location for progress. */
+    static ResponseEntity<ApiResponse<Job>> accepted(Job job, String message) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(ApiResponse.success(message, job));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Job>> getJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Job " + id, jobService.getJob(id)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<List<Job>> getRecentJobs(@RequestParam(required = false) Job.Type type,
+                                                @RequestParam(defaultValue = "50") int limit) {
+        return ApiResponse.success("Recent jobs", jobService.getRecentJobs(type, limit));
+    }
+
+    @PostMapping("/{id}/cancel")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Job>> cancelJob(@PathVariable Long id) {
+        try {
+            Job job = jobService.cancel(id);
+            String message = job.getStatus() == Job.Status.RUNNING ? "Cancellation requested" : "Job " + job.getStatus();
+            return ResponseEntity.ok(ApiResponse.success(message, job));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+}
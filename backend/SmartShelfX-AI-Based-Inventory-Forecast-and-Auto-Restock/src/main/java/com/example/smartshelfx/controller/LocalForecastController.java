@@ -1,12 +1,22 @@
 package com.example.smartshelfx.controller;
 
 import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.dto.ForecastResult;
+import com.example.smartshelfx.dto.ModelSelectionReport;
+import com.example.smartshelfx.model.ForecastRun;
+import com.example.smartshelfx.model.Job;
 import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.ForecastModelSelectionService;
+import com.example.smartshelfx.service.ForecastPipelineService;
+import com.example.smartshelfx.service.JobService;
 import com.example.smartshelfx.service.LocalForecastService;
 import com.example.smartshelfx.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -19,6 +29,9 @@ public class LocalForecastController {
 
     private final LocalForecastService localForecastService;
     private final ProductService productService;
+    private final ForecastModelSelectionService modelSelectionService;
+    private final ForecastPipelineService pipelineService;
+    private final JobService jobService;
 
     @GetMapping("/product/{productId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -31,6 +44,84 @@ public class LocalForecastController {
         }
     }
 
+    @GetMapping("/algorithms")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<List<String>> getAlgorithms() {
+        return ApiResponse.success("Available local forecast algorithms", localForecastService.getAvailableAlgorithms());
+    }
+
+    @PostMapping("/product/{productId}/run")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<ForecastResult> runForecast(@PathVariable Long productId,
+                                                   @RequestParam(required = false) String algorithm,
+                                                   @RequestParam(defaultValue = "7") int horizonDays) {
+        try {
+            ForecastResult result = localForecastService.runForecast(productId, algorithm, horizonDays);
+            return ApiResponse.success("Forecast saved", result);
+        } catch (Exception e) {
+            return ApiResponse.error("Local forecasting failed: " + e.getMessage(), null);
+        }
+    }
+
+    @PostMapping("/catalog")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> forecastCatalog(@RequestParam(required = false) String algorithm,
+                                                            @RequestParam(defaultValue = "7") int horizonDays,
+                                                            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (horizonDays < 1) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("horizonDays must be at least 1", null));
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("algorithm", algorithm);
+        params.put("horizonDays", horizonDays);
+        Job job = jobService.submit(Job.Type.CATALOG_FORECAST, params, userDetails.getUsername());
+        return JobController.accepted(job, "Catalog forecast queued");
+    }
+
+    @PostMapping("/model-selection")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> runModelSelection(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.MODEL_SELECTION, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Model selection queued");
+    }
+
+    @GetMapping("/model-selection/last")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<ModelSelectionReport> getLastModelSelection() {
+        ModelSelectionReport report = modelSelectionService.getLastReport();
+        if (report == null) {
+            return ApiResponse.error("Model selection has not run yet", null);
+        }
+        return ApiResponse.success("Last model selection report", report);
+    }
+
+    @PostMapping("/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> reconcileForecasts(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.FORECAST_RECONCILIATION, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Forecast reconciliation queued");
+    }
+
+    @PostMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> startCatalogRun(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.FORECAST_PIPELINE, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Catalog forecast run queued");
+    }
+
+    @GetMapping("/runs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<List<ForecastRun>> getCatalogRuns() {
+        return ApiResponse.success("Recent catalog forecast runs", pipelineService.getRecentRuns());
+    }
+
+    @PostMapping("/reorder-points")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> recalculateReorderPoints(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.REORDER_POINTS, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Reorder point recalculation queued");
+    }
+
     @GetMapping("/restock-suggestions")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ApiResponse<List<Map<String, Object>>> getRestockSuggestions() {
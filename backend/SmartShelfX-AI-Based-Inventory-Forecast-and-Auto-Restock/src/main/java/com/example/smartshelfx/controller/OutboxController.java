@@ -0,0 +1,42 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.service.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/events/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OutboxDispatcher outboxDispatcher;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<Map<String, Object>> getStats() {
+        return ApiResponse.success("Outbox stats", outboxDispatcher.getStats());
+    }
+
+    @PostMapping("/retry-failed")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<Integer> retryFailed() {
+        int requeued = outboxDispatcher.retryFailed();
+        return ApiResponse.success(requeued + " failed events queued again", requeued);
+    }
+
+    @PostMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> purge() {
+        try {
+            int purged = outboxDispatcher.purgeProcessed();
+            return ResponseEntity.ok(ApiResponse.success(purged + " processed events deleted", purged));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.smartshelfx.controller;
 
 import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.dto.BatchPurchaseOrderRequest;
+import com.example.smartshelfx.dto.BatchPurchaseOrderResult;
 import com.example.smartshelfx.model.PurchaseOrder;
+import com.example.smartshelfx.service.PurchaseOrderBatchService;
 import com.example.smartshelfx.service.PurchaseOrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +21,7 @@ import java.util.List;
 public class PurchaseOrderController {
 
     private final PurchaseOrderService purchaseOrderService;
+    private final PurchaseOrderBatchService purchaseOrderBatchService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -34,6 +38,37 @@ public class PurchaseOrderController {
         }
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<BatchPurchaseOrderResult>> createPurchaseOrderBatch(
+            @RequestBody BatchPurchaseOrderRequest request,
+            @RequestParam Long createdBy) {
+        try {
+            BatchPurchaseOrderResult result = purchaseOrderBatchService.createBatch(request, createdBy);
+            return ResponseEntity.ok(ApiResponse.success("Purchase orders created: " + result.getLinesCreated()
+                    + " lines in " + result.getVendorOrders().size() + " vendor orders", result));
+        } catch (Exception e) {
+            log.error("Error creating purchase order batch: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to create purchase orders: " + e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/orders/{orderNumber}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'VENDOR')")
+    public ResponseEntity<ApiResponse<List<PurchaseOrder>>> getConsolidatedOrder(@PathVariable String orderNumber) {
+        try {
+            List<PurchaseOrder> lines = purchaseOrderService.getPurchaseOrdersByOrderGroup(orderNumber);
+            if (lines.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(ApiResponse.success("Purchase order lines retrieved successfully", lines));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve purchase order lines", null));
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'VENDOR')")
     public ResponseEntity<ApiResponse<List<PurchaseOrder>>> getAllPurchaseOrders() {
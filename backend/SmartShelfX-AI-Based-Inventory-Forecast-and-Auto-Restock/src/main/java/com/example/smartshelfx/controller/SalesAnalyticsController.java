@@ -0,0 +1,102 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.JobService;
+import com.example.smartshelfx.service.SalesCubeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sales analytics served from the daily sales cube. Ranges are inclusive dates and default to
+ * the last 30 days.
+ */
+@RestController
+@RequestMapping("/api/analytics/sales")
+@RequiredArgsConstructor
+public class SalesAnalyticsController {
+
+    private final SalesCubeService salesCubeService;
+    private final JobService jobService;
+
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<SalesCubeService.SalesSummary>> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return respond("Sales summary", () -> salesCubeService.getSummary(start, end));
+    }
+
+    @GetMapping("/trend")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<SalesCubeService.TrendPoint>>> getTrend(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long vendorId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return respond("Daily sales", () -> salesCubeService.getTrend(start, end, category, vendorId));
+    }
+
+    @GetMapping("/top-sellers")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<SalesCubeService.ProductSales>>> getTopSellers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "units") String by) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return respond("Top sellers", () -> salesCubeService.getTopSellers(start, end, category, limit,
+                "revenue".equalsIgnoreCase(by)));
+    }
+
+    @GetMapping("/by-category")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<SalesCubeService.GroupSales>>> getByCategory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return respond("Sales by category", () -> salesCubeService.getByCategory(start, end));
+    }
+
+    @GetMapping("/by-vendor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<SalesCubeService.GroupSales>>> getByVendor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return respond("Sales by vendor", () -> salesCubeService.getByVendor(start, end));
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> rebuild(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.SALES_CUBE_REBUILD, Map.of(), userDetails.getUsername());
+        return JobController.accepted(job, "Sales cube rebuild queued");
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> respond(String message, Supplier<T> query) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(message, query.get()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+}
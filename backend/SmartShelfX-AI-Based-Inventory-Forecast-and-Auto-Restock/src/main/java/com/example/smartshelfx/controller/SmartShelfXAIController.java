@@ -1,17 +1,33 @@
 package com.example.smartshelfx.controller;
 
+import com.example.smartshelfx.ai.AiCallLimiter;
+import com.example.smartshelfx.ai.InventorySummaryBuilder;
 import com.example.smartshelfx.ai.SmartShelfXAIService;
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.search.ProductSearchIndex;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/ai")
 public class SmartShelfXAIController {
 
     private final SmartShelfXAIService ai;
+    private final AiCallLimiter aiCallLimiter;
+    private final InventorySummaryBuilder inventorySummaryBuilder;
+    private final ProductSearchIndex productSearchIndex;
 
-    public SmartShelfXAIController(SmartShelfXAIService ai) {
+    public SmartShelfXAIController(SmartShelfXAIService ai, AiCallLimiter aiCallLimiter,
+                                   InventorySummaryBuilder inventorySummaryBuilder,
+                                   ProductSearchIndex productSearchIndex) {
         this.ai = ai;
+        this.aiCallLimiter = aiCallLimiter;
+        this.inventorySummaryBuilder = inventorySummaryBuilder;
+        this.productSearchIndex = productSearchIndex;
     }
 
     @GetMapping("/forecast")
@@ -66,4 +82,30 @@ public class SmartShelfXAIController {
         }
     }
 
+    @GetMapping("/limiter-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getLimiterStats() {
+        return ResponseEntity.ok(ApiResponse.success("AI call limiter statistics", aiCallLimiter.getStats()));
+    }
+
+    // Prompt context as sent to the model, with its measured size and build time
+    @GetMapping("/inventory-summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<InventorySummaryBuilder.InventorySummary>> getInventorySummary() {
+        return ResponseEntity.ok(ApiResponse.success("Inventory summary built", inventorySummaryBuilder.build()));
+    }
+
+    // Products the chat would be grounded with for this text
+    @GetMapping("/product-search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<ProductSearchIndex.ProductMatch>>> searchProducts(@RequestParam String q) {
+        return ResponseEntity.ok(ApiResponse.success("Matching products", productSearchIndex.findRelevantProducts(q)));
+    }
+
+    @GetMapping("/product-search/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getProductSearchStats() {
+        return ResponseEntity.ok(ApiResponse.success("Product search index statistics", productSearchIndex.getStats()));
+    }
+
 }
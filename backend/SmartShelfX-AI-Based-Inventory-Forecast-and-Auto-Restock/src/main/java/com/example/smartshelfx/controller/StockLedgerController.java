@@ -0,0 +1,68 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.dto.ApiResponse;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.JobService;
+import com.example.smartshelfx.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stock-ledger")
+@RequiredArgsConstructor
+public class StockLedgerController {
+
+    private final StockLedgerService stockLedgerService;
+    private final JobService jobService;
+
+    @GetMapping("/products/{productId}/stock")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ApiResponse<StockLedgerService.StockAt> getStockAt(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ApiResponse.success("Stock from the ledger",
+                stockLedgerService.stockAt(productId, at != null ? at : LocalDateTime.now()));
+    }
+
+    @GetMapping("/products/{productId}/history")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<List<StockLedgerService.DailyStock>>> getStockHistory(
+            @PathVariable Long productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Daily closing stock",
+                    stockLedgerService.stockHistory(productId, from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> takeSnapshots() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Stock snapshots up to date", stockLedgerService.takeSnapshots()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/check")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Job>> checkConsistency(@RequestParam(defaultValue = "false") boolean repair,
+                                                             @AuthenticationPrincipal CustomUserDetails userDetails) {
+        Job job = jobService.submit(Job.Type.STOCK_LEDGER_CHECK, Map.of("repair", repair), userDetails.getUsername());
+        return JobController.accepted(job, "Stock ledger check queued");
+    }
+}
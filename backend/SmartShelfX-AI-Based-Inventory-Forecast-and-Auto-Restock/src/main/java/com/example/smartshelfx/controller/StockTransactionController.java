@@ -3,6 +3,7 @@ package com.example.smartshelfx.controller;
 import com.example.smartshelfx.dto.ApiResponse;
 import com.example.smartshelfx.model.StockTransaction;
 import com.example.smartshelfx.service.StockTransactionService;
+import com.example.smartshelfx.service.TransactionPartitionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stock-transactions")
@@ -20,6 +22,7 @@ import java.util.List;
 public class StockTransactionController {
 
     private final StockTransactionService stockTransactionService;
+    private final TransactionPartitionService partitionService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -39,9 +42,11 @@ public class StockTransactionController {
     @GetMapping("/product/{productId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'VENDOR')")
     public ResponseEntity<ApiResponse<List<StockTransaction>>> getTransactionsByProduct(
-            @PathVariable Long productId) {
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<StockTransaction> transactions = stockTransactionService.getTransactionsByProduct(productId);
+            List<StockTransaction> transactions = stockTransactionService.getTransactionsByProduct(productId, page, size);
             return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -65,9 +70,11 @@ public class StockTransactionController {
     @GetMapping("/type/{type}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<ApiResponse<List<StockTransaction>>> getTransactionsByType(
-            @PathVariable StockTransaction.TransactionType type) {
+            @PathVariable StockTransaction.TransactionType type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<StockTransaction> transactions = stockTransactionService.getTransactionsByType(type);
+            List<StockTransaction> transactions = stockTransactionService.getTransactionsByType(type, page, size);
             return ResponseEntity.ok(ApiResponse.success("Transactions retrieved by type", transactions));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -110,4 +117,29 @@ public class StockTransactionController {
                     .body(ApiResponse.error("Failed to retrieve analytics", null));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/partitions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<TransactionPartitionService.PartitionInfo>>> getPartitions() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Partitions retrieved", partitionService.listPartitions()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve partitions", null));
+        }
+    }
+
+    @PostMapping("/partitions/maintain")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> maintainPartitions() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Partition maintenance completed", partitionService.maintain()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), null));
+        } catch (Exception e) {
+            log.error("Partition maintenance failed: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Partition maintenance failed: " + e.getMessage(), null));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.smartshelfx.controller;
+
+import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.service.EventStreamService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@RequiredArgsConstructor
+@Slf4j
+public class StreamController {
+
+    private final EventStreamService eventStreamService;
+
+    /**
+     * Push channel for alerts, stock changes and purchase-order updates.
+     * Events: ready, alert, alerts-read, stock-changed, purchase-order (plus heartbeat comments).
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal CustomUserDetails userDetails, HttpServletResponse response) {
+        // Keep reverse proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return eventStreamService.subscribe(userDetails.getId(), userDetails.getRole());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.smartshelfx.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reorder lines to turn into one consolidated purchase order per vendor. vendorId and
+ * unitPrice default to the product's vendor and price.
+ */
+@Data
+public class BatchPurchaseOrderRequest {
+    private List<Line> lines = new ArrayList<>();
+    private LocalDate expectedDelivery;
+    private String notes;
+
+    @Data
+    public static class Line {
+        private Long productId;
+        private Long vendorId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+    }
+}
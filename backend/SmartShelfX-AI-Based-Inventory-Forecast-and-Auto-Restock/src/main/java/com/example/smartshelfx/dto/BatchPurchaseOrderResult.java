@@ -0,0 +1,31 @@
+package com.example.smartshelfx.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPurchaseOrderResult {
+    private int requestedLines;
+    private int linesCreated;
+    private List<VendorOrder> vendorOrders;
+    private List<String> skipped;
+    private long durationMs;
+
+    @Data
+    @AllArgsConstructor
+    public static class VendorOrder {
+        private String orderNumber;
+        private Long vendorId;
+        private String vendorName;
+        private int lines;
+        private long units;
+        private BigDecimal totalAmount;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.smartshelfx.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelSelectionReport {
+    private LocalDateTime startedAt;
+    private Long durationMs;
+    private Integer parallelism;
+    private Integer historyDays;
+    private Integer origins;
+    private Integer horizonDays;
+    private Integer productsScanned;
+    private Integer productsSelected;
+    private Integer productsSkipped;
+    private Long backtestsRun;
+    private Double productsPerSecond;
+    private Double backtestsPerSecond;
+    private Map<String, Long> winsByAlgorithm;
+    private Map<String, Double> meanMaseByWinner;
+}
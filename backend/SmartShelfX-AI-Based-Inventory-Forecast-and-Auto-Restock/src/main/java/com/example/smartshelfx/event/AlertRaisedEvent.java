@@ -0,0 +1,29 @@
+package com.example.smartshelfx.event;
+
+import com.example.smartshelfx.model.Alert;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a new alert row is saved.
+ */
+public record AlertRaisedEvent(Long alertId,
+                               Long productId,
+                               String productName,
+                               String type,
+                               String priority,
+                               String title,
+                               String message,
+                               LocalDateTime createdAt) {
+
+    public static AlertRaisedEvent of(Alert alert) {
+        return new AlertRaisedEvent(alert.getId(),
+                alert.getProduct() != null ? alert.getProduct().getId() : null,
+                alert.getProduct() != null ? alert.getProduct().getName() : null,
+                alert.getType().name(),
+                alert.getPriority() != null ? alert.getPriority().name() : null,
+                alert.getTitle(),
+                alert.getMessage(),
+                alert.getCreatedAt());
+    }
+}
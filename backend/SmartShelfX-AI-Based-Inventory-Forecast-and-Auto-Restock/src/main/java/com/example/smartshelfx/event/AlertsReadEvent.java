@@ -0,0 +1,32 @@
+package com.example.smartshelfx.event;
+
+import com.example.smartshelfx.model.Alert;
+
+import java.util.List;
+
+/**
+ * Published when alerts are marked read, resolved or expired.
+ *
+ * Bulk updates run as set-based statements, so the event describes the scope instead of
+ * listing every row: {@code all} means every unread alert, otherwise {@code type} (and
+ * optionally {@code productId}) or the explicit {@code alertIds}. An empty scope only tells
+ * clients to refresh their unread count.
+ */
+public record AlertsReadEvent(List<Long> alertIds,
+                              boolean all,
+                              Long productId,
+                              String type,
+                              int count) {
+
+    public static AlertsReadEvent ofIds(List<Long> alertIds, int count) {
+        return new AlertsReadEvent(alertIds, false, null, null, count);
+    }
+
+    public static AlertsReadEvent ofAll(int count) {
+        return new AlertsReadEvent(List.of(), true, null, null, count);
+    }
+
+    public static AlertsReadEvent ofScope(Long productId, Alert.AlertType type, int count) {
+        return new AlertsReadEvent(List.of(), false, productId, type != null ? type.name() : null, count);
+    }
+}
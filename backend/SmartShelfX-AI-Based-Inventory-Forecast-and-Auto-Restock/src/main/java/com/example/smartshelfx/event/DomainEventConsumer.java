@@ -0,0 +1,43 @@
+package com.example.smartshelfx.event;
+
+import java.util.List;
+
+/**
+ * Asynchronous side effect of a domain event, fed from the outbox in batches.
+ *
+ * A batch is handled in one transaction together with marking its rows processed, so database
+ * work done here happens once. Anything outside the database (mail) is at-least-once: a batch
+ * that fails is retried row by row. The name addresses the outbox rows, so renaming a consumer
+ * strands the rows still pending for the old name.
+ */
+public interface DomainEventConsumer<E> {
+
+    String getName();
+
+    Class<E> getEventType();
+
+    void handle(List<E> events) throws Exception;
+
+    interface Body<E> {
+        void handle(List<E> events) throws Exception;
+    }
+
+    static <E> DomainEventConsumer<E> of(String name, Class<E> eventType, Body<E> body) {
+        return new DomainEventConsumer<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Class<E> getEventType() {
+                return eventType;
+            }
+
+            @Override
+            public void handle(List<E> events) throws Exception {
+                body.handle(events);
+            }
+        };
+    }
+}
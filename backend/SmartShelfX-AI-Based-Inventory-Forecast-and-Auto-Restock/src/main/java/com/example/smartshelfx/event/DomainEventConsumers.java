@@ -0,0 +1,42 @@
+package com.example.smartshelfx.event;
+
+import com.example.smartshelfx.service.AlertService;
+import com.example.smartshelfx.service.PurchaseOrderService;
+import com.example.smartshelfx.service.SalesCubeService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Side effects that used to run inside the write methods, now fed from the outbox. Each
+ * consumer gets its own outbox rows, so a failing mail server only delays the mail consumers.
+ */
+@Configuration
+public class DomainEventConsumers {
+
+    @Bean
+    DomainEventConsumer<PurchaseOrderStatusChangedEvent> purchaseOrderNotifications(PurchaseOrderService purchaseOrderService) {
+        return DomainEventConsumer.of("purchase-order-notifications", PurchaseOrderStatusChangedEvent.class,
+                purchaseOrderService::notifyStatusChanges);
+    }
+
+    @Bean
+    DomainEventConsumer<PurchaseOrderStatusChangedEvent> purchaseOrderReceiving(PurchaseOrderService purchaseOrderService) {
+        return DomainEventConsumer.of("purchase-order-receiving", PurchaseOrderStatusChangedEvent.class,
+                purchaseOrderService::receiveDeliveries);
+    }
+
+    @Bean
+    DomainEventConsumer<StockChangedEvent> lowStockAlerts(AlertService alertService) {
+        return DomainEventConsumer.of("low-stock-alerts", StockChangedEvent.class, alertService::evaluateLowStock);
+    }
+
+    @Bean
+    DomainEventConsumer<StockChangedEvent> salesCube(SalesCubeService salesCubeService) {
+        return DomainEventConsumer.of(SalesCubeService.CONSUMER, StockChangedEvent.class, salesCubeService::applyStockChanges);
+    }
+
+    @Bean
+    DomainEventConsumer<AlertRaisedEvent> alertNotifications(AlertService alertService) {
+        return DomainEventConsumer.of("alert-notifications", AlertRaisedEvent.class, alertService::notifyAlerts);
+    }
+}
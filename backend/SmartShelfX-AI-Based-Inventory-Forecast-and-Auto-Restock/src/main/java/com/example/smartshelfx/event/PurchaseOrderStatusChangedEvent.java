@@ -0,0 +1,32 @@
+package com.example.smartshelfx.event;
+
+import com.example.smartshelfx.model.PurchaseOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a purchase order is created or moves to a new status. Orders created by a
+ * batch publish one event per vendor order: purchaseOrderId and productId are null and
+ * poNumber is the order group. actorId is the user who made the change, when known.
+ */
+public record PurchaseOrderStatusChangedEvent(Long purchaseOrderId,
+                                              String poNumber,
+                                              Long productId,
+                                              Long vendorId,
+                                              String status,
+                                              LocalDateTime changedAt,
+                                              Long actorId) {
+
+    public static PurchaseOrderStatusChangedEvent of(PurchaseOrder po) {
+        return of(po, null);
+    }
+
+    public static PurchaseOrderStatusChangedEvent of(PurchaseOrder po, Long actorId) {
+        return new PurchaseOrderStatusChangedEvent(po.getId(), po.getPoNumber(),
+                po.getProduct() != null ? po.getProduct().getId() : null,
+                po.getVendor() != null ? po.getVendor().getId() : null,
+                po.getStatus().name(),
+                LocalDateTime.now(),
+                actorId);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.smartshelfx.event;
+
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.model.StockTransaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a stock movement is written (IN or OUT).
+ */
+public record StockChangedEvent(Long productId,
+                                String productName,
+                                String type,
+                                int quantity,
+                                int newStock,
+                                Integer reorderLevel,
+                                LocalDateTime timestamp,
+                                Long transactionId,
+                                String referenceNumber) {
+
+    public static StockChangedEvent of(StockTransaction transaction) {
+        Product product = transaction.getProduct();
+        return new StockChangedEvent(product.getId(), product.getName(), transaction.getType().name(),
+                transaction.getQuantity(), product.getCurrentStock(), product.getReorderLevel(),
+                transaction.getTimestamp(), transaction.getId(), transaction.getReferenceNumber());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.smartshelfx.forecast;
+
+/**
+ * Accuracy of one algorithm on one product, averaged over the rolling origins.
+ * MAPE is NaN when every actual in the test windows was zero.
+ */
+public record BacktestScore(String algorithm, double mase, double mape, int origins) {
+
+    public boolean isValid() {
+        return origins > 0 && !Double.isNaN(mase);
+    }
+}
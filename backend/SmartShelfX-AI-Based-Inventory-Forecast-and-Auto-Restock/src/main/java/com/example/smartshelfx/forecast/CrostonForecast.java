@@ -0,0 +1,82 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Croston's method for intermittent demand: smooths the non-zero demand size and the
+ * interval between demands separately, and forecasts their ratio as the daily rate.
+ */
+@Component
+public class CrostonForecast implements ForecastAlgorithm {
+
+    public static final String NAME = "CROSTON";
+
+    private static final double ALPHA = 0.1;
+
+    private final String name;
+    private final double biasCorrection;
+
+    public CrostonForecast() {
+        this(NAME, 1.0);
+    }
+
+    protected CrostonForecast(String name, double biasCorrection) {
+        this.name = name;
+        this.biasCorrection = biasCorrection;
+    }
+
+    protected static double alpha() {
+        return ALPHA;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ForecastOutput forecast(double[] history, int length, int horizon) {
+        if (length == 0) return ForecastOutput.empty(name, horizon);
+
+        double size = 0;      // smoothed non-zero demand size
+        double interval = 0;  // smoothed interval between demands
+        int sinceLast = 0;    // periods since the last non-zero demand
+        boolean initialised = false;
+
+        double demandSum = 0;
+        double absErrorSum = 0;
+        int errorCount = 0;
+
+        for (int t = 0; t < length; t++) {
+            double x = history[t];
+            demandSum += x;
+            sinceLast++;
+
+            if (initialised) {
+                absErrorSum += Math.abs(x - biasCorrection * size / interval);
+                errorCount++;
+            }
+
+            if (x > 0) {
+                if (!initialised) {
+                    size = x;
+                    interval = sinceLast;
+                    initialised = true;
+                } else {
+                    size += ALPHA * (x - size);
+                    interval += ALPHA * (sinceLast - interval);
+                }
+                sinceLast = 0;
+            }
+        }
+
+        double[] values = new double[horizon];
+        if (initialised) {
+            Arrays.fill(values, biasCorrection * size / interval);
+        }
+
+        return ForecastOutput.of(name, values, absErrorSum, errorCount, demandSum, length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.smartshelfx.forecast;
+
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import com.example.smartshelfx.repository.StockTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds dense daily demand series (OUT quantities) for many products with one grouped
+ * query per chunk of ids, instead of loading every transaction entity per product.
+ * Days older than the database's oldest partition come from the transaction archive.
+ */
+@Component
+@RequiredArgsConstructor
+public class DemandHistoryLoader {
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final StockTransactionRepository stockTransactionRepository;
+    private final StockTransactionArchive archive;
+
+    /**
+     * @return one array per requested product, index 0 = {@code days - 1} days ago, last index = today.
+     * Products without sales get an all-zero series.
+     */
+    public Map<Long, double[]> loadDailyDemand(Collection<Long> productIds, int days) {
+        LocalDate start = LocalDate.now().minusDays(days - 1L);
+
+        Map<Long, double[]> series = new HashMap<>(productIds.size() * 2);
+        for (Long id : productIds) {
+            series.put(id, new double[days]);
+        }
+
+        List<Long> ids = List.copyOf(productIds);
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+
+            for (Object[] row : stockTransactionRepository.findDailySalesByProducts(chunk, start.atStartOfDay())) {
+                double[] target = series.get(((Number) row[0]).longValue());
+                LocalDate day = toLocalDate(row[1]);
+                if (target == null || day == null || row[2] == null) continue;
+
+                int index = (int) ChronoUnit.DAYS.between(start, day);
+                if (index >= 0 && index < days) {
+                    target[index] += ((Number) row[2]).doubleValue();
+                }
+            }
+        }
+
+        LocalDate archivedUntil = archive.archivedUntil();
+        if (archivedUntil != null && start.isBefore(archivedUntil)) {
+            archive.forEachDailySale(productIds, start, archivedUntil, (productId, day, quantity) -> {
+                double[] target = series.get(productId);
+                int index = (int) ChronoUnit.DAYS.between(start, day);
+                if (target != null && index >= 0 && index < days) {
+                    target[index] += quantity;
+                }
+            });
+        }
+        return series;
+    }
+
+    public double[] loadDailyDemand(Long productId, int days) {
+        return loadDailyDemand(List.of(productId), days).get(productId);
+    }
+
+    // DATE() comes back as java.sql.Date, LocalDate or a string depending on driver/dialect
+    static LocalDate toLocalDate(Object value) {
+        if (value == null) return null;
+        if (value instanceof LocalDate d) return d;
+        if (value instanceof java.sql.Date d) return d.toLocalDate();
+        if (value instanceof Timestamp t) return t.toLocalDateTime().toLocalDate();
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+}
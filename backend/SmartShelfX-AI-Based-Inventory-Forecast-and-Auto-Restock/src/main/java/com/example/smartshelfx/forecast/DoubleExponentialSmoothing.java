@@ -0,0 +1,48 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Holt's linear (double) exponential smoothing: level + trend.
+ * Suited to products whose demand is steadily growing or declining.
+ */
+@Component
+public class DoubleExponentialSmoothing implements ForecastAlgorithm {
+
+    public static final String NAME = "HOLT";
+
+    private static final double ALPHA = 0.3;
+    private static final double BETA = 0.1;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ForecastOutput forecast(double[] history, int length, int horizon) {
+        if (length == 0) return ForecastOutput.empty(NAME, horizon);
+
+        double level = history[0];
+        double trend = length > 1 ? history[1] - history[0] : 0;
+        double demandSum = history[0];
+        double absErrorSum = 0;
+
+        for (int t = 1; t < length; t++) {
+            double x = history[t];
+            absErrorSum += Math.abs(x - (level + trend));
+
+            double previousLevel = level;
+            level = ALPHA * x + (1 - ALPHA) * (level + trend);
+            trend = BETA * (level - previousLevel) + (1 - BETA) * trend;
+            demandSum += x;
+        }
+
+        double[] values = new double[horizon];
+        for (int h = 0; h < horizon; h++) {
+            values[h] = level + (h + 1) * trend;
+        }
+
+        return ForecastOutput.of(NAME, values, absErrorSum, length - 1, demandSum, length);
+    }
+}
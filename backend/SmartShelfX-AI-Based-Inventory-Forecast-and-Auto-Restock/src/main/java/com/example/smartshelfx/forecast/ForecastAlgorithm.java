@@ -0,0 +1,26 @@
+package com.example.smartshelfx.forecast;
+
+/**
+ * Local (non-LLM) demand forecasting model.
+ *
+ * Implementations receive a dense daily demand series (oldest day first, one slot per day,
+ * zero for days without sales) and must fit it in a single O(n) pass over the primitive array.
+ * They are stateless Spring beans, so one instance is shared by all threads.
+ */
+public interface ForecastAlgorithm {
+
+    /**
+     * Identifier stored in {@code Forecast.algorithmUsed}, e.g. "HOLT_WINTERS".
+     */
+    String getName();
+
+    /**
+     * Fit the model on {@code history[0..length)} and forecast the next {@code horizon} days.
+     * Passing a length lets callers replay a prefix of the series without copying it.
+     */
+    ForecastOutput forecast(double[] history, int length, int horizon);
+
+    default ForecastOutput forecast(double[] history, int horizon) {
+        return forecast(history, history.length, horizon);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rolling-origin backtest: the series is cut at {@code origins} points, each model is fitted on
+ * the prefix before the cut and scored on the following {@code horizon} days.
+ *
+ * Models are fitted on prefixes of the original array (no copies), and the MASE scale
+ * (mean absolute one-step naive error of the training prefix) comes from a prefix sum,
+ * so scoring a product costs O(algorithms x origins x n).
+ */
+@Component
+public class ForecastBacktester {
+
+    /** Shortest training prefix worth fitting (four weeks). */
+    public static final int MIN_TRAINING_DAYS = 28;
+
+    public BacktestScore score(ForecastAlgorithm algorithm, double[] history, double[] naiveErrorPrefix,
+                               int origins, int horizon) {
+        double maseSum = 0;
+        double mapeSum = 0;
+        int mapeOrigins = 0;
+        int evaluated = 0;
+
+        for (int k = origins; k >= 1; k--) {
+            int origin = history.length - k * horizon;
+            if (origin < MIN_TRAINING_DAYS) continue;
+
+            double[] predicted = algorithm.forecast(history, origin, horizon).getValues();
+
+            double absError = 0;
+            double pctError = 0;
+            int nonZero = 0;
+            double actualSum = 0;
+            for (int h = 0; h < horizon; h++) {
+                double actual = history[origin + h];
+                double error = Math.abs(actual - predicted[h]);
+                absError += error;
+                actualSum += actual;
+                if (actual > 0) {
+                    pctError += error / actual;
+                    nonZero++;
+                }
+            }
+
+            double mae = absError / horizon;
+            double scale = naiveErrorPrefix[origin - 1] / (origin - 1);
+            if (scale > 0) {
+                maseSum += mae / scale;
+            } else {
+                // Flat training series: fall back to error relative to the demand level
+                maseSum += mae == 0 ? 0 : mae / Math.max(1.0, actualSum / horizon);
+            }
+            if (nonZero > 0) {
+                mapeSum += 100.0 * pctError / nonZero;
+                mapeOrigins++;
+            }
+            evaluated++;
+        }
+
+        if (evaluated == 0) {
+            return new BacktestScore(algorithm.getName(), Double.NaN, Double.NaN, 0);
+        }
+        return new BacktestScore(algorithm.getName(),
+                maseSum / evaluated,
+                mapeOrigins > 0 ? mapeSum / mapeOrigins : Double.NaN,
+                evaluated);
+    }
+
+    /**
+     * Scores every candidate and returns the one with the lowest MASE,
+     * or {@code null} when the history is too short for any origin.
+     */
+    public BacktestScore selectBest(List<ForecastAlgorithm> candidates, double[] history, int origins, int horizon) {
+        double[] naiveErrorPrefix = naiveErrorPrefix(history);
+
+        BacktestScore best = null;
+        for (ForecastAlgorithm algorithm : candidates) {
+            BacktestScore score = score(algorithm, history, naiveErrorPrefix, origins, horizon);
+            if (score.isValid() && (best == null || score.mase() < best.mase())) {
+                best = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * prefix[i] = sum of |x[t] - x[t-1]| for t in 1..i, so the naive scale of the first
+     * {@code n} points is prefix[n - 1] / (n - 1).
+     */
+    static double[] naiveErrorPrefix(double[] history) {
+        double[] prefix = new double[Math.max(1, history.length)];
+        for (int t = 1; t < history.length; t++) {
+            prefix[t] = prefix[t - 1] + Math.abs(history[t] - history[t - 1]);
+        }
+        return prefix;
+    }
+}
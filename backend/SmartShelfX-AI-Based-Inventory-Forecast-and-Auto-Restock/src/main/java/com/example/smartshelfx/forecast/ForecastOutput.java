@@ -0,0 +1,85 @@
+package com.example.smartshelfx.forecast;
+
+/**
+ * Result of a single {@link ForecastAlgorithm} run.
+ *
+ * The confidence score is derived from the one-step-ahead errors collected while fitting:
+ * 1 / (1 + MAE / mean demand), so a perfect fit scores 1.0 and the score decays towards 0
+ * as the in-sample error grows relative to the demand level.
+ */
+public final class ForecastOutput {
+
+    private final String algorithm;
+    private final double[] values;
+    private final double meanAbsoluteError;
+    private final double confidenceScore;
+
+    private ForecastOutput(String algorithm, double[] values, double meanAbsoluteError, double confidenceScore) {
+        this.algorithm = algorithm;
+        this.values = values;
+        this.meanAbsoluteError = meanAbsoluteError;
+        this.confidenceScore = confidenceScore;
+    }
+
+    /**
+     * @param absErrorSum sum of |actual - one-step forecast| over the fitted observations
+     * @param errorCount  number of observations that contributed to {@code absErrorSum}
+     * @param demandSum   sum of the history the model was fitted on
+     * @param length      number of history points the model was fitted on
+     */
+    public static ForecastOutput of(String algorithm, double[] values,
+                                    double absErrorSum, int errorCount,
+                                    double demandSum, int length) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < 0) values[i] = 0;
+        }
+
+        if (errorCount == 0 || length == 0) {
+            return new ForecastOutput(algorithm, values, 0.0, 0.0);
+        }
+
+        double mae = absErrorSum / errorCount;
+        double meanDemand = demandSum / length;
+        double confidence;
+        if (meanDemand <= 0) {
+            confidence = mae == 0 ? 1.0 : 0.0;
+        } else {
+            confidence = 1.0 / (1.0 + mae / meanDemand);
+        }
+        return new ForecastOutput(algorithm, values, mae, confidence);
+    }
+
+    public static ForecastOutput empty(String algorithm, int horizon) {
+        return new ForecastOutput(algorithm, new double[horizon], 0.0, 0.0);
+    }
+
+    /**
+     * Same forecast reported under another algorithm name (used when a model falls back
+     * to a simpler one for short histories).
+     */
+    public ForecastOutput renamed(String name) {
+        return new ForecastOutput(name, values, meanAbsoluteError, confidenceScore);
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public double getMeanAbsoluteError() {
+        return meanAbsoluteError;
+    }
+
+    public double getConfidenceScore() {
+        return confidenceScore;
+    }
+
+    public double getTotal() {
+        double total = 0;
+        for (double v : values) total += v;
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Additive Holt-Winters with a weekly (7-day) season.
+ *
+ * Needs at least two full weeks of history to initialise the seasonal indices;
+ * shorter series fall back to plain Holt smoothing.
+ */
+@Component
+public class HoltWintersForecast implements ForecastAlgorithm {
+
+    public static final String NAME = "HOLT_WINTERS";
+
+    private static final int SEASON = 7;
+    private static final double ALPHA = 0.3;
+    private static final double BETA = 0.05;
+    private static final double GAMMA = 0.2;
+
+    private final DoubleExponentialSmoothing fallback = new DoubleExponentialSmoothing();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ForecastOutput forecast(double[] history, int length, int horizon) {
+        if (length < 2 * SEASON) {
+            return fallback.forecast(history, length, horizon).renamed(NAME);
+        }
+
+        // Initialise from the first two seasons
+        double firstSeason = 0;
+        double secondSeason = 0;
+        for (int i = 0; i < SEASON; i++) {
+            firstSeason += history[i];
+            secondSeason += history[i + SEASON];
+        }
+        firstSeason /= SEASON;
+        secondSeason /= SEASON;
+
+        double level = firstSeason;
+        double trend = (secondSeason - firstSeason) / SEASON;
+        double[] seasonal = new double[SEASON];
+        for (int i = 0; i < SEASON; i++) {
+            seasonal[i] = history[i] - firstSeason;
+        }
+
+        double demandSum = firstSeason * SEASON;
+        double absErrorSum = 0;
+
+        for (int t = SEASON; t < length; t++) {
+            double x = history[t];
+            int s = t % SEASON;
+
+            absErrorSum += Math.abs(x - (level + trend + seasonal[s]));
+
+            double previousLevel = level;
+            level = ALPHA * (x - seasonal[s]) + (1 - ALPHA) * (level + trend);
+            trend = BETA * (level - previousLevel) + (1 - BETA) * trend;
+            seasonal[s] = GAMMA * (x - level) + (1 - GAMMA) * seasonal[s];
+            demandSum += x;
+        }
+
+        double[] values = new double[horizon];
+        for (int h = 0; h < horizon; h++) {
+            values[h] = level + (h + 1) * trend + seasonal[(length + h) % SEASON];
+        }
+
+        return ForecastOutput.of(NAME, values, absErrorSum, length - SEASON, demandSum, length);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Trailing 7-day mean, the same rule LocalForecastService has always used.
+ * Kept as a baseline so the other models can be compared against it.
+ */
+@Component
+public class MovingAverageForecast implements ForecastAlgorithm {
+
+    public static final String NAME = "MOVING_AVERAGE";
+
+    private static final int WINDOW = 7;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ForecastOutput forecast(double[] history, int length, int horizon) {
+        if (length == 0) return ForecastOutput.empty(NAME, horizon);
+
+        double windowSum = 0;
+        double demandSum = 0;
+        double absErrorSum = 0;
+        int errorCount = 0;
+
+        for (int t = 0; t < length; t++) {
+            int filled = Math.min(t, WINDOW);
+            if (filled > 0) {
+                absErrorSum += Math.abs(history[t] - windowSum / filled);
+                errorCount++;
+            }
+            windowSum += history[t];
+            if (t >= WINDOW) windowSum -= history[t - WINDOW];
+            demandSum += history[t];
+        }
+
+        double level = windowSum / Math.min(length, WINDOW);
+        double[] values = new double[horizon];
+        Arrays.fill(values, level);
+
+        return ForecastOutput.of(NAME, values, absErrorSum, errorCount, demandSum, length);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.smartshelfx.forecast;
+
+/**
+ * Safety stock and reorder point from daily demand statistics:
+ *
+ *   SS  = z * sigma_d * sqrt(L)
+ *   ROP = mu_d * L + SS
+ *
+ * where mu_d / sigma_d are the mean and sample standard deviation of daily demand,
+ * L is the lead time in days and z the normal quantile of the target cycle service level.
+ */
+public final class SafetyStockCalculator {
+
+    private SafetyStockCalculator() {
+    }
+
+    /**
+     * Computes {safetyStock, reorderPoint} for a chunk of products in one pass.
+     *
+     * @param demand    row-major matrix, {@code rows x days}, one product per row
+     * @param days      number of daily values used per row (complete days only)
+     * @param stride    row length in {@code demand}
+     * @param leadTimes lead time in days per row
+     * @param out       receives 2 values per row; rows without any demand get -1 / -1
+     */
+    public static void compute(double[] demand, int rows, int days, int stride,
+                               int[] leadTimes, double z, int[] out) {
+        for (int r = 0; r < rows; r++) {
+            int base = r * stride;
+            double sum = 0;
+            double sumSq = 0;
+            for (int i = base, end = base + days; i < end; i++) {
+                double d = demand[i];
+                sum += d;
+                sumSq += d * d;
+            }
+
+            if (sum <= 0 || days < 2) {
+                out[2 * r] = -1;
+                out[2 * r + 1] = -1;
+                continue;
+            }
+
+            double mean = sum / days;
+            double variance = Math.max(0, (sumSq - sum * mean) / (days - 1));
+            int leadTime = Math.max(1, leadTimes[r]);
+
+            double safetyStock = z * Math.sqrt(variance) * Math.sqrt(leadTime);
+            int ss = (int) Math.ceil(safetyStock);
+            out[2 * r] = ss;
+            out[2 * r + 1] = (int) Math.ceil(mean * leadTime + safetyStock);
+        }
+    }
+
+    /**
+     * Inverse standard normal CDF (Acklam's rational approximation, |error| < 1.2e-9).
+     */
+    public static double zScore(double serviceLevel) {
+        if (serviceLevel <= 0 || serviceLevel >= 1) {
+            throw new IllegalArgumentException("Service level must be between 0 and 1 (exclusive): " + serviceLevel);
+        }
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        double p = serviceLevel;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Syntetos-Boylan approximation: Croston with the (1 - alpha/2) bias correction,
+ * which removes Croston's systematic over-forecast on intermittent items.
+ */
+@Component
+public class SbaForecast extends CrostonForecast {
+
+    public static final String NAME = "CROSTON_SBA";
+
+    public SbaForecast() {
+        super(NAME, 1.0 - alpha() / 2.0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.smartshelfx.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Simple exponential smoothing: a single level, flat forecast.
+ * Good for stable demand without trend or weekly pattern.
+ */
+@Component
+public class SimpleExponentialSmoothing implements ForecastAlgorithm {
+
+    public static final String NAME = "SES";
+
+    private static final double ALPHA = 0.3;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ForecastOutput forecast(double[] history, int length, int horizon) {
+        if (length == 0) return ForecastOutput.empty(NAME, horizon);
+
+        double level = history[0];
+        double demandSum = history[0];
+        double absErrorSum = 0;
+
+        for (int t = 1; t < length; t++) {
+            double error = history[t] - level;
+            absErrorSum += Math.abs(error);
+            level += ALPHA * error;
+            demandSum += history[t];
+        }
+
+        double[] values = new double[horizon];
+        Arrays.fill(values, level);
+
+        return ForecastOutput.of(NAME, values, absErrorSum, length - 1, demandSum, length);
+    }
+}
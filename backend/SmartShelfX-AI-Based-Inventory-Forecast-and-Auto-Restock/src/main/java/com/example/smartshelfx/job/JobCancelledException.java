@@ -0,0 +1,11 @@
+package com.example.smartshelfx.job;
+
+/**
+ * Thrown from JobContext.throwIfCancelled(); JobService records the job as CANCELLED.
+ */
+public class JobCancelledException extends RuntimeException {
+
+    public JobCancelledException() {
+        super("Job was cancelled");
+    }
+}
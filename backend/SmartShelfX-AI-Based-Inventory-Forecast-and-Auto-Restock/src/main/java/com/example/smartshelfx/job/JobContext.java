@@ -0,0 +1,50 @@
+package com.example.smartshelfx.job;
+
+/**
+ * What a running job sees of its job row. Handlers work in chunks: after each committed chunk
+ * they report progress with the new resume point, and check for cancellation before the next.
+ * A job restarted after a crash gets the last reported checkpoint and processed count back.
+ */
+public interface JobContext {
+
+    /** Context for calls made outside the job framework: starts at 0 and is never cancelled. */
+    JobContext NONE = new JobContext() {
+        @Override
+        public long getCheckpoint() {
+            return 0;
+        }
+
+        @Override
+        public long getProcessed() {
+            return 0;
+        }
+
+        @Override
+        public void setTotal(long total) {
+        }
+
+        @Override
+        public void progress(long processed, long checkpoint) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    long getCheckpoint();
+
+    long getProcessed();
+
+    void setTotal(long total);
+
+    /** Records progress after a chunk has been committed; {@code checkpoint} is where to resume. */
+    void progress(long processed, long checkpoint);
+
+    boolean isCancelled();
+
+    default void throwIfCancelled() {
+        if (isCancelled()) throw new JobCancelledException();
+    }
+}
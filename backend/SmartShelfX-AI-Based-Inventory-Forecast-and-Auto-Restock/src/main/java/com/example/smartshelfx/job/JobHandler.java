@@ -0,0 +1,34 @@
+package com.example.smartshelfx.job;
+
+import com.example.smartshelfx.model.Job;
+
+import java.util.Map;
+
+/**
+ * Runs one job type. Handlers are Spring beans picked up by JobService; the returned map is
+ * stored as the job's result.
+ */
+public interface JobHandler {
+
+    Job.Type getType();
+
+    Map<String, Object> run(Map<String, Object> params, JobContext context) throws Exception;
+
+    interface Body {
+        Map<String, Object> run(Map<String, Object> params, JobContext context) throws Exception;
+    }
+
+    static JobHandler of(Job.Type type, Body body) {
+        return new JobHandler() {
+            @Override
+            public Job.Type getType() {
+                return type;
+            }
+
+            @Override
+            public Map<String, Object> run(Map<String, Object> params, JobContext context) throws Exception {
+                return body.run(params, context);
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.smartshelfx.job;
+
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.service.CSVImportService;
+import com.example.smartshelfx.service.FileStorageService;
+import com.example.smartshelfx.service.ForecastModelSelectionService;
+import com.example.smartshelfx.service.ForecastPipelineService;
+import com.example.smartshelfx.service.InventoryValuationService;
+import com.example.smartshelfx.service.ForecastReconciliationService;
+import com.example.smartshelfx.service.LocalForecastService;
+import com.example.smartshelfx.service.ReorderPointService;
+import com.example.smartshelfx.service.SalesCubeService;
+import com.example.smartshelfx.service.StockLedgerService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The long-running operations that are started through JobService. Import, catalog
+ * forecast, valuation rebuild and sales cube rebuild are resumable; reconciliation picks up
+ * whatever is still due, and reorder points and the stock ledger check are single passes, so those
+ * simply rerun when a job is recovered. The forecast pipeline resumes its own ForecastRun, and
+ * model selection is a single pass.
+ */
+@Configuration
+public class JobHandlers {
+
+    @Bean
+    JobHandler productImportJob(CSVImportService csvImportService, FileStorageService fileStorageService) {
+        return JobHandler.of(Job.Type.PRODUCT_IMPORT, (params, context) ->
+                csvImportService.importProducts(
+                        fileStorageService.resolveFile((String) params.get("file"), "csv"), context));
+    }
+
+    @Bean
+    JobHandler productExportJob(CSVImportService csvImportService, FileStorageService fileStorageService) {
+        return JobHandler.of(Job.Type.PRODUCT_EXPORT, (params, context) ->
+                storeReport(fileStorageService, csvImportService.exportProductsToCSV(), "products_export.csv"));
+    }
+
+    @Bean
+    JobHandler lowStockExportJob(CSVImportService csvImportService, FileStorageService fileStorageService) {
+        return JobHandler.of(Job.Type.LOW_STOCK_EXPORT, (params, context) ->
+                storeReport(fileStorageService, csvImportService.exportLowStockReport(), "low_stock_report.csv"));
+    }
+
+    @Bean
+    JobHandler catalogForecastJob(LocalForecastService localForecastService) {
+        return JobHandler.of(Job.Type.CATALOG_FORECAST, (params, context) ->
+                localForecastService.forecastCatalog((String) params.get("algorithm"),
+                        ((Number) params.getOrDefault("horizonDays", 7)).intValue(), context));
+    }
+
+    @Bean
+    JobHandler modelSelectionJob(ForecastModelSelectionService modelSelectionService, ObjectMapper objectMapper) {
+        return JobHandler.of(Job.Type.MODEL_SELECTION, (params, context) ->
+                toResult(objectMapper, modelSelectionService.selectModels()));
+    }
+
+    @Bean
+    JobHandler forecastPipelineJob(ForecastPipelineService pipelineService, ObjectMapper objectMapper) {
+        return JobHandler.of(Job.Type.FORECAST_PIPELINE, (params, context) ->
+                toResult(objectMapper, pipelineService.run()));
+    }
+
+    @Bean
+    JobHandler forecastReconciliationJob(ForecastReconciliationService reconciliationService) {
+        return JobHandler.of(Job.Type.FORECAST_RECONCILIATION, (params, context) -> reconciliationService.reconcile());
+    }
+
+    @Bean
+    JobHandler reorderPointsJob(ReorderPointService reorderPointService) {
+        return JobHandler.of(Job.Type.REORDER_POINTS, (params, context) -> reorderPointService.recalculateAll());
+    }
+
+    @Bean
+    JobHandler stockLedgerCheckJob(StockLedgerService stockLedgerService) {
+        return JobHandler.of(Job.Type.STOCK_LEDGER_CHECK, (params, context) ->
+                stockLedgerService.checkConsistency(Boolean.TRUE.equals(params.get("repair")), context));
+    }
+
+    @Bean
+    JobHandler valuationRebuildJob(InventoryValuationService inventoryValuationService) {
+        return JobHandler.of(Job.Type.VALUATION_REBUILD, (params, context) -> inventoryValuationService.rebuild(context));
+    }
+
+    @Bean
+    JobHandler salesCubeRebuildJob(SalesCubeService salesCubeService) {
+        return JobHandler.of(Job.Type.SALES_CUBE_REBUILD, (params, context) -> salesCubeService.rebuild(context));
+    }
+
+    private static Map<String, Object> toResult(ObjectMapper objectMapper, Object value) {
+        return objectMapper.convertValue(value, new TypeReference<LinkedHashMap<String, Object>>() {
+        });
+    }
+
+    private static Map<String, Object> storeReport(FileStorageService fileStorageService, byte[] csv,
+                                                   String downloadName) throws Exception {
+        String filename = fileStorageService.storeReportFile(csv, downloadName);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", filename);
+        result.put("downloadUrl", "/api/upload/files/" + filename + "?type=reports");
+        result.put("sizeBytes", csv.length);
+        return result;
+    }
+}
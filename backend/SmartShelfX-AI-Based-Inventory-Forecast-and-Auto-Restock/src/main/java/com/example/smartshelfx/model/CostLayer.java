@@ -0,0 +1,45 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Units received by one IN ledger row at one unit cost. FIFO issues drain a product's open
+ * layers oldest first; an exhausted layer stays with remainingQuantity 0.
+ */
+@Entity
+@Table(name = "cost_layers", indexes = {
+        @Index(name = "idx_cost_layers_open", columnList = "product_id, remaining_quantity, received_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostLayer {
+    // Assigned before insert, so a bulk movement's layers go out as JDBC batches
+    @Id
+    @Tsid
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // The IN row that opened the layer; null for the opening layer of a rebuild
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "unit_cost", nullable = false, precision = 19, scale = 6)
+    private BigDecimal unitCost;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "remaining_quantity", nullable = false)
+    private Integer remainingQuantity;
+}
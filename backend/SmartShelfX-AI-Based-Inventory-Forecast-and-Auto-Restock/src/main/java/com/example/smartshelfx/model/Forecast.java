@@ -8,13 +8,16 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "forecasts")
+@Table(name = "forecasts", indexes = {
+        // Reconciliation reads the forecasts still missing their actuals
+        @Index(name = "idx_forecasts_unreconciled", columnList = "actual_sales, forecast_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Forecast {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Tsid
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,4 +43,8 @@ public class Forecast {
 
     @Column(name = "forecast_period_days")
     private Integer forecastPeriodDays = 7;
+
+    // Set when written by the nightly pipeline (ForecastRun), null for on-demand forecasts
+    @Column(name = "run_id")
+    private Long runId;
 }
\ No newline at end of file
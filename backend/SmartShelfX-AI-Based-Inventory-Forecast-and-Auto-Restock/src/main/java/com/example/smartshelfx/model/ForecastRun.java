@@ -0,0 +1,75 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One execution of the nightly catalog re-forecast. lastProductId is the resume point:
+ * every product at or below it has its forecast (and alert) written for runDate.
+ */
+@Entity
+@Table(name = "forecast_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "horizon_days", nullable = false)
+    private Integer horizonDays;
+
+    private Integer workers;
+
+    @Column(name = "chunk_size")
+    private Integer chunkSize;
+
+    @Column(name = "last_product_id", nullable = false)
+    private Long lastProductId = 0L;
+
+    @Column(name = "products_processed", nullable = false)
+    private Integer productsProcessed = 0;
+
+    @Column(name = "forecasts_written", nullable = false)
+    private Integer forecastsWritten = 0;
+
+    @Column(name = "alerts_raised", nullable = false)
+    private Integer alertsRaised = 0;
+
+    @Column(name = "resume_count", nullable = false)
+    private Integer resumeCount = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "products_per_second")
+    private Double productsPerSecond;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        ABANDONED
+    }
+}
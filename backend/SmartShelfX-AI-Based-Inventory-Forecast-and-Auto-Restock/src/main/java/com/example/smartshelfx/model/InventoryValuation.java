@@ -0,0 +1,48 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A product's stock at cost under FIFO and moving average, and the cost of goods issued
+ * since valuation started. Maintained by InventoryValuationService.
+ */
+@Entity
+@Table(name = "inventory_valuations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryValuation {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long quantity = 0L;
+
+    @Column(name = "fifo_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal fifoValue = BigDecimal.ZERO;
+
+    @Column(name = "average_unit_cost", nullable = false, precision = 19, scale = 6)
+    private BigDecimal averageUnitCost = BigDecimal.ZERO;
+
+    @Column(name = "average_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal averageValue = BigDecimal.ZERO;
+
+    @Column(name = "fifo_cogs", nullable = false, precision = 19, scale = 4)
+    private BigDecimal fifoCogs = BigDecimal.ZERO;
+
+    @Column(name = "average_cogs", nullable = false, precision = 19, scale = 4)
+    private BigDecimal averageCogs = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public InventoryValuation(Long productId) {
+        this.productId = productId;
+    }
+}
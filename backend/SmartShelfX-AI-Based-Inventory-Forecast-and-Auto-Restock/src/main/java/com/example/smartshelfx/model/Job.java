@@ -0,0 +1,89 @@
+package com.example.smartshelfx.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A long-running operation queued through JobService. params and result are JSON documents;
+ * checkpoint is the handler's resume point (e.g. rows or the last id done), so a job picked up
+ * again after a crash continues where its last completed chunk ended.
+ */
+@Entity
+@Table(name = "jobs", indexes = {
+        @Index(name = "idx_jobs_status_id", columnList = "status, id"),
+        @Index(name = "idx_jobs_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Job {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    @JsonRawValue
+    @Column(columnDefinition = "TEXT")
+    private String params;
+
+    @JsonRawValue
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "total_items")
+    private Long totalItems;
+
+    @Column(name = "processed_items", nullable = false)
+    private Long processedItems = 0L;
+
+    @Column(nullable = false)
+    private Long checkpoint = 0L;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private Boolean cancelRequested = false;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "created_by", length = 100)
+    private String createdBy;
+
+    @Column(name = "worker_node", length = 100)
+    private String workerNode;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Type {
+        PRODUCT_IMPORT, PRODUCT_EXPORT, LOW_STOCK_EXPORT, CATALOG_FORECAST, FORECAST_RECONCILIATION,
+        REORDER_POINTS, STOCK_LEDGER_CHECK, VALUATION_REBUILD, SALES_CUBE_REBUILD, MODEL_SELECTION,
+        FORECAST_PIPELINE
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+}
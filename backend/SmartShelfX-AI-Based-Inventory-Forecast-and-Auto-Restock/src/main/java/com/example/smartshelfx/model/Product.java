@@ -2,6 +2,7 @@ package com.example.smartshelfx.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -65,13 +66,28 @@ public class Product {
     private String imageName;
     private String imageType;
 
+    // Stored upload holding the image (see FileStorageService); thumbnails are generated from it
+    @Column(name = "image_file")
+    @JsonIgnore
+    private String imageFile;
+
+    // Images saved before the upload store; ProductService.migrateInlineImages moves them out
     @Lob
     @Column(columnDefinition = "LONGBLOB")
+    @JsonIgnore
     private byte[] imageData;
 
     @Column(name = "lead_time_days")
     private Integer leadTimeDays = 7;
 
+    /** Local forecast model picked by the nightly backtest; null means the configured default. */
+    @Column(name = "forecast_algorithm", length = 32)
+    private String forecastAlgorithm;
+
+    // Last time safetyStock / reorderLevel were derived from demand; null = maintained by hand
+    @Column(name = "reorder_calculated_at")
+    private LocalDateTime reorderCalculatedAt;
+
     private Boolean active = true;
 
     @Column(name = "created_at")
@@ -185,6 +201,14 @@ public class Product {
         }
         return this.vendor.getFirstName() + " " + this.vendor.getLastName();
     }
+    /**
+     * Where pages load the image from; {@code ?size=} picks a thumbnail. Null without an image.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getImageUrl() {
+        return this.imageFile != null ? "/api/upload/images/" + this.imageFile : null;
+    }
+
     public Long vendorId(){
         if (this.vendor == null) {
             return null;
@@ -11,7 +11,9 @@ import org.hibernate.annotations.NotFound;
 import org.hibernate.annotations.NotFoundAction;
 
 @Entity
-@Table(name = "purchase_orders")
+@Table(name = "purchase_orders", indexes = {
+        @Index(name = "idx_purchase_orders_order_group", columnList = "order_group")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -63,6 +65,11 @@ public class PurchaseOrder {
 
     private String notes;
 
+    // Consolidated vendor order this line belongs to when created by a batch; its lines are
+    // numbered <orderGroup>-0001, -0002, ...
+    @Column(name = "order_group", length = 40)
+    private String orderGroup;
+
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,56 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Stock-outs of one product on one day, with the product's category and vendor at the time
+ * of the sale. Maintained by SalesCubeService; analytics read this instead of the ledger.
+ */
+@Entity
+@Table(name = "sales_daily_cube", indexes = {
+        @Index(name = "idx_sales_cube_category_day", columnList = "category, day"),
+        @Index(name = "idx_sales_cube_vendor_day", columnList = "vendor_id, day"),
+        @Index(name = "idx_sales_cube_product_day", columnList = "product_id, day")
+})
+@IdClass(SalesDailyCube.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDailyCube {
+    @Id
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column
+    private String category;
+
+    @Column(name = "vendor_id")
+    private Long vendorId;
+
+    @Column(nullable = false)
+    private Long units = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long transactions = 0L;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long productId;
+    }
+}
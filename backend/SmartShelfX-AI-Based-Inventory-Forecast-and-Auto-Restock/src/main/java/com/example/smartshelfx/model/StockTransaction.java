@@ -8,17 +8,20 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_transactions")
+@Table(name = "stock_transactions", indexes = {
+        @Index(name = "idx_stock_tx_product_type_time", columnList = "product_id, type, timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class StockTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Tsid
     private Long id;
 
+    // No FK constraints: stock_transactions is range-partitioned (see TransactionPartitionService)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_id", nullable = false)
+    @JoinColumn(name = "product_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonIgnoreProperties({"transactions", "purchaseOrders", "forecasts", "alerts"})
     private Product product;
 
@@ -33,7 +36,7 @@ public class StockTransaction {
     private LocalDateTime timestamp = LocalDateTime.now();
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "handled_by")
+    @JoinColumn(name = "handled_by", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonIgnoreProperties({"products", "purchaseOrders", "transactions"})
     private User handledBy;
 
@@ -0,0 +1,40 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file as the API knows it (the generated file name) and the content blob it
+ * refers to. Identical uploads get their own row but share one FileBlob.
+ */
+@Entity
+@Table(name = "stored_files", indexes = {
+        @Index(name = "idx_stored_files_sha256", columnList = "sha256")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFile {
+    @Id
+    @Column(length = 255)
+    private String filename;
+
+    // 'images', 'csv' or 'reports'
+    @Column(name = "file_type", nullable = false, length = 20)
+    private String fileType;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "original_name")
+    private String originalName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,37 @@
+package com.example.smartshelfx.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * One stripe of the catalog valuation totals. Each product's changes go to stripe
+ * {@code productId % stripes}, so writers to different products seldom share a row and the
+ * totals are the sum of a handful of rows.
+ */
+@Entity
+@Table(name = "valuation_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValuationTotal {
+    @Id
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Long quantity = 0L;
+
+    @Column(name = "fifo_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal fifoValue = BigDecimal.ZERO;
+
+    @Column(name = "average_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal averageValue = BigDecimal.ZERO;
+
+    @Column(name = "fifo_cogs", nullable = false, precision = 19, scale = 4)
+    private BigDecimal fifoCogs = BigDecimal.ZERO;
+
+    @Column(name = "average_cogs", nullable = false, precision = 19, scale = 4)
+    private BigDecimal averageCogs = BigDecimal.ZERO;
+}
@@ -7,8 +7,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,6 +27,10 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
 
     long countByIsReadFalse();
 
+    @Query("SELECT a.product.id FROM Alert a WHERE a.type = :type AND a.isRead = false AND a.product.id IN :productIds")
+    List<Long> findProductIdsWithUnreadAlert(@Param("type") Alert.AlertType type,
+                                             @Param("productIds") Collection<Long> productIds);
+
 
     // ------------------------------------------------------------
     // DATE-BASED QUERIES — FIXED to use LocalDateTime
@@ -50,9 +56,54 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     // ------------------------------------------------------------
     // BULK OPERATIONS
     // ------------------------------------------------------------
+    // Single statements for bounded scopes; the *Chunk variants take a LIMIT and are
+    // repeated by AlertService until a chunk comes back short, one transaction each.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.isRead = true, a.resolvedAt = :now WHERE a.id IN :alertIds AND a.isRead = false")
+    int markAlertsAsRead(@Param("alertIds") Collection<Long> alertIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Alert a SET a.isRead = true, a.resolvedAt = :now
+           WHERE a.product.id = :productId AND a.type = :type AND a.isRead = false
+           """)
+    int resolveByProductAndType(@Param("productId") Long productId,
+                                @Param("type") Alert.AlertType type,
+                                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE alerts SET is_read = true, resolved_at = :now
+           WHERE is_read = false AND created_at <= :now
+           LIMIT :limit
+           """, nativeQuery = true)
+    int markUnreadAsReadChunk(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE alerts SET is_read = true, resolved_at = :now
+           WHERE type = :type AND is_read = false AND created_at <= :now
+           LIMIT :limit
+           """, nativeQuery = true)
+    int resolveByTypeChunk(@Param("type") String type, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE alerts SET is_read = true, resolved_at = :now, resolution_notes = 'Expired'
+           WHERE is_read = false AND expires_at <= :now
+           LIMIT :limit
+           """, nativeQuery = true)
+    int expireChunk(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
     @Modifying
-    @Query("UPDATE Alert a SET a.isRead = true WHERE a.id IN :alertIds")
-    void markAlertsAsRead(@Param("alertIds") List<Long> alertIds);
+    @Transactional
+    @Query(value = "DELETE FROM alerts WHERE expires_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int purgeExpiredChunk(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 
 
     // ------------------------------------------------------------
@@ -0,0 +1,35 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.CostLayer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CostLayerRepository extends JpaRepository<CostLayer, Long> {
+
+    @Query("""
+           SELECT l FROM CostLayer l
+           WHERE l.productId = :productId AND l.remainingQuantity > 0
+           ORDER BY l.receivedAt, l.id
+           """)
+    List<CostLayer> findOpenLayers(@Param("productId") Long productId);
+
+    @Query("""
+           SELECT l FROM CostLayer l
+           WHERE l.productId IN :productIds AND l.remainingQuantity > 0
+           ORDER BY l.productId, l.receivedAt, l.id
+           """)
+    List<CostLayer> findOpenLayers(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CostLayer l WHERE l.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
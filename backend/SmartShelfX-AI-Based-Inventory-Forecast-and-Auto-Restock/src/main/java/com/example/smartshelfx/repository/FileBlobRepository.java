@@ -0,0 +1,58 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.FileBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT INTO file_blobs (sha256, size_bytes, ref_count, created_at, updated_at)
+           VALUES (:sha256, :size, 1, :now, :now)
+           ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = :now
+           """, nativeQuery = true)
+    int acquire(@Param("sha256") String sha256, @Param("size") long size, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE file_blobs SET ref_count = ref_count - 1, updated_at = :now
+           WHERE sha256 = :sha256 AND ref_count > 0
+           """, nativeQuery = true)
+    int release(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileBlob b WHERE b.sha256 = :sha256 AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+
+    @Query("SELECT b.sha256 FROM FileBlob b WHERE b.refCount = 0 AND b.updatedAt < :cutoff ORDER BY b.updatedAt")
+    List<String> findUnreferencedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Recounts references for blobs untouched since {@code cutoff}; repairs counts left too
+     * high by a crash between the count update and the stored_files write.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE file_blobs b
+           SET ref_count = (SELECT COUNT(*) FROM stored_files f WHERE f.sha256 = b.sha256)
+           WHERE b.updated_at < :cutoff
+           """, nativeQuery = true)
+    int reconcileRefCounts(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COUNT(b), COALESCE(SUM(b.sizeBytes), 0) FROM FileBlob b")
+    List<Object[]> countAndTotalSize();
+}
@@ -24,4 +24,33 @@ public interface ForecastRepository extends JpaRepository<Forecast, Long> {
 
     @Query("SELECT AVG(f.accuracy) FROM Forecast f WHERE f.accuracy IS NOT NULL")
     Double findAverageAccuracy();
+
+    /**
+     * Elapsed, unreconciled forecasts after the given id with the OUT quantity sold in their
+     * window [forecastDate + 1, forecastDate + 1 + periodDays), aggregated in one pass. The id
+     * only pages through one run; which forecasts are due comes from actual_sales and the
+     * window end alone, so a forecast committed late or by another node is still picked up.
+     * Rows written before forecast_period_days existed have it NULL and use the entity default
+     * of 7 days; otherwise they would never fall due.
+     * Rows: id, predictedDemand, actualSales.
+     */
+    @Query(value = """
+            SELECT f.id, f.predicted_demand, COALESCE(SUM(st.quantity), 0)
+            FROM forecasts f
+            LEFT JOIN stock_transactions st
+                   ON st.product_id = f.product_id
+                  AND st.type = 'OUT'
+                  AND st.timestamp >= DATE_ADD(f.forecast_date, INTERVAL 1 DAY)
+                  AND st.timestamp < DATE_ADD(f.forecast_date, INTERVAL COALESCE(f.forecast_period_days, 7) + 1 DAY)
+            WHERE f.actual_sales IS NULL
+              AND f.forecast_date < :today
+              AND f.id > :afterId
+              AND DATE_ADD(f.forecast_date, INTERVAL COALESCE(f.forecast_period_days, 7) + 1 DAY) <= :today
+            GROUP BY f.id, f.predicted_demand
+            ORDER BY f.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findElapsedForecastActuals(@Param("afterId") Long afterId,
+                                              @Param("today") LocalDate today,
+                                              @Param("limit") int limit);
 }
\ No newline at end of file
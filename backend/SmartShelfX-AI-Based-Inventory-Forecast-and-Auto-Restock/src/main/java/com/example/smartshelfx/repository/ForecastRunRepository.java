@@ -0,0 +1,39 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.ForecastRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ForecastRunRepository extends JpaRepository<ForecastRun, Long> {
+
+    Optional<ForecastRun> findFirstByStatusInOrderByStartedAtDesc(Collection<ForecastRun.Status> statuses);
+
+    List<ForecastRun> findTop20ByOrderByStartedAtDesc();
+
+    // Checkpoint write from the worker threads; avoids a merge (select + update) per chunk.
+    // Only a RUNNING run moves, so a chunk finishing after the run was closed changes nothing.
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE ForecastRun r
+           SET r.lastProductId = :lastProductId,
+               r.productsProcessed = :products,
+               r.forecastsWritten = :forecasts,
+               r.alertsRaised = :alerts
+           WHERE r.id = :runId AND r.status = com.example.smartshelfx.model.ForecastRun.Status.RUNNING
+           """)
+    int updateProgress(@Param("runId") Long runId,
+                       @Param("lastProductId") Long lastProductId,
+                       @Param("products") int products,
+                       @Param("forecasts") int forecasts,
+                       @Param("alerts") int alerts);
+}
@@ -0,0 +1,39 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.InventoryValuation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryValuationRepository extends JpaRepository<InventoryValuation, Long> {
+
+    /** Creates the empty row a product's first movement locks; a no-op when it exists. */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT IGNORE INTO inventory_valuations
+               (product_id, quantity, fifo_value, average_unit_cost, average_value, fifo_cogs, average_cogs, updated_at)
+           VALUES (:productId, 0, 0, 0, 0, 0, 0, :now)
+           """, nativeQuery = true)
+    int insertIfAbsent(@Param("productId") Long productId, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM InventoryValuation v WHERE v.productId = :productId")
+    Optional<InventoryValuation> findForUpdate(@Param("productId") Long productId);
+
+    /** Locks in product id order, so two bulk movements over the same products cannot deadlock. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM InventoryValuation v WHERE v.productId IN :productIds ORDER BY v.productId")
+    List<InventoryValuation> findAllForUpdate(@Param("productIds") Collection<Long> productIds);
+}
@@ -0,0 +1,99 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.Job;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+    @Query("SELECT j.id FROM Job j WHERE j.status = com.example.smartshelfx.model.Job.Status.QUEUED ORDER BY j.id")
+    List<Long> findQueuedIds(Pageable pageable);
+
+    List<Job> findAllByOrderByIdDesc(Pageable pageable);
+
+    List<Job> findByTypeOrderByIdDesc(Job.Type type, Pageable pageable);
+
+    /** Moves a queued job to RUNNING; 0 when another worker or node got it first. */
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.status = com.example.smartshelfx.model.Job.Status.RUNNING, j.workerNode = :node,
+                  j.startedAt = :now, j.heartbeatAt = :now, j.attempts = j.attempts + 1
+           WHERE j.id = :id AND j.status = com.example.smartshelfx.model.Job.Status.QUEUED
+           """)
+    int claim(@Param("id") Long id, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.processedItems = :processed, j.checkpoint = :checkpoint, j.heartbeatAt = :now
+           WHERE j.id = :id
+           """)
+    int saveProgress(@Param("id") Long id, @Param("processed") long processed,
+                     @Param("checkpoint") long checkpoint, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Job j SET j.totalItems = :total WHERE j.id = :id")
+    int saveTotal(@Param("id") Long id, @Param("total") long total);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Job j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT j.cancelRequested FROM Job j WHERE j.id = :id")
+    Boolean isCancelRequested(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.status = :status, j.result = :result, j.error = :error, j.finishedAt = :now
+           WHERE j.id = :id AND j.status = com.example.smartshelfx.model.Job.Status.RUNNING
+           """)
+    int finish(@Param("id") Long id, @Param("status") Job.Status status, @Param("result") String result,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.status = com.example.smartshelfx.model.Job.Status.CANCELLED, j.finishedAt = :now,
+                  j.cancelRequested = true
+           WHERE j.id = :id AND j.status = com.example.smartshelfx.model.Job.Status.QUEUED
+           """)
+    int cancelQueued(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.cancelRequested = true
+           WHERE j.id = :id AND j.status = com.example.smartshelfx.model.Job.Status.RUNNING
+           """)
+    int requestCancel(@Param("id") Long id);
+
+    /** Running jobs whose worker stopped heart-beating (node crashed or was restarted). */
+    @Query("""
+           SELECT j FROM Job j
+           WHERE j.status = com.example.smartshelfx.model.Job.Status.RUNNING AND j.heartbeatAt < :cutoff
+           """)
+    List<Job> findStale(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE Job j SET j.status = com.example.smartshelfx.model.Job.Status.QUEUED, j.workerNode = null
+           WHERE j.id = :id AND j.status = com.example.smartshelfx.model.Job.Status.RUNNING
+                 AND j.heartbeatAt < :cutoff
+           """)
+    int requeueStale(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff);
+}
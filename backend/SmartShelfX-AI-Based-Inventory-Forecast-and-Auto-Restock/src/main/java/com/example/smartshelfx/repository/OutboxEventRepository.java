@@ -0,0 +1,81 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Claims the oldest deliverable rows for one dispatch round. Rows claimed by a node that
+     * died (claim older than staleBefore) are taken over; concurrent claimers never get the same
+     * row because the UPDATE locks what it changes.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           UPDATE outbox_events SET claimed_by = :token, claimed_at = :now, attempts = attempts + 1
+           WHERE status = 'PENDING' AND available_at <= :now
+                 AND (claimed_by IS NULL OR claimed_at < :staleBefore)
+           ORDER BY id LIMIT :limit
+           """, nativeQuery = true)
+    int claim(@Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore, @Param("limit") int limit);
+
+    List<OutboxEvent> findByClaimedByOrderById(String claimedBy);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE OutboxEvent e SET e.status = com.example.smartshelfx.model.OutboxEvent.Status.PROCESSED,
+                  e.processedAt = :now, e.claimedBy = null
+           WHERE e.id IN :ids
+           """)
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE OutboxEvent e SET e.claimedBy = null, e.availableAt = :availableAt, e.lastError = :error
+           WHERE e.id = :id
+           """)
+    int retryLater(@Param("id") Long id, @Param("availableAt") LocalDateTime availableAt,
+                   @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE OutboxEvent e SET e.status = com.example.smartshelfx.model.OutboxEvent.Status.FAILED,
+                  e.processedAt = :now, e.claimedBy = null, e.lastError = :error
+           WHERE e.id = :id
+           """)
+    int markFailed(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("error") String error);
+
+    /** Puts failed rows back in the queue with a fresh attempt budget, e.g. after a mail outage. */
+    @Modifying
+    @Transactional
+    @Query("""
+           UPDATE OutboxEvent e SET e.status = com.example.smartshelfx.model.OutboxEvent.Status.PENDING,
+                  e.attempts = 0, e.availableAt = :now, e.processedAt = null
+           WHERE e.status = com.example.smartshelfx.model.OutboxEvent.Status.FAILED
+           """)
+    int requeueFailed(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM outbox_events WHERE status = 'PROCESSED' AND processed_at < :cutoff LIMIT :limit",
+            nativeQuery = true)
+    int purgeProcessedChunk(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query("SELECT e.consumer, e.status, COUNT(e) FROM OutboxEvent e GROUP BY e.consumer, e.status")
+    List<Object[]> countByConsumerAndStatus();
+}
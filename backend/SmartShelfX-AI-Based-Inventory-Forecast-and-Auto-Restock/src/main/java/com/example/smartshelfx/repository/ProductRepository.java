@@ -4,9 +4,13 @@ import com.example.smartshelfx.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,10 +40,36 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p.category, COUNT(p) FROM Product p GROUP BY p.category")
     List<Object[]> findProductCountByCategory();
 
-    @Query("SELECT SUM(p.currentStock * p.price) FROM Product p")
-    Double calculateTotalInventoryValue();
-
     @Query("SELECT p FROM Product p WHERE p.vendor.id = :vendorId AND p.active = true")
     List<Product> findByVendorId(@Param("vendorId") Long vendorId);
 
+    // Keyset pagination over active products for catalog-wide batch jobs
+    @Query("SELECT p.id FROM Product p WHERE p.active = true AND p.id > :afterId ORDER BY p.id")
+    List<Long> findActiveProductIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findProductIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    long countByActiveTrue();
+
+    // Products whose image is still in the image_data column, for moving it to the upload store
+    @Query("SELECT p.id FROM Product p WHERE p.imageData IS NOT NULL AND p.imageFile IS NULL AND p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsWithInlineImageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only the image columns, so a concurrent stock change on the same row is not overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.imageFile = :imageFile, p.imageData = null WHERE p.id = :id AND p.imageFile IS NULL")
+    int moveImageToFile(@Param("id") Long id, @Param("imageFile") String imageFile);
+
+    // One statement per winning model instead of one UPDATE per product
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.forecastAlgorithm = :algorithm WHERE p.id IN :ids")
+    int updateForecastAlgorithm(@Param("algorithm") String algorithm, @Param("ids") Collection<Long> ids);
+
+    // id + lead time only, so batch jobs don't pull entities (and image blobs) they never use
+    @Query("SELECT p.id, p.leadTimeDays FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findLeadTimesByIds(@Param("ids") Collection<Long> ids);
+
 }
\ No newline at end of file
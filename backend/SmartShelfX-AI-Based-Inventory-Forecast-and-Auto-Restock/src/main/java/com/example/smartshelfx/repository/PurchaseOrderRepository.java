@@ -16,6 +16,8 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
 
     Optional<PurchaseOrder> findByPoNumber(String poNumber);
 
+    List<PurchaseOrder> findByOrderGroupOrderByPoNumber(String orderGroup);
+
     List<PurchaseOrder> findByVendorIdOrderByCreatedAtDesc(Long vendorId);
 
     List<PurchaseOrder> findByProductIdOrderByCreatedAtDesc(Long productId);
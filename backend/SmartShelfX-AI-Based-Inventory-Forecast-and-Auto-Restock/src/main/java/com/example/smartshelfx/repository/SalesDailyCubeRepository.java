@@ -0,0 +1,102 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.SalesDailyCube;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesDailyCubeRepository extends JpaRepository<SalesDailyCube, SalesDailyCube.Key> {
+
+    // Totals for [from, to]: units, revenue, transactions
+    @Query("""
+           SELECT COALESCE(SUM(c.units), 0), COALESCE(SUM(c.revenue), 0), COALESCE(SUM(c.transactions), 0)
+           FROM SalesDailyCube c WHERE c.day BETWEEN :from AND :to
+           """)
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Per day: day, units, revenue, transactions; category and vendor are optional filters
+    @Query("""
+           SELECT c.day, SUM(c.units), SUM(c.revenue), SUM(c.transactions)
+           FROM SalesDailyCube c
+           WHERE c.day BETWEEN :from AND :to
+             AND (:category IS NULL OR c.category = :category)
+             AND (:vendorId IS NULL OR c.vendorId = :vendorId)
+           GROUP BY c.day ORDER BY c.day
+           """)
+    List<Object[]> dailyTrend(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                              @Param("category") String category, @Param("vendorId") Long vendorId);
+
+    // Per product: productId, units, revenue, transactions, ordered by units
+    @Query(value = """
+           SELECT c.product_id, SUM(c.units) AS units, SUM(c.revenue) AS revenue, SUM(c.transactions)
+           FROM sales_daily_cube c
+           WHERE c.day BETWEEN :from AND :to AND (:category IS NULL OR c.category = :category)
+           GROUP BY c.product_id
+           ORDER BY units DESC
+           LIMIT :limit
+           """, nativeQuery = true)
+    List<Object[]> topByUnits(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                              @Param("category") String category, @Param("limit") int limit);
+
+    @Query(value = """
+           SELECT c.product_id, SUM(c.units) AS units, SUM(c.revenue) AS revenue, SUM(c.transactions)
+           FROM sales_daily_cube c
+           WHERE c.day BETWEEN :from AND :to AND (:category IS NULL OR c.category = :category)
+           GROUP BY c.product_id
+           ORDER BY revenue DESC
+           LIMIT :limit
+           """, nativeQuery = true)
+    List<Object[]> topByRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                @Param("category") String category, @Param("limit") int limit);
+
+    // Per category: category, units, revenue
+    @Query("""
+           SELECT c.category, SUM(c.units), SUM(c.revenue)
+           FROM SalesDailyCube c WHERE c.day BETWEEN :from AND :to
+           GROUP BY c.category ORDER BY SUM(c.revenue) DESC
+           """)
+    List<Object[]> byCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Per vendor: vendorId, units, revenue
+    @Query("""
+           SELECT c.vendorId, SUM(c.units), SUM(c.revenue)
+           FROM SalesDailyCube c WHERE c.day BETWEEN :from AND :to
+           GROUP BY c.vendorId ORDER BY SUM(c.revenue) DESC
+           """)
+    List<Object[]> byVendor(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SalesDailyCube c WHERE c.day >= :from AND c.day < :toExclusive")
+    int deleteDays(@Param("from") LocalDate from, @Param("toExclusive") LocalDate toExclusive);
+
+    /**
+     * Refolds the database's OUT rows in [from, toExclusive) with ids up to {@code maxId}
+     * into the cube, valued at the products' current prices. Rows whose reference starts with
+     * {@code excludedPrefix} (stock adjustments and ledger reconciliations) are not sales.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT INTO sales_daily_cube (day, product_id, category, vendor_id, units, revenue, transactions)
+           SELECT DATE(t.`timestamp`), t.product_id, p.category, p.vendor_id,
+                  SUM(t.quantity), SUM(t.quantity * p.price), COUNT(*)
+           FROM stock_transactions t
+           JOIN products p ON p.id = t.product_id
+           WHERE t.type = 'OUT' AND t.`timestamp` >= :from AND t.`timestamp` < :toExclusive AND t.id <= :maxId
+                 AND (t.reference_number IS NULL OR t.reference_number NOT LIKE CONCAT(:excludedPrefix, '%'))
+           GROUP BY DATE(t.`timestamp`), t.product_id, p.category, p.vendor_id
+           ON DUPLICATE KEY UPDATE units = units + VALUES(units), revenue = revenue + VALUES(revenue),
+                                   transactions = transactions + VALUES(transactions)
+           """, nativeQuery = true)
+    int foldTransactions(@Param("from") LocalDateTime from, @Param("toExclusive") LocalDateTime toExclusive,
+                         @Param("maxId") long maxId, @Param("excludedPrefix") String excludedPrefix);
+}
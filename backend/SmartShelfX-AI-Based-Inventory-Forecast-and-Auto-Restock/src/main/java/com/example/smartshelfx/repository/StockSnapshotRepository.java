@@ -0,0 +1,92 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(Long productId, LocalDateTime at);
+
+    Optional<StockSnapshot> findByProductIdAndAsOf(Long productId, LocalDateTime asOf);
+
+    /**
+     * Snapshots every product that moved in [from, boundary): its previous snapshot carried
+     * forward plus the month's net movement. Re-running a boundary overwrites it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT INTO stock_snapshots (product_id, as_of, stock, created_at)
+           SELECT d.product_id, :boundary,
+                  COALESCE((SELECT s.stock FROM stock_snapshots s
+                            WHERE s.product_id = d.product_id AND s.as_of < :boundary
+                            ORDER BY s.as_of DESC LIMIT 1), 0) + d.net,
+                  :now
+           FROM (SELECT product_id, SUM(CASE WHEN type = 'IN' THEN quantity ELSE -quantity END) AS net
+                 FROM stock_transactions
+                 WHERE `timestamp` >= :from AND `timestamp` < :boundary
+                 GROUP BY product_id) d
+           ON DUPLICATE KEY UPDATE stock = VALUES(stock), created_at = VALUES(created_at)
+           """, nativeQuery = true)
+    int snapshotMonth(@Param("from") LocalDateTime from, @Param("boundary") LocalDateTime boundary,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Rebuilds one product's boundaries in [from, through] from its rows, as a running
+     * sum on top of {@code base} (the stock at {@code from}).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT INTO stock_snapshots (product_id, as_of, stock, created_at)
+           SELECT :productId, m.boundary, :base + SUM(m.net) OVER (ORDER BY m.boundary), :now
+           FROM (SELECT CAST(DATE_FORMAT(`timestamp`, '%Y-%m-01') AS DATETIME) + INTERVAL 1 MONTH AS boundary,
+                        SUM(CASE WHEN type = 'IN' THEN quantity ELSE -quantity END) AS net
+                 FROM stock_transactions
+                 WHERE product_id = :productId AND `timestamp` >= :from AND `timestamp` < :through
+                 GROUP BY boundary) m
+           """, nativeQuery = true)
+    int rebuildProduct(@Param("productId") Long productId, @Param("base") long base,
+                       @Param("from") LocalDateTime from, @Param("through") LocalDateTime through,
+                       @Param("now") LocalDateTime now);
+
+    /** A row backdated to {@code after} changes every later snapshot of its product. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StockSnapshot s SET s.stock = s.stock + :delta WHERE s.productId = :productId AND s.asOf > :after")
+    int shiftAfter(@Param("productId") Long productId, @Param("after") LocalDateTime after, @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockSnapshot s WHERE s.productId = :productId AND s.asOf > :after")
+    int deleteByProductIdAfter(@Param("productId") Long productId, @Param("after") LocalDateTime after);
+
+    /**
+     * Per product: current_stock, latest snapshot and the net movement recorded since it.
+     * One statement, so the stock and the ledger are read at the same point in time.
+     */
+    @Query(value = """
+           SELECT p.id, p.current_stock, s.as_of, s.stock,
+                  (SELECT COALESCE(SUM(CASE WHEN t.type = 'IN' THEN t.quantity ELSE -t.quantity END), 0)
+                   FROM stock_transactions t
+                   WHERE t.product_id = p.id AND t.`timestamp` >= COALESCE(s.as_of, :floor)) AS movement
+           FROM products p
+           LEFT JOIN stock_snapshots s ON s.product_id = p.id
+                AND s.as_of = (SELECT MAX(s2.as_of) FROM stock_snapshots s2 WHERE s2.product_id = p.id)
+           WHERE p.id IN :ids
+           """, nativeQuery = true)
+    List<Object[]> findLedgerState(@Param("ids") Collection<Long> ids, @Param("floor") LocalDateTime floor);
+
+    long countByAsOf(LocalDateTime asOf);
+}
@@ -1,22 +1,74 @@
 package com.example.smartshelfx.repository;
 
 import com.example.smartshelfx.model.StockTransaction;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StockTransactionRepository extends JpaRepository<StockTransaction, Long> {
 
-    List<StockTransaction> findByProductIdOrderByTimestampDesc(Long productId);
+    /**
+     * "Recent" listings are bounded on timestamp so MySQL prunes them to the last few
+     * monthly partitions instead of scanning the whole history.
+     */
+    int HOT_WINDOW_DAYS = 90;
 
-    @Query("SELECT st FROM StockTransaction st WHERE st.product.id = :productId ORDER BY st.timestamp DESC")
-    List<StockTransaction> findRecentTransactionsByProduct(@Param("productId") Long productId);
+    // Listings are paged; a page never holds more rows than this
+    int MAX_PAGE_SIZE = 500;
 
-    List<StockTransaction> findByTypeOrderByTimestampDesc(StockTransaction.TransactionType type);
+    // Served by the product/type index; used to keep purchase-order receipts idempotent
+    boolean existsByProductIdAndTypeAndReferenceNumber(Long productId, StockTransaction.TransactionType type,
+                                                      String referenceNumber);
+
+    @Query("""
+        SELECT st FROM StockTransaction st
+        WHERE st.product.id = :productId
+          AND st.timestamp >= :since
+        ORDER BY st.timestamp DESC
+    """)
+    List<StockTransaction> findRecentTransactionsByProduct(@Param("productId") Long productId,
+                                                           @Param("since") LocalDateTime since);
+
+    default List<StockTransaction> findRecentTransactionsByProduct(Long productId) {
+        return findRecentTransactionsByProduct(productId, LocalDateTime.now().minusDays(HOT_WINDOW_DAYS));
+    }
+
+    @Query("""
+        SELECT st FROM StockTransaction st
+        WHERE st.product.id = :productId
+          AND st.timestamp >= :since
+        ORDER BY st.timestamp DESC, st.id DESC
+    """)
+    List<StockTransaction> findRecentTransactionsByProduct(@Param("productId") Long productId,
+                                                           @Param("since") LocalDateTime since,
+                                                           Pageable pageable);
+
+    default List<StockTransaction> findRecentTransactionsByProduct(Long productId, int page, int size) {
+        return findRecentTransactionsByProduct(productId, LocalDateTime.now().minusDays(HOT_WINDOW_DAYS),
+                pageOf(page, size));
+    }
+
+    @Query("""
+        SELECT st FROM StockTransaction st
+        WHERE st.type = :type
+          AND st.timestamp >= :since
+        ORDER BY st.timestamp DESC, st.id DESC
+    """)
+    List<StockTransaction> findRecentTransactionsByType(@Param("type") StockTransaction.TransactionType type,
+                                                        @Param("since") LocalDateTime since,
+                                                        Pageable pageable);
+
+    default List<StockTransaction> findRecentTransactionsByType(StockTransaction.TransactionType type,
+                                                                int page, int size) {
+        return findRecentTransactionsByType(type, LocalDateTime.now().minusDays(HOT_WINDOW_DAYS), pageOf(page, size));
+    }
 
     // FINAL — start/end DateTime required
     @Query("""
@@ -49,12 +101,40 @@ public interface StockTransactionRepository extends JpaRepository<StockTransacti
     List<Object[]> findSalesBetweenDates(@Param("startDate") LocalDateTime startDate,
                                          @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT st FROM StockTransaction st ORDER BY st.timestamp DESC")
-    List<StockTransaction> findTopNByOrderByTimestampDesc();
+    // Daily OUT totals per product, used to build dense demand series for local forecasting
+    @Query("""
+        SELECT st.product.id, DATE(st.timestamp), SUM(st.quantity)
+        FROM StockTransaction st
+        WHERE st.type = 'OUT'
+          AND st.product.id IN :productIds
+          AND st.timestamp >= :start
+        GROUP BY st.product.id, DATE(st.timestamp)
+    """)
+    List<Object[]> findDailySalesByProducts(@Param("productIds") Collection<Long> productIds,
+                                            @Param("start") LocalDateTime start);
 
-    @Query(value = "SELECT * FROM stock_transactions ORDER BY timestamp DESC LIMIT :limit",
+    @Query(value = "SELECT * FROM stock_transactions WHERE timestamp >= :since ORDER BY timestamp DESC LIMIT :limit",
             nativeQuery = true)
-    List<StockTransaction> findRecentTransactions(@Param("limit") int limit);
+    List<StockTransaction> findRecentTransactions(@Param("since") LocalDateTime since, @Param("limit") int limit);
+
+    default List<StockTransaction> findRecentTransactions(int limit) {
+        return findRecentTransactions(LocalDateTime.now().minusDays(HOT_WINDOW_DAYS), limit);
+    }
+
+    @Query("""
+        SELECT st FROM StockTransaction st
+        WHERE st.timestamp >= :since
+        ORDER BY st.timestamp DESC, st.id DESC
+    """)
+    List<StockTransaction> findRecentTransactionsPage(@Param("since") LocalDateTime since, Pageable pageable);
+
+    default List<StockTransaction> findRecentTransactionsPage(int page, int size) {
+        return findRecentTransactionsPage(LocalDateTime.now().minusDays(HOT_WINDOW_DAYS), pageOf(page, size));
+    }
+
+    private static Pageable pageOf(int page, int size) {
+        return PageRequest.of(Math.max(0, page), Math.clamp(size, 1, MAX_PAGE_SIZE));
+    }
 
     @Query("SELECT COUNT(t) FROM StockTransaction t")
     int countTransactions();
@@ -0,0 +1,15 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    @Query("SELECT COUNT(f), COALESCE(SUM(f.sizeBytes), 0) FROM StoredFile f")
+    List<Object[]> countAndTotalSize();
+}
@@ -4,6 +4,7 @@ import com.example.smartshelfx.model.Role;
 import com.example.smartshelfx.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -21,4 +22,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // This query expects the DB column contains 'ROLE_VENDOR'
     @Query("SELECT u FROM User u WHERE u.role = com.example.smartshelfx.model.Role.ROLE_VENDOR AND u.active = true")
     List<User> findActiveVendors();
+
+    // Revocation check for stateless JWT auth: [active, role], empty when the user is gone
+    @Query("SELECT u.active, u.role FROM User u WHERE u.id = :id")
+    List<Object[]> findStatusById(@Param("id") Long id);
 }
@@ -0,0 +1,30 @@
+package com.example.smartshelfx.repository;
+
+import com.example.smartshelfx.model.ValuationTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface ValuationTotalRepository extends JpaRepository<ValuationTotal, Integer> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+           INSERT INTO valuation_totals (stripe, quantity, fifo_value, average_value, fifo_cogs, average_cogs)
+           VALUES (:stripe, :quantity, :fifoValue, :averageValue, :fifoCogs, :averageCogs)
+           ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity),
+                                   fifo_value = fifo_value + VALUES(fifo_value),
+                                   average_value = average_value + VALUES(average_value),
+                                   fifo_cogs = fifo_cogs + VALUES(fifo_cogs),
+                                   average_cogs = average_cogs + VALUES(average_cogs)
+           """, nativeQuery = true)
+    int add(@Param("stripe") int stripe, @Param("quantity") long quantity,
+            @Param("fifoValue") BigDecimal fifoValue, @Param("averageValue") BigDecimal averageValue,
+            @Param("fifoCogs") BigDecimal fifoCogs, @Param("averageCogs") BigDecimal averageCogs);
+}
@@ -0,0 +1,110 @@
+package com.example.smartshelfx.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Feature-hashing text encoder: word tokens and boundary-marked character trigrams are hashed
+ * into a fixed number of signed buckets and the result is L2-normalized. Trigrams make
+ * "cleaner", "cleaning" and "clean" land close together without a stemmer or a model.
+ *
+ * Vectors are returned quantized to one signed byte per dimension plus a scale, which is what
+ * HnswIndex stores.
+ */
+public final class HashingTextEncoder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.35f;
+
+    // Question words and inventory vocabulary that every chat turn shares: they carry no
+    // information about which products are meant
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "of", "for", "to", "in", "on", "at", "by", "with", "from",
+            "is", "are", "was", "be", "do", "does", "we", "us", "our", "i", "me", "my", "you", "it",
+            "which", "what", "who", "how", "many", "much", "any", "all", "some", "there", "have", "has",
+            "show", "list", "give", "tell", "find", "need", "please", "can", "could", "should", "will",
+            "product", "products", "item", "items", "stock", "stocks", "inventory", "running", "low",
+            "out", "left", "level", "levels", "currently", "now", "today");
+
+    private final int dimensions;
+
+    public HashingTextEncoder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Quantized vector written to {@code target[offset .. offset + dimensions)}.
+     *
+     * @return the scale that maps the bytes back to the unit vector, or 0 when the text has
+     *         no usable tokens
+     */
+    public float encode(String[] fields, float[] fieldWeights, byte[] target, int offset) {
+        float[] v = new float[dimensions];
+        for (int f = 0; f < fields.length; f++) {
+            if (fields[f] != null) addText(v, fields[f], fieldWeights[f]);
+        }
+
+        double norm = 0;
+        float maxAbs = 0;
+        for (float x : v) {
+            norm += x * x;
+            maxAbs = Math.max(maxAbs, Math.abs(x));
+        }
+        if (norm == 0) {
+            Arrays.fill(target, offset, offset + dimensions, (byte) 0);
+            return 0f;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        float unitMax = maxAbs * inv;
+        float toByte = 127f / unitMax;
+        for (int i = 0; i < dimensions; i++) {
+            target[offset + i] = (byte) Math.round(v[i] * inv * toByte);
+        }
+        return unitMax / 127f;
+    }
+
+    private void addText(float[] v, String text, float weight) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        int n = lower.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(lower.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(lower.charAt(i))) i++;
+            if (i > start) addToken(v, lower.substring(start, i), weight);
+        }
+    }
+
+    private void addToken(float[] v, String token, float weight) {
+        if (token.length() < 2 || STOP_WORDS.contains(token)) return;
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            token = token.substring(0, token.length() - 1);
+        }
+        add(v, mix(token.hashCode()), weight * WORD_WEIGHT);
+
+        String marked = "^" + token + "$";
+        for (int j = 0; j + 3 <= marked.length(); j++) {
+            int h = 31 * (31 * marked.charAt(j) + marked.charAt(j + 1)) + marked.charAt(j + 2);
+            add(v, mix(h ^ 0x5bd1e995), weight * TRIGRAM_WEIGHT);
+        }
+    }
+
+    private void add(float[] v, int hash, float weight) {
+        int bucket = Math.floorMod(hash, dimensions);
+        v[bucket] += (hash & 0x40000000) != 0 ? weight : -weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
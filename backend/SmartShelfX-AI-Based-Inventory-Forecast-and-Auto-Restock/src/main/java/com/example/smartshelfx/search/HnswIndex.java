@@ -0,0 +1,564 @@
+package com.example.smartshelfx.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory HNSW graph (Malkov &amp; Yashunin) for cosine similarity over byte-quantized vectors.
+ *
+ * Vectors live in one flat byte array with a float scale per node, so a million 128-dimension
+ * vectors take about 130 MB plus the neighbour lists. Each node keeps up to M links per upper
+ * layer and 2M on layer 0, chosen with the paper's diversity heuristic. Replacing or removing a
+ * key tombstones its node: it still routes searches but is never returned, and a periodic
+ * rebuild drops it for good.
+ *
+ * Searches take the read lock and run concurrently; inserts take the write lock.
+ */
+public final class HnswIndex {
+
+    public record Hit(long key, float score) {
+    }
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private byte[] vectors;
+    private float[] scales;
+    private long[] keys;
+    private int[][][] links;
+    private long[] deleted;
+    private final LongIntMap nodesByKey;
+
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, int expectedSize) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        int capacity = Math.max(16, expectedSize);
+        vectors = new byte[capacity * dimensions];
+        scales = new float[capacity];
+        keys = new long[capacity];
+        links = new int[capacity][][];
+        deleted = new long[(capacity + 63) >>> 6];
+        nodesByKey = new LongIntMap(capacity);
+    }
+
+    // ----------------------------------------------------------------
+    // WRITES
+    // ----------------------------------------------------------------
+
+    /**
+     * Adds {@code key}, replacing any previous vector for it. A zero scale (no usable text)
+     * only removes the old entry.
+     *
+     * @return false when the key already has exactly this vector and nothing changed
+     */
+    public boolean put(long key, byte[] vector, int offset, float scale) {
+        lock.writeLock().lock();
+        try {
+            int existing = nodesByKey.get(key);
+            if (existing >= 0 && scales[existing] == scale && Arrays.equals(
+                    vectors, existing * dimensions, (existing + 1) * dimensions, vector, offset, offset + dimensions)) {
+                return false;
+            }
+            removeLocked(key);
+            if (scale == 0f) return true;
+
+            ensureCapacity(size + 1);
+            int node = size++;
+            System.arraycopy(vector, offset, vectors, node * dimensions, dimensions);
+            scales[node] = scale;
+            keys[node] = key;
+            nodesByKey.put(key, node);
+            insert(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(long key) {
+        int node = nodesByKey.remove(key);
+        if (node < 0) return false;
+        deleted[node >>> 6] |= 1L << node;
+        deletedCount++;
+        return true;
+    }
+
+    private void insert(int node) {
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int base = node * dimensions;
+        float scale = scales[node];
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vectors, base, scale, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NodeHeap found = searchLayer(vectors, base, scale, ep, efConstruction, l, false);
+            int[] nodes = new int[found.size()];
+            float[] sims = new float[found.size()];
+            found.drainDescending(nodes, sims);
+
+            int[] chosen = selectNeighbours(nodes, sims, nodes.length, m);
+            int[] own = links[node][l];
+            own[0] = chosen.length;
+            System.arraycopy(chosen, 0, own, 1, chosen.length);
+            for (int neighbour : chosen) {
+                connect(neighbour, node, l);
+            }
+            ep = nodes.length > 0 ? nodes[0] : ep;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    private void connect(int from, int to, int level) {
+        int[] list = links[from][level];
+        int cap = list.length - 1;
+        int count = list[0];
+        if (count < cap) {
+            list[++list[0]] = to;
+            return;
+        }
+        // Full: re-select from the existing links plus the new one, as seen from 'from'
+        int[] nodes = new int[count + 1];
+        float[] sims = new float[count + 1];
+        int fromBase = from * dimensions;
+        for (int i = 0; i < count; i++) {
+            nodes[i] = list[i + 1];
+        }
+        nodes[count] = to;
+        for (int i = 0; i <= count; i++) {
+            sims[i] = similarity(vectors, fromBase, scales[from], nodes[i]);
+        }
+        sortDescending(nodes, sims);
+        int[] chosen = selectNeighbours(nodes, sims, nodes.length, cap);
+        list[0] = chosen.length;
+        System.arraycopy(chosen, 0, list, 1, chosen.length);
+    }
+
+    /**
+     * Diversity heuristic: keep a candidate only if it is closer to the base node than to any
+     * neighbour already kept, then top up with the closest pruned ones.
+     */
+    private int[] selectNeighbours(int[] nodes, float[] sims, int count, int max) {
+        if (count <= max) return Arrays.copyOf(nodes, count);
+        int[] chosen = new int[max];
+        boolean[] taken = new boolean[count];
+        int selected = 0;
+        for (int i = 0; i < count && selected < max; i++) {
+            int candidate = nodes[i];
+            int base = candidate * dimensions;
+            boolean diverse = true;
+            for (int j = 0; j < selected; j++) {
+                if (similarity(vectors, base, scales[candidate], chosen[j]) > sims[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                chosen[selected++] = candidate;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < count && selected < max; i++) {
+            if (!taken[i]) chosen[selected++] = nodes[i];
+        }
+        return chosen;
+    }
+
+    // ----------------------------------------------------------------
+    // SEARCH
+    // ----------------------------------------------------------------
+
+    /**
+     * Top {@code k} live keys by cosine similarity, best first.
+     */
+    public List<Hit> search(byte[] query, float queryScale, int k, int ef) {
+        if (queryScale == 0f || k <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) return List.of();
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = greedyClosest(query, 0, queryScale, ep, l);
+            }
+            NodeHeap found = searchLayer(query, 0, queryScale, ep, Math.max(ef, k), 0, true);
+            int[] nodes = new int[found.size()];
+            float[] sims = new float[found.size()];
+            found.drainDescending(nodes, sims);
+
+            List<Hit> hits = new ArrayList<>(Math.min(k, nodes.length));
+            for (int i = 0; i < nodes.length && hits.size() < k; i++) {
+                hits.add(new Hit(keys[nodes[i]], sims[i]));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int greedyClosest(byte[] q, int qBase, float qScale, int ep, int level) {
+        int current = ep;
+        float best = similarity(q, qBase, qScale, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = links[current][level];
+            for (int i = 1; i <= list[0]; i++) {
+                int candidate = list[i];
+                float s = similarity(q, qBase, qScale, candidate);
+                if (s > best) {
+                    best = s;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer. Tombstoned nodes are traversed but, when
+     * {@code liveOnly}, never enter the result set.
+     */
+    private NodeHeap searchLayer(byte[] q, int qBase, float qScale, int ep, int ef, int level, boolean liveOnly) {
+        IntSet visited = new IntSet(ef * 8);
+        NodeHeap candidates = new NodeHeap(ef * 2); // ordered by -similarity: best candidate first
+        NodeHeap results = new NodeHeap(ef + 1);    // ordered by similarity: worst result first
+
+        float s = similarity(q, qBase, qScale, ep);
+        visited.add(ep);
+        candidates.push(-s, ep);
+        if (!liveOnly || !isDeleted(ep)) results.push(s, ep);
+
+        while (candidates.size() > 0) {
+            float candidateSim = -candidates.peekPriority();
+            int candidate = candidates.pop();
+            if (results.size() >= ef && candidateSim < results.peekPriority()) break;
+
+            int[] list = links[candidate][level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbour = list[i];
+                if (!visited.add(neighbour)) continue;
+                float ns = similarity(q, qBase, qScale, neighbour);
+                if (results.size() < ef || ns > results.peekPriority()) {
+                    candidates.push(-ns, neighbour);
+                    if (!liveOnly || !isDeleted(neighbour)) {
+                        results.push(ns, neighbour);
+                        if (results.size() > ef) results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private float similarity(byte[] q, int qBase, float qScale, int node) {
+        int base = node * dimensions;
+        int dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += q[qBase + i] * vectors[base + i];
+        }
+        return dot * qScale * scales[node];
+    }
+
+    private boolean isDeleted(int node) {
+        return (deleted[node >>> 6] & (1L << node)) != 0;
+    }
+
+    // ----------------------------------------------------------------
+    // STATS / STORAGE
+    // ----------------------------------------------------------------
+
+    public int liveCount() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) vectors.length + scales.length * 4L + keys.length * 8L + deleted.length * 8L;
+            for (int i = 0; i < size; i++) {
+                for (int[] list : links[i]) bytes += 16 + list.length * 4L;
+                bytes += 16 + links[i].length * 4L;
+            }
+            return bytes + nodesByKey.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= keys.length) return;
+        int capacity = Math.max(needed, keys.length + (keys.length >> 1));
+        vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        scales = Arrays.copyOf(scales, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        links = Arrays.copyOf(links, capacity);
+        deleted = Arrays.copyOf(deleted, (capacity + 63) >>> 6);
+    }
+
+    private static void sortDescending(int[] nodes, float[] sims) {
+        // Small arrays (at most 2M + 1): insertion sort
+        for (int i = 1; i < nodes.length; i++) {
+            int n = nodes[i];
+            float s = sims[i];
+            int j = i - 1;
+            while (j >= 0 && sims[j] < s) {
+                nodes[j + 1] = nodes[j];
+                sims[j + 1] = sims[j];
+                j--;
+            }
+            nodes[j + 1] = n;
+            sims[j + 1] = s;
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // PRIMITIVE COLLECTIONS
+    // ----------------------------------------------------------------
+
+    /**
+     * Binary min-heap of (priority, node).
+     */
+    private static final class NodeHeap {
+        private float[] priorities;
+        private int[] nodes;
+        private int size;
+
+        NodeHeap(int capacity) {
+            priorities = new float[Math.max(4, capacity)];
+            nodes = new int[priorities.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekPriority() {
+            return priorities[0];
+        }
+
+        void push(float priority, int node) {
+            if (size == nodes.length) {
+                priorities = Arrays.copyOf(priorities, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (priorities[parent] <= priority) break;
+                priorities[i] = priorities[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            priorities[i] = priority;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            float lastPriority = priorities[--size];
+            int lastNode = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) child++;
+                if (priorities[child] >= lastPriority) break;
+                priorities[i] = priorities[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            priorities[i] = lastPriority;
+            nodes[i] = lastNode;
+            return top;
+        }
+
+        /**
+         * Empties a similarity-ordered heap into arrays, highest similarity first.
+         */
+        void drainDescending(int[] outNodes, float[] outSims) {
+            for (int i = size - 1; i >= 0; i--) {
+                outSims[i] = peekPriority();
+                outNodes[i] = pop();
+            }
+        }
+    }
+
+    /**
+     * Open-addressing set of non-negative ints, for visited nodes within one search.
+     */
+    private static final class IntSet {
+        private int[] table;
+        private int size;
+
+        IntSet(int expected) {
+            table = new int[Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1];
+            Arrays.fill(table, -1);
+        }
+
+        boolean add(int value) {
+            if (size * 2 >= table.length) grow();
+            int mask = table.length - 1;
+            int i = mix(value) & mask;
+            while (table[i] != -1) {
+                if (table[i] == value) return false;
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            Arrays.fill(table, -1);
+            size = 0;
+            for (int v : old) {
+                if (v != -1) add(v);
+            }
+        }
+
+        private static int mix(int v) {
+            return v * 0x9E3779B9 ^ (v >>> 16);
+        }
+    }
+
+    /**
+     * Open-addressing long -> int map with backward-shift deletion (keys are product ids).
+     */
+    private static final class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void put(long key, int value) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == EMPTY) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return -1;
+                i = (i + 1) & mask;
+            }
+            return values[i];
+        }
+
+        /**
+         * @return the removed value, or -1
+         */
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return -1;
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            // Shift later entries of the same probe run back into the hole
+            int hole = i;
+            int j = (i + 1) & mask;
+            while (keys[j] != EMPTY) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+                j = (j + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            size--;
+            return removed;
+        }
+
+        long estimatedBytes() {
+            return keys.length * 12L;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
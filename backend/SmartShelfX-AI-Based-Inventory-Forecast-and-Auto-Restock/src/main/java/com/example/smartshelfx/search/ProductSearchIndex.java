@@ -0,0 +1,232 @@
+package com.example.smartshelfx.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic product lookup for the AI chat: name, category and description are embedded with
+ * HashingTextEncoder and kept in an in-process HnswIndex.
+ *
+ * The index is built in the background at startup and rebuilt nightly (which also drops the
+ * tombstones left by edits); in between, products whose updated_at moved are re-encoded every
+ * refresh interval and only re-inserted when their vector actually changed, so stock
+ * movements do not churn the graph. Matches are returned with their live stock read from the
+ * database, never from the index.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    // name, category, description
+    private static final float[] FIELD_WEIGHTS = {2.0f, 1.5f, 1.0f};
+    private static final int MAX_DESCRIPTION_CHARS = 500;
+
+    private static final String LOAD_SQL =
+            "SELECT id, name, category, LEFT(description, " + MAX_DESCRIPTION_CHARS + ") AS description "
+                    + "FROM products WHERE COALESCE(active, TRUE)";
+
+    private static final String CHANGED_SQL =
+            "SELECT id, name, category, LEFT(description, " + MAX_DESCRIPTION_CHARS + ") AS description, "
+                    + "COALESCE(active, TRUE) AS active FROM products WHERE updated_at >= ?";
+
+    private static final String LIVE_STOCK_SQL = """
+            SELECT id, sku, name, category, COALESCE(current_stock, 0) AS stock,
+                   COALESCE(reorder_level, 0) AS reorder_level, COALESCE(safety_stock, 0) AS safety_stock
+            FROM products
+            WHERE id IN (%s) AND COALESCE(active, TRUE)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ai.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.search.dimensions:128}")
+    private int dimensions;
+
+    @Value("${app.ai.search.m:16}")
+    private int m;
+
+    @Value("${app.ai.search.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${app.ai.search.ef-search:100}")
+    private int efSearch;
+
+    @Value("${app.ai.search.top-k:15}")
+    private int topK;
+
+    @Value("${app.ai.search.min-score:0.15}")
+    private float minScore;
+
+    private HashingTextEncoder encoder;
+    private JdbcTemplate streamingJdbc;
+    private volatile HnswIndex index;
+    private volatile LocalDateTime syncedFrom;
+    private volatile long lastBuildMs;
+    private final AtomicBoolean busy = new AtomicBoolean(false);
+
+    public record ProductMatch(long id, String sku, String name, String category,
+                               int stock, int reorderLevel, int safetyStock, float score) {
+    }
+
+    @PostConstruct
+    void init() {
+        encoder = new HashingTextEncoder(dimensions);
+        streamingJdbc = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        streamingJdbc.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Could not build the product search index", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.ai.search.rebuild-cron:0 45 3 * * *}")
+    public void scheduledRebuild() {
+        if (!enabled) return;
+        try {
+            rebuild();
+        } catch (IllegalStateException e) {
+            log.warn("Skipping product search index rebuild: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Scheduled product search index rebuild failed", e);
+        }
+    }
+
+    /**
+     * Builds a fresh index next to the current one and swaps it in; searches keep using the
+     * old index meanwhile.
+     */
+    public Map<String, Object> rebuild() {
+        if (!busy.compareAndSet(false, true)) {
+            throw new IllegalStateException("Product search index is already being rebuilt");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime syncStart = LocalDateTime.now();
+            Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class);
+            HnswIndex fresh = new HnswIndex(dimensions, m, efConstruction, expected == null ? 0 : expected);
+
+            byte[] vector = new byte[dimensions];
+            streamingJdbc.query(LOAD_SQL, (RowCallbackHandler) rs -> {
+                float scale = encoder.encode(new String[]{rs.getString("name"), rs.getString("category"),
+                        rs.getString("description")}, FIELD_WEIGHTS, vector, 0);
+                fresh.put(rs.getLong("id"), vector, 0, scale);
+            });
+
+            index = fresh;
+            syncedFrom = syncStart;
+            lastBuildMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Product search index built: {} products in {} ms (~{} MB)",
+                    fresh.liveCount(), lastBuildMs, fresh.estimatedBytes() >> 20);
+        } finally {
+            busy.set(false);
+        }
+        return getStats();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.search.refresh-ms:60000}")
+    public void refresh() {
+        HnswIndex current = index;
+        if (!enabled || current == null || !busy.compareAndSet(false, true)) return;
+        try {
+            LocalDateTime syncStart = LocalDateTime.now();
+            int[] changed = {0};
+            byte[] vector = new byte[dimensions];
+            jdbcTemplate.query(CHANGED_SQL, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                boolean updated;
+                if (rs.getBoolean("active")) {
+                    float scale = encoder.encode(new String[]{rs.getString("name"), rs.getString("category"),
+                            rs.getString("description")}, FIELD_WEIGHTS, vector, 0);
+                    updated = current.put(id, vector, 0, scale);
+                } else {
+                    updated = current.remove(id);
+                }
+                if (updated) changed[0]++;
+            }, Timestamp.valueOf(syncedFrom));
+            syncedFrom = syncStart;
+            if (changed[0] > 0) {
+                log.debug("Product search index refreshed: {} products re-indexed", changed[0]);
+            }
+        } catch (Exception e) {
+            log.warn("Product search index refresh failed: {}", e.getMessage());
+        } finally {
+            busy.set(false);
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // QUERIES
+    // ----------------------------------------------------------------
+
+    /**
+     * Products most similar to {@code text}, best first, with stock levels read now.
+     * Empty until the first build completes, or when nothing scores above min-score.
+     */
+    public List<ProductMatch> findRelevantProducts(String text) {
+        HnswIndex current = index;
+        if (!enabled || current == null || text == null || text.isBlank()) return List.of();
+
+        byte[] query = new byte[dimensions];
+        float scale = encoder.encode(new String[]{text}, new float[]{1.0f}, query, 0);
+        Map<Long, Float> scores = new LinkedHashMap<>();
+        for (HnswIndex.Hit hit : current.search(query, scale, topK, efSearch)) {
+            if (hit.score() >= minScore) scores.put(hit.key(), hit.score());
+        }
+        if (scores.isEmpty()) return List.of();
+
+        String ids = scores.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+        List<ProductMatch> matches = jdbcTemplate.query(String.format(LIVE_STOCK_SQL, ids), (rs, i) -> {
+            long id = rs.getLong("id");
+            return new ProductMatch(id, rs.getString("sku"), rs.getString("name"), rs.getString("category"),
+                    rs.getInt("stock"), rs.getInt("reorder_level"), rs.getInt("safety_stock"), scores.get(id));
+        });
+        // Products deleted since the last rebuild simply do not come back from the lookup
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(ProductMatch::score).reversed())
+                .toList();
+    }
+
+    public Map<String, Object> getStats() {
+        HnswIndex current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("building", busy.get());
+        if (current != null) {
+            stats.put("products", current.liveCount());
+            stats.put("tombstones", current.deletedCount());
+            stats.put("estimatedMb", current.estimatedBytes() >> 20);
+            stats.put("lastBuildMs", lastBuildMs);
+            stats.put("syncedFrom", syncedFrom);
+        }
+        stats.put("dimensions", dimensions);
+        stats.put("m", m);
+        stats.put("efSearch", efSearch);
+        return stats;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.smartshelfx.security;
 
+import com.example.smartshelfx.model.Role;
 import com.example.smartshelfx.model.User;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,21 +9,48 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
-@RequiredArgsConstructor
+/**
+ * The authenticated user as the rest of the request sees it: id, email, role and whether the
+ * account is active. It holds no User entity, so a principal rebuilt from token claims cannot
+ * be mistaken for a loaded user; code that needs the entity loads it by {@link #getId()}.
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final String password;
+    private final boolean active;
+
+    public CustomUserDetails(User user) {
+        this(user.getId(), user.getEmail(), user.getRole(), user.getPassword(), Boolean.TRUE.equals(user.getActive()));
+    }
+
+    private CustomUserDetails(Long id, String email, Role role, String password, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.password = password;
+        this.active = active;
+    }
+
+    /**
+     * Principal rebuilt from verified token claims, without touching the database.
+     */
+    public static CustomUserDetails fromClaims(Long userId, String email, String role) {
+        return new CustomUserDetails(userId, email, Role.valueOf(role), null, true);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority(user.getRole().name()));
+        return List.of(new SimpleGrantedAuthority(role.name()));
     }
 
     @Override
-    public String getPassword() { return user.getPassword(); }
+    public String getPassword() { return password; }
 
     @Override
-    public String getUsername() { return user.getEmail(); }
+    public String getUsername() { return email; }
 
     @Override
     public boolean isAccountNonExpired() { return true; }
@@ -35,13 +62,13 @@ public class CustomUserDetails implements UserDetails {
     public boolean isCredentialsNonExpired() { return true; }
 
     @Override
-    public boolean isEnabled() { return user.getActive(); }
+    public boolean isEnabled() { return active; }
 
     public Long getId() {
-        return user.getId();
+        return id;
     }
 
-    public User getUser() {
-        return this.user;
+    public Role getRole() {
+        return role;
     }
 }
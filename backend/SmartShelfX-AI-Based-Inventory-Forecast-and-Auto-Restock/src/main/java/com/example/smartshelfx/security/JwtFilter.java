@@ -1,6 +1,7 @@
 package com.example.smartshelfx.security;
 
 import com.example.smartshelfx.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,6 +14,9 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -26,6 +30,14 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private TokenBlacklist tokenBlacklist;
 
+    @Autowired
+    private UserStatusCache userStatusCache;
+
+    // Cheap always-on counters so the per-request cost of authentication can be measured
+    private final LongAdder authenticatedRequests = new LongAdder();
+    private final LongAdder authNanos = new LongAdder();
+    private final LongAdder legacyUserLookups = new LongAdder();
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -35,36 +47,69 @@ public class JwtFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
+            long started = System.nanoTime();
+
+            // One parse verifies signature and expiry and yields all claims
+            Claims claims = jwtUtil.parseValidClaims(token);
 
-            if (tokenBlacklist.isBlacklisted(token)) {
+            if (claims != null && tokenBlacklist.isRevoked(claims, token)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("Token has been revoked");
                 return;
             }
 
             try {
-                // First validate the token structure
-                if (jwtUtil.validateToken(token)) {
-                    String email = jwtUtil.extractEmail(token);
-
-                    if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        UserDetails user = userService.loadUserByUsername(email);
-
-                        // Then validate token against user
-                        if (jwtUtil.validateToken(token, email)) {
-                            UsernamePasswordAuthenticationToken authToken =
-                                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                            SecurityContextHolder.getContext().setAuthentication(authToken);
-                        }
+                String email = claims != null ? claims.getSubject() : null;
+
+                if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails user = resolvePrincipal(claims, email);
+
+                    if (user != null) {
+                        UsernamePasswordAuthenticationToken authToken =
+                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
                     }
                 }
             } catch (Exception e) {
-                logger.error("JWT validation failed: {}");
+                logger.error("JWT validation failed: " + e.getMessage());
                 // Continue with the filter chain - don't block the request
             }
+
+            authenticatedRequests.increment();
+            authNanos.add(System.nanoTime() - started);
         }
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tokens carrying a user id are trusted as signed, subject to the cached active/role
+     * check. Tokens issued before the uid claim existed fall back to a user load.
+     */
+    private UserDetails resolvePrincipal(Claims claims, String email) {
+        Long userId = JwtUtil.extractUserId(claims);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+
+        if (userId != null && role != null) {
+            return userStatusCache.isAllowed(userId, role)
+                    ? CustomUserDetails.fromClaims(userId, email, role)
+                    : null;
+        }
+
+        legacyUserLookups.increment();
+        return userService.loadUserByUsername(email);
+    }
+
+    public Map<String, Object> getStats() {
+        long requests = authenticatedRequests.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("authenticatedRequests", requests);
+        stats.put("avgFilterMicros", requests > 0 ? authNanos.sum() / 1000.0 / requests : 0.0);
+        stats.put("legacyUserLookups", legacyUserLookups.sum());
+        stats.put("statusCacheHits", userStatusCache.getHits());
+        stats.put("statusCacheMisses", userStatusCache.getMisses());
+        stats.put("statusCacheSize", userStatusCache.size());
+        return stats;
+    }
+}
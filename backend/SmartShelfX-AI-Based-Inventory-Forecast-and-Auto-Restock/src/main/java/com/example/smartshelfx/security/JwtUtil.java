@@ -1,14 +1,18 @@
 package com.example.smartshelfx.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
@@ -19,36 +23,72 @@ public class JwtUtil {
     private final long ACCESS_EXPIRATION = 1000 * 60 * 60 * 24; // 24 hours
     private final long REFRESH_EXPIRATION = 1000L * 60 * 60 * 24 * 7; // 7 days
 
-    private Key getSigningKey() {
-        byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+
+    // Key and parser are immutable and thread-safe: build them once, not per call
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     public String generateAccessToken(String email, String role) {
-        return buildToken(email, role, ACCESS_EXPIRATION);
+        return generateAccessToken(email, role, null);
+    }
+
+    public String generateAccessToken(String email, String role, Long userId) {
+        return buildToken(email, role, userId, ACCESS_EXPIRATION);
     }
 
     public String generateRefreshToken(String email, String role) {
-        return buildToken(email, role, REFRESH_EXPIRATION);
+        return generateRefreshToken(email, role, null);
     }
 
-    private String buildToken(String email, String role, long expirationTime) {
-        return Jwts.builder()
+    public String generateRefreshToken(String email, String role, Long userId) {
+        return buildToken(email, role, userId, REFRESH_EXPIRATION);
+    }
+
+    private String buildToken(String email, String role, Long userId, long expirationTime) {
+        var builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
-                .claim("role", role)
+                .claim(ROLE_CLAIM, role);
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies signature and expiry in a single parse.
+     *
+     * @return the claims, or null when the token is invalid or expired
+     */
+    public Claims parseValidClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static Long extractUserId(Claims claims) {
+        Object uid = claims.get(USER_ID_CLAIM);
+        return uid instanceof Number n ? n.longValue() : null;
+    }
+
     // Fix: Add this method to validate token without email
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -66,11 +106,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenExpired(String token) {
@@ -82,6 +118,6 @@ public class JwtUtil {
     }
 
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return extractAllClaims(token).get(ROLE_CLAIM, String.class);
     }
 }
\ No newline at end of file
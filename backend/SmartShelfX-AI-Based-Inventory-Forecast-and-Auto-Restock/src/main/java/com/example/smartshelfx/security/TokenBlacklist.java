@@ -1,29 +1,145 @@
 package com.example.smartshelfx.security;
 
+import com.example.smartshelfx.model.RevokedToken;
+import com.example.smartshelfx.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import java.util.Set;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Revoked tokens, keyed by jti (SHA-256 of the token for tokens issued without one) and
+ * kept only until the token's own exp: after that the signature check rejects it anyway,
+ * so memory is bounded by the number of live revoked tokens.
+ *
+ * The filter hot path is a single ConcurrentHashMap.get (lock-free read). A scheduled purge
+ * drops expired entries; with jwt.blacklist.persistent=true revocations are also written to
+ * revoked_tokens and reloaded on startup.
+ */
 @Component
+@RequiredArgsConstructor
+@Slf4j
 public class TokenBlacklist {
-    private Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+
+    private final JwtUtil jwtUtil;
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.blacklist.persistent:true}")
+    private boolean persistent;
+
+    // key -> exp (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void loadPersisted() {
+        if (!persistent) return;
+        try {
+            for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+                revoked.put(token.getTokenKey(), toEpochMillis(token.getExpiresAt()));
+            }
+            log.info("Loaded {} revoked tokens", revoked.size());
+        } catch (Exception e) {
+            log.warn("Could not load revoked tokens: {}", e.getMessage());
+        }
+    }
 
     public void blacklist(String token) {
-        if (token != null) {
-            blacklistedTokens.add(token);
+        if (token == null) return;
+        Claims claims = jwtUtil.parseValidClaims(token);
+        if (claims == null || claims.getExpiration() == null) {
+            // Invalid or already expired: the filter rejects it without our help
+            return;
+        }
+
+        String key = keyFor(claims, token);
+        long expiresAt = claims.getExpiration().getTime();
+        revoked.put(key, expiresAt);
+
+        if (persistent) {
+            RevokedToken entity = new RevokedToken();
+            entity.setTokenKey(key);
+            entity.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+            entity.setRevokedAt(LocalDateTime.now());
+            revokedTokenRepository.save(entity);
         }
     }
 
+    /**
+     * Hot-path check for a token whose signature has already been verified.
+     */
+    public boolean isRevoked(Claims claims, String token) {
+        if (revoked.isEmpty()) return false;
+        Long expiresAt = revoked.get(keyFor(claims, token));
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
     public boolean isBlacklisted(String token) {
-        return token != null && blacklistedTokens.contains(token);
+        if (token == null) return false;
+        Claims claims = jwtUtil.parseValidClaims(token);
+        return claims != null && isRevoked(claims, token);
     }
 
     public void removeFromBlacklist(String token) {
-        blacklistedTokens.remove(token);
+        Claims claims = token != null ? jwtUtil.parseValidClaims(token) : null;
+        if (claims == null) return;
+        String key = keyFor(claims, token);
+        revoked.remove(key);
+        if (persistent) {
+            revokedTokenRepository.deleteById(key);
+        }
     }
 
-    // Optional: Clean up expired tokens periodically
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.blacklist.purge-interval-ms:60000}")
     public void cleanup() {
-        // Implementation for cleaning up expired tokens
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        int purged = before - revoked.size();
+
+        if (persistent) {
+            try {
+                purged += revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            } catch (Exception e) {
+                log.warn("Purging revoked_tokens failed: {}", e.getMessage());
+            }
+        }
+        if (purged > 0) {
+            log.debug("Purged {} expired token revocations", purged);
+        }
+    }
+
+    private static String keyFor(Claims claims, String token) {
+        String jti = claims.getId();
+        return jti != null ? jti : sha256(token);
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.example.smartshelfx.security;
+
+import com.example.smartshelfx.model.Role;
+import com.example.smartshelfx.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived, size-bounded cache of (active, role) per user id.
+ *
+ * Lets JwtFilter trust the signed claims while still honouring deactivation and role
+ * changes within the TTL, at one tiny lookup per user per TTL instead of a user load per
+ * request. UserService evicts entries on every user mutation, so changes made through the
+ * API apply immediately on this node.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.user-status-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${jwt.user-status-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record Entry(boolean active, Role role, long expiresAtNanos) {
+    }
+
+    /**
+     * True when the user still exists, is active and still holds the role in the token.
+     */
+    public boolean isAllowed(Long userId, String role) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.expiresAtNanos() - now < 0) {
+            misses.increment();
+            entry = load(userId, now);
+        } else {
+            hits.increment();
+        }
+        return entry.active() && entry.role() != null && entry.role().name().equals(role);
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) {
+            entries.remove(userId);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry load(Long userId, long now) {
+        List<Object[]> rows = userRepository.findStatusById(userId);
+        Entry entry = rows.isEmpty()
+                ? new Entry(false, null, now + ttlSeconds * 1_000_000_000L)
+                : new Entry(Boolean.TRUE.equals(rows.getFirst()[0]), (Role) rows.getFirst()[1],
+                        now + ttlSeconds * 1_000_000_000L);
+
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> e.expiresAtNanos() - now < 0);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(userId, entry);
+        return entry;
+    }
+}
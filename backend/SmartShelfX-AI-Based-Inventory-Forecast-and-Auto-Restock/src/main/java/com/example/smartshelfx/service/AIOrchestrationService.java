@@ -25,6 +25,7 @@ public class AIOrchestrationService {
     private final ForecastRepository forecastRepository;
     private final AlertRepository alertRepository;
     private final SmartShelfXAIService smartShelfXAIService;
+    private final ReferenceNumberService referenceNumberService;
 
     @Transactional
     public InventoryAiResponse forecastAndMaybeReorder(Long productId, boolean autoCreatePo) {
@@ -36,7 +37,7 @@ public class AIOrchestrationService {
         LocalDateTime end = LocalDateTime.now();
 
         List<StockTransaction> recentTransactions =
-                stockTransactionRepository.findByProductIdOrderByTimestampDesc(productId)
+                stockTransactionRepository.findRecentTransactionsByProduct(productId, start)
                         .stream()
                         .filter(t -> t.getTimestamp() != null &&
                                 !t.getTimestamp().isBefore(start) &&
@@ -106,7 +107,7 @@ public class AIOrchestrationService {
                 && aiResult.getRecommendedOrderQty() > 0) {
 
             po = new PurchaseOrder();
-            po.setPoNumber("PO-" + System.currentTimeMillis());
+            po.setPoNumber(referenceNumberService.nextPurchaseOrderNumber());
             po.setProduct(product);
             po.setVendor(product.getVendor()); // may be null if no vendor assigned
             po.setQuantity(aiResult.getRecommendedOrderQty());
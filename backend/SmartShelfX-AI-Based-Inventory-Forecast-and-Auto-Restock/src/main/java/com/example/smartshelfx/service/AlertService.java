@@ -1,18 +1,27 @@
 package com.example.smartshelfx.service;
 
+import com.example.smartshelfx.event.AlertRaisedEvent;
+import com.example.smartshelfx.event.AlertsReadEvent;
+import com.example.smartshelfx.event.StockChangedEvent;
 import com.example.smartshelfx.model.Alert;
 import com.example.smartshelfx.model.Product;
 import com.example.smartshelfx.model.Role;
 import com.example.smartshelfx.model.User;
 import com.example.smartshelfx.repository.AlertRepository;
+import com.example.smartshelfx.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
 
 @Service
 @Slf4j
@@ -22,6 +31,17 @@ public class AlertService {
     private final AlertRepository alertRepository;
     private final EmailService emailService;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DomainEventBus domainEventBus;
+    private final ProductRepository productRepository;
+
+    @Value("${app.alerts.bulk-chunk-size:5000}")
+    private int bulkChunkSize;
+
+    @Value("${app.alerts.purge.retention-days:30}")
+    private int purgeRetentionDays;
+
+    private final AtomicBoolean purging = new AtomicBoolean(false);
 
     public boolean hasActiveLowStockAlert(Product product) {
         return alertRepository.existsByProductAndTypeAndIsReadFalse(
@@ -38,23 +58,36 @@ public class AlertService {
 
         Alert alert = Alert.createLowStockAlert(product, product.getCurrentStock(), product.getReorderLevel());
         alert.setCreatedAt(LocalDateTime.now());
-        alertRepository.save(alert);
+        // Managers and admins are mailed from the event by the alert-notifications consumer
+        domainEventBus.publish(AlertRaisedEvent.of(alertRepository.save(alert)));
+    }
 
-        try { sendLowStockAlertEmails(product); } catch (Exception e) { log.warn("Email failed: {}", e.getMessage()); }
+    /** Saves an alert built by the caller and announces it. */
+    @Transactional
+    public Alert raise(Alert alert) {
+        if (alert.getCreatedAt() == null) alert.setCreatedAt(LocalDateTime.now());
+        Alert saved = alertRepository.save(alert);
+        domainEventBus.publish(AlertRaisedEvent.of(saved));
+        return saved;
+    }
+
+    /** Saves a batch of alerts built by the caller and announces them, e.g. a forecast run's chunk. */
+    @Transactional
+    public List<Alert> raiseAll(List<Alert> alerts) {
+        if (alerts.isEmpty()) return List.of();
+        LocalDateTime now = LocalDateTime.now();
+        alerts.forEach(a -> {
+            if (a.getCreatedAt() == null) a.setCreatedAt(now);
+        });
+        List<Alert> saved = alertRepository.saveAll(alerts);
+        domainEventBus.publishAll(saved.stream().map(AlertRaisedEvent::of).toList());
+        return saved;
     }
 
     // Public method used by InventoryService
     @Transactional
-    public void resolveLowStockAlerts(Product product) {
-        // Mark unread low-stock alerts for this product as read
-        List<Alert> alerts = alertRepository.findByProductAndTypeOrderByCreatedAtDesc(product, Alert.AlertType.LOW_STOCK);
-        for (Alert a : alerts) {
-            if (!a.getIsRead()) {
-                a.setIsRead(true);
-                a.setResolvedAt(LocalDateTime.now());
-                alertRepository.save(a);
-            }
-        }
+    public int resolveLowStockAlerts(Product product) {
+        return resolveByProduct(product.getId(), Alert.AlertType.LOW_STOCK);
     }
 
     // Public method used by ForecastService
@@ -66,22 +99,16 @@ public class AlertService {
         Alert alert = new Alert();
         alert.setType(Alert.AlertType.RESTOCK_SUGGESTION);
         alert.setTitle("🔁 Restock Suggestion: " + product.getName());
+        alert.setMessage(String.format("Suggested to order %d units (current stock: %d)",
+                suggestedQuantity, product.getCurrentStock()));
         alert.setDescription(String.format("Suggested to order %d units for %s (current stock: %d)",
                 suggestedQuantity, product.getName(), product.getCurrentStock()));
         alert.setPriority(Alert.Priority.MEDIUM);
         alert.setProduct(product);
         alert.setSuggestedAction("Review suggestion and create PO");
         alert.setCreatedAt(LocalDateTime.now());
-        alertRepository.save(alert);
-
-        try {
-            List<User> admins = userService.getUsersByRole(Role.ROLE_ADMIN);
-            for (User u : admins) {
-                emailService.sendRestockSuggestionEmail(u.getEmail(), product.getName(), suggestedQuantity);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to email restock suggestion: {}", e.getMessage());
-        }
+        // Admins are mailed from the event by the alert-notifications consumer, after commit
+        domainEventBus.publish(AlertRaisedEvent.of(alertRepository.save(alert)));
     }
 
     public List<Alert> getAllAlerts() {
@@ -101,44 +128,202 @@ public class AlertService {
         return alertRepository.findByProductIdOrderByCreatedAtDesc(productId);
     }
 
+    // AlertsReadEvent listeners run after commit (EventStreamService), so a rolled-back change
+    // never reaches the browsers; the events are published once the change has been written.
     @Transactional
     public Alert markAsRead(Long alertId) {
         return alertRepository.findById(alertId).map(a -> {
             a.setIsRead(true);
             a.setResolvedAt(LocalDateTime.now());
-            return alertRepository.save(a);
+            Alert saved = alertRepository.save(a);
+            eventPublisher.publishEvent(AlertsReadEvent.ofIds(List.of(alertId), 1));
+            return saved;
         }).orElse(null);
     }
 
+    // ----------------------------------------------------------------
+    // BULK STATE CHANGES (set-based; return the number of rows changed)
+    // ----------------------------------------------------------------
+
     @Transactional
-    public void markAllAsRead() {
-        List<Alert> unread = alertRepository.findByIsReadFalseOrderByCreatedAtDesc();
-        unread.forEach(a -> {
-            a.setIsRead(true);
-            a.setResolvedAt(LocalDateTime.now());
-            alertRepository.save(a);
-        });
+    public int markAsRead(Collection<Long> alertIds) {
+        if (alertIds == null || alertIds.isEmpty()) return 0;
+        if (alertIds.size() > bulkChunkSize) {
+            throw new IllegalArgumentException("At most " + bulkChunkSize + " alert ids per request");
+        }
+        int updated = alertRepository.markAlertsAsRead(alertIds, LocalDateTime.now());
+        if (updated > 0) {
+            eventPublisher.publishEvent(AlertsReadEvent.ofIds(List.copyOf(alertIds), updated));
+        }
+        return updated;
+    }
+
+    /**
+     * Marks every alert that was unread when the call started, in committed chunks so a large
+     * backlog never holds row locks for one long transaction.
+     */
+    public int markAllAsRead() {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = inChunks(() -> alertRepository.markUnreadAsReadChunk(now, bulkChunkSize));
+        if (updated > 0) {
+            eventPublisher.publishEvent(AlertsReadEvent.ofAll(updated));
+        }
+        log.info("Marked {} alerts as read", updated);
+        return updated;
+    }
+
+    @Transactional
+    public int resolveByProduct(Long productId, Alert.AlertType type) {
+        int resolved = alertRepository.resolveByProductAndType(productId, type, LocalDateTime.now());
+        if (resolved > 0) {
+            eventPublisher.publishEvent(AlertsReadEvent.ofScope(productId, type, resolved));
+        }
+        return resolved;
+    }
+
+    public int resolveByType(Alert.AlertType type) {
+        LocalDateTime now = LocalDateTime.now();
+        int resolved = inChunks(() -> alertRepository.resolveByTypeChunk(type.name(), now, bulkChunkSize));
+        if (resolved > 0) {
+            eventPublisher.publishEvent(AlertsReadEvent.ofScope(null, type, resolved));
+        }
+        log.info("Resolved {} {} alerts", resolved, type);
+        return resolved;
+    }
+
+    @Scheduled(cron = "${app.alerts.purge.cron:0 15 2 * * *}")
+    public void scheduledExpireAndPurge() {
+        if (purging.get()) {
+            log.warn("Skipping scheduled alert purge: previous run still in progress");
+            return;
+        }
+        try {
+            expireAndPurge();
+        } catch (Exception e) {
+            log.error("Scheduled alert purge failed", e);
+        }
+    }
+
+    /**
+     * Resolves unread alerts whose expiresAt has passed, then deletes alerts that expired
+     * more than {@code app.alerts.purge.retention-days} ago.
+     */
+    public Map<String, Object> expireAndPurge() {
+        if (!purging.compareAndSet(false, true)) {
+            throw new IllegalStateException("Alert purge is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime cutoff = now.minusDays(purgeRetentionDays);
+
+            int expired = inChunks(() -> alertRepository.expireChunk(now, bulkChunkSize));
+            if (expired > 0) {
+                eventPublisher.publishEvent(AlertsReadEvent.ofScope(null, null, expired));
+            }
+            int purged = inChunks(() -> alertRepository.purgeExpiredChunk(cutoff, bulkChunkSize));
+
+            long durationMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Alert purge: {} expired, {} deleted (expired before {}) in {} ms", expired, purged, cutoff, durationMs);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("expired", expired);
+            summary.put("purged", purged);
+            summary.put("purgedBefore", cutoff);
+            summary.put("durationMs", durationMs);
+            return summary;
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    private int inChunks(IntSupplier chunk) {
+        int total = 0;
+        int changed;
+        do {
+            changed = chunk.getAsInt();
+            total += changed;
+        } while (changed >= bulkChunkSize);
+        return total;
     }
 
     public long getUnreadAlertCount() {
         return alertRepository.countByIsReadFalse();
     }
 
-    // Email helpers (best-effort, swallow exceptions)
-    private void sendLowStockAlertEmails(Product product) {
-        try {
-            List<User> managers = userService.getUsersByRole(Role.ROLE_MANAGER);
-            List<User> admins = userService.getUsersByRole(Role.ROLE_ADMIN);
-            Set<User> recipients = new HashSet<>();
-            if (managers != null) recipients.addAll(managers);
-            if (admins != null) recipients.addAll(admins);
-
-            for (User r : recipients) {
-                emailService.sendLowStockAlertEmail(r.getEmail(), product.getName(), product.getCurrentStock(), product.getReorderLevel());
+    // ----------------------------------------------------------------
+    // EVENT CONSUMERS (outbox batches, see DomainEventConsumers)
+    // ----------------------------------------------------------------
+
+    /**
+     * Raises low stock alerts for products that had stock taken out and resolves them for
+     * products that were restocked above their reorder level. Each product is looked at once
+     * per batch, with its stock as it is now.
+     */
+    @Transactional
+    public void evaluateLowStock(List<StockChangedEvent> events) {
+        Set<Long> removed = new HashSet<>();
+        Set<Long> added = new HashSet<>();
+        for (StockChangedEvent event : events) {
+            ("OUT".equals(event.type()) ? removed : added).add(event.productId());
+        }
+        Set<Long> ids = new HashSet<>(removed);
+        ids.addAll(added);
+        for (Product product : productRepository.findAllById(ids)) {
+            boolean low = product.getCurrentStock() <= product.getReorderLevel();
+            if (low && removed.contains(product.getId())) {
+                createLowStockAlert(product);
+            } else if (!low && added.contains(product.getId())) {
+                resolveLowStockAlerts(product);
             }
-        } catch (Exception e) {
-            log.warn("sendLowStockAlertEmails failed: {}", e.getMessage());
         }
     }
 
+    /**
+     * Mails low stock alerts to managers and admins and restock suggestions to admins; recipients
+     * are looked up once per batch. Mail is sent synchronously, so an SMTP failure fails the batch
+     * and the outbox retries it.
+     */
+    public void notifyAlerts(List<AlertRaisedEvent> events) {
+        List<AlertRaisedEvent> restock = events.stream()
+                .filter(e -> Alert.AlertType.RESTOCK_SUGGESTION.name().equals(e.type()))
+                .toList();
+        if (!restock.isEmpty()) {
+            Set<String> admins = recipients(List.of(Role.ROLE_ADMIN));
+            for (AlertRaisedEvent event : restock) {
+                for (String email : admins) {
+                    emailService.sendRestockSuggestionEmail(email, event.productName(), event.message());
+                }
+            }
+        }
+
+        List<AlertRaisedEvent> lowStock = events.stream()
+                .filter(e -> Alert.AlertType.LOW_STOCK.name().equals(e.type()) && e.productId() != null)
+                .toList();
+        if (lowStock.isEmpty()) return;
+
+        Set<String> recipients = recipients(List.of(Role.ROLE_MANAGER, Role.ROLE_ADMIN));
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(lowStock.stream().map(AlertRaisedEvent::productId).toList())
+                .forEach(p -> products.put(p.getId(), p));
+
+        for (AlertRaisedEvent event : lowStock) {
+            Product product = products.get(event.productId());
+            if (product == null) continue;
+            for (String email : recipients) {
+                emailService.sendLowStockAlertEmail(email, product.getName(), product.getCurrentStock(),
+                        product.getReorderLevel());
+            }
+        }
+    }
+
+    private Set<String> recipients(List<Role> roles) {
+        Set<String> recipients = new LinkedHashSet<>();
+        for (Role role : roles) {
+            List<User> users = userService.getUsersByRole(role);
+            if (users != null) users.forEach(u -> recipients.add(u.getEmail()));
+        }
+        return recipients;
+    }
+
 }
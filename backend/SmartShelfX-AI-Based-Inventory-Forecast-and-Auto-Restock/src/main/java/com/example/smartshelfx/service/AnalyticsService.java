@@ -10,6 +10,7 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -21,8 +22,10 @@ import java.util.*;
  * - Uses LocalDate where repository expects LocalDate.
  * - Handles nulls and type conversions from primitive long -> Long safely.
  * - Defensive programming to avoid cascading exceptions.
+ * - Read-only transactions, so dashboards are served from the read replica when one is configured.
  */
 @Service
+@Transactional(readOnly = true)
 @Slf4j
 @RequiredArgsConstructor
 public class AnalyticsService {
@@ -32,6 +35,8 @@ public class AnalyticsService {
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final AlertRepository alertRepository;
     private final ForecastRepository forecastRepository;
+    private final InventoryValuationService inventoryValuationService;
+    private final SalesCubeService salesCubeService;
 
     public DashboardData getDashboardData() {
         try {
@@ -64,8 +69,7 @@ public class AnalyticsService {
         long lowStockCount = safeCollectionSize(productRepository.findLowStockProducts());
         long outOfStockCount = safeCollectionSize(productRepository.findOutOfStockProducts());
 
-        Double totalValue = productRepository.calculateTotalInventoryValue();
-        if (totalValue == null) totalValue = 0.0;
+        Double totalValue = inventoryValuationService.getInventoryValue().doubleValue();
 
         return new InventorySummary(totalProducts, lowStockCount, outOfStockCount, totalValue);
     }
@@ -190,51 +194,21 @@ public class AnalyticsService {
 
 
 
+    /**
+     * Last 30 days against the 30 before, read from the sales cube.
+     */
     public SalesMetrics getSalesMetrics() {
         try {
-            LocalDateTime end = LocalDateTime.now();
-            LocalDateTime start = end.minusDays(30);
-
-            List<Object[]> monthSales = stockTransactionRepository.findSalesBetweenDates(start, end);
-            if (monthSales == null) monthSales = Collections.emptyList();
-            Double currentTotal = calculateSales(monthSales);
-
-            LocalDateTime prevStart = end.minusDays(60);
-            LocalDateTime prevEnd = end.minusDays(30);
-
-            List<Object[]> prevSales = stockTransactionRepository.findSalesBetweenDates(prevStart, prevEnd);
-            if (prevSales == null) prevSales = Collections.emptyList();
-            Double prevTotal = calculateSales(prevSales);
-
-            Double growth = (prevTotal != null && prevTotal > 0)
-                    ? ((currentTotal - prevTotal) / prevTotal) * 100.0
-                    : 0.0;
-
-            int transactionCount = monthSales.size();
-
-            return new SalesMetrics(currentTotal, growth, transactionCount);
+            LocalDate today = LocalDate.now();
+            SalesCubeService.SalesSummary summary = salesCubeService.getSummary(today.minusDays(29), today);
+            return new SalesMetrics(summary.current().revenue().doubleValue(), summary.revenueGrowth(),
+                    Math.toIntExact(summary.current().transactions()));
         } catch (Exception e) {
             log.error("Error computing sales metrics: {}", e.getMessage(), e);
             return new SalesMetrics(0.0, 0.0, 0);
         }
     }
 
-    private Double calculateSales(List<Object[]> list) {
-        if (list == null || list.isEmpty()) return 0.0;
-        return list.stream()
-                .mapToDouble(o -> {
-                    // defensive: some rows may be [productId, sumQty]
-                    try {
-                        Number qty = (Number) o[1];
-                        double avgPrice = 10.0; // fallback mock average price
-                        return qty.doubleValue() * avgPrice;
-                    } catch (Exception ex) {
-                        return 0.0;
-                    }
-                })
-                .sum();
-    }
-
     public AIInsights getAIInsights() {
         try {
             Double accuracy = forecastRepository.findAverageAccuracy();
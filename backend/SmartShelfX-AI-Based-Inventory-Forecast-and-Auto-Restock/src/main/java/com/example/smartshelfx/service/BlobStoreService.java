@@ -0,0 +1,324 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.model.StoredFile;
+import com.example.smartshelfx.repository.FileBlobRepository;
+import com.example.smartshelfx.repository.StoredFileRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage for uploads: bytes are kept once per SHA-256 under
+ * {@code blobs/<aa>/<bb>/<sha256>}, and every uploaded file name is a stored_files row that
+ * references a blob.
+ *
+ * An upload is streamed to a temp file while it is hashed. When the blob already exists, the
+ * temp file is dropped and only the reference count goes up; otherwise the temp file is
+ * renamed into place, so a blob path never shows a partial file. Count changes, first writes
+ * and deletions of the same hash are serialized by a lock stripe, so a blob cannot be deleted
+ * between another upload counting it and finding it on disk. That lock is per instance: all
+ * nodes writing the same upload directory must not run at once without a shared lock.
+ *
+ * The GC job repairs counts of blobs idle for the grace period from stored_files, deletes
+ * unreferenced blobs, removes blob files without a row and clears stale temp files.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BlobStoreService {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+    private static final int GC_BATCH = 500;
+
+    private final FileBlobRepository blobRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final ImageThumbnailService thumbnailService;
+
+    @Value("${app.upload.blobs.dir:${app.upload.dir}/blobs}")
+    private String blobsDir;
+
+    @Value("${app.upload.blobs.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    private Path root;
+    private Path tempDir;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicBoolean gcRunning = new AtomicBoolean(false);
+
+    public record StoredBlob(StoredFile file, Path path, boolean created) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(blobsDir).toAbsolutePath().normalize();
+        tempDir = root.resolve("tmp");
+        Files.createDirectories(tempDir);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // STORE / RESOLVE / RELEASE
+    // ----------------------------------------------------------------
+
+    /**
+     * Stores an upload under {@code filename}. A content already present is only referenced
+     * again: its bytes are not rewritten.
+     */
+    public StoredBlob store(MultipartFile file, String type, String filename) throws IOException {
+        return store(file.getInputStream(), file.getOriginalFilename(), type, filename);
+    }
+
+    /** Same as the upload variant, for content produced by the server (reports, exports). */
+    public StoredBlob store(InputStream content, String originalName, String type, String filename) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = blobPath(hash);
+
+            boolean created = false;
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                blobRepository.acquire(hash, size, LocalDateTime.now());
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    created = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            StoredFile stored = new StoredFile(filename, type, hash, originalName, size,
+                    LocalDateTime.now());
+            try {
+                storedFileRepository.save(stored);
+            } catch (RuntimeException e) {
+                release(hash);
+                throw e;
+            }
+            log.info("Stored {} as blob {} ({} bytes, {})", filename, hash, size, created ? "new" : "deduplicated");
+            return new StoredBlob(stored, target, created);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Blob path of a stored file of the given type, if the name is known to the store. */
+    public Optional<Path> resolve(String filename, String type) {
+        return storedFileRepository.findById(filename)
+                .filter(f -> f.getFileType().equalsIgnoreCase(type))
+                .map(f -> blobPath(f.getSha256()));
+    }
+
+    /**
+     * Drops a file name. Its blob is deleted right away when this was the last reference.
+     *
+     * @return false when the name is not in the store
+     */
+    public boolean delete(String filename) {
+        Optional<StoredFile> stored = storedFileRepository.findById(filename);
+        if (stored.isEmpty()) return false;
+        storedFileRepository.delete(stored.get());
+        release(stored.get().getSha256());
+        return true;
+    }
+
+    private void release(String hash) {
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            blobRepository.release(hash, LocalDateTime.now());
+            deleteBlobIfUnreferenced(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // GARBAGE COLLECTION
+    // ----------------------------------------------------------------
+
+    @Scheduled(cron = "${app.upload.blobs.gc-cron:0 30 4 * * *}")
+    public void scheduledGc() {
+        try {
+            collectGarbage();
+        } catch (IllegalStateException e) {
+            log.warn("Skipping blob GC: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Scheduled blob GC failed", e);
+        }
+    }
+
+    public Map<String, Object> collectGarbage() {
+        if (!gcRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("Blob garbage collection is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(gcGraceMinutes);
+
+            int reconciled = blobRepository.reconcileRefCounts(cutoff);
+
+            int deleted = 0;
+            List<String> batch;
+            do {
+                batch = blobRepository.findUnreferencedBefore(cutoff, PageRequest.of(0, GC_BATCH));
+                for (String hash : batch) {
+                    ReentrantLock lock = lockFor(hash);
+                    lock.lock();
+                    try {
+                        if (deleteBlobIfUnreferenced(hash)) deleted++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } while (batch.size() == GC_BATCH);
+
+            Instant fileCutoff = Instant.now().minus(Duration.ofMinutes(gcGraceMinutes));
+            int orphanFiles = deleteOrphanFiles(fileCutoff);
+            int tempFiles = deleteStaleTempFiles(fileCutoff);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("refCountsRepaired", reconciled);
+            summary.put("blobsDeleted", deleted);
+            summary.put("orphanFilesDeleted", orphanFiles);
+            summary.put("tempFilesDeleted", tempFiles);
+            summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+            log.info("Blob GC finished: {}", summary);
+            return summary;
+        } finally {
+            gcRunning.set(false);
+        }
+    }
+
+    /** Caller holds the hash's lock. */
+    private boolean deleteBlobIfUnreferenced(String hash) {
+        if (blobRepository.deleteIfUnreferenced(hash) == 0) return false;
+        Path path = blobPath(hash);
+        thumbnailService.deleteVariants(path);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // The row is gone, so the file is an orphan now and the next GC retries it
+            log.warn("Could not delete blob {}: {}", hash, e.getMessage());
+        }
+        return true;
+    }
+
+    /** Blob files with no row, e.g. left by a failed delete; young files may be mid-upload. */
+    private int deleteOrphanFiles(Instant cutoff) {
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!BLOB_NAME.matcher(name).matches() || !olderThan(file, cutoff)) continue;
+                ReentrantLock lock = lockFor(name);
+                lock.lock();
+                try {
+                    if (!blobRepository.existsById(name)) {
+                        thumbnailService.deleteVariants(file);
+                        Files.deleteIfExists(file);
+                        deleted++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Blob GC could not scan {}: {}", root, e.getMessage());
+        }
+        return deleted;
+    }
+
+    private int deleteStaleTempFiles(Instant cutoff) {
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (olderThan(file, cutoff) && Files.deleteIfExists(file)) deleted++;
+            }
+        } catch (IOException e) {
+            log.warn("Blob GC could not clean {}: {}", tempDir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    public Map<String, Object> getStats() {
+        Object[] blobs = blobRepository.countAndTotalSize().getFirst();
+        Object[] files = storedFileRepository.countAndTotalSize().getFirst();
+        long physical = ((Number) blobs[1]).longValue();
+        long logical = ((Number) files[1]).longValue();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("storedFiles", ((Number) files[0]).longValue());
+        stats.put("blobs", ((Number) blobs[0]).longValue());
+        stats.put("logicalBytes", logical);
+        stats.put("storedBytes", physical);
+        stats.put("savedBytes", Math.max(0, logical - physical));
+        stats.put("gcRunning", gcRunning.get());
+        return stats;
+    }
+
+    // ----------------------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------------------
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    private static boolean olderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
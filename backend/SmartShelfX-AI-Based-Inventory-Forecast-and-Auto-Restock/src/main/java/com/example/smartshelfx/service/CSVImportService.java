@@ -3,54 +3,121 @@ package com.example.smartshelfx.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
 import com.opencsv.exceptions.CsvValidationException;
+import com.example.smartshelfx.job.JobContext;
 import com.example.smartshelfx.model.Product;
 import com.example.smartshelfx.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class CSVImportService {  // Changed class name to match filename
 
+    private static final int IMPORT_CHUNK = 500;
+
     @Autowired
     private ProductRepository productRepository;
 
-    public List<Product> importProductsFromCSV(MultipartFile file) throws IOException {
-        List<Product> importedProducts = new ArrayList<>();
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
 
-        try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream()))) {
-            String[] nextLine;
-            boolean isHeader = true;
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
+    /**
+     * Job version of the import: reads a stored CSV and saves products in chunks. Each chunk and
+     * the checkpoint after it commit in one transaction, so the checkpoint (the number of data
+     * records consumed) never lags the saved products and a resumed job imports each row once.
+     */
+    public Map<String, Object> importProducts(Path csv, JobContext context) throws IOException {
+        long started = System.nanoTime();
+        context.setTotal(countDataRows(csv));
+
+        long rowsDone = context.getCheckpoint();
+        long imported = context.getProcessed();
+        long skipped = 0;
+        List<Product> chunk = new ArrayList<>(IMPORT_CHUNK);
+
+        try (CSVReader reader = new CSVReader(Files.newBufferedReader(csv))) {
+            // Header, then the records saved before a restart. Read as records rather than
+            // skipped as lines, since a quoted field may span several lines.
+            reader.readNext();
+            for (long i = 0; i < rowsDone; i++) {
+                if (reader.readNext() == null) break;
+            }
+            String[] nextLine;
             while ((nextLine = reader.readNext()) != null) {
-                if (isHeader) {
-                    isHeader = false;
-                    continue; // Skip header row
+                rowsDone++;
+                Product product = toProduct(nextLine);
+                if (product == null) {
+                    skipped++;
+                } else {
+                    chunk.add(product);
                 }
-
-                if (nextLine.length >= 4) {
-                    Product product = new Product();
-                    product.setName(nextLine[0]);
-                    product.setSku(nextLine[1]);
-                    product.setCategory(nextLine[2]);
-                    product.setDescription(nextLine.length > 3 ? nextLine[3] : "");
-                    product.setCurrentStock(0);
-                    product.setReorderLevel(10);
-
-                    importedProducts.add(product);
+                if (chunk.size() == IMPORT_CHUNK) {
+                    imported = saveChunk(chunk, imported, rowsDone, context);
+                    chunk.clear();
+                    context.throwIfCancelled();
                 }
             }
+            imported = saveChunk(chunk, imported, rowsDone, context);
         } catch (CsvValidationException e) {
-            throw new IOException("CSV validation error", e);
+            throw new IOException("CSV validation error at row " + (rowsDone + 1), e);
         }
 
-        return productRepository.saveAll(importedProducts);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("rows", rowsDone);
+        summary.put("imported", imported);
+        summary.put("skippedThisRun", skipped);
+        summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+        return summary;
+    }
+
+    private long saveChunk(List<Product> chunk, long imported, long rowsDone, JobContext context) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            long total = imported + productRepository.saveAll(chunk).size();
+            context.progress(total, rowsDone);
+            return total;
+        }));
+    }
+
+    private static Product toProduct(String[] line) {
+        if (line.length < 4) return null;
+        Product product = new Product();
+        product.setName(line[0]);
+        product.setSku(line[1]);
+        product.setCategory(line[2]);
+        product.setDescription(line[3]);
+        product.setCurrentStock(0);
+        product.setReorderLevel(10);
+        return product;
+    }
+
+    private static long countDataRows(Path csv) throws IOException {
+        try (Stream<String> lines = Files.lines(csv)) {
+            // Approximate when quoted fields contain line breaks; only used for the progress total
+            return Math.max(0, lines.filter(l -> !l.isBlank()).count() - 1);
+        }
     }
 
+    @Transactional(readOnly = true)
     public byte[] exportProductsToCSV() throws IOException {
         List<Product> products = productRepository.findAll();
 
@@ -80,6 +147,7 @@ public class CSVImportService {  // Changed class name to match filename
         }
     }
 
+    @Transactional(readOnly = true)
     public byte[] exportLowStockReport() throws IOException {
         List<Product> lowStockProducts = productRepository.findLowStockProducts();
 
@@ -0,0 +1,98 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.event.DomainEventConsumer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Publishes StockChanged, PurchaseOrderStatusChanged and AlertRaised events.
+ *
+ * An event goes two ways. In-process listeners (the SSE stream) get it as an application event
+ * after commit, as before. Every DomainEventConsumer subscribed to its type gets an outbox row
+ * inserted in the caller's transaction: the write only pays for those inserts, and the side
+ * effects (alerts, mail, stock receipts) run later on OutboxDispatcher, which is woken right
+ * after the commit. Rolled-back writes leave no events behind.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DomainEventBus {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (consumer, event_type, payload, status, attempts, available_at, created_at)
+            VALUES (?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher dispatcher;
+    // Consumers call services that publish here, so they are looked up on first use
+    private final ObjectProvider<DomainEventConsumer<?>> consumerBeans;
+
+    private volatile Map<Class<?>, List<String>> subscriptions;
+
+    public void publish(Object event) {
+        publishAll(List.of(event));
+    }
+
+    /** Publishes a batch of events; their outbox rows go out as one JDBC batch. */
+    public void publishAll(List<?> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (Object event : events) {
+            eventPublisher.publishEvent(event);
+
+            List<String> consumers = subscriptions().getOrDefault(event.getClass(), List.of());
+            if (consumers.isEmpty()) continue;
+
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Event is not serializable: " + e.getMessage(), e);
+            }
+            String type = event.getClass().getSimpleName();
+            for (String consumer : consumers) {
+                rows.add(new Object[]{consumer, type, payload, now, now});
+            }
+        }
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUp();
+                }
+            });
+        } else {
+            dispatcher.wakeUp();
+        }
+    }
+
+    private Map<Class<?>, List<String>> subscriptions() {
+        Map<Class<?>, List<String>> current = subscriptions;
+        if (current == null) {
+            Map<Class<?>, List<String>> built = new HashMap<>();
+            consumerBeans.orderedStream().forEach(c ->
+                    built.computeIfAbsent(c.getEventType(), t -> new ArrayList<>()).add(c.getName()));
+            subscriptions = current = built;
+            log.info("Domain event subscriptions: {}", built);
+        }
+        return current;
+    }
+}
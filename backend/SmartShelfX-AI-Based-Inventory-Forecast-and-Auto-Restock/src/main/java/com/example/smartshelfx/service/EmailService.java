@@ -8,8 +8,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Mails raised from domain events (low stock, restock suggestions, purchase orders) are sent
+ * synchronously by the outbox consumers, which already run off the request thread; an SMTP
+ * failure fails the batch, so the outbox retries it with backoff and marks it FAILED in the end.
+ * sendLowStockAlert and sendAIPredictionEmail are called straight from request handlers and
+ * stay @Async; their failures are logged by AppConfig's async handler.
+ */
 @Service
 @Slf4j
 public class EmailService {
@@ -20,6 +31,7 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
 
+    @Async
     public void sendLowStockAlert(String toEmail, String productName, String sku, Integer currentStock) {
         String subject = "Low Stock Alert - " + productName;
 
@@ -32,29 +44,24 @@ public class EmailService {
     }
 
     // ✅ RESTOCK SUGGESTION EMAIL
-    public void sendRestockSuggestionEmail(String recipientEmail, String productName, Integer suggestedQuantity) {
-        try {
-            String subject = "Restock Suggestion - " + productName;
-
-            String body = String.format("""
-                    Hello,
+    public void sendRestockSuggestionEmail(String recipientEmail, String productName, String suggestion) {
+        String subject = "Restock Suggestion - " + productName;
 
-                    A restock suggestion has been generated.
+        String body = String.format("""
+                Hello,
 
-                    Product: %s
-                    Suggested Quantity: %d
+                A restock suggestion has been generated.
 
-                    Please review and create a purchase order if needed.
+                Product: %s
+                Suggestion: %s
 
-                    SmartShelfX System
-                    """, productName, suggestedQuantity);
+                Please review and create a purchase order if needed.
 
-            sendSimpleEmail(recipientEmail, subject, body);
-            log.info("Restock suggestion email sent to {}", recipientEmail);
+                SmartShelfX System
+                """, productName, suggestion);
 
-        } catch (Exception e) {
-            log.error("Failed to send restock suggestion email: {}", e.getMessage());
-        }
+        sendSimpleEmail(recipientEmail, subject, body);
+        log.info("Restock suggestion email sent to {}", recipientEmail);
     }
 
     // ✅ PURCHASE ORDER EMAIL
@@ -78,17 +85,41 @@ public class EmailService {
                 </html>
                 """, vendorName, poNumber, productName, quantity);
 
-        try {
-           // sendHtmlEmail(vendorEmail, subject, htmlBody);
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(vendorEmail);
-            message.setSubject(subject);
-            message.setText(htmlBody);
+       // sendHtmlEmail(vendorEmail, subject, htmlBody);
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(vendorEmail);
+        message.setSubject(subject);
+        message.setText(htmlBody);
 
-            mailSender.send(message);
-        } catch (Exception e) {
-           throw new RuntimeException(e);
+        mailSender.send(message);
+    }
+
+    public record PurchaseOrderDigestLine(String poNumber, String sku, String productName,
+                                          int quantity, BigDecimal unitPrice) {
+    }
+
+    // CONSOLIDATED PURCHASE ORDER EMAIL (one per vendor per batch)
+    public void sendPurchaseOrderDigestEmail(String vendorEmail, String vendorName, String orderNumber,
+                                             List<PurchaseOrderDigestLine> lines, BigDecimal totalAmount) {
+
+        String subject = "📋 New Purchase Order - " + orderNumber + " (" + lines.size() + " items)";
+
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(vendorName).append(",\n\n")
+                .append("You have received a new consolidated purchase order.\n\n")
+                .append("Order Number: ").append(orderNumber).append("\n")
+                .append("Items: ").append(lines.size()).append("\n\n")
+                .append("Line | SKU | Product | Quantity | Unit Price\n");
+        for (PurchaseOrderDigestLine line : lines) {
+            body.append(line.poNumber()).append(" | ").append(line.sku()).append(" | ")
+                    .append(line.productName()).append(" | ").append(line.quantity()).append(" | ")
+                    .append(line.unitPrice() != null ? line.unitPrice() : "-").append("\n");
         }
+        body.append("\nTotal Amount: ").append(totalAmount)
+                .append("\n\nPlease review and confirm availability.\n\nSmartShelfX System");
+
+        sendSimpleEmail(vendorEmail, subject, body.toString());
+        log.info("Purchase order digest {} sent to {}", orderNumber, vendorEmail);
     }
 
     // ✅ LOW STOCK ALERT EMAIL
@@ -124,6 +155,7 @@ public class EmailService {
     }
 
     // ✅ AI PREDICTION EMAIL
+    @Async
     public void sendAIPredictionEmail(String toEmail, String productName, double predictedDemand, String recommendation) {
 
         String subject = "🤖 AI Prediction Alert - " + productName;
@@ -0,0 +1,214 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.event.AlertRaisedEvent;
+import com.example.smartshelfx.event.AlertsReadEvent;
+import com.example.smartshelfx.event.PurchaseOrderStatusChangedEvent;
+import com.example.smartshelfx.event.StockChangedEvent;
+import com.example.smartshelfx.model.Role;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Server-sent event hub behind /api/stream.
+ *
+ * Domain events are received after their transaction commits, serialized once and offered
+ * to every matching client's bounded queue; publishing never blocks on a socket. Each
+ * client is drained by at most one virtual thread at a time, so a slow connection only
+ * delays itself. A client whose queue overflows is disconnected and reconnects, refetching
+ * current state, rather than holding unbounded memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventStreamService {
+
+    private static final Predicate<Client> STAFF =
+            c -> c.role == Role.ROLE_ADMIN || c.role == Role.ROLE_MANAGER;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.stream.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.stream.max-clients:10000}")
+    private int maxClients;
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private record Frame(String id, String name, String data) {
+    }
+
+    private final class Client {
+        private final String id = UUID.randomUUID().toString();
+        private final Long userId;
+        private final Role role;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        private Client(Long userId, Role role, SseEmitter emitter) {
+            this.userId = userId;
+            this.role = role;
+            this.emitter = emitter;
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // SUBSCRIPTIONS
+    // ----------------------------------------------------------------
+
+    public SseEmitter subscribe(Long userId, Role role) {
+        if (clients.size() >= maxClients) {
+            throw new IllegalStateException("Too many stream connections");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(userId, role, emitter);
+        clients.put(client.id, client);
+
+        emitter.onCompletion(() -> clients.remove(client.id));
+        emitter.onTimeout(() -> clients.remove(client.id));
+        emitter.onError(e -> clients.remove(client.id));
+
+        enqueue(client, new Frame(null, "ready", "{\"clientId\":\"" + client.id + "\"}"));
+        return emitter;
+    }
+
+    public int getConnectionCount() {
+        return clients.size();
+    }
+
+    // ----------------------------------------------------------------
+    // DOMAIN EVENTS (after commit; events published outside a transaction pass straight through)
+    // ----------------------------------------------------------------
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        broadcast("stock-changed", event, STAFF);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertRaised(AlertRaisedEvent event) {
+        broadcast("alert", event, STAFF);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertsRead(AlertsReadEvent event) {
+        broadcast("alerts-read", event, STAFF);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchaseOrderStatusChanged(PurchaseOrderStatusChangedEvent event) {
+        broadcast("purchase-order", event, STAFF.or(c -> c.role == Role.ROLE_VENDOR
+                && c.userId != null && c.userId.equals(event.vendorId())));
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (clients.isEmpty()) return;
+        Frame ping = new Frame(null, null, null);
+        clients.values().forEach(c -> enqueue(c, ping));
+    }
+
+    // ----------------------------------------------------------------
+    // FAN-OUT
+    // ----------------------------------------------------------------
+
+    private void broadcast(String name, Object payload, Predicate<Client> audience) {
+        if (clients.isEmpty()) return;
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} event: {}", name, e.getMessage());
+            return;
+        }
+
+        Frame frame = new Frame(String.valueOf(eventIds.incrementAndGet()), name, json);
+        for (Client client : clients.values()) {
+            if (audience.test(client)) {
+                enqueue(client, frame);
+            }
+        }
+    }
+
+    private void enqueue(Client client, Frame frame) {
+        if (!client.queue.offer(frame)) {
+            log.debug("Stream client {} is too slow, disconnecting", client.id);
+            close(client);
+            return;
+        }
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                close(client);
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            do {
+                Frame frame;
+                while ((frame = client.queue.poll()) != null) {
+                    send(client, frame);
+                }
+                client.draining.set(false);
+                // Re-check: a frame may have been queued between the last poll and the reset
+            } while (!client.queue.isEmpty() && client.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            close(client);
+        }
+    }
+
+    private void send(Client client, Frame frame) throws IOException {
+        if (frame.name() == null) {
+            client.emitter.send(SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(frame.name()).data(frame.data());
+        if (frame.id() != null) {
+            event.id(frame.id());
+        }
+        client.emitter.send(event);
+    }
+
+    private void close(Client client) {
+        clients.remove(client.id);
+        client.queue.clear();
+        try {
+            client.emitter.complete();
+        } catch (Exception ignored) {
+            // already completed or connection gone
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        clients.values().forEach(this::close);
+        senders.shutdownNow();
+    }
+}
@@ -1,21 +1,28 @@
 package com.example.smartshelfx.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
+    private final ImageThumbnailService thumbnailService;
+    private final BlobStoreService blobStore;
+
     @Value("${app.upload.images-dir}")
     private String imagesDir;
 
@@ -26,48 +33,93 @@ public class FileStorageService {
     private String reportsDir;
 
     public String storeProductImage(MultipartFile file) throws IOException {
-        return storeFile(file, imagesDir, "product_");
+        BlobStoreService.StoredBlob stored = storeFile(file, "images", "product_");
+        thumbnailService.submit(stored.path());
+        return stored.file().getFilename();
+    }
+
+    /** Stores image bytes that did not arrive as an upload, e.g. images moved out of the database. */
+    public String storeProductImage(byte[] content, String originalName) throws IOException {
+        String uniqueFilename = "product_" + UUID.randomUUID() + getFileExtension(originalName);
+        BlobStoreService.StoredBlob stored = blobStore.store(new ByteArrayInputStream(content), originalName,
+                "images", uniqueFilename);
+        thumbnailService.submit(stored.path());
+        return stored.file().getFilename();
     }
 
     public String storeCSVFile(MultipartFile file) throws IOException {
-        return storeFile(file, csvDir, "import_");
+        return storeFile(file, "csv", "import_").file().getFilename();
     }
 
     public String storeReportFile(MultipartFile file) throws IOException {
-        return storeFile(file, reportsDir, "report_");
+        return storeFile(file, "reports", "report_").file().getFilename();
     }
 
-    private String storeFile(MultipartFile file, String directory, String prefix) throws IOException {
-        // Create directory if it doesn't exist
-        Path uploadPath = Paths.get(directory);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
+    /** Stores a generated report (e.g. a job's CSV export) and returns its file name. */
+    public String storeReportFile(byte[] content, String originalName) throws IOException {
+        String uniqueFilename = "report_" + UUID.randomUUID() + getFileExtension(originalName);
+        return blobStore.store(new ByteArrayInputStream(content), originalName, "reports", uniqueFilename)
+                .file().getFilename();
+    }
 
-        // Generate unique filename
+    private BlobStoreService.StoredBlob storeFile(MultipartFile file, String type, String prefix) throws IOException {
+        // Generate unique filename; identical content shares one blob underneath
         String originalFilename = file.getOriginalFilename();
         String fileExtension = getFileExtension(originalFilename);
         String uniqueFilename = prefix + UUID.randomUUID() + fileExtension;
 
-        // Store file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        return blobStore.store(file, type, uniqueFilename);
+    }
+
+    /**
+     * Path of a stored file for the given upload type ('images', 'csv', 'reports'): its blob,
+     * or for files uploaded before the blob store, the file directly inside the type's
+     * directory. Anything else is "not found".
+     */
+    public Path resolveFile(String filename, String type) throws IOException {
+        String directory = directoryFor(type);
+        Optional<Path> blob = blobStore.resolve(filename, type);
+        if (blob.isPresent()) {
+            if (!Files.isRegularFile(blob.get())) throw new NoSuchFileException("File not found: " + filename);
+            return blob.get();
+        }
+
+        Path base = Paths.get(directory).toAbsolutePath().normalize();
+        Path filePath = base.resolve(filename).normalize();
+        if (!base.equals(filePath.getParent()) || !Files.isRegularFile(filePath)) {
+            throw new NoSuchFileException("File not found: " + filename);
+        }
+        return filePath;
+    }
 
-        log.info("File stored successfully: {}", filePath);
-        return uniqueFilename;
+    /**
+     * Stored product image, or its pre-generated thumbnail when {@code size} (longest side in
+     * pixels) is given and a large enough variant exists.
+     */
+    public Path resolveImage(String filename, Integer size) throws IOException {
+        Path original = resolveFile(filename, "images");
+        if (size == null || thumbnailService.isVariant(filename)) return original;
+        return thumbnailService.resolve(original, size);
     }
 
-    public byte[] loadFile(String filename, String directory) throws IOException {
-        Path filePath = Paths.get(directory).resolve(filename);
-        if (Files.exists(filePath)) {
-            return Files.readAllBytes(filePath);
+    public String directoryFor(String type) {
+        switch (type.toLowerCase()) {
+            case "images": return imagesDir;
+            case "csv": return csvDir;
+            case "reports": return reportsDir;
+            default: throw new IllegalArgumentException("Invalid file type: " + type);
         }
-        throw new IOException("File not found: " + filename);
     }
 
     public boolean deleteFile(String filename, String directory) {
+        if (blobStore.delete(filename)) {
+            return true;
+        }
         try {
             Path filePath = Paths.get(directory).resolve(filename);
+            if (Paths.get(directory).equals(Paths.get(imagesDir))) {
+                thumbnailService.deleteVariants(filePath);
+            }
             return Files.deleteIfExists(filePath);
         } catch (IOException e) {
             log.error("Error deleting file {}: {}", filename, e.getMessage());
@@ -0,0 +1,161 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.dto.ModelSelectionReport;
+import com.example.smartshelfx.forecast.BacktestScore;
+import com.example.smartshelfx.forecast.DemandHistoryLoader;
+import com.example.smartshelfx.forecast.ForecastAlgorithm;
+import com.example.smartshelfx.forecast.ForecastBacktester;
+import com.example.smartshelfx.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the best local forecast model per product by backtesting every ForecastAlgorithm
+ * on rolling origins and storing the lowest-MASE winner in products.forecast_algorithm.
+ *
+ * Products are processed in keyset chunks: demand histories for a chunk are loaded with
+ * one grouped query, scored in parallel on a dedicated ForkJoinPool (so the common pool
+ * used by request threads is left alone), and the winners are written with one bulk
+ * UPDATE per algorithm.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ForecastModelSelectionService {
+
+    private static final int UPDATE_CHUNK = 1000;
+
+    private final ProductRepository productRepository;
+    private final DemandHistoryLoader demandHistoryLoader;
+    private final ForecastBacktester backtester;
+    private final List<ForecastAlgorithm> algorithms;
+
+    @Value("${app.forecast.backtest.history-days:365}")
+    private int historyDays;
+
+    @Value("${app.forecast.backtest.origins:4}")
+    private int origins;
+
+    @Value("${app.forecast.backtest.horizon-days:7}")
+    private int horizonDays;
+
+    @Value("${app.forecast.backtest.chunk-size:2000}")
+    private int chunkSize;
+
+    /** 0 = one worker per available core. */
+    @Value("${app.forecast.backtest.parallelism:0}")
+    private int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<ModelSelectionReport> lastReport = new AtomicReference<>();
+
+    @Scheduled(cron = "${app.forecast.backtest.cron:0 30 1 * * *}")
+    public void scheduledSelection() {
+        if (running.get()) {
+            log.warn("Skipping scheduled model selection: previous run still in progress");
+            return;
+        }
+        try {
+            selectModels();
+        } catch (Exception e) {
+            log.error("Scheduled model selection failed", e);
+        }
+    }
+
+    public ModelSelectionReport getLastReport() {
+        return lastReport.get();
+    }
+
+    public ModelSelectionReport selectModels() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Model selection is already running");
+        }
+
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+
+        try {
+            Map<String, Long> wins = new TreeMap<>();
+            Map<String, Double> maseSums = new HashMap<>();
+            long lastId = 0L;
+            int scanned = 0;
+            int selected = 0;
+            long backtests = 0;
+
+            while (true) {
+                List<Long> ids = productRepository.findActiveProductIdsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+
+                Map<Long, double[]> histories = demandHistoryLoader.loadDailyDemand(ids, historyDays);
+
+                Map<Long, BacktestScore> winners = pool.submit(() -> ids.parallelStream()
+                        .map(id -> Map.entry(id, Optional.ofNullable(
+                                backtester.selectBest(algorithms, histories.get(id), origins, horizonDays))))
+                        .filter(e -> e.getValue().isPresent())
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get())))
+                        .join();
+
+                Map<String, List<Long>> idsByAlgorithm = new HashMap<>();
+                winners.forEach((id, score) -> {
+                    idsByAlgorithm.computeIfAbsent(score.algorithm(), k -> new ArrayList<>()).add(id);
+                    maseSums.merge(score.algorithm(), score.mase(), Double::sum);
+                });
+                idsByAlgorithm.forEach((algorithm, algorithmIds) -> {
+                    for (int i = 0; i < algorithmIds.size(); i += UPDATE_CHUNK) {
+                        List<Long> slice = algorithmIds.subList(i, Math.min(i + UPDATE_CHUNK, algorithmIds.size()));
+                        productRepository.updateForecastAlgorithm(algorithm, slice);
+                    }
+                    wins.merge(algorithm, (long) algorithmIds.size(), Long::sum);
+                });
+
+                scanned += ids.size();
+                selected += winners.size();
+                backtests += winners.values().stream().mapToLong(BacktestScore::origins).sum() * algorithms.size();
+                lastId = ids.getLast();
+            }
+
+            long durationMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+            Map<String, Double> meanMase = new TreeMap<>();
+            wins.forEach((algorithm, count) -> meanMase.put(algorithm, maseSums.get(algorithm) / count));
+
+            ModelSelectionReport report = ModelSelectionReport.builder()
+                    .startedAt(startedAt)
+                    .durationMs(durationMs)
+                    .parallelism(workers)
+                    .historyDays(historyDays)
+                    .origins(origins)
+                    .horizonDays(horizonDays)
+                    .productsScanned(scanned)
+                    .productsSelected(selected)
+                    .productsSkipped(scanned - selected)
+                    .backtestsRun(backtests)
+                    .productsPerSecond(scanned * 1000.0 / durationMs)
+                    .backtestsPerSecond(backtests * 1000.0 / durationMs)
+                    .winsByAlgorithm(wins)
+                    .meanMaseByWinner(meanMase)
+                    .build();
+
+            lastReport.set(report);
+            log.info("Model selection finished: {} products ({} selected) in {} ms on {} workers, {} products/s, wins={}",
+                    scanned, selected, durationMs, workers, Math.round(report.getProductsPerSecond()), wins);
+            return report;
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+}
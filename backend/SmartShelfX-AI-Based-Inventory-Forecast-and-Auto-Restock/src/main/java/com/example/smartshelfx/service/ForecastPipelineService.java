@@ -0,0 +1,308 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.forecast.DemandHistoryLoader;
+import com.example.smartshelfx.forecast.ForecastOutput;
+import com.example.smartshelfx.model.Alert;
+import com.example.smartshelfx.model.ForecastRun;
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.model.TsidGenerator;
+import com.example.smartshelfx.repository.AlertRepository;
+import com.example.smartshelfx.repository.ForecastRunRepository;
+import com.example.smartshelfx.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly re-forecast of the whole active catalog with the local models.
+ *
+ * The scheduler thread pages product ids (keyset) and hands each chunk to a bounded worker
+ * pool; when the queue is full the scheduler runs the chunk itself, which throttles paging.
+ * A worker loads the chunk's demand with one grouped query, forecasts every product with
+ * its selected model, batch-inserts the Forecast rows over JDBC and raises
+ * PREDICTED_STOCKOUT alerts where forecast demand exceeds stock.
+ *
+ * Chunks finish out of order, so the run checkpoint only advances over a contiguous prefix
+ * of finished chunks. On resume, rows this run wrote past the checkpoint are deleted first
+ * and the run continues from there, so a crash never leaves duplicate forecasts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ForecastPipelineService {
+
+    private static final String INSERT_FORECAST_SQL = """
+            INSERT INTO forecasts (id, product_id, forecast_date, predicted_demand, confidence_score,
+                                   algorithm_used, created_at, forecast_period_days, run_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String DELETE_UNCHECKPOINTED_SQL =
+            "DELETE FROM forecasts WHERE run_id = ? AND product_id > ?";
+
+    private final ProductRepository productRepository;
+    private final ForecastRunRepository runRepository;
+    private final AlertRepository alertRepository;
+    private final AlertService alertService;
+    private final DemandHistoryLoader demandHistoryLoader;
+    private final LocalForecastService localForecastService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.forecast.history-days:180}")
+    private int historyDays;
+
+    @Value("${app.forecast.pipeline.horizon-days:7}")
+    private int horizonDays;
+
+    @Value("${app.forecast.pipeline.workers:4}")
+    private int workers;
+
+    @Value("${app.forecast.pipeline.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.forecast.pipeline.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${app.forecast.pipeline.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (running.get()) {
+            log.warn("Skipping scheduled catalog forecast: previous run still in progress");
+            return;
+        }
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("Scheduled catalog forecast failed", e);
+        }
+    }
+
+    /**
+     * A run left RUNNING by a crash is picked up again once the application is back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        if (!resumeOnStartup) return;
+        runRepository.findFirstByStatusInOrderByStartedAtDesc(List.of(ForecastRun.Status.RUNNING))
+                .filter(r -> r.getRunDate().equals(LocalDate.now()))
+                .ifPresent(r -> Thread.ofPlatform().name("forecast-pipeline-resume").start(() -> {
+                    try {
+                        run();
+                    } catch (Exception e) {
+                        log.error("Resuming catalog forecast run {} failed", r.getId(), e);
+                    }
+                }));
+    }
+
+    public List<ForecastRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    /**
+     * Start today's run, or resume today's unfinished one from its checkpoint.
+     */
+    public ForecastRun run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Catalog forecast is already running");
+        }
+        try {
+            return execute(startOrResume());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ForecastRun startOrResume() {
+        LocalDate today = LocalDate.now();
+        Optional<ForecastRun> unfinished = runRepository.findFirstByStatusInOrderByStartedAtDesc(
+                List.of(ForecastRun.Status.RUNNING, ForecastRun.Status.FAILED));
+
+        if (unfinished.isPresent()) {
+            ForecastRun previous = unfinished.get();
+            if (previous.getRunDate().equals(today) && previous.getHorizonDays() == horizonDays) {
+                int removed = jdbcTemplate.update(DELETE_UNCHECKPOINTED_SQL, previous.getId(), previous.getLastProductId());
+                log.info("Resuming catalog forecast run {} after product {} ({} uncheckpointed forecasts removed)",
+                        previous.getId(), previous.getLastProductId(), removed);
+                previous.setStatus(ForecastRun.Status.RUNNING);
+                previous.setResumeCount(previous.getResumeCount() + 1);
+                previous.setWorkers(workers);
+                previous.setChunkSize(chunkSize);
+                previous.setErrorMessage(null);
+                return runRepository.save(previous);
+            }
+            previous.setStatus(ForecastRun.Status.ABANDONED);
+            runRepository.save(previous);
+        }
+
+        ForecastRun run = new ForecastRun();
+        run.setRunDate(today);
+        run.setHorizonDays(horizonDays);
+        run.setWorkers(workers);
+        run.setChunkSize(chunkSize);
+        run.setStartedAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    private ForecastRun execute(ForecastRun run) {
+        long started = System.nanoTime();
+        int productsBefore = run.getProductsProcessed();
+        Progress progress = new Progress(run);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                Thread.ofPlatform().name("forecast-worker-", 0).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long lastId = run.getLastProductId();
+            long seq = 0;
+
+            while (true) {
+                List<Long> ids = productRepository.findActiveProductIdsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+
+                long chunkSeq = seq++;
+                futures.add(executor.submit(() -> progress.complete(chunkSeq, processChunk(run, ids))));
+                lastId = ids.getLast();
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            run.setStatus(ForecastRun.Status.COMPLETED);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.error("Catalog forecast run {} failed at checkpoint {}", run.getId(), progress.watermark, cause);
+            run.setStatus(ForecastRun.Status.FAILED);
+            run.setErrorMessage(truncate(cause.getClass().getSimpleName() + ": " + cause.getMessage()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long durationMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        synchronized (progress) {
+            progress.closed = true;
+            run.setLastProductId(progress.watermark);
+            run.setProductsProcessed(progress.products);
+            run.setForecastsWritten(progress.forecasts);
+            run.setAlertsRaised(progress.alerts);
+        }
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMs(durationMs);
+        run.setProductsPerSecond((run.getProductsProcessed() - productsBefore) * 1000.0 / durationMs);
+        ForecastRun saved = runRepository.save(run);
+
+        log.info("Catalog forecast run {} {}: {} products, {} forecasts, {} alerts in {} ms ({} products/s, {} workers)",
+                saved.getId(), saved.getStatus(), saved.getProductsProcessed(), saved.getForecastsWritten(),
+                saved.getAlertsRaised(), durationMs, Math.round(saved.getProductsPerSecond()), workers);
+        return saved;
+    }
+
+    private ChunkResult processChunk(ForecastRun run, List<Long> ids) {
+        Map<Long, double[]> histories = demandHistoryLoader.loadDailyDemand(ids, historyDays);
+        List<Product> products = productRepository.findAllById(ids);
+
+        Date forecastDate = Date.valueOf(run.getRunDate());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(products.size());
+        Map<Long, int[]> shortfalls = new HashMap<>();
+
+        for (Product product : products) {
+            ForecastOutput output = localForecastService.algorithmFor(product, null)
+                    .forecast(histories.get(product.getId()), horizonDays);
+            int predicted = (int) Math.round(output.getTotal());
+            rows.add(new Object[]{TsidGenerator.next(), product.getId(), forecastDate, predicted, output.getConfidenceScore(),
+                    output.getAlgorithm(), createdAt, horizonDays, run.getId()});
+
+            int stock = product.getCurrentStock() != null ? product.getCurrentStock() : 0;
+            if (predicted > stock) {
+                shortfalls.put(product.getId(), new int[]{predicted, stock});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_FORECAST_SQL, rows);
+
+        int alerts = 0;
+        if (!shortfalls.isEmpty()) {
+            Set<Long> alreadyAlerted = new HashSet<>(alertRepository.findProductIdsWithUnreadAlert(
+                    Alert.AlertType.PREDICTED_STOCKOUT, shortfalls.keySet()));
+            List<Alert> newAlerts = new ArrayList<>();
+            for (Product product : products) {
+                int[] shortfall = shortfalls.get(product.getId());
+                if (shortfall == null || alreadyAlerted.contains(product.getId())) continue;
+                newAlerts.add(Alert.createPredictedStockoutAlert(product, shortfall[0], shortfall[1]));
+            }
+            // Through AlertService, so the alerts reach the SSE stream and the outbox consumers
+            alerts = alertService.raiseAll(newAlerts).size();
+        }
+
+        return new ChunkResult(ids.getLast(), ids.size(), rows.size(), alerts);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private record ChunkResult(long lastProductId, int products, int forecasts, int alerts) {
+    }
+
+    /**
+     * Advances the checkpoint over the contiguous prefix of finished chunks and persists it.
+     * Once the run's final state is taken, chunks still finishing on interrupted workers are
+     * ignored; their forecasts lie past the checkpoint and a resume deletes them.
+     */
+    private final class Progress {
+        private final Long runId;
+        private final TreeMap<Long, ChunkResult> finished = new TreeMap<>();
+        private boolean closed;
+        private long nextSeq = 0;
+        private long watermark;
+        private int products;
+        private int forecasts;
+        private int alerts;
+
+        private Progress(ForecastRun run) {
+            this.runId = run.getId();
+            this.watermark = run.getLastProductId();
+            this.products = run.getProductsProcessed();
+            this.forecasts = run.getForecastsWritten();
+            this.alerts = run.getAlertsRaised();
+        }
+
+        private synchronized void complete(long seq, ChunkResult result) {
+            if (closed) return;
+            finished.put(seq, result);
+            boolean advanced = false;
+            ChunkResult next;
+            while ((next = finished.remove(nextSeq)) != null) {
+                watermark = next.lastProductId();
+                products += next.products();
+                forecasts += next.forecasts();
+                alerts += next.alerts();
+                nextSeq++;
+                advanced = true;
+            }
+            if (advanced) {
+                runRepository.updateProgress(runId, watermark, products, forecasts, alerts);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.repository.ForecastRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills Forecast.actualSales and Forecast.accuracy once a forecast's horizon has elapsed.
+ *
+ * Each batch is one grouped query (forecasts LEFT JOIN OUT transactions over the forecast
+ * window) followed by one JDBC batch update. A run selects every forecast whose window has
+ * ended and that has no actual sales yet, through the index on (actual_sales, forecast_date),
+ * rather than the rows above a stored id: TSIDs are assigned before commit and per node, so a
+ * forecast committed late can carry a smaller id than one already reconciled.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ForecastReconciliationService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE forecasts SET actual_sales = ?, accuracy = ? WHERE id = ?";
+
+    private final ForecastRepository forecastRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.forecast.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${app.forecast.reconciliation.cron:0 0 2 * * *}")
+    public void scheduledReconciliation() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Scheduled forecast reconciliation failed", e);
+        }
+    }
+
+    public Map<String, Object> reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Forecast reconciliation is already running");
+        }
+        long started = System.nanoTime();
+
+        try {
+            LocalDate today = LocalDate.now();
+
+            long afterId = 0;
+            int reconciled = 0;
+            int batches = 0;
+
+            while (true) {
+                List<Object[]> rows = forecastRepository.findElapsedForecastActuals(afterId, today, batchSize);
+                if (rows.isEmpty()) break;
+
+                jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+                    int predicted = ((Number) row[1]).intValue();
+                    int actual = ((Number) row[2]).intValue();
+                    ps.setInt(1, actual);
+                    ps.setDouble(2, accuracy(predicted, actual));
+                    ps.setLong(3, ((Number) row[0]).longValue());
+                });
+
+                reconciled += rows.size();
+                batches++;
+                afterId = ((Number) rows.getLast()[0]).longValue();
+            }
+
+            long durationMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Forecast reconciliation: {} forecasts in {} batches, {} ms", reconciled, batches, durationMs);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("forecastsReconciled", reconciled);
+            summary.put("batches", batches);
+            summary.put("durationMs", durationMs);
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 1 - |predicted - actual| / max(predicted, actual), in [0, 1]; a zero forecast
+     * for a day with zero sales counts as exact.
+     */
+    static double accuracy(int predicted, int actual) {
+        int scale = Math.max(predicted, actual);
+        if (scale <= 0) return 1.0;
+        return 1.0 - Math.abs(predicted - actual) / (double) scale;
+    }
+}
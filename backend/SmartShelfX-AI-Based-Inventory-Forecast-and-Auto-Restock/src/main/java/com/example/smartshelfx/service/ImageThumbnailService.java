@@ -0,0 +1,329 @@
+package com.example.smartshelfx.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Pre-generates downscaled copies of product images so grids and lists never download the
+ * original upload.
+ *
+ * For every stored image a variant is written per configured size (longest side in pixels,
+ * 64/256/1024 by default) next to the original as {@code <name>.t<size>.jpg}, or {@code .png}
+ * when the image has transparency. Variants are never upscaled: sizes at or above the original
+ * are skipped and resolve to the original instead. Work runs on a small bounded pool; when its
+ * queue is full the submitting thread does the work itself, which throttles bulk uploads and
+ * the startup backfill instead of queueing without limit.
+ */
+@Service
+@Slf4j
+public class ImageThumbnailService {
+
+    private static final Pattern VARIANT_NAME = Pattern.compile(".*\\.t\\d+\\.(jpg|png)$");
+    private static final String[] VARIANT_EXTENSIONS = {".jpg", ".png"};
+
+    @Value("${app.upload.thumbnails.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.thumbnails.sizes:64,256,1024}")
+    private int[] sizes;
+
+    @Value("${app.upload.thumbnails.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${app.upload.thumbnails.workers:2}")
+    private int workers;
+
+    @Value("${app.upload.thumbnails.queue-capacity:100}")
+    private int queueCapacity;
+
+    // Decoding is width * height * 4 bytes regardless of the file size, so refuse huge canvases
+    @Value("${app.upload.thumbnails.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    @Value("${app.upload.images-dir}")
+    private String imagesDir;
+
+    private ThreadPoolExecutor executor;
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        sizes = Arrays.stream(sizes).filter(s -> s > 0).sorted().distinct().toArray();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("thumbnail-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues variant generation for a stored image; the upload returns without waiting. Images
+     * that already have their variants (e.g. a re-uploaded duplicate) are left alone.
+     */
+    public void submit(Path original) {
+        if (!enabled || executor.isShutdown()) return;
+        executor.execute(() -> {
+            if (missingVariants(original)) generate(original);
+        });
+    }
+
+    /**
+     * Creates the variants that are missing for images uploaded before thumbnails existed, or
+     * whose generation was interrupted by a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) return;
+        Thread.ofPlatform().name("thumbnail-backfill").daemon(true).start(() -> {
+            int queued = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(imagesDir))) {
+                for (Path file : files) {
+                    if (!isOriginal(file) || !missingVariants(file)) continue;
+                    submit(file);
+                    queued++;
+                }
+            } catch (IOException e) {
+                log.warn("Thumbnail backfill could not list {}: {}", imagesDir, e.getMessage());
+            }
+            if (queued > 0) log.info("Thumbnail backfill queued {} images", queued);
+        });
+    }
+
+    // ----------------------------------------------------------------
+    // LOOKUP
+    // ----------------------------------------------------------------
+
+    /**
+     * The smallest generated variant whose longest side is at least {@code requested} pixels,
+     * or the original when none qualifies (too large a request, image smaller than the size,
+     * or variants still being generated).
+     */
+    public Path resolve(Path original, int requested) {
+        for (int size : sizes) {
+            if (size < requested) continue;
+            for (String extension : VARIANT_EXTENSIONS) {
+                Path variant = variantPath(original, size, extension);
+                if (Files.isRegularFile(variant)) return variant;
+            }
+        }
+        return original;
+    }
+
+    /**
+     * Whether variants the original should have are not written yet, so what is served in
+     * their place now is not what that URL will serve later.
+     */
+    public boolean variantsPending(Path original) {
+        return enabled && missingVariants(original);
+    }
+
+    /** Removes every variant of an original; used when the original is deleted. */
+    public void deleteVariants(Path original) {
+        for (int size : sizes) {
+            for (String extension : VARIANT_EXTENSIONS) {
+                try {
+                    Files.deleteIfExists(variantPath(original, size, extension));
+                } catch (IOException e) {
+                    log.warn("Could not delete thumbnail of {}: {}", original.getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public boolean isVariant(String filename) {
+        return VARIANT_NAME.matcher(filename).matches();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sizes", sizes);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("generated", generated.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    // ----------------------------------------------------------------
+    // GENERATION
+    // ----------------------------------------------------------------
+
+    private void generate(Path original) {
+        long started = System.nanoTime();
+        try {
+            BufferedImage source = read(original);
+            if (source == null) {
+                log.debug("Not generating thumbnails for {}: unsupported image format", original.getFileName());
+                return;
+            }
+            boolean alpha = source.getColorModel().hasAlpha();
+            String extension = alpha ? ".png" : ".jpg";
+            int longest = Math.max(source.getWidth(), source.getHeight());
+
+            // Largest first, each variant scaled down from the previous one: cheaper and it
+            // keeps the halving steps below short
+            BufferedImage current = source;
+            int written = 0;
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                int size = sizes[i];
+                if (size >= longest) continue;
+                current = scale(current, size, alpha);
+                Path target = variantPath(original, size, extension);
+                write(current, target, alpha);
+                written++;
+            }
+            generated.add(written);
+            log.debug("Generated {} thumbnails for {} in {} ms", written, original.getFileName(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Thumbnail generation failed for {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxSourcePixels) {
+                    throw new IOException("image has " + pixels + " pixels, limit is " + maxSourcePixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Bilinear halving down to twice the target, then one final step: a single bilinear pass
+     * over a large reduction skips most source pixels and aliases badly.
+     */
+    private static BufferedImage scale(BufferedImage image, int longestSide, boolean alpha) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = (double) longestSide / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        do {
+            width = width / 2 >= targetWidth ? width / 2 : targetWidth;
+            height = height / 2 >= targetHeight ? height / 2 : targetHeight;
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, Path target, boolean png) throws IOException {
+        // Write to a temp name and move, so a half-written file is never served
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!png) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean missingVariants(Path original) {
+        // Reads only the header: images below a size legitimately have no variant for it
+        int longest = longestSide(original);
+        for (int size : sizes) {
+            if (size >= longest) break;
+            boolean found = false;
+            for (String extension : VARIANT_EXTENSIONS) {
+                found |= Files.exists(variantPath(original, size, extension));
+            }
+            if (!found) return true;
+        }
+        return false;
+    }
+
+    private static int longestSide(Path image) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) return 0;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return Math.max(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private boolean isOriginal(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && !isVariant(name) && !name.endsWith(".tmp");
+    }
+
+    private static Path variantPath(Path original, int size, String extension) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return original.resolveSibling(base + ".t" + size + extension);
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.smartshelfx.service;
 
+import com.example.smartshelfx.event.StockChangedEvent;
 import com.example.smartshelfx.model.*;
 import com.example.smartshelfx.repository.ProductRepository;
 import com.example.smartshelfx.repository.StockTransactionRepository;
 import com.example.smartshelfx.repository.AlertRepository;
+import com.example.smartshelfx.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @Slf4j
@@ -22,10 +23,13 @@ public class InventoryService {
     private final StockTransactionRepository stockTransactionRepository;
     private final ProductRepository productRepository;
     private final AlertRepository alertRepository;
-    private final AlertService alertService;
+    private final DomainEventBus domainEventBus;
+    private final ReferenceNumberService referenceNumberService;
+    private final InventoryValuationService inventoryValuationService;
+    private final UserRepository userRepository;
 
     @Transactional
-    public StockTransaction addStock(Long productId, Integer quantity, String notes, String referenceNumber, User handledBy) {
+    public StockTransaction addStock(Long productId, Integer quantity, String notes, String referenceNumber, Long handledById) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
@@ -38,17 +42,19 @@ public class InventoryService {
         transaction.setType(StockTransaction.TransactionType.IN);
         transaction.setNotes(notes);
         transaction.setReferenceNumber(referenceNumber != null ? referenceNumber : generateReferenceNumber());
-        transaction.setHandledBy(handledBy);
+        // A reference is enough for the foreign key; the principal carries only the id
+        transaction.setHandledBy(userRepository.getReferenceById(handledById));
         transaction.setTimestamp(LocalDateTime.now());
 
         StockTransaction saved = stockTransactionRepository.save(transaction);
-
-        checkAndUpdateAlerts(product);
+        inventoryValuationService.record(saved, null);
+        // Low stock alerts are resolved from this event by the low-stock-alerts consumer
+        domainEventBus.publish(StockChangedEvent.of(saved));
         return saved;
     }
 
     @Transactional
-    public StockTransaction removeStock(Long productId, Integer quantity, String notes, String referenceNumber, User handledBy) {
+    public StockTransaction removeStock(Long productId, Integer quantity, String notes, String referenceNumber, Long handledById) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
@@ -64,37 +70,26 @@ public class InventoryService {
         transaction.setType(StockTransaction.TransactionType.OUT);
         transaction.setNotes(notes);
         transaction.setReferenceNumber(referenceNumber != null ? referenceNumber : generateReferenceNumber());
-        transaction.setHandledBy(handledBy);
+        transaction.setHandledBy(userRepository.getReferenceById(handledById));
         transaction.setTimestamp(LocalDateTime.now());
 
         StockTransaction saved = stockTransactionRepository.save(transaction);
-
-        checkAndCreateLowStockAlert(product);
+        inventoryValuationService.record(saved, null);
+        domainEventBus.publish(StockChangedEvent.of(saved));
         return saved;
     }
 
-    private void checkAndCreateLowStockAlert(Product product) {
-        if (product.getCurrentStock() <= product.getReorderLevel()) {
-            alertService.createLowStockAlert(product);
-        }
-    }
-
-    private void checkAndUpdateAlerts(Product product) {
-        if (product.getCurrentStock() > product.getReorderLevel()) {
-            alertService.resolveLowStockAlerts(product);
-        }
-    }
-
     private String generateReferenceNumber() {
-        return "REF-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return referenceNumberService.nextStockMovementReference();
     }
 
-    public List<StockTransaction> getTransactionsByProduct(Long productId) {
-        return stockTransactionRepository.findByProductIdOrderByTimestampDesc(productId);
+    // Both listings are paged and limited to the hot window; archived months are not in the table
+    public List<StockTransaction> getTransactionsByProduct(Long productId, int page, int size) {
+        return stockTransactionRepository.findRecentTransactionsByProduct(productId, page, size);
     }
 
-    public List<StockTransaction> getAllTransactions() {
-        return stockTransactionRepository.findAll();
+    public List<StockTransaction> getAllTransactions(int page, int size) {
+        return stockTransactionRepository.findRecentTransactionsPage(page, size);
     }
 
     public List<StockTransaction> getRecentTransactions(int limit) {
@@ -0,0 +1,460 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import com.example.smartshelfx.job.JobContext;
+import com.example.smartshelfx.model.CostLayer;
+import com.example.smartshelfx.model.InventoryValuation;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.model.StockTransaction;
+import com.example.smartshelfx.model.ValuationTotal;
+import com.example.smartshelfx.repository.CostLayerRepository;
+import com.example.smartshelfx.repository.InventoryValuationRepository;
+import com.example.smartshelfx.repository.ProductRepository;
+import com.example.smartshelfx.repository.ValuationTotalRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Inventory valued at cost, kept current as stock moves instead of being recomputed from
+ * currentStock * price on every read.
+ *
+ * Each ledger row is costed in the transaction that writes it. An IN opens a FIFO cost layer
+ * at its unit cost and moves the product's moving-average cost; an OUT drains the oldest
+ * layers for FIFO cost of goods and is costed at the current average for the average method.
+ * The product's inventory_valuations row holds quantity, value and cumulative COGS under both
+ * methods. Its changes are also added to one of {@link #STRIPES} valuation_totals rows, so the
+ * catalog totals are a read of a few rows, and writers of different products seldom wait on
+ * the same one.
+ *
+ * Costing locks the product's valuation row first, so it is serialized per product. A bulk
+ * movement is costed by {@link #recordAll} once its rows are saved: each product's row is
+ * locked and its layers read once, and the totals are added once per stripe. Layers
+ * follow posting order; {@link #rebuild} replays the ledger in timestamp order, which is how
+ * an existing catalog gets its first layers and how backdated rows are folded in.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryValuationService {
+
+    public static final int STRIPES = 16;
+
+    private static final int VALUE_SCALE = 4;
+    private static final int UNIT_COST_SCALE = 6;
+
+    private static final String REPLAY_SQL = """
+            SELECT t.id, t.type, t.quantity, t.`timestamp`, po.unit_price
+            FROM stock_transactions t
+            LEFT JOIN purchase_orders po ON t.type = 'IN' AND po.po_number = t.reference_number
+                                         AND po.product_id = t.product_id
+            WHERE t.product_id = ? AND t.`timestamp` >= ?
+            ORDER BY t.`timestamp`, t.id
+            """;
+
+    private final InventoryValuationRepository valuationRepository;
+    private final CostLayerRepository costLayerRepository;
+    private final ValuationTotalRepository totalRepository;
+    private final ProductRepository productRepository;
+    private final StockTransactionArchive archive;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    // The ledger records opening balances and repairs through this service, so it is looked up on use
+    private final ObjectProvider<StockLedgerService> stockLedgerService;
+    // Job handlers call this service, so the JobService is looked up on use as well
+    private final ObjectProvider<JobService> jobService;
+
+    @Value("${app.valuation.method:FIFO}")
+    private String reportedMethod;
+
+    @Value("${app.valuation.rebuild.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.valuation.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public record Totals(long quantity, BigDecimal fifoValue, BigDecimal averageValue,
+                         BigDecimal fifoCogs, BigDecimal averageCogs) {
+
+        Totals plus(Totals other) {
+            return new Totals(quantity + other.quantity, fifoValue.add(other.fifoValue),
+                    averageValue.add(other.averageValue), fifoCogs.add(other.fifoCogs), averageCogs.add(other.averageCogs));
+        }
+
+        Totals minus(Totals other) {
+            return new Totals(quantity - other.quantity, fifoValue.subtract(other.fifoValue),
+                    averageValue.subtract(other.averageValue), fifoCogs.subtract(other.fifoCogs),
+                    averageCogs.subtract(other.averageCogs));
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A catalog that has stock but no valuations yet (first start with this feature) is
+     * valued from its ledger by a VALUATION_REBUILD job, which JobService resumes from its
+     * checkpoint if the node restarts mid-way. Only the first start queues one; when the last
+     * rebuild failed or was cancelled the valuation is incomplete, and that is logged instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (!rebuildOnStartup || productRepository.count() == 0) return;
+        List<Job> last = jobService.getObject().getRecentJobs(Job.Type.VALUATION_REBUILD, 1);
+        if (!last.isEmpty()) {
+            Job job = last.getFirst();
+            if (job.getStatus() == Job.Status.FAILED || job.getStatus() == Job.Status.CANCELLED) {
+                log.warn("Inventory valuation may be incomplete: rebuild job {} ended {} ({}); "
+                        + "start a new one with POST /api/valuation/rebuild", job.getId(), job.getStatus(), job.getError());
+            }
+            return;
+        }
+        if (valuationRepository.count() > 0) return;
+        Job job = jobService.getObject().submit(Job.Type.VALUATION_REBUILD, Map.of(), "system");
+        log.info("No inventory valuation yet, queued rebuild job {}", job.getId());
+    }
+
+    // ----------------------------------------------------------------
+    // INCREMENTAL COSTING
+    // ----------------------------------------------------------------
+
+    /**
+     * Costs a ledger row that was just saved; call it in the same transaction.
+     *
+     * @param unitCost cost of an IN, e.g. the purchase order's unit price; null falls back to
+     *                 the product's cost price, then its average cost, then its selling price
+     */
+    public void record(StockTransaction transaction, BigDecimal unitCost) {
+        Long productId = transaction.getProduct().getId();
+        valuationRepository.insertIfAbsent(productId, LocalDateTime.now());
+        InventoryValuation valuation = valuationRepository.findForUpdate(productId).orElseThrow();
+
+        Book book = new Book(valuation, costLayerRepository.findOpenLayers(productId));
+        Totals before = book.totals();
+        apply(book, transaction, unitCost);
+        save(book, before);
+    }
+
+    /**
+     * Costs the rows of a bulk movement that were just saved; call it in the same transaction,
+     * after all of them are saved. Rows are applied per product in the order given. The
+     * valuation rows are locked with one query and the open layers read with another, and only
+     * products without a valuation row yet get the native insert, so costing costs a few
+     * statements per batch rather than several per row, and the ledger inserts before it still
+     * go out as JDBC batches.
+     */
+    public void recordAll(List<StockTransaction> transactions, BigDecimal unitCost) {
+        if (transactions.isEmpty()) return;
+        Map<Long, List<StockTransaction>> byProduct = new TreeMap<>();
+        for (StockTransaction transaction : transactions) {
+            byProduct.computeIfAbsent(transaction.getProduct().getId(), id -> new ArrayList<>()).add(transaction);
+        }
+
+        Map<Long, InventoryValuation> valuations = new HashMap<>();
+        valuationRepository.findAllForUpdate(byProduct.keySet()).forEach(v -> valuations.put(v.getProductId(), v));
+        for (Long productId : byProduct.keySet()) {
+            if (valuations.containsKey(productId)) continue;
+            // First movement of the product
+            valuationRepository.insertIfAbsent(productId, LocalDateTime.now());
+            valuations.put(productId, valuationRepository.findForUpdate(productId).orElseThrow());
+        }
+
+        Map<Long, List<CostLayer>> layers = new HashMap<>();
+        for (CostLayer layer : costLayerRepository.findOpenLayers(byProduct.keySet())) {
+            layers.computeIfAbsent(layer.getProductId(), id -> new ArrayList<>()).add(layer);
+        }
+
+        Map<Integer, Totals> deltas = new TreeMap<>();
+        byProduct.forEach((productId, rows) -> {
+            Book book = new Book(valuations.get(productId), layers.getOrDefault(productId, List.of()));
+            Totals before = book.totals();
+            for (StockTransaction row : rows) {
+                apply(book, row, unitCost);
+            }
+            persist(book, before, deltas);
+        });
+        addTotals(deltas);
+    }
+
+    // ----------------------------------------------------------------
+    // READS
+    // ----------------------------------------------------------------
+
+    public Totals getTotals() {
+        long quantity = 0;
+        BigDecimal fifoValue = BigDecimal.ZERO, averageValue = BigDecimal.ZERO;
+        BigDecimal fifoCogs = BigDecimal.ZERO, averageCogs = BigDecimal.ZERO;
+        for (ValuationTotal stripe : totalRepository.findAll()) {
+            quantity += stripe.getQuantity();
+            fifoValue = fifoValue.add(stripe.getFifoValue());
+            averageValue = averageValue.add(stripe.getAverageValue());
+            fifoCogs = fifoCogs.add(stripe.getFifoCogs());
+            averageCogs = averageCogs.add(stripe.getAverageCogs());
+        }
+        return new Totals(quantity, fifoValue, averageValue, fifoCogs, averageCogs);
+    }
+
+    /**
+     * Catalog value under the configured method ({@code app.valuation.method}, FIFO or AVERAGE).
+     */
+    public BigDecimal getInventoryValue() {
+        Totals totals = getTotals();
+        return "AVERAGE".equalsIgnoreCase(reportedMethod) ? totals.averageValue() : totals.fifoValue();
+    }
+
+    public Map<String, Object> getProductValuation(Long productId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("valuation", valuationRepository.findById(productId).orElseGet(() -> new InventoryValuation(productId)));
+        result.put("openLayers", costLayerRepository.findOpenLayers(productId));
+        return result;
+    }
+
+    // ----------------------------------------------------------------
+    // REBUILD
+    // ----------------------------------------------------------------
+
+    /**
+     * Recomputes every product's layers and valuation by replaying its ledger rows in
+     * timestamp order. Stock from before the archive becomes one opening layer at the product's
+     * cost price. Each product is replaced in its own transaction with its valuation row
+     * locked, so live movements wait for it rather than interleave; the job checkpoint is the
+     * last product id done.
+     *
+     * Each chunk first gets the stock ledger's repair: stock set without a ledger row (products
+     * created with opening stock before opening balances were recorded) is booked as a
+     * reconciliation row, which the replay then costs at the product's cost price. Without it
+     * that stock would be missing from the valuation.
+     */
+    public Map<String, Object> rebuild(JobContext context) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Inventory valuation rebuild is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            context.setTotal(productRepository.count());
+            stockLedgerService.getObject().ensureSnapshots(context);
+            long processed = context.getProcessed();
+            long lastId = context.getCheckpoint();
+            long rows = 0;
+            long reconciled = 0;
+
+            while (true) {
+                context.throwIfCancelled();
+                List<Long> ids = productRepository.findProductIdsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+                reconciled += stockLedgerService.getObject().reconcile(ids);
+                for (Long productId : ids) {
+                    Integer replayed = transactionTemplate.execute(status -> rebuildProduct(productId));
+                    rows += replayed != null ? replayed : 0;
+                }
+                processed += ids.size();
+                lastId = ids.getLast();
+                context.progress(processed, lastId);
+            }
+
+            Totals totals = getTotals();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("productsProcessed", processed);
+            summary.put("transactionsReplayed", rows);
+            summary.put("ledgerReconciled", reconciled);
+            summary.put("fifoValue", totals.fifoValue());
+            summary.put("averageValue", totals.averageValue());
+            summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+            log.info("Inventory valuation rebuilt: {}", summary);
+            return summary;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildProduct(Long productId) {
+        valuationRepository.insertIfAbsent(productId, LocalDateTime.now());
+        InventoryValuation valuation = valuationRepository.findForUpdate(productId).orElseThrow();
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) return 0;
+        Totals before = totalsOf(valuation);
+
+        costLayerRepository.deleteByProductId(productId);
+        valuation.setQuantity(0L);
+        valuation.setFifoValue(BigDecimal.ZERO);
+        valuation.setAverageUnitCost(BigDecimal.ZERO);
+        valuation.setAverageValue(BigDecimal.ZERO);
+        valuation.setFifoCogs(BigDecimal.ZERO);
+        valuation.setAverageCogs(BigDecimal.ZERO);
+        Book book = new Book(valuation, List.of());
+
+        LocalDateTime from = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDate archivedUntil = archive.archivedUntil();
+        if (archivedUntil != null) {
+            from = archivedUntil.atStartOfDay();
+            long opening = stockLedgerService.getObject().stockAt(productId, from).stock();
+            if (opening > 0) {
+                book.receive(null, from, Math.toIntExact(opening), fallbackUnitCost(product));
+            }
+        }
+
+        int[] replayed = {0};
+        jdbcTemplate.query(REPLAY_SQL, (RowCallbackHandler) rs -> {
+            int quantity = rs.getInt(3);
+            if ("IN".equals(rs.getString(2))) {
+                book.receive(rs.getLong(1), rs.getTimestamp(4).toLocalDateTime(), quantity,
+                        resolveUnitCost(rs.getBigDecimal(5), product, valuation));
+            } else {
+                book.issue(quantity, fallbackUnitCost(product));
+            }
+            replayed[0]++;
+        }, productId, Timestamp.valueOf(from));
+
+        save(book, before);
+        return replayed[0];
+    }
+
+    // ----------------------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------------------
+
+    private static void apply(Book book, StockTransaction transaction, BigDecimal unitCost) {
+        if (transaction.getType() == StockTransaction.TransactionType.IN) {
+            book.receive(transaction.getId(), transaction.getTimestamp(), transaction.getQuantity(),
+                    resolveUnitCost(unitCost, transaction.getProduct(), book.valuation));
+        } else {
+            book.issue(transaction.getQuantity(), fallbackUnitCost(transaction.getProduct()));
+        }
+    }
+
+    private void save(Book book, Totals before) {
+        Map<Integer, Totals> deltas = new TreeMap<>();
+        persist(book, before, deltas);
+        addTotals(deltas);
+    }
+
+    private void persist(Book book, Totals before, Map<Integer, Totals> deltas) {
+        InventoryValuation valuation = book.valuation;
+        valuation.setUpdatedAt(LocalDateTime.now());
+        valuationRepository.save(valuation);
+        costLayerRepository.saveAll(book.touched);
+        deltas.merge(Math.floorMod(valuation.getProductId(), STRIPES), book.totals().minus(before), Totals::plus);
+    }
+
+    private void addTotals(Map<Integer, Totals> deltas) {
+        deltas.forEach((stripe, delta) -> totalRepository.add(stripe, delta.quantity(), delta.fifoValue(),
+                delta.averageValue(), delta.fifoCogs(), delta.averageCogs()));
+    }
+
+    private static BigDecimal resolveUnitCost(BigDecimal unitCost, Product product, InventoryValuation valuation) {
+        if (unitCost != null) return unitCost;
+        if (product.getCostPrice() != null) return product.getCostPrice();
+        if (valuation.getAverageUnitCost().signum() > 0) return valuation.getAverageUnitCost();
+        return product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal fallbackUnitCost(Product product) {
+        if (product.getCostPrice() != null) return product.getCostPrice();
+        return product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+    }
+
+    private static Totals totalsOf(InventoryValuation v) {
+        return new Totals(v.getQuantity(), v.getFifoValue(), v.getAverageValue(), v.getFifoCogs(), v.getAverageCogs());
+    }
+
+    /**
+     * One product's valuation and open layers while a movement is costed.
+     */
+    private static final class Book {
+        final InventoryValuation valuation;
+        final Deque<CostLayer> open;
+        final Set<CostLayer> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Book(InventoryValuation valuation, List<CostLayer> openLayers) {
+            this.valuation = valuation;
+            this.open = new ArrayDeque<>(openLayers);
+        }
+
+        Totals totals() {
+            return totalsOf(valuation);
+        }
+
+        void receive(Long transactionId, LocalDateTime at, int quantity, BigDecimal unitCost) {
+            if (quantity <= 0) return;
+            BigDecimal cost = unitCost.multiply(BigDecimal.valueOf(quantity));
+
+            CostLayer layer = new CostLayer(null, valuation.getProductId(), transactionId, at,
+                    unitCost.setScale(UNIT_COST_SCALE, RoundingMode.HALF_UP), quantity, quantity);
+            open.addLast(layer);
+            touched.add(layer);
+
+            long quantityAfter = valuation.getQuantity() + quantity;
+            valuation.setFifoValue(scaled(valuation.getFifoValue().add(cost)));
+            BigDecimal averageValue = valuation.getAverageValue().add(cost);
+            valuation.setAverageValue(scaled(averageValue));
+            if (quantityAfter > 0) {
+                valuation.setAverageUnitCost(averageValue.divide(BigDecimal.valueOf(quantityAfter),
+                        UNIT_COST_SCALE, RoundingMode.HALF_UP));
+            }
+            valuation.setQuantity(quantityAfter);
+        }
+
+        /**
+         * Units not covered by layers (stock that never had a costed receipt) are costed at the
+         * average cost, or {@code fallbackUnitCost} when there is none.
+         */
+        void issue(int quantity, BigDecimal fallbackUnitCost) {
+            if (quantity <= 0) return;
+            BigDecimal fifoCost = BigDecimal.ZERO;
+            int left = quantity;
+            while (left > 0 && !open.isEmpty()) {
+                CostLayer layer = open.peekFirst();
+                int taken = Math.min(left, layer.getRemainingQuantity());
+                fifoCost = fifoCost.add(layer.getUnitCost().multiply(BigDecimal.valueOf(taken)));
+                layer.setRemainingQuantity(layer.getRemainingQuantity() - taken);
+                touched.add(layer);
+                if (layer.getRemainingQuantity() == 0) open.pollFirst();
+                left -= taken;
+            }
+
+            BigDecimal unitCost = valuation.getAverageUnitCost().signum() > 0 ? valuation.getAverageUnitCost() : fallbackUnitCost;
+            if (left > 0) {
+                fifoCost = fifoCost.add(unitCost.multiply(BigDecimal.valueOf(left)));
+            }
+
+            long quantityAfter = valuation.getQuantity() - quantity;
+            BigDecimal averageCost = quantityAfter <= 0
+                    ? valuation.getAverageValue().max(BigDecimal.ZERO)
+                    : unitCost.multiply(BigDecimal.valueOf(quantity));
+
+            valuation.setFifoValue(scaled(valuation.getFifoValue().subtract(fifoCost).max(BigDecimal.ZERO)));
+            valuation.setFifoCogs(scaled(valuation.getFifoCogs().add(fifoCost)));
+            valuation.setAverageValue(scaled(valuation.getAverageValue().subtract(averageCost).max(BigDecimal.ZERO)));
+            valuation.setAverageCogs(scaled(valuation.getAverageCogs().add(averageCost)));
+            valuation.setQuantity(quantityAfter);
+        }
+
+        private static BigDecimal scaled(BigDecimal value) {
+            return value.setScale(VALUE_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+}
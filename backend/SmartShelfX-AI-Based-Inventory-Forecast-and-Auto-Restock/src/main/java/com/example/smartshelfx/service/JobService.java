@@ -0,0 +1,286 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.job.JobCancelledException;
+import com.example.smartshelfx.job.JobContext;
+import com.example.smartshelfx.job.JobHandler;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.repository.JobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs long operations (imports, exports, catalog forecasts, ...) off the request thread.
+ *
+ * Submitting only inserts a QUEUED row; the caller answers 202 with the job id. Each node runs
+ * at most {@code workers} jobs on its own pool and claims queued rows with a conditional
+ * UPDATE, so several nodes can share the table and a job runs once. Keeping the pool small is
+ * what protects interactive traffic: jobs never hold more than that many database connections
+ * or CPU threads at a time.
+ *
+ * Running jobs heart-beat; a RUNNING row whose heartbeat is older than {@code stale-after-ms}
+ * belonged to a node that died and is queued again (up to {@code max-attempts}), resuming from
+ * its last checkpoint. Cancellation is cooperative: queued jobs are cancelled at once, running
+ * ones stop at their next chunk boundary.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final JobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Job.Type, JobHandler> handlers = new EnumMap<>(Job.Type.class);
+
+    @Value("${app.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.jobs.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${app.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    private final String node = resolveNode();
+    private ThreadPoolExecutor executor;
+    private final Map<Long, RunningJob> running = new ConcurrentHashMap<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
+
+    public JobService(JobRepository jobRepository, ObjectMapper objectMapper, List<JobHandler> handlerBeans) {
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        for (JobHandler handler : handlerBeans) {
+            if (handlers.put(handler.getType(), handler) != null) {
+                throw new IllegalStateException("Two job handlers for " + handler.getType());
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // Jobs are only claimed while fewer than `workers` run here, so this queue holds at most a
+        // hand-off from a worker that is just finishing; everything else waits in the table
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("job-worker-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted jobs keep their checkpoint and are picked up again once their heartbeat is stale
+        executor.shutdownNow();
+    }
+
+    // ----------------------------------------------------------------
+    // SUBMIT / CANCEL / QUERY
+    // ----------------------------------------------------------------
+
+    public Job submit(Job.Type type, Map<String, Object> params, String createdBy) {
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("No handler for job type " + type);
+        }
+        Job job = new Job();
+        job.setType(type);
+        job.setParams(toJson(params));
+        job.setCreatedBy(createdBy);
+        job = jobRepository.save(job);
+        log.info("Job {} ({}) queued by {}", job.getId(), type, createdBy);
+        dispatch();
+        return job;
+    }
+
+    public Job cancel(Long id) {
+        Job job = getJob(id);
+        if (jobRepository.cancelQueued(id, LocalDateTime.now()) == 0 && jobRepository.requestCancel(id) > 0) {
+            RunningJob local = running.get(id);
+            if (local != null) local.cancelled = true;
+        }
+        return getJob(job.getId());
+    }
+
+    public Job getJob(Long id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Job not found: " + id));
+    }
+
+    public List<Job> getRecentJobs(Job.Type type, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 200)));
+        return type == null ? jobRepository.findAllByOrderByIdDesc(page) : jobRepository.findByTypeOrderByIdDesc(type, page);
+    }
+
+    // ----------------------------------------------------------------
+    // DISPATCH
+    // ----------------------------------------------------------------
+
+    /** Claims queued jobs while this node has free workers; also runs on a timer for other nodes' jobs. */
+    @Scheduled(fixedDelayString = "${app.jobs.poll-ms:2000}")
+    public void dispatch() {
+        if (executor == null || executor.isShutdown() || !dispatching.compareAndSet(false, true)) return;
+        try {
+            while (running.size() < workers) {
+                List<Long> queued = jobRepository.findQueuedIds(PageRequest.of(0, workers));
+                Long claimed = null;
+                for (Long id : queued) {
+                    if (jobRepository.claim(id, node, LocalDateTime.now()) == 1) {
+                        claimed = id;
+                        break;
+                    }
+                }
+                if (claimed == null) return;
+                start(jobRepository.findById(claimed).orElseThrow());
+            }
+        } catch (Exception e) {
+            log.warn("Job dispatch failed: {}", e.getMessage());
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    private void start(Job job) {
+        RunningJob context = new RunningJob(job);
+        running.put(job.getId(), context);
+        try {
+            executor.execute(() -> execute(job, context));
+        } catch (RuntimeException e) {
+            // Pool is shutting down; the row stays RUNNING and is recovered once its heartbeat is stale
+            running.remove(job.getId());
+            throw e;
+        }
+    }
+
+    private void execute(Job job, RunningJob context) {
+        long started = System.nanoTime();
+        Job.Status status;
+        String result = null;
+        String error = null;
+        try {
+            Map<String, Object> params = job.getParams() != null
+                    ? objectMapper.readValue(job.getParams(), MAP_TYPE) : Map.of();
+            Map<String, Object> output = handlers.get(job.getType()).run(params, context);
+            result = toJson(output);
+            status = Job.Status.SUCCEEDED;
+        } catch (JobCancelledException e) {
+            status = Job.Status.CANCELLED;
+            error = "Cancelled after " + context.processed + " items";
+        } catch (Exception e) {
+            status = Job.Status.FAILED;
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (error.length() > 1000) error = error.substring(0, 1000);
+            log.error("Job {} ({}) failed", job.getId(), job.getType(), e);
+        } finally {
+            running.remove(job.getId());
+        }
+        if (executor.isShutdown() && status != Job.Status.SUCCEEDED) {
+            log.info("Job {} ({}) interrupted by shutdown at checkpoint, it will be resumed", job.getId(), job.getType());
+            return;
+        }
+        jobRepository.finish(job.getId(), status, result, error, LocalDateTime.now());
+        log.info("Job {} ({}) {} after {} ms", job.getId(), job.getType(), status,
+                (System.nanoTime() - started) / 1_000_000);
+        dispatch();
+    }
+
+    // ----------------------------------------------------------------
+    // HEARTBEAT / RECOVERY
+    // ----------------------------------------------------------------
+
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (!running.isEmpty()) {
+            jobRepository.heartbeat(running.keySet(), LocalDateTime.now());
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000);
+        for (Job stale : jobRepository.findStale(cutoff)) {
+            if (running.containsKey(stale.getId())) continue;
+            if (stale.getAttempts() >= maxAttempts) {
+                jobRepository.finish(stale.getId(), Job.Status.FAILED, null,
+                        "Worker " + stale.getWorkerNode() + " stopped responding " + stale.getAttempts() + " times",
+                        LocalDateTime.now());
+            } else if (jobRepository.requeueStale(stale.getId(), cutoff) == 1) {
+                log.warn("Job {} ({}) lost its worker {}, queued again from checkpoint {}",
+                        stale.getId(), stale.getType(), stale.getWorkerNode(), stale.getCheckpoint());
+            }
+        }
+    }
+
+    private String toJson(Map<String, Object> value) {
+        if (value == null) return null;
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Job data is not serializable: " + e.getMessage(), e);
+        }
+    }
+
+    private static String resolveNode() {
+        String configured = System.getenv("APP_NODE_ID");
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            return configured != null && !configured.isBlank() ? host + "#" + configured.trim() : host;
+        } catch (Exception e) {
+            return configured != null ? "node-" + configured.trim() : "node";
+        }
+    }
+
+    /** JobContext backed by the job row; cancellation is read from the row on every progress call. */
+    private final class RunningJob implements JobContext {
+
+        private final Long id;
+        private final long checkpoint;
+        private volatile long processed;
+        private volatile boolean cancelled;
+
+        private RunningJob(Job job) {
+            this.id = job.getId();
+            this.checkpoint = job.getCheckpoint();
+            this.processed = job.getProcessedItems();
+            this.cancelled = Boolean.TRUE.equals(job.getCancelRequested());
+        }
+
+        @Override
+        public long getCheckpoint() {
+            return checkpoint;
+        }
+
+        @Override
+        public long getProcessed() {
+            return processed;
+        }
+
+        @Override
+        public void setTotal(long total) {
+            jobRepository.saveTotal(id, total);
+        }
+
+        @Override
+        public void progress(long processed, long checkpoint) {
+            this.processed = processed;
+            jobRepository.saveProgress(id, processed, checkpoint, LocalDateTime.now());
+            if (Boolean.TRUE.equals(jobRepository.isCancelRequested(id))) cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
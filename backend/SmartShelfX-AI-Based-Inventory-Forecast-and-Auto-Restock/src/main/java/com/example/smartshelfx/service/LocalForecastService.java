@@ -1,12 +1,24 @@
 package com.example.smartshelfx.service;
 
+import com.example.smartshelfx.dto.ForecastResult;
+import com.example.smartshelfx.forecast.DemandHistoryLoader;
+import com.example.smartshelfx.forecast.ForecastAlgorithm;
+import com.example.smartshelfx.forecast.ForecastOutput;
+import com.example.smartshelfx.job.JobContext;
+import com.example.smartshelfx.model.Forecast;
+import com.example.smartshelfx.model.Product;
 import com.example.smartshelfx.model.StockTransaction;
+import com.example.smartshelfx.repository.ForecastRepository;
+import com.example.smartshelfx.repository.ProductRepository;
 import com.example.smartshelfx.repository.StockTransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -15,10 +27,24 @@ import java.util.*;
 public class LocalForecastService {
 
     private final StockTransactionRepository stockRepo;
+    private final ProductRepository productRepository;
+    private final ForecastRepository forecastRepository;
+    private final DemandHistoryLoader demandHistoryLoader;
+    private final List<ForecastAlgorithm> algorithms;
+
+    @Value("${app.forecast.history-days:180}")
+    private int historyDays;
+
+    @Value("${app.forecast.default-algorithm:HOLT_WINTERS}")
+    private String defaultAlgorithm;
+
+    @Value("${app.forecast.batch-size:500}")
+    private int batchSize;
 
     public Map<String, Object> generateForecast(Long productId) {
 
-        List<StockTransaction> transactions = stockRepo.findByProductIdOrderByTimestampDesc(productId);
+        List<StockTransaction> transactions = stockRepo.findRecentTransactionsByProduct(productId,
+                LocalDateTime.now().minusDays(historyDays));
 
         if (transactions.isEmpty()) {
             return Map.of(
@@ -71,4 +97,155 @@ public class LocalForecastService {
         int count = Math.min(values.size(), period);
         return values.subList(0, count).stream().mapToDouble(i -> i).average().orElse(0);
     }
+
+    // ----------------------------------------------------------------
+    // STATISTICAL ENGINE (ForecastAlgorithm SPI)
+    // ----------------------------------------------------------------
+
+    public List<String> getAvailableAlgorithms() {
+        return algorithms.stream().map(ForecastAlgorithm::getName).sorted().toList();
+    }
+
+    public ForecastAlgorithm resolveAlgorithm(String name) {
+        String wanted = (name == null || name.isBlank()) ? defaultAlgorithm : name.trim().toUpperCase();
+        return algorithms.stream()
+                .filter(a -> a.getName().equals(wanted))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown forecast algorithm: " + name
+                        + ". Available: " + getAvailableAlgorithms()));
+    }
+
+    /**
+     * Explicit request wins; otherwise the model picked for this product by the backtest,
+     * falling back to the configured default.
+     */
+    public ForecastAlgorithm algorithmFor(Product product, String requested) {
+        if ((requested == null || requested.isBlank()) && product.getForecastAlgorithm() != null) {
+            return algorithms.stream()
+                    .filter(a -> a.getName().equals(product.getForecastAlgorithm()))
+                    .findFirst()
+                    .orElseGet(() -> resolveAlgorithm(null));
+        }
+        return resolveAlgorithm(requested);
+    }
+
+    /**
+     * Forecast one product with a local model and persist the result as a Forecast row.
+     */
+    public ForecastResult runForecast(Long productId, String algorithmName, int horizonDays) {
+        requirePositiveHorizon(horizonDays);
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
+
+        ForecastAlgorithm algorithm = algorithmFor(product, algorithmName);
+        double[] history = demandHistoryLoader.loadDailyDemand(productId, historyDays);
+        ForecastOutput output = algorithm.forecast(history, horizonDays);
+
+        Forecast forecast = forecastRepository.save(toForecast(product, output, horizonDays));
+        return toResult(product, forecast);
+    }
+
+    /**
+     * Re-forecast every active product locally, in keyset-paged chunks: one grouped demand
+     * query and one saveAll per chunk, no LLM calls. Without an explicit algorithm each
+     * product uses its backtested model.
+     */
+    public Map<String, Object> forecastCatalog(String algorithmName, int horizonDays) {
+        return forecastCatalog(algorithmName, horizonDays, JobContext.NONE);
+    }
+
+    /**
+     * Job version: the checkpoint is the last product id of a saved chunk, so a resumed run
+     * continues after it, and cancellation is honoured between chunks.
+     */
+    public Map<String, Object> forecastCatalog(String algorithmName, int horizonDays, JobContext context) {
+        requirePositiveHorizon(horizonDays);
+        boolean perProduct = algorithmName == null || algorithmName.isBlank();
+        ForecastAlgorithm fixed = perProduct ? null : resolveAlgorithm(algorithmName);
+        String label = perProduct ? "AUTO" : fixed.getName();
+        long started = System.nanoTime();
+
+        long lastId = context.getCheckpoint();
+        long products = context.getProcessed();
+        int saved = 0;
+        if (context != JobContext.NONE) context.setTotal(productRepository.countByActiveTrue());
+
+        while (true) {
+            List<Long> ids = productRepository.findActiveProductIdsAfter(lastId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) break;
+
+            Map<Long, double[]> histories = demandHistoryLoader.loadDailyDemand(ids, historyDays);
+            List<Forecast> batch = new ArrayList<>(ids.size());
+
+            for (Product product : productRepository.findAllById(ids)) {
+                ForecastAlgorithm algorithm = perProduct ? algorithmFor(product, null) : fixed;
+                ForecastOutput output = algorithm.forecast(histories.get(product.getId()), horizonDays);
+                batch.add(toForecast(product, output, horizonDays));
+            }
+
+            saved += forecastRepository.saveAll(batch).size();
+            products += ids.size();
+            lastId = ids.getLast();
+            context.progress(products, lastId);
+            context.throwIfCancelled();
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Local catalog forecast ({}) finished: {} products, {} forecasts in {} ms",
+                label, products, saved, durationMs);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("algorithm", label);
+        summary.put("horizonDays", horizonDays);
+        summary.put("productsProcessed", products);
+        summary.put("forecastsSaved", saved);
+        summary.put("durationMs", durationMs);
+        return summary;
+    }
+
+    private void requirePositiveHorizon(int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizonDays must be at least 1");
+        }
+    }
+
+    private Forecast toForecast(Product product, ForecastOutput output, int horizonDays) {
+        Forecast forecast = new Forecast();
+        forecast.setProduct(product);
+        forecast.setForecastDate(LocalDate.now());
+        forecast.setPredictedDemand((int) Math.round(output.getTotal()));
+        forecast.setConfidenceScore(output.getConfidenceScore());
+        forecast.setAlgorithmUsed(output.getAlgorithm());
+        forecast.setForecastPeriodDays(horizonDays);
+        forecast.setCreatedAt(LocalDateTime.now());
+        return forecast;
+    }
+
+    private ForecastResult toResult(Product product, Forecast forecast) {
+        int stock = product.getCurrentStock() != null ? product.getCurrentStock() : 0;
+        int safetyStock = product.getSafetyStock() != null ? product.getSafetyStock() : 0;
+        int demand = forecast.getPredictedDemand();
+        double dailyDemand = demand / (double) forecast.getForecastPeriodDays();
+
+        String riskLevel;
+        if (stock < demand) riskLevel = "HIGH";
+        else if (stock < demand + safetyStock) riskLevel = "MEDIUM";
+        else riskLevel = "LOW";
+
+        int suggested = Math.max(0, demand + safetyStock - stock);
+
+        return ForecastResult.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .sku(product.getSku())
+                .currentStock(stock)
+                .predictedDemand(demand)
+                .confidenceScore(forecast.getConfidenceScore())
+                .forecastDate(forecast.getForecastDate())
+                .recommendedAction(suggested > 0 ? "ORDER_NOW" : "WAIT")
+                .suggestedOrderQuantity(suggested)
+                .daysOfSupply(dailyDemand > 0 ? (int) (stock / dailyDemand) : null)
+                .riskLevel(riskLevel)
+                .build();
+    }
 }
@@ -0,0 +1,275 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.event.DomainEventConsumer;
+import com.example.smartshelfx.model.OutboxEvent;
+import com.example.smartshelfx.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Delivers outbox rows to their DomainEventConsumer on a dedicated thread.
+ *
+ * Each round claims up to {@code batch-size} rows, groups them by consumer and hands every
+ * consumer its events as one list, in one transaction that also marks the rows processed. A
+ * failing batch is retried one event at a time so a single bad event cannot hold back the
+ * others; a failing event is retried with exponential backoff and marked FAILED after
+ * {@code max-attempts}. Rounds run right after a publishing transaction commits, and on a timer
+ * for events committed by other nodes or left behind by a restart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int PURGE_CHUNK = 5000;
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectProvider<DomainEventConsumer<?>> consumerBeans;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-base-ms:1000}")
+    private long retryBaseMs;
+
+    @Value("${app.outbox.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final String node = resolveNode();
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor executor;
+    private volatile Map<String, DomainEventConsumer<?>> consumers;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean(false);
+    private final AtomicBoolean purging = new AtomicBoolean(false);
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("outbox-dispatcher-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Claimed rows of an interrupted round are taken over once their claim times out
+        executor.shutdownNow();
+    }
+
+    /** Schedules a dispatch round; calls made while one is already pending collapse into it. */
+    public void wakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            wakeUpPending.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void drain() {
+        wakeUpPending.set(false);
+        try {
+            int claimed;
+            do {
+                claimed = dispatchRound();
+            } while (claimed == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.warn("Outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private int dispatchRound() {
+        String token = node + ":" + UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = outboxRepository.claim(token, now, now.minusNanos(claimTimeoutMs * 1_000_000), batchSize);
+        if (claimed == 0) return 0;
+
+        Map<String, List<OutboxEvent>> byConsumer = new LinkedHashMap<>();
+        for (OutboxEvent row : outboxRepository.findByClaimedByOrderById(token)) {
+            byConsumer.computeIfAbsent(row.getConsumer(), c -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<String, List<OutboxEvent>> entry : byConsumer.entrySet()) {
+            DomainEventConsumer<?> consumer = consumers().get(entry.getKey());
+            if (consumer == null) {
+                for (OutboxEvent row : entry.getValue()) {
+                    outboxRepository.markFailed(row.getId(), LocalDateTime.now(), "No consumer named " + entry.getKey());
+                    failed.increment();
+                }
+                continue;
+            }
+            deliver(consumer, entry.getValue());
+        }
+        return claimed;
+    }
+
+    private <E> void deliver(DomainEventConsumer<E> consumer, List<OutboxEvent> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<E> events = new ArrayList<>(rows.size());
+                for (OutboxEvent row : rows) {
+                    try {
+                        events.add(objectMapper.readValue(row.getPayload(), consumer.getEventType()));
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Unreadable " + row.getEventType() + " payload", e);
+                    }
+                }
+                try {
+                    consumer.handle(events);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                outboxRepository.markProcessed(rows.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now());
+            });
+            delivered.add(rows.size());
+        } catch (Exception e) {
+            if (rows.size() > 1) {
+                log.warn("Outbox batch of {} for {} failed ({}), retrying one by one",
+                        rows.size(), consumer.getName(), e.getMessage());
+                for (OutboxEvent row : rows) {
+                    deliver(consumer, List.of(row));
+                }
+            } else {
+                giveBack(consumer, rows.getFirst(), e);
+            }
+        }
+    }
+
+    private void giveBack(DomainEventConsumer<?> consumer, OutboxEvent row, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (error.length() > 1000) error = error.substring(0, 1000);
+        if (row.getAttempts() >= maxAttempts) {
+            outboxRepository.markFailed(row.getId(), LocalDateTime.now(), error);
+            failed.increment();
+            log.error("Outbox event {} ({}) for {} failed {} times, giving up: {}",
+                    row.getId(), row.getEventType(), consumer.getName(), row.getAttempts(), error);
+        } else {
+            long delayMs = retryBaseMs << Math.min(row.getAttempts() - 1, 16);
+            outboxRepository.retryLater(row.getId(), LocalDateTime.now().plusNanos(delayMs * 1_000_000), error);
+            retried.increment();
+            log.warn("Outbox event {} ({}) for {} failed, retry in {} ms: {}",
+                    row.getId(), row.getEventType(), consumer.getName(), delayMs, error);
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // MAINTENANCE
+    // ----------------------------------------------------------------
+
+    @Scheduled(cron = "${app.outbox.purge-cron:0 45 2 * * *}")
+    public void scheduledPurge() {
+        try {
+            purgeProcessed();
+        } catch (IllegalStateException e) {
+            log.warn("Skipping outbox purge: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Scheduled outbox purge failed", e);
+        }
+    }
+
+    /** Deletes rows delivered more than retention-days ago; FAILED rows are kept for inspection. */
+    public int purgeProcessed() {
+        if (!purging.compareAndSet(false, true)) {
+            throw new IllegalStateException("Outbox purge is already running");
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            int purged = inChunks(() -> outboxRepository.purgeProcessedChunk(cutoff, PURGE_CHUNK));
+            log.info("Outbox purge: {} processed events deleted (processed before {})", purged, cutoff);
+            return purged;
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    public int retryFailed() {
+        int requeued = outboxRepository.requeueFailed(LocalDateTime.now());
+        if (requeued > 0) wakeUp();
+        return requeued;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Map<String, Long>> byConsumer = new TreeMap<>();
+        for (Object[] row : outboxRepository.countByConsumerAndStatus()) {
+            byConsumer.computeIfAbsent((String) row[0], c -> new TreeMap<>())
+                    .put(row[1].toString(), ((Number) row[2]).longValue());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("consumers", byConsumer);
+        stats.put("deliveredSinceStart", delivered.sum());
+        stats.put("retriedSinceStart", retried.sum());
+        stats.put("failedSinceStart", failed.sum());
+        stats.put("queuedRounds", executor.getQueue().size());
+        return stats;
+    }
+
+    private Map<String, DomainEventConsumer<?>> consumers() {
+        Map<String, DomainEventConsumer<?>> current = consumers;
+        if (current == null) {
+            Map<String, DomainEventConsumer<?>> built = new HashMap<>();
+            consumerBeans.orderedStream().forEach(c -> {
+                if (built.put(c.getName(), c) != null) {
+                    throw new IllegalStateException("Two domain event consumers named " + c.getName());
+                }
+            });
+            consumers = current = built;
+        }
+        return current;
+    }
+
+    private static int inChunks(IntSupplier chunk) {
+        int total = 0;
+        int changed;
+        do {
+            changed = chunk.getAsInt();
+            total += changed;
+        } while (changed >= PURGE_CHUNK);
+        return total;
+    }
+
+    private static String resolveNode() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
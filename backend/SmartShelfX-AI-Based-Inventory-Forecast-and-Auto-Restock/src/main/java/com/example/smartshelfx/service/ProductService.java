@@ -5,6 +5,8 @@ import com.example.smartshelfx.model.Product;
 import com.example.smartshelfx.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,6 +23,9 @@ import java.util.List;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final StockLedgerService stockLedgerService;
+    private final InventoryValuationService inventoryValuationService;
+    private final FileStorageService fileStorageService;
 
     public PagedResponse<Product> getAllProducts(int size, int page, String sortBy, String sortDir, String category) {
         Sort sort = sortDir.equalsIgnoreCase("desc")
@@ -64,11 +69,13 @@ public class ProductService {
             if (image != null && !image.isEmpty()) {
                 product.setImageName(image.getOriginalFilename());
                 product.setImageType(image.getContentType());
-                product.setImageData(image.getBytes());
+                product.setImageFile(fileStorageService.storeProductImage(image));
                 log.info("Image uploaded: {} ({} bytes)", image.getOriginalFilename(), image.getSize());
             }
 
-            return productRepository.save(product);
+            Product saved = productRepository.save(product);
+            stockLedgerService.recordOpeningBalance(saved);
+            return saved;
         } catch (IOException e) {
             throw new RuntimeException("Error while saving product image", e);
         }
@@ -89,12 +96,17 @@ public class ProductService {
         existing.setActive(product.getActive());
 
         try {
+            String replacedImage = null;
             if (image != null && !image.isEmpty()) {
-                existing.setImageData(image.getBytes());
+                replacedImage = existing.getImageFile();
+                existing.setImageFile(fileStorageService.storeProductImage(image));
+                existing.setImageData(null);
                 existing.setImageName(image.getOriginalFilename());
                 existing.setImageType(image.getContentType());
             }
-            return productRepository.save(existing);
+            Product saved = productRepository.save(existing);
+            if (replacedImage != null) releaseImage(replacedImage);
+            return saved;
         } catch (IOException e) {
             throw new RuntimeException("Error while updating product image", e);
         }
@@ -103,6 +115,7 @@ public class ProductService {
     public void deleteProduct(Long id) {
         Product product = getProductById(id);
         productRepository.delete(product);
+        if (product.getImageFile() != null) releaseImage(product.getImageFile());
     }
 
     public PagedResponse<Product> searchProducts(String query, int size, int page, String sortBy, String sortDir) {
@@ -146,11 +159,69 @@ public class ProductService {
     }
 
     public Double getTotalInventoryValue() {
-        return productRepository.calculateTotalInventoryValue();
+        return inventoryValuationService.getInventoryValue().doubleValue();
     }
 
     public List<Product> getProductsByVendor(Long vendorId) {
         return productRepository.findByVendorId(vendorId);
     }
 
+    // ----------------------------------------------------------------
+    // IMAGES
+    // ----------------------------------------------------------------
+
+    /**
+     * Moves images still kept in the image_data column into the upload store, where they get
+     * thumbnails and are served by URL, and clears the column. Runs in the background after
+     * startup, one product at a time; after a restart it picks up the products that are left.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInlineImages() {
+        if (productRepository.findIdsWithInlineImageAfter(0L, PageRequest.of(0, 1)).isEmpty()) return;
+        Thread.ofPlatform().name("product-image-migration").start(() -> {
+            int moved = 0;
+            long lastId = 0;
+            List<Long> ids;
+            while (!(ids = productRepository.findIdsWithInlineImageAfter(lastId, PageRequest.of(0, 100))).isEmpty()) {
+                for (Long id : ids) {
+                    try {
+                        if (moveInlineImage(id)) moved++;
+                    } catch (Exception e) {
+                        log.warn("Could not move the image of product {} to the upload store: {}", id, e.getMessage());
+                    }
+                }
+                lastId = ids.getLast();
+            }
+            log.info("Moved {} product images to the upload store", moved);
+        });
+    }
+
+    private boolean moveInlineImage(Long id) throws IOException {
+        Product product = productRepository.findById(id).orElse(null);
+        if (product == null || product.getImageData() == null || product.getImageFile() != null) return false;
+
+        String file = fileStorageService.storeProductImage(product.getImageData(), imageName(product));
+        if (productRepository.moveImageToFile(id, file) == 0) {
+            // A new image was uploaded meanwhile
+            releaseImage(file);
+            return false;
+        }
+        return true;
+    }
+
+    // The stored name decides the served content type, so keep an extension
+    private static String imageName(Product product) {
+        String name = product.getImageName();
+        if (name != null && name.contains(".")) return name;
+        String type = product.getImageType();
+        String extension = type != null && type.startsWith("image/") ? type.substring(6).split("\\+")[0] : "jpg";
+        return (name != null ? name : "product") + "." + ("jpeg".equals(extension) ? "jpg" : extension);
+    }
+
+    private void releaseImage(String file) {
+        if (!fileStorageService.deleteFile(file, fileStorageService.directoryFor("images"))) {
+            log.warn("Image {} was not removed from the upload store", file);
+        }
+    }
+
 }
\ No newline at end of file
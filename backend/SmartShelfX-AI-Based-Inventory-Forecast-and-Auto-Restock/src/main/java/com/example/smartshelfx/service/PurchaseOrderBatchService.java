@@ -0,0 +1,194 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.dto.BatchPurchaseOrderRequest;
+import com.example.smartshelfx.dto.BatchPurchaseOrderResult;
+import com.example.smartshelfx.event.PurchaseOrderStatusChangedEvent;
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.model.PurchaseOrder;
+import com.example.smartshelfx.model.User;
+import com.example.smartshelfx.repository.ProductRepository;
+import com.example.smartshelfx.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Creates many purchase order lines at once, consolidated into one order per vendor.
+ *
+ * Products and users are loaded with a few IN queries instead of one lookup per line, and the
+ * lines are written with JDBC batch inserts (rewriteBatchedStatements turns each batch into a
+ * multi-row INSERT); PurchaseOrder uses IDENTITY ids, so Hibernate itself could not batch them.
+ * Each vendor order gets a number from ReferenceNumberService, its lines are numbered under it,
+ * and each vendor order publishes one event, from which the vendor gets one digest mail.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PurchaseOrderBatchService {
+
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final int INSERT_BATCH = 500;
+    private static final String BATCH_NOTE = "Consolidated purchase order";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO purchase_orders (po_number, order_group, vendor_id, product_id, quantity, unit_price,
+                                         total_amount, status, created_at, updated_at, expected_delivery,
+                                         created_by, notes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DomainEventBus domainEventBus;
+    private final ReferenceNumberService referenceNumberService;
+
+    private record Line(Product product, long vendorId, int quantity, BigDecimal unitPrice) {
+    }
+
+    private record LineRow(String poNumber, String orderGroup, Line line) {
+    }
+
+    @Transactional
+    public BatchPurchaseOrderResult createBatch(BatchPurchaseOrderRequest request, Long createdById) {
+        long started = System.nanoTime();
+        List<BatchPurchaseOrderRequest.Line> requested = request.getLines() != null ? request.getLines() : List.of();
+        List<String> skipped = new ArrayList<>();
+
+        User createdBy = userRepository.findById(createdById)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Set<Long> productIds = new HashSet<>();
+        for (BatchPurchaseOrderRequest.Line line : requested) {
+            if (line.getProductId() != null) productIds.add(line.getProductId());
+        }
+        Map<Long, Product> products = loadAll(productIds, productRepository::findAllById, Product::getId);
+
+        // Merge repeated product/vendor pairs; the first explicit unit price wins
+        Map<Long, Map<Long, Line>> byVendor = new LinkedHashMap<>();
+        for (int i = 0; i < requested.size(); i++) {
+            BatchPurchaseOrderRequest.Line line = requested.get(i);
+            Product product = line.getProductId() != null ? products.get(line.getProductId()) : null;
+            if (product == null) {
+                skipped.add("line " + (i + 1) + ": product " + line.getProductId() + " not found");
+                continue;
+            }
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                skipped.add("line " + (i + 1) + ": quantity must be positive for " + product.getSku());
+                continue;
+            }
+            // getId() on the lazy vendor proxy does not load the vendor
+            Long vendorId = line.getVendorId() != null ? line.getVendorId()
+                    : product.getVendor() != null ? product.getVendor().getId() : null;
+            if (vendorId == null) {
+                skipped.add("line " + (i + 1) + ": no vendor for " + product.getSku());
+                continue;
+            }
+            BigDecimal unitPrice = line.getUnitPrice() != null ? line.getUnitPrice() : product.getPrice();
+            byVendor.computeIfAbsent(vendorId, v -> new LinkedHashMap<>())
+                    .merge(product.getId(), new Line(product, vendorId, line.getQuantity(), unitPrice),
+                            (a, b) -> new Line(a.product(), vendorId, a.quantity() + b.quantity(),
+                                    a.unitPrice() != null ? a.unitPrice() : b.unitPrice()));
+        }
+
+        Map<Long, User> vendors = loadAll(byVendor.keySet(), userRepository::findAllById, User::getId);
+        for (Iterator<Map.Entry<Long, Map<Long, Line>>> it = byVendor.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Map<Long, Line>> entry = it.next();
+            if (!vendors.containsKey(entry.getKey())) {
+                skipped.add(entry.getValue().size() + " line(s): vendor " + entry.getKey() + " not found");
+                it.remove();
+            }
+        }
+
+        List<LineRow> rows = new ArrayList<>();
+        List<BatchPurchaseOrderResult.VendorOrder> orders = new ArrayList<>();
+        for (Map.Entry<Long, Map<Long, Line>> entry : byVendor.entrySet()) {
+            User vendor = vendors.get(entry.getKey());
+            String orderNumber = referenceNumberService.nextPurchaseOrderNumber();
+            List<LineRow> orderRows = new ArrayList<>();
+            long units = 0;
+            BigDecimal total = BigDecimal.ZERO;
+            int lineNo = 0;
+            for (Line line : entry.getValue().values()) {
+                LineRow row = new LineRow(String.format("%s-%04d", orderNumber, ++lineNo), orderNumber, line);
+                orderRows.add(row);
+                units += line.quantity();
+                if (line.unitPrice() != null) total = total.add(lineTotal(line));
+            }
+            rows.addAll(orderRows);
+            orders.add(new BatchPurchaseOrderResult.VendorOrder(orderNumber, vendor.getId(), vendor.getFullName(),
+                    orderRows.size(), units, total));
+        }
+
+        insert(rows, request, createdBy);
+        // Outbox rows commit with the lines; the digest mails are sent from these events
+        for (BatchPurchaseOrderResult.VendorOrder order : orders) {
+            domainEventBus.publish(new PurchaseOrderStatusChangedEvent(null, order.getOrderNumber(), null,
+                    order.getVendorId(), PurchaseOrder.OrderStatus.PENDING.name(), LocalDateTime.now(), createdById));
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Batch purchase orders: {} lines in {} vendor orders ({} skipped) in {} ms",
+                rows.size(), orders.size(), skipped.size(), durationMs);
+        return BatchPurchaseOrderResult.builder()
+                .requestedLines(requested.size())
+                .linesCreated(rows.size())
+                .vendorOrders(orders)
+                .skipped(skipped)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    private void insert(List<LineRow> rows, BatchPurchaseOrderRequest request, User createdBy) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date expected = request.getExpectedDelivery() != null ? Date.valueOf(request.getExpectedDelivery()) : null;
+        String notes = request.getNotes() != null && !request.getNotes().isBlank() ? request.getNotes() : BATCH_NOTE;
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_BATCH, (ps, row) -> {
+            Line line = row.line();
+            ps.setString(1, row.poNumber());
+            ps.setString(2, row.orderGroup());
+            ps.setLong(3, line.vendorId());
+            ps.setLong(4, line.product().getId());
+            ps.setInt(5, line.quantity());
+            ps.setBigDecimal(6, line.unitPrice());
+            ps.setBigDecimal(7, line.unitPrice() != null ? lineTotal(line) : null);
+            ps.setString(8, PurchaseOrder.OrderStatus.PENDING.name());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+            if (expected != null) {
+                ps.setDate(11, expected);
+            } else {
+                ps.setNull(11, Types.DATE);
+            }
+            ps.setLong(12, createdBy.getId());
+            ps.setString(13, notes);
+        });
+    }
+
+    private static BigDecimal lineTotal(Line line) {
+        return line.unitPrice().multiply(BigDecimal.valueOf(line.quantity()));
+    }
+
+    private static <T> Map<Long, T> loadAll(Collection<Long> ids, Function<List<Long>, List<T>> finder,
+                                           Function<T, Long> idOf) {
+        Map<Long, T> loaded = new HashMap<>();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += LOOKUP_CHUNK) {
+            for (T entity : finder.apply(all.subList(from, Math.min(all.size(), from + LOOKUP_CHUNK)))) {
+                loaded.put(idOf.apply(entity), entity);
+            }
+        }
+        return loaded;
+    }
+}
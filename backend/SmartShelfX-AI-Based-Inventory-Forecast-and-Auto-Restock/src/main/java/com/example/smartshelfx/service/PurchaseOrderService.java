@@ -1,5 +1,6 @@
 package com.example.smartshelfx.service;
 
+import com.example.smartshelfx.event.PurchaseOrderStatusChangedEvent;
 import com.example.smartshelfx.model.*;
 import com.example.smartshelfx.repository.PurchaseOrderRepository;
 import com.example.smartshelfx.repository.ProductRepository;
@@ -12,8 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @Slf4j
@@ -26,6 +26,8 @@ public class PurchaseOrderService {
     private final StockTransactionService stockTransactionService;
     private final AlertService alertService;
     private final EmailService emailService;
+    private final DomainEventBus domainEventBus;
+    private final ReferenceNumberService referenceNumberService;
 
     @Transactional
     public PurchaseOrder createPurchaseOrder(PurchaseOrder purchaseOrder, Long createdById) {
@@ -43,7 +45,7 @@ public class PurchaseOrderService {
 
         // Generate PO number if not provided
         if (purchaseOrder.getPoNumber() == null) {
-            purchaseOrder.setPoNumber(generatePONumber());
+            purchaseOrder.setPoNumber(referenceNumberService.nextPurchaseOrderNumber());
         }
 
         // Set relationships
@@ -59,33 +61,30 @@ public class PurchaseOrderService {
         }
 
         PurchaseOrder savedPO = purchaseOrderRepository.save(purchaseOrder);
-
-        // Create alert for new purchase order
-        createPurchaseOrderAlert(savedPO);
-
-        // ✅ NEW: Send email notification to vendor
-        sendPurchaseOrderEmail(savedPO);
+        // The alert and the vendor email are sent from this event (see notifyStatusChanges)
+        domainEventBus.publish(PurchaseOrderStatusChangedEvent.of(savedPO, createdById));
 
         log.info("Purchase order created: {} for product '{}'", savedPO.getPoNumber(), product.getName());
         return savedPO;
     }
 
-    // ✅ NEW: Email notification method
+    private PurchaseOrder publishStatusChange(PurchaseOrder po, Long actorId) {
+        domainEventBus.publish(PurchaseOrderStatusChangedEvent.of(po, actorId));
+        return po;
+    }
+
+    // Runs in the outbox consumer, after the PO has committed: a mail failure fails the batch
+    // and the outbox retries it, it never blocks PO creation
     private void sendPurchaseOrderEmail(PurchaseOrder purchaseOrder) {
-        try {
-            emailService.sendPurchaseOrderEmail(
-                    purchaseOrder.getVendor().getEmail(),
-                    purchaseOrder.getVendor().getFullName(),
-                    purchaseOrder.getPoNumber(),
-                    purchaseOrder.getProduct().getName(),
-                    purchaseOrder.getQuantity()
-            );
-            log.info("Purchase order email sent to vendor: {}", purchaseOrder.getVendor().getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send PO email to {}: {}",
-                    purchaseOrder.getVendor().getEmail(), e.getMessage());
-            // Don't throw exception - email failure shouldn't block PO creation
-        }
+        if (purchaseOrder.getVendor() == null || purchaseOrder.getVendor().getEmail() == null) return;
+        emailService.sendPurchaseOrderEmail(
+                purchaseOrder.getVendor().getEmail(),
+                purchaseOrder.getVendor().getFullName(),
+                purchaseOrder.getPoNumber(),
+                purchaseOrder.getProduct().getName(),
+                purchaseOrder.getQuantity()
+        );
+        log.info("Purchase order email sent to vendor: {}", purchaseOrder.getVendor().getEmail());
     }
 
     @Transactional
@@ -113,18 +112,8 @@ public class PurchaseOrderService {
         po.setStatus(PurchaseOrder.OrderStatus.APPROVED);
         po.setUpdatedAt(LocalDateTime.now());
 
-        // Create alert for approval
-        Alert approvalAlert = Alert.builder()
-                .product(po.getProduct())
-                .type(Alert.AlertType.PURCHASE_ORDER_UPDATE)
-                .title("✅ Purchase Order Approved: " + po.getPoNumber())
-                .description("Purchase order for " + po.getQuantity() + " units of " + po.getProduct().getName() + " has been approved")
-                .priority(Alert.Priority.MEDIUM)
-                .suggestedAction("Proceed with ordering from vendor")
-                .build();
-        // Save alert through your alert service
-
-        return purchaseOrderRepository.save(po);
+        // The approval alert is raised from this event (see notifyStatusChanges)
+        return publishStatusChange(purchaseOrderRepository.save(po), approvedById);
     }
 
     @Transactional
@@ -139,7 +128,7 @@ public class PurchaseOrderService {
         po.setStatus(PurchaseOrder.OrderStatus.ORDERED);
         po.setUpdatedAt(LocalDateTime.now());
 
-        return purchaseOrderRepository.save(po);
+        return publishStatusChange(purchaseOrderRepository.save(po), null);
     }
 
     @Transactional
@@ -151,26 +140,16 @@ public class PurchaseOrderService {
             throw new RuntimeException("Only ordered purchase orders can be marked as delivered");
         }
 
-        User receivedBy = userRepository.findById(receivedById)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(receivedById)) {
+            throw new RuntimeException("User not found");
+        }
 
         po.setStatus(PurchaseOrder.OrderStatus.DELIVERED);
         po.setUpdatedAt(LocalDateTime.now());
 
-        // Create stock transaction for the received goods
-        StockTransaction stockIn = new StockTransaction();
-        stockIn.setProduct(po.getProduct());
-        stockIn.setQuantity(po.getQuantity());
-        stockIn.setType(StockTransaction.TransactionType.IN);
-        stockIn.setNotes("Purchase order delivery: " + po.getPoNumber());
-        stockIn.setReferenceNumber(po.getPoNumber());
-
-        stockTransactionService.createStockTransaction(stockIn, receivedById);
-
-        log.info("Purchase order {} marked as delivered. {} units added to stock.",
-                po.getPoNumber(), po.getQuantity());
-
-        return purchaseOrderRepository.save(po);
+        // The goods are booked into stock from this event (see receiveDeliveries)
+        log.info("Purchase order {} marked as delivered, {} units to be received", po.getPoNumber(), po.getQuantity());
+        return publishStatusChange(purchaseOrderRepository.save(po), receivedById);
     }
 
     @Transactional
@@ -186,7 +165,91 @@ public class PurchaseOrderService {
         po.setNotes((po.getNotes() != null ? po.getNotes() + " " : "") + "CANCELLED: " + reason);
         po.setUpdatedAt(LocalDateTime.now());
 
-        return purchaseOrderRepository.save(po);
+        return publishStatusChange(purchaseOrderRepository.save(po), null);
+    }
+
+    // ----------------------------------------------------------------
+    // EVENT CONSUMERS (outbox batches, see DomainEventConsumers)
+    // ----------------------------------------------------------------
+
+    /**
+     * Alerts and vendor mail for created and approved orders. Orders are loaded once per batch;
+     * a batch-created vendor order (no purchaseOrderId) gets one digest mail for all its lines.
+     */
+    @Transactional
+    public void notifyStatusChanges(List<PurchaseOrderStatusChangedEvent> events) {
+        List<Long> ids = events.stream().map(PurchaseOrderStatusChangedEvent::purchaseOrderId)
+                .filter(Objects::nonNull).distinct().toList();
+        Map<Long, PurchaseOrder> orders = new HashMap<>();
+        purchaseOrderRepository.findAllById(ids).forEach(po -> orders.put(po.getId(), po));
+
+        for (PurchaseOrderStatusChangedEvent event : events) {
+            PurchaseOrder.OrderStatus status = PurchaseOrder.OrderStatus.valueOf(event.status());
+            if (event.purchaseOrderId() == null) {
+                if (status == PurchaseOrder.OrderStatus.PENDING) sendOrderDigestEmail(event.poNumber());
+                continue;
+            }
+            PurchaseOrder po = orders.get(event.purchaseOrderId());
+            if (po == null) continue;
+            switch (status) {
+                case PENDING -> {
+                    createPurchaseOrderAlert(po);
+                    sendPurchaseOrderEmail(po);
+                }
+                case APPROVED -> alertService.raise(Alert.builder()
+                        .product(po.getProduct())
+                        .type(Alert.AlertType.PURCHASE_ORDER_UPDATE)
+                        .title("✅ Purchase Order Approved: " + po.getPoNumber())
+                        .description("Purchase order for " + po.getQuantity() + " units of " + po.getProduct().getName() + " has been approved")
+                        .priority(Alert.Priority.MEDIUM)
+                        .suggestedAction("Proceed with ordering from vendor")
+                        .build());
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Books delivered orders into stock, as the user who marked them delivered. A receipt that
+     * already exists for the order is not booked twice.
+     */
+    @Transactional
+    public void receiveDeliveries(List<PurchaseOrderStatusChangedEvent> events) {
+        for (PurchaseOrderStatusChangedEvent event : events) {
+            if (event.purchaseOrderId() == null
+                    || !PurchaseOrder.OrderStatus.DELIVERED.name().equals(event.status())) continue;
+            PurchaseOrder po = purchaseOrderRepository.findById(event.purchaseOrderId()).orElse(null);
+            if (po == null || stockTransactionService.hasTransaction(po.getProduct().getId(),
+                    StockTransaction.TransactionType.IN, po.getPoNumber())) continue;
+
+            StockTransaction stockIn = new StockTransaction();
+            stockIn.setProduct(po.getProduct());
+            stockIn.setQuantity(po.getQuantity());
+            stockIn.setType(StockTransaction.TransactionType.IN);
+            stockIn.setNotes("Purchase order delivery: " + po.getPoNumber());
+            stockIn.setReferenceNumber(po.getPoNumber());
+
+            Long receivedById = event.actorId() != null ? event.actorId() : po.getCreatedBy().getId();
+            stockTransactionService.createStockTransaction(stockIn, receivedById, po.getUnitPrice());
+            log.info("Purchase order {} received: {} units added to stock", po.getPoNumber(), po.getQuantity());
+        }
+    }
+
+    private void sendOrderDigestEmail(String orderGroup) {
+        List<PurchaseOrder> lines = purchaseOrderRepository.findByOrderGroupOrderByPoNumber(orderGroup);
+        if (lines.isEmpty()) return;
+        User vendor = lines.getFirst().getVendor();
+        if (vendor == null || vendor.getEmail() == null) return;
+
+        BigDecimal total = BigDecimal.ZERO;
+        List<EmailService.PurchaseOrderDigestLine> digest = new ArrayList<>(lines.size());
+        for (PurchaseOrder line : lines) {
+            digest.add(new EmailService.PurchaseOrderDigestLine(line.getPoNumber(), line.getProduct().getSku(),
+                    line.getProduct().getName(), line.getQuantity(), line.getUnitPrice()));
+            if (line.getTotalAmount() != null) total = total.add(line.getTotalAmount());
+        }
+        emailService.sendPurchaseOrderDigestEmail(vendor.getEmail(), vendor.getFullName(), orderGroup, digest, total);
     }
 
     // Query methods
@@ -204,6 +267,10 @@ public class PurchaseOrderService {
                 .orElseThrow(() -> new RuntimeException("Purchase order not found: " + poNumber));
     }
 
+    public List<PurchaseOrder> getPurchaseOrdersByOrderGroup(String orderGroup) {
+        return purchaseOrderRepository.findByOrderGroupOrderByPoNumber(orderGroup);
+    }
+
     public List<PurchaseOrder> getPurchaseOrdersByVendor(Long vendorId) {
         return purchaseOrderRepository.findByVendorIdOrderByCreatedAtDesc(vendorId);
     }
@@ -263,10 +330,6 @@ public class PurchaseOrderService {
         );
     }
 
-    private String generatePONumber() {
-        return "PO-" + LocalDate.now().getYear() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-
     private void createPurchaseOrderAlert(PurchaseOrder po) {
         Alert alert = Alert.builder()
                 .product(po.getProduct())
@@ -276,7 +339,7 @@ public class PurchaseOrderService {
                 .priority(Alert.Priority.MEDIUM)
                 .suggestedAction("Review and approve purchase order")
                 .build();
-        // Save alert through your alert service
+        alertService.raise(alert);
     }
 
 
@@ -0,0 +1,50 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.model.TsidGenerator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Business reference numbers (PO numbers, stock transaction references).
+ *
+ * Each number is a TsidGenerator id (milliseconds, APP_NODE_ID, per-millisecond sequence;
+ * lock-free) written as 11 Crockford base32 characters, e.g. PO-06K79RF2CCP. Numbers are
+ * unique across threads and across instances with distinct node ids, and because the width
+ * is fixed they sort in creation order as plain strings.
+ */
+@Service
+public class ReferenceNumberService {
+
+    public static final String PURCHASE_ORDER = "PO";
+    public static final String ADJUSTMENT = "ADJ";
+    public static final String STOCK_MOVEMENT = "REF";
+
+    // Crockford base32: no I, L, O or U, so numbers read back over the phone unambiguously
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    // 53-bit ids need 11 five-bit digits
+    private static final int WIDTH = 11;
+
+    public String next(String prefix) {
+        return prefix + "-" + encode(TsidGenerator.next());
+    }
+
+    public String nextPurchaseOrderNumber() {
+        return next(PURCHASE_ORDER);
+    }
+
+    public String nextAdjustmentReference() {
+        return next(ADJUSTMENT);
+    }
+
+    public String nextStockMovementReference() {
+        return next(STOCK_MOVEMENT);
+    }
+
+    static String encode(long id) {
+        char[] out = new char[WIDTH];
+        for (int i = WIDTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
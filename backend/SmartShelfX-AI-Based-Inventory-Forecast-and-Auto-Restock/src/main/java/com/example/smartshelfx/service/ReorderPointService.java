@@ -0,0 +1,128 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.forecast.DemandHistoryLoader;
+import com.example.smartshelfx.forecast.SafetyStockCalculator;
+import com.example.smartshelfx.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materializes demand-driven safetyStock and reorderLevel into the products table, so
+ * findLowStockProducts / findCriticalStockProducts keep being plain column comparisons.
+ *
+ * Per chunk: one grouped demand query, one lead-time query, a flat primitive matrix pass
+ * through SafetyStockCalculator and one JDBC batch update. Products without sales in the
+ * window keep their hand-entered values.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReorderPointService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE products SET safety_stock = ?, reorder_level = ?, reorder_calculated_at = ? WHERE id = ?";
+
+    private final ProductRepository productRepository;
+    private final DemandHistoryLoader demandHistoryLoader;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.replenishment.service-level:0.95}")
+    private double serviceLevel;
+
+    @Value("${app.replenishment.history-days:90}")
+    private int historyDays;
+
+    @Value("${app.replenishment.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${app.replenishment.cron:0 30 3 * * *}")
+    public void scheduledRecalculation() {
+        try {
+            recalculateAll();
+        } catch (Exception e) {
+            log.error("Scheduled reorder point recalculation failed", e);
+        }
+    }
+
+    public Map<String, Object> recalculateAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reorder point recalculation is already running");
+        }
+        long started = System.nanoTime();
+
+        try {
+            double z = SafetyStockCalculator.zScore(serviceLevel);
+            // The loader's last slot is today, which is still incomplete: leave it out of the statistics
+            int window = historyDays + 1;
+            int completeDays = historyDays;
+
+            double[] matrix = new double[chunkSize * window];
+            int[] leadTimes = new int[chunkSize];
+            int[] results = new int[chunkSize * 2];
+
+            long lastId = 0L;
+            int scanned = 0;
+            int updated = 0;
+
+            while (true) {
+                List<Long> ids = productRepository.findActiveProductIdsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+
+                Map<Long, double[]> histories = demandHistoryLoader.loadDailyDemand(ids, window);
+                Map<Long, Integer> leadTimeById = new HashMap<>(ids.size() * 2);
+                for (Object[] row : productRepository.findLeadTimesByIds(ids)) {
+                    leadTimeById.put(((Number) row[0]).longValue(), row[1] != null ? ((Number) row[1]).intValue() : 7);
+                }
+
+                for (int r = 0; r < ids.size(); r++) {
+                    System.arraycopy(histories.get(ids.get(r)), 0, matrix, r * window, window);
+                    leadTimes[r] = leadTimeById.getOrDefault(ids.get(r), 7);
+                }
+
+                SafetyStockCalculator.compute(matrix, ids.size(), completeDays, window, leadTimes, z, results);
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> rows = new ArrayList<>(ids.size());
+                for (int r = 0; r < ids.size(); r++) {
+                    if (results[2 * r] < 0) continue;
+                    rows.add(new Object[]{results[2 * r], results[2 * r + 1], now, ids.get(r)});
+                }
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+                }
+
+                scanned += ids.size();
+                updated += rows.size();
+                lastId = ids.getLast();
+            }
+
+            long durationMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Reorder points recalculated: {} of {} products updated (service level {}, z={}) in {} ms",
+                    updated, scanned, serviceLevel, String.format("%.3f", z), durationMs);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("serviceLevel", serviceLevel);
+            summary.put("zScore", z);
+            summary.put("historyDays", historyDays);
+            summary.put("productsScanned", scanned);
+            summary.put("productsUpdated", updated);
+            summary.put("productsSkippedNoDemand", scanned - updated);
+            summary.put("durationMs", durationMs);
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+}
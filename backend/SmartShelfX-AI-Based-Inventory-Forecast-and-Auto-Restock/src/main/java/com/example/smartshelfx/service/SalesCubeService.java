@@ -0,0 +1,447 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import com.example.smartshelfx.event.StockChangedEvent;
+import com.example.smartshelfx.job.JobContext;
+import com.example.smartshelfx.model.Job;
+import com.example.smartshelfx.model.JobCheckpoint;
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.repository.JobCheckpointRepository;
+import com.example.smartshelfx.repository.ProductRepository;
+import com.example.smartshelfx.repository.SalesDailyCubeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps sales_daily_cube (day x product, with category and vendor) in step with stock-outs and
+ * answers sales analytics from it, so a dashboard reads at most days x products-sold rows
+ * however many ledger rows there are.
+ *
+ * The cube is fed by the sales-cube outbox consumer: a batch of StockChanged events becomes one
+ * upsert per (day, product), valued at the product's price when the batch is applied. Only
+ * OUT rows are sales; stock adjustments and ledger reconciliations (ADJ- references) are
+ * left out by the consumer and the rebuild alike.
+ *
+ * {@link #rebuild} refolds the cube from the ledger and the archive, a month per transaction.
+ * It first locks the checkpoint row, which the consumer takes for each batch as well, and
+ * refolds the current month from one consistent snapshot: the OUT rows visible in it, less the
+ * rows whose sales-cube event is still waiting in the outbox. Waiting events and rows whose
+ * transaction had not committed yet are left to the consumer, so no id order is assumed; ids
+ * are assigned at insert, not at commit. The same snapshot's newest ledger id is the marker for
+ * the older months, which are refolded up to it, and the consumer skips events up to the
+ * marker dated before the current month. A stock-out backdated into a past month whose
+ * transaction is still open at that moment is the one case left to the next rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesCubeService {
+
+    public static final String CONSUMER = "sales-cube";
+
+    private static final String CHECKPOINT = "sales-cube-rebuild";
+    private static final String ADJUSTMENT_PREFIX = ReferenceNumberService.ADJUSTMENT + "-";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO sales_daily_cube (day, product_id, category, vendor_id, units, revenue, transactions)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE units = units + VALUES(units), revenue = revenue + VALUES(revenue),
+                                    transactions = transactions + VALUES(transactions)
+            """;
+
+    private static final String MONTH_SALES_SQL = """
+            SELECT DATE(t.`timestamp`), t.product_id, SUM(t.quantity), COUNT(*)
+            FROM stock_transactions t
+            WHERE t.type = 'OUT' AND t.`timestamp` >= ? AND t.`timestamp` < ?
+                  AND (t.reference_number IS NULL OR t.reference_number NOT LIKE ?)
+            GROUP BY DATE(t.`timestamp`), t.product_id
+            """;
+
+    private static final String UNDELIVERED_SQL =
+            "SELECT payload FROM outbox_events WHERE consumer = ? AND status <> 'PROCESSED'";
+
+    private final SalesDailyCubeRepository cubeRepository;
+    private final ProductRepository productRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final StockTransactionArchive archive;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    // Job handlers call this service, so the JobService is looked up on use
+    private final ObjectProvider<JobService> jobService;
+
+    @Value("${app.sales-cube.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.sales-cube.max-range-days:1096}")
+    private int maxRangeDays;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate snapshotTemplate;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public record SalesTotals(LocalDate from, LocalDate to, long units, BigDecimal revenue, long transactions) {
+    }
+
+    public record SalesSummary(SalesTotals current, SalesTotals previous, Double revenueGrowth, Double unitGrowth) {
+    }
+
+    public record TrendPoint(LocalDate day, long units, BigDecimal revenue, long transactions) {
+    }
+
+    public record ProductSales(Long productId, String sku, String name, String category,
+                               long units, BigDecimal revenue, long transactions) {
+    }
+
+    public record GroupSales(Object key, long units, BigDecimal revenue) {
+    }
+
+    // A day's cell while a batch or an archived month is folded
+    private static final class Cell {
+        long units;
+        long transactions;
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Every plain read in a REPEATABLE READ transaction sees the snapshot of its first one
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * First start with the cube: fold the existing ledger with a SALES_CUBE_REBUILD job, which
+     * JobService resumes from its checkpoint if the node restarts mid-way. When the last
+     * rebuild failed or was cancelled the cube is incomplete, and that is logged instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (!rebuildOnStartup) return;
+        List<Job> last = jobService.getObject().getRecentJobs(Job.Type.SALES_CUBE_REBUILD, 1);
+        if (!last.isEmpty()) {
+            Job job = last.getFirst();
+            if (job.getStatus() == Job.Status.FAILED || job.getStatus() == Job.Status.CANCELLED) {
+                log.warn("Sales cube may be incomplete: rebuild job {} ended {} ({}); "
+                        + "start a new one with POST /api/analytics/sales/rebuild", job.getId(), job.getStatus(), job.getError());
+            }
+            return;
+        }
+        if (checkpointRepository.existsById(CHECKPOINT) || cubeRepository.count() > 0) return;
+        Job job = jobService.getObject().submit(Job.Type.SALES_CUBE_REBUILD, Map.of(), "system");
+        log.info("No sales cube yet, queued rebuild job {}", job.getId());
+    }
+
+    // ----------------------------------------------------------------
+    // INCREMENTAL UPDATES (outbox consumer)
+    // ----------------------------------------------------------------
+
+    @Transactional
+    public void applyStockChanges(List<StockChangedEvent> events) {
+        Optional<JobCheckpoint> checkpoint = checkpointRepository.findForUpdate(CHECKPOINT);
+        long marker = checkpoint.map(JobCheckpoint::getLastProcessedId).orElse(0L);
+        // Months before the one the rebuild started in are refolded up to the marker
+        LocalDateTime refoldedBefore = checkpoint.filter(c -> c.getLastProcessedId() > 0)
+                .map(c -> YearMonth.from(c.getUpdatedAt()).atDay(1).atStartOfDay())
+                .orElse(LocalDateTime.MIN);
+
+        Map<LocalDate, Map<Long, Cell>> cells = new TreeMap<>();
+        for (StockChangedEvent event : events) {
+            if (!"OUT".equals(event.type()) || !isSale(event.referenceNumber())) continue;
+            if (event.transactionId() != null && event.transactionId() <= marker
+                    && event.timestamp().isBefore(refoldedBefore)) continue;
+            Cell cell = cells.computeIfAbsent(event.timestamp().toLocalDate(), d -> new HashMap<>())
+                    .computeIfAbsent(event.productId(), id -> new Cell());
+            cell.units += event.quantity();
+            cell.transactions++;
+        }
+        if (!cells.isEmpty()) upsert(cells);
+    }
+
+    // ----------------------------------------------------------------
+    // QUERIES
+    // ----------------------------------------------------------------
+
+    public SalesTotals getTotals(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        Object[] row = cubeRepository.sumBetween(from, to).getFirst();
+        return new SalesTotals(from, to, toLong(row[0]), toDecimal(row[1]), toLong(row[2]));
+    }
+
+    /**
+     * Totals for [from, to] against the period of the same length just before it.
+     */
+    public SalesSummary getSummary(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        SalesTotals current = getTotals(from, to);
+        SalesTotals previous = getTotals(from.minusDays(days), from.minusDays(1));
+        return new SalesSummary(current, previous,
+                growth(current.revenue().doubleValue(), previous.revenue().doubleValue()),
+                growth(current.units(), previous.units()));
+    }
+
+    public List<TrendPoint> getTrend(LocalDate from, LocalDate to, String category, Long vendorId) {
+        checkRange(from, to);
+        Map<LocalDate, TrendPoint> byDay = new HashMap<>();
+        for (Object[] row : cubeRepository.dailyTrend(from, to, category, vendorId)) {
+            LocalDate day = (LocalDate) row[0];
+            byDay.put(day, new TrendPoint(day, toLong(row[1]), toDecimal(row[2]), toLong(row[3])));
+        }
+        // Dense series: days without sales are zero
+        List<TrendPoint> trend = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            trend.add(byDay.getOrDefault(day, new TrendPoint(day, 0, BigDecimal.ZERO, 0)));
+        }
+        return trend;
+    }
+
+    public List<ProductSales> getTopSellers(LocalDate from, LocalDate to, String category, int limit, boolean byRevenue) {
+        checkRange(from, to);
+        int size = Math.max(1, Math.min(limit, 100));
+        List<Object[]> rows = byRevenue
+                ? cubeRepository.topByRevenue(from, to, category, size)
+                : cubeRepository.topByUnits(from, to, category, size);
+
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(rows.stream().map(r -> toLong(r[0])).toList())
+                .forEach(p -> products.put(p.getId(), p));
+
+        List<ProductSales> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Product product = products.get(toLong(row[0]));
+            result.add(new ProductSales(toLong(row[0]),
+                    product != null ? product.getSku() : null,
+                    product != null ? product.getName() : null,
+                    product != null ? product.getCategory() : null,
+                    toLong(row[1]), toDecimal(row[2]), toLong(row[3])));
+        }
+        return result;
+    }
+
+    public List<GroupSales> getByCategory(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return cubeRepository.byCategory(from, to).stream()
+                .map(r -> new GroupSales(r[0], toLong(r[1]), toDecimal(r[2])))
+                .toList();
+    }
+
+    public List<GroupSales> getByVendor(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return cubeRepository.byVendor(from, to).stream()
+                .map(r -> new GroupSales(r[0], toLong(r[1]), toDecimal(r[2])))
+                .toList();
+    }
+
+    // ----------------------------------------------------------------
+    // REBUILD
+    // ----------------------------------------------------------------
+
+    /**
+     * Refolds every month from the oldest archived or database row up to the current month.
+     * Resumes at the month after the job checkpoint (yyyyMM) with the marker and month it
+     * started with.
+     */
+    public Map<String, Object> rebuild(JobContext context) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Sales cube rebuild is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            YearMonth current = YearMonth.now();
+            YearMonth first = firstMonth();
+            context.setTotal(first != null ? ChronoUnit.MONTHS.between(first, current) + 1 : 0);
+
+            long processed = context.getProcessed();
+            YearMonth next;
+            if (context.getCheckpoint() == 0) {
+                // Current month and marker first, so live stock-outs are counted exactly once from here
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!checkpointRepository.existsById(CHECKPOINT)) {
+                        checkpointRepository.saveAndFlush(new JobCheckpoint(CHECKPOINT));
+                    }
+                });
+                snapshotTemplate.executeWithoutResult(status -> refoldCurrentMonth());
+                processed++;
+                next = first;
+                context.progress(processed, toCheckpoint(first != null ? first.minusMonths(1) : current));
+            } else {
+                long value = context.getCheckpoint();
+                next = YearMonth.of((int) (value / 100), (int) (value % 100)).plusMonths(1);
+            }
+
+            JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseThrow();
+            long marker = checkpoint.getLastProcessedId();
+            YearMonth marked = YearMonth.from(checkpoint.getUpdatedAt());
+            for (YearMonth month = next; month != null && month.isBefore(marked); month = month.plusMonths(1)) {
+                context.throwIfCancelled();
+                YearMonth m = month;
+                transactionTemplate.executeWithoutResult(status -> refoldMonth(m, marker));
+                processed++;
+                context.progress(processed, toCheckpoint(month));
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("monthsRebuilt", processed);
+            summary.put("from", first);
+            summary.put("markerTransactionId", marker);
+            summary.put("cubeRows", cubeRepository.count());
+            summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+            log.info("Sales cube rebuilt: {}", summary);
+            return summary;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Locks the checkpoint before the first plain read, so the snapshot is taken after any
+     * consumer batch in progress has committed and before the next one can start.
+     */
+    private void refoldCurrentMonth() {
+        JobCheckpoint checkpoint = checkpointRepository.findForUpdate(CHECKPOINT).orElseThrow();
+        LocalDateTime markedAt = LocalDateTime.now();
+        LocalDate from = YearMonth.from(markedAt).atDay(1);
+        LocalDate toExclusive = from.plusMonths(1);
+
+        long marker = Objects.requireNonNull(jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM stock_transactions", Long.class));
+        Map<LocalDate, Map<Long, Cell>> cells = new TreeMap<>();
+        jdbcTemplate.query(MONTH_SALES_SQL, (RowCallbackHandler) rs -> {
+            Cell cell = cells.computeIfAbsent(rs.getDate(1).toLocalDate(), d -> new HashMap<>())
+                    .computeIfAbsent(rs.getLong(2), id -> new Cell());
+            cell.units += rs.getLong(3);
+            cell.transactions += rs.getLong(4);
+        }, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(toExclusive.atStartOfDay()), ADJUSTMENT_PREFIX + "%");
+
+        // Rows the consumer has not applied yet stay with the consumer
+        jdbcTemplate.query(UNDELIVERED_SQL, (RowCallbackHandler) rs -> {
+            StockChangedEvent event = readEvent(rs.getString(1));
+            if (!"OUT".equals(event.type()) || !isSale(event.referenceNumber())) return;
+            LocalDate day = event.timestamp().toLocalDate();
+            if (day.isBefore(from) || !day.isBefore(toExclusive)) return;
+            Cell cell = cells.getOrDefault(day, Map.of()).get(event.productId());
+            if (cell == null) return;
+            cell.units -= event.quantity();
+            cell.transactions--;
+        }, CONSUMER);
+        cells.values().forEach(byProduct -> byProduct.values().removeIf(cell -> cell.transactions <= 0));
+
+        cubeRepository.deleteDays(from, toExclusive);
+        upsert(cells);
+        checkpoint.setLastProcessedId(marker);
+        checkpoint.setUpdatedAt(markedAt);
+        checkpointRepository.save(checkpoint);
+    }
+
+    private void refoldMonth(YearMonth month, long marker) {
+        LocalDate from = month.atDay(1);
+        LocalDate toExclusive = month.plusMonths(1).atDay(1);
+        cubeRepository.deleteDays(from, toExclusive);
+
+        LocalDate archivedUntil = archive.archivedUntil();
+        if (archivedUntil != null && from.isBefore(archivedUntil)) {
+            Map<LocalDate, Map<Long, Cell>> cells = new TreeMap<>();
+            archive.forEachStockOut(from.atStartOfDay(), toExclusive.atStartOfDay(), (productId, timestamp, quantity, reference) -> {
+                if (!isSale(reference)) return;
+                Cell cell = cells.computeIfAbsent(timestamp.toLocalDate(), d -> new HashMap<>())
+                        .computeIfAbsent(productId, id -> new Cell());
+                cell.units += quantity;
+                cell.transactions++;
+            });
+            if (!cells.isEmpty()) upsert(cells);
+        } else {
+            cubeRepository.foldTransactions(from.atStartOfDay(), toExclusive.atStartOfDay(), marker, ADJUSTMENT_PREFIX);
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------------------
+
+    private void upsert(Map<LocalDate, Map<Long, Cell>> cells) {
+        Set<Long> productIds = new HashSet<>();
+        cells.values().forEach(byProduct -> productIds.addAll(byProduct.keySet()));
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(p -> products.put(p.getId(), p));
+
+        List<Object[]> rows = new ArrayList<>();
+        cells.forEach((day, byProduct) -> byProduct.forEach((productId, cell) -> {
+            Product product = products.get(productId);
+            BigDecimal price = product != null && product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+            rows.add(new Object[]{Date.valueOf(day), productId,
+                    product != null ? product.getCategory() : null,
+                    product != null ? product.vendorId() : null,
+                    cell.units, price.multiply(BigDecimal.valueOf(cell.units)), cell.transactions});
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    private StockChangedEvent readEvent(String payload) {
+        try {
+            return objectMapper.readValue(payload, StockChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable StockChangedEvent payload", e);
+        }
+    }
+
+    private static boolean isSale(String referenceNumber) {
+        return referenceNumber == null || !referenceNumber.startsWith(ADJUSTMENT_PREFIX);
+    }
+
+    private YearMonth firstMonth() {
+        List<YearMonth> archived = archive.getArchivedMonths();
+        if (!archived.isEmpty()) return archived.getFirst();
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(`timestamp`) FROM stock_transactions", Timestamp.class);
+        return oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : null;
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("Sales ranges are limited to " + maxRangeDays + " days");
+        }
+    }
+
+    private static long toCheckpoint(YearMonth month) {
+        return month.getYear() * 100L + month.getMonthValue();
+    }
+
+    private static Double growth(double current, double previous) {
+        return previous > 0 ? (current - previous) / previous * 100.0 : 0.0;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value == null) return BigDecimal.ZERO;
+        return value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+    }
+}
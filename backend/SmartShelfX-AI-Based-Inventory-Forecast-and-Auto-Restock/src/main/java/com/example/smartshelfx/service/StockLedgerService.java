@@ -0,0 +1,528 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import com.example.smartshelfx.event.StockChangedEvent;
+import com.example.smartshelfx.job.JobContext;
+import com.example.smartshelfx.model.JobCheckpoint;
+import com.example.smartshelfx.model.Product;
+import com.example.smartshelfx.model.StockSnapshot;
+import com.example.smartshelfx.model.StockTransaction;
+import com.example.smartshelfx.repository.JobCheckpointRepository;
+import com.example.smartshelfx.repository.ProductRepository;
+import com.example.smartshelfx.repository.StockSnapshotRepository;
+import com.example.smartshelfx.repository.StockTransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Stock as a fold over the append-only stock_transactions ledger. Product.currentStock is the
+ * running projection that the write paths maintain; this service answers "how much stock was
+ * there at time T" from the ledger and checks that the projection still agrees with it.
+ *
+ * At every month boundary a stock_snapshots row holds the stock of each product that moved in
+ * the month before. Stock at T is the latest snapshot at or before T plus the rows between the
+ * two, so a query reads one snapshot and at most about a month of one product's rows through
+ * the (product_id, type, timestamp) index, whatever T is. Snapshots outlive archiving, and the
+ * first run seeds a boundary for every archived month, so a date in the archive scans the
+ * files from the product's latest snapshot before it: from the last month the product moved in.
+ *
+ * A product with rows in a snapshotted month always has a snapshot at the end of that month:
+ * the monthly job carries the previous snapshot forward, and a row backdated into a snapshotted
+ * month creates its boundary snapshot if missing and shifts every later one. Months are only
+ * archived once snapshotted (TransactionPartitionService asks {@link #snapshotsThrough()}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerService {
+
+    private static final String CHECKPOINT = "stock-ledger-snapshots";
+    // Lower bound for "every row" in the database; nothing is dated before it
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_REPORTED = 500;
+
+    private static final String DAILY_MOVEMENT_SQL = """
+            SELECT DATE(`timestamp`), SUM(CASE WHEN type = 'IN' THEN quantity ELSE -quantity END)
+            FROM stock_transactions
+            WHERE product_id = ? AND `timestamp` >= ? AND `timestamp` < ?
+            GROUP BY DATE(`timestamp`)
+            """;
+
+    private static final String INSERT_SNAPSHOT_SQL = """
+            INSERT INTO stock_snapshots (product_id, as_of, stock, created_at) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE stock = VALUES(stock), created_at = VALUES(created_at)
+            """;
+
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockTransactionRepository stockTransactionRepository;
+    private final ProductRepository productRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final StockTransactionArchive archive;
+    private final ReferenceNumberService referenceNumberService;
+    private final InventoryValuationService inventoryValuationService;
+    private final DomainEventBus domainEventBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.stock-ledger.check.workers:4}")
+    private int workers;
+
+    @Value("${app.stock-ledger.check.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.stock-ledger.history-max-days:731}")
+    private int historyMaxDays;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicBoolean snapshotting = new AtomicBoolean(false);
+
+    public record StockAt(Long productId, LocalDateTime at, long stock, LocalDateTime snapshotAsOf) {
+    }
+
+    public record DailyStock(LocalDate date, long stock) {
+    }
+
+    public record Mismatch(Long productId, long currentStock, long ledgerStock, long difference) {
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ----------------------------------------------------------------
+    // SNAPSHOTS
+    // ----------------------------------------------------------------
+
+    // Daily, so a missed month boundary (downtime) is caught up the next night
+    @Scheduled(cron = "${app.stock-ledger.snapshot-cron:0 10 0 * * *}")
+    public void scheduledSnapshots() {
+        if (snapshotting.get()) {
+            log.warn("Skipping stock snapshots: previous run still in progress");
+            return;
+        }
+        try {
+            takeSnapshots();
+        } catch (Exception e) {
+            log.error("Scheduled stock snapshots failed", e);
+        }
+    }
+
+    /**
+     * Writes the snapshots of every month boundary up to the start of the current month that
+     * does not have them yet. The first run seeds the ledger: the boundaries of the archived
+     * months (folded from the archive files, with every product at the end of the archive),
+     * then one boundary per database month.
+     */
+    public Map<String, Object> takeSnapshots() {
+        if (!snapshotting.compareAndSet(false, true)) {
+            throw new IllegalStateException("Stock snapshots are already being taken");
+        }
+        try {
+            return snapshotMonths();
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    /**
+     * Like {@link #takeSnapshots()} for work that needs complete snapshots (the consistency
+     * check, the valuation rebuild): a run already in progress is waited for, then the
+     * snapshots are brought up to date.
+     */
+    public void ensureSnapshots(JobContext context) {
+        try {
+            while (!snapshotting.compareAndSet(false, true)) {
+                context.throwIfCancelled();
+                Thread.sleep(500);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stock snapshots", e);
+        }
+        try {
+            snapshotMonths();
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    private Map<String, Object> snapshotMonths() {
+        long started = System.nanoTime();
+        Optional<JobCheckpoint> checkpoint = checkpointRepository.findById(CHECKPOINT);
+        YearMonth next = checkpoint.isPresent() ? fromCheckpoint(checkpoint.get()) : seed();
+        YearMonth current = YearMonth.now();
+
+        List<String> boundaries = new ArrayList<>();
+        long written = 0;
+        for (YearMonth month = next; month.isBefore(current); month = month.plusMonths(1)) {
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime boundary = month.plusMonths(1).atDay(1).atStartOfDay();
+            written += snapshotRepository.snapshotMonth(from, boundary, LocalDateTime.now());
+            saveCheckpoint(month.plusMonths(1));
+            boundaries.add(boundary.toLocalDate().toString());
+        }
+        if (checkpoint.isEmpty() && boundaries.isEmpty()) {
+            saveCheckpoint(next);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("boundaries", boundaries);
+        summary.put("rowsWritten", written);
+        summary.put("snapshotsThrough", snapshotsThrough());
+        summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+        if (!boundaries.isEmpty()) {
+            log.info("Stock snapshots: {}", summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Latest month boundary with complete snapshots, or {@code null} before the first run.
+     */
+    public LocalDate snapshotsThrough() {
+        return checkpointRepository.findById(CHECKPOINT)
+                .map(c -> fromCheckpoint(c).atDay(1))
+                .orElse(null);
+    }
+
+    /**
+     * Keeps snapshots right for a transaction about to be saved with a timestamp in an
+     * already snapshotted month. Call it in the saving transaction, before the row is saved.
+     */
+    public void beforeBackdatedTransaction(StockTransaction transaction) {
+        LocalDateTime at = transaction.getTimestamp();
+        if (!at.isBefore(YearMonth.now().atDay(1).atStartOfDay())) return;
+
+        LocalDate through = snapshotsThrough();
+        LocalDateTime boundary = YearMonth.from(at).plusMonths(1).atDay(1).atStartOfDay();
+        if (through == null || boundary.isAfter(through.atStartOfDay())) return;
+
+        Long productId = transaction.getProduct().getId();
+        long delta = signed(transaction.getType(), transaction.getQuantity());
+        if (snapshotRepository.findByProductIdAndAsOf(productId, boundary).isEmpty()) {
+            // First row of that month for this product: its boundary snapshot does not exist yet
+            snapshotRepository.save(new StockSnapshot(productId, boundary, stockAt(productId, boundary).stock() + delta));
+            snapshotRepository.shiftAfter(productId, boundary, delta);
+        } else {
+            snapshotRepository.shiftAfter(productId, at, delta);
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // POINT-IN-TIME QUERIES
+    // ----------------------------------------------------------------
+
+    /**
+     * Stock of a product just before {@code at}: latest snapshot plus the movement since.
+     */
+    public StockAt stockAt(Long productId, LocalDateTime at) {
+        Optional<StockSnapshot> snapshot =
+                snapshotRepository.findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(productId, at);
+        LocalDateTime from = snapshot.map(StockSnapshot::getAsOf).orElse(null);
+        long[] stock = {snapshot.map(StockSnapshot::getStock).orElse(0L)};
+        forEachDailyMovement(productId, from, at, (day, net) -> stock[0] += net);
+        return new StockAt(productId, at, stock[0], from);
+    }
+
+    /**
+     * Closing stock per day for [from, to]: the opening stock from {@link #stockAt} plus one
+     * grouped read of the range's movements.
+     */
+    public List<DailyStock> stockHistory(Long productId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > historyMaxDays) {
+            throw new IllegalArgumentException("History is limited to " + historyMaxDays + " days");
+        }
+
+        long opening = stockAt(productId, from.atStartOfDay()).stock();
+        long[] net = new long[days];
+        forEachDailyMovement(productId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), (day, quantity) -> {
+            int index = (int) ChronoUnit.DAYS.between(from, day);
+            if (index >= 0 && index < days) net[index] += quantity;
+        });
+
+        List<DailyStock> history = new ArrayList<>(days);
+        long stock = opening;
+        for (int i = 0; i < days; i++) {
+            stock += net[i];
+            history.add(new DailyStock(from.plusDays(i), stock));
+        }
+        return history;
+    }
+
+    /**
+     * Net movement per day for rows with from <= timestamp < toExclusive ({@code from} null:
+     * from the first row), archived part first.
+     */
+    private void forEachDailyMovement(Long productId, LocalDateTime from, LocalDateTime toExclusive,
+                                      BiConsumer<LocalDate, Long> consumer) {
+        LocalDateTime databaseFrom = from != null ? from : LEDGER_START;
+        LocalDate archivedUntil = archive.archivedUntil();
+        if (archivedUntil != null && databaseFrom.isBefore(archivedUntil.atStartOfDay())) {
+            LocalDateTime archiveTo = min(toExclusive, archivedUntil.atStartOfDay());
+            Map<LocalDate, Long> daily = new TreeMap<>();
+            archive.forEachMovement(productId, from, archiveTo,
+                    (id, timestamp, quantity) -> daily.merge(timestamp.toLocalDate(), quantity, Long::sum));
+            daily.forEach(consumer);
+            databaseFrom = archivedUntil.atStartOfDay();
+        }
+        if (!databaseFrom.isBefore(toExclusive)) return;
+
+        jdbcTemplate.query(DAILY_MOVEMENT_SQL, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getDate(1).toLocalDate(), rs.getLong(2)), productId, Timestamp.valueOf(databaseFrom), Timestamp.valueOf(toExclusive));
+    }
+
+    // ----------------------------------------------------------------
+    // CONSISTENCY CHECK
+    // ----------------------------------------------------------------
+
+    /**
+     * Compares every product's currentStock with its ledger stock (latest snapshot plus the
+     * rows since), in parallel over keyset chunks of product ids.
+     *
+     * With {@code repair}, a mismatched product first gets its snapshots rebuilt from its rows,
+     * which fixes snapshots that missed a concurrent backdated write. If currentStock still
+     * differs, the stock was set without a ledger entry (e.g. created with opening stock before
+     * opening balances were recorded); a reconciliation row for the difference is appended, so
+     * the ledger catches up with the stock on hand rather than the other way round.
+     */
+    public Map<String, Object> checkConsistency(boolean repair, JobContext context) {
+        ensureSnapshots(context);
+        long started = System.nanoTime();
+        context.setTotal(productRepository.count());
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                Thread.ofPlatform().name("stock-ledger-check-", 0).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        List<Mismatch> mismatches = Collections.synchronizedList(new ArrayList<>());
+        long[] checked = {0};
+        long[] repaired = {0};
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long lastId = 0;
+            while (true) {
+                context.throwIfCancelled();
+                List<Long> ids = productRepository.findProductIdsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+
+                futures.add(executor.submit(() -> {
+                    List<Mismatch> found = checkChunk(ids);
+                    int fixed = 0;
+                    if (repair && !found.isEmpty()) {
+                        List<Mismatch> remaining = repairChunk(found);
+                        fixed = found.size() - remaining.size();
+                        found = remaining;
+                    }
+                    mismatches.addAll(found);
+                    synchronized (checked) {
+                        checked[0] += ids.size();
+                        repaired[0] += fixed;
+                        context.progress(checked[0], 0);
+                    }
+                }));
+                lastId = ids.getLast();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stock ledger check failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stock ledger check interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Mismatch> reported = new ArrayList<>(mismatches);
+        reported.sort(Comparator.comparingLong((Mismatch m) -> Math.abs(m.difference())).reversed());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("productsChecked", checked[0]);
+        summary.put("mismatches", reported.size() + repaired[0]);
+        summary.put("repaired", repaired[0]);
+        summary.put("snapshotsThrough", snapshotsThrough());
+        summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+        summary.put("details", reported.subList(0, Math.min(MAX_REPORTED, reported.size())));
+        log.info("Stock ledger check: {} products, {} mismatches, {} repaired ({} workers)",
+                checked[0], reported.size() + repaired[0], repaired[0], workers);
+        return summary;
+    }
+
+    private List<Mismatch> checkChunk(Collection<Long> ids) {
+        List<Mismatch> found = new ArrayList<>();
+        for (Object[] row : snapshotRepository.findLedgerState(ids, LEDGER_START)) {
+            long currentStock = row[1] != null ? ((Number) row[1]).longValue() : 0;
+            long ledgerStock = (row[3] != null ? ((Number) row[3]).longValue() : 0) + ((Number) row[4]).longValue();
+            if (currentStock != ledgerStock) {
+                found.add(new Mismatch(((Number) row[0]).longValue(), currentStock, ledgerStock, currentStock - ledgerStock));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The check's repair for the given products only, e.g. before the valuation replays their
+     * ledger rows; products whose ledger already agrees are left alone. Snapshots must be up to
+     * date ({@link #ensureSnapshots}).
+     *
+     * @return how many products got a reconciliation row or had their snapshots fixed
+     */
+    public int reconcile(Collection<Long> productIds) {
+        List<Mismatch> found = checkChunk(productIds);
+        return found.isEmpty() ? 0 : found.size() - repairChunk(found).size();
+    }
+
+    /**
+     * @return the mismatches that could not be repaired
+     */
+    private List<Mismatch> repairChunk(List<Mismatch> mismatches) {
+        List<Long> ids = mismatches.stream().map(Mismatch::productId).toList();
+        ids.forEach(this::rebuildSnapshots);
+
+        List<Mismatch> remaining = new ArrayList<>();
+        for (Mismatch mismatch : checkChunk(ids)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> appendReconciliation(mismatch));
+            } catch (RuntimeException e) {
+                log.warn("Could not reconcile ledger of product {}: {}", mismatch.productId(), e.getMessage());
+                remaining.add(mismatch);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Recomputes a product's snapshots after the archive from its database rows.
+     */
+    public void rebuildSnapshots(Long productId) {
+        LocalDate through = snapshotsThrough();
+        if (through == null) return;
+        LocalDate archivedUntil = archive.archivedUntil();
+        LocalDateTime from = archivedUntil != null ? archivedUntil.atStartOfDay() : LEDGER_START;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long base = archivedUntil != null ? stockAt(productId, from).stock() : 0;
+            snapshotRepository.deleteByProductIdAfter(productId, from);
+            snapshotRepository.rebuildProduct(productId, base, from, through.atStartOfDay(), LocalDateTime.now());
+        });
+    }
+
+    private void appendReconciliation(Mismatch mismatch) {
+        StockTransaction transaction = appendEntry(productRepository.getReferenceById(mismatch.productId()),
+                mismatch.difference(), "Ledger reconciliation (ledger: " + mismatch.ledgerStock()
+                        + ", recorded stock: " + mismatch.currentStock() + ")");
+        log.info("Reconciled ledger of product {}: {} {}", mismatch.productId(), transaction.getType(),
+                transaction.getQuantity());
+    }
+
+    /**
+     * Records the stock a product is created with, so the ledger starts where currentStock does.
+     */
+    public void recordOpeningBalance(Product product) {
+        if (product.getCurrentStock() == null || product.getCurrentStock() <= 0) return;
+        appendEntry(product, product.getCurrentStock(), "Opening balance");
+    }
+
+    private StockTransaction appendEntry(Product product, long signedQuantity, String notes) {
+        StockTransaction transaction = new StockTransaction();
+        transaction.setProduct(product);
+        transaction.setQuantity(Math.toIntExact(Math.abs(signedQuantity)));
+        transaction.setType(signedQuantity > 0 ? StockTransaction.TransactionType.IN : StockTransaction.TransactionType.OUT);
+        transaction.setNotes(notes);
+        transaction.setReferenceNumber(referenceNumberService.nextAdjustmentReference());
+        transaction.setTimestamp(LocalDateTime.now());
+        StockTransaction saved = stockTransactionRepository.save(transaction);
+        inventoryValuationService.record(saved, null);
+        domainEventBus.publish(StockChangedEvent.of(saved));
+        return saved;
+    }
+
+    // ----------------------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------------------
+
+    /**
+     * First run: snapshot the boundary of every archived month for the products that moved in
+     * it, and the archive's closing stock of every product, then start at the first database
+     * month. Each archive file is read once.
+     */
+    private YearMonth seed() {
+        LocalDate archivedUntil = archive.archivedUntil();
+        if (archivedUntil != null) {
+            Map<Long, Long> totals = new HashMap<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            long written = 0;
+            for (YearMonth month : archive.getArchivedMonths()) {
+                LocalDateTime boundary = month.plusMonths(1).atDay(1).atStartOfDay();
+                Set<Long> moved = new HashSet<>();
+                archive.forEachMovement(null, month.atDay(1).atStartOfDay(), boundary, (productId, timestamp, quantity) -> {
+                    totals.merge(productId, quantity, Long::sum);
+                    moved.add(productId);
+                });
+                // The last boundary carries every product forward, like the monthly job does
+                List<Long> ids = new ArrayList<>(boundary.toLocalDate().equals(archivedUntil) ? totals.keySet() : moved);
+                Timestamp asOf = Timestamp.valueOf(boundary);
+                jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, ids, 1000, (ps, productId) -> {
+                    ps.setLong(1, productId);
+                    ps.setTimestamp(2, asOf);
+                    ps.setLong(3, totals.get(productId));
+                    ps.setTimestamp(4, now);
+                });
+                written += ids.size();
+            }
+            log.info("Seeded {} stock snapshots up to {} for {} products from the archive", written,
+                    archivedUntil, totals.size());
+            return YearMonth.from(archivedUntil);
+        }
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(`timestamp`) FROM stock_transactions", Timestamp.class);
+        return oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+    }
+
+    // The checkpoint row stores the next month to snapshot as yyyyMM
+    private static YearMonth fromCheckpoint(JobCheckpoint checkpoint) {
+        long value = checkpoint.getLastProcessedId();
+        return YearMonth.of((int) (value / 100), (int) (value % 100));
+    }
+
+    private void saveCheckpoint(YearMonth next) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> new JobCheckpoint(CHECKPOINT));
+        checkpoint.setLastProcessedId(next.getYear() * 100L + next.getMonthValue());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    private static long signed(StockTransaction.TransactionType type, int quantity) {
+        return type == StockTransaction.TransactionType.IN ? quantity : -quantity;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.smartshelfx.service;
 
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import com.example.smartshelfx.event.StockChangedEvent;
 import com.example.smartshelfx.model.StockTransaction;
 import com.example.smartshelfx.model.Product;
 import com.example.smartshelfx.model.User;
@@ -13,8 +15,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -24,10 +30,30 @@ public class StockTransactionService {
     private final StockTransactionRepository stockTransactionRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
-    private final AlertService alertService;
+    private final DomainEventBus domainEventBus;
+    private final StockTransactionArchive archive;
+    private final ReferenceNumberService referenceNumberService;
+    private final StockLedgerService stockLedgerService;
+    private final InventoryValuationService inventoryValuationService;
 
     @Transactional
     public StockTransaction createStockTransaction(StockTransaction transaction, Long handledById) {
+        return createStockTransaction(transaction, handledById, null);
+    }
+
+    /**
+     * @param unitCost what the received units cost, e.g. the purchase order's unit price;
+     *                 null uses the product's cost price
+     */
+    @Transactional
+    public StockTransaction createStockTransaction(StockTransaction transaction, Long handledById, BigDecimal unitCost) {
+        StockTransaction savedTransaction = post(transaction, handledById);
+        inventoryValuationService.record(savedTransaction, unitCost);
+        return savedTransaction;
+    }
+
+    /** Moves the stock and saves the ledger row and its event; the caller costs the row. */
+    private StockTransaction post(StockTransaction transaction, Long handledById) {
         // Validate and get product
         Product product = productRepository.findById(transaction.getProduct().getId())
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + transaction.getProduct().getId()));
@@ -43,6 +69,10 @@ public class StockTransactionService {
         if (transaction.getTimestamp() == null) {
             transaction.setTimestamp(LocalDateTime.now());
         }
+        if (archive.isArchived(transaction.getTimestamp())) {
+            throw new IllegalArgumentException("Cannot record a transaction before " + archive.archivedUntil()
+                    + ": that period is archived");
+        }
 
         // Update product stock based on transaction type
         int currentStock = product.getCurrentStock();
@@ -66,13 +96,13 @@ public class StockTransactionService {
         product.setCurrentStock(newStock);
         productRepository.save(product);
 
+        // A row dated in an already snapshotted month moves the snapshots after it
+        stockLedgerService.beforeBackdatedTransaction(transaction);
+
         // Save the transaction
         StockTransaction savedTransaction = stockTransactionRepository.save(transaction);
-
-        // Check for low stock alerts after OUT transactions
-        if (transaction.getType() == StockTransaction.TransactionType.OUT) {
-            checkLowStockAlerts(product, newStock);
-        }
+        // Low stock alerts are raised from this event by the low-stock-alerts consumer
+        domainEventBus.publish(StockChangedEvent.of(savedTransaction));
 
         log.info("Stock transaction created: {} {} units for product '{}' (New stock: {})",
                 transaction.getType(), transaction.getQuantity(), product.getName(), newStock);
@@ -80,36 +110,32 @@ public class StockTransactionService {
         return savedTransaction;
     }
 
-    private void checkLowStockAlerts(Product product, int currentStock) {
-        if (currentStock <= product.getReorderLevel()) {
-            // Check if similar alert already exists
-            boolean alertExists = alertService.hasActiveLowStockAlert(product);
-
-            if (!alertExists) {
-                alertService.createLowStockAlert(product);
-                log.info("Low stock alert created for product: {}", product.getName());
-            }
-        }
+    public boolean hasTransaction(Long productId, StockTransaction.TransactionType type, String referenceNumber) {
+        return stockTransactionRepository.existsByProductIdAndTypeAndReferenceNumber(productId, type, referenceNumber);
     }
 
-    public List<StockTransaction> getTransactionsByProduct(Long productId) {
-        return stockTransactionRepository.findByProductIdOrderByTimestampDesc(productId);
+    /**
+     * One page, newest first, of the product's transactions in the repository's hot window.
+     * Older months may already be archived; /api/stock-ledger covers the full history.
+     */
+    public List<StockTransaction> getTransactionsByProduct(Long productId, int page, int size) {
+        return stockTransactionRepository.findRecentTransactionsByProduct(productId, page, size);
     }
 
     public List<StockTransaction> getRecentTransactionsByProduct(Long productId) {
         return stockTransactionRepository.findRecentTransactionsByProduct(productId);
     }
 
-    public List<StockTransaction> getTransactionsByType(StockTransaction.TransactionType type) {
-        return stockTransactionRepository.findByTypeOrderByTimestampDesc(type);
+    public List<StockTransaction> getTransactionsByType(StockTransaction.TransactionType type, int page, int size) {
+        return stockTransactionRepository.findRecentTransactionsByType(type, page, size);
     }
 
     public List<StockTransaction> getRecentTransactions(int limit) {
         return stockTransactionRepository.findRecentTransactions(limit);
     }
 
-    public List<StockTransaction> getAllTransactions() {
-        return stockTransactionRepository.findAll();
+    public List<StockTransaction> getAllTransactions(int page, int size) {
+        return stockTransactionRepository.findRecentTransactionsPage(page, size);
     }
 
     public StockTransaction getTransactionById(Long id) {
@@ -132,24 +158,40 @@ public class StockTransactionService {
 
 
     public List<Object[]> getSalesBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
-        return stockTransactionRepository.findSalesBetweenDates(startDate, endDate);
+        List<Object[]> sales = stockTransactionRepository.findSalesBetweenDates(startDate, endDate);
+        if (!archive.isArchived(startDate)) {
+            return sales;
+        }
+
+        // Part of the range lives in the archive: add its totals to the database rows
+        Map<Long, Long> totals = new HashMap<>(archive.salesByProduct(startDate, endDate));
+        for (Object[] row : sales) {
+            totals.merge(((Number) row[0]).longValue(), row[1] != null ? ((Number) row[1]).longValue() : 0L, Long::sum);
+        }
+        List<Object[]> merged = new ArrayList<>(totals.size());
+        totals.forEach((productId, quantity) -> merged.add(new Object[]{productId, quantity}));
+        return merged;
     }
 
-    // Bulk stock operations
+    // Bulk stock operations: all rows are saved first and costed together, so the inserts
+    // stay batched and each product's valuation is locked once
     @Transactional
     public void processBulkStockIn(List<StockTransaction> transactions, Long handledById) {
-        for (StockTransaction transaction : transactions) {
-            transaction.setType(StockTransaction.TransactionType.IN);
-            createStockTransaction(transaction, handledById);
-        }
+        processBulk(transactions, StockTransaction.TransactionType.IN, handledById);
     }
 
     @Transactional
     public void processBulkStockOut(List<StockTransaction> transactions, Long handledById) {
+        processBulk(transactions, StockTransaction.TransactionType.OUT, handledById);
+    }
+
+    private void processBulk(List<StockTransaction> transactions, StockTransaction.TransactionType type, Long handledById) {
+        List<StockTransaction> saved = new ArrayList<>(transactions.size());
         for (StockTransaction transaction : transactions) {
-            transaction.setType(StockTransaction.TransactionType.OUT);
-            createStockTransaction(transaction, handledById);
+            transaction.setType(type);
+            saved.add(post(transaction, handledById));
         }
+        inventoryValuationService.recordAll(saved, null);
     }
 
     // Stock adjustment (manual correction)
@@ -166,7 +208,7 @@ public class StockTransactionService {
         transaction.setQuantity(Math.abs(adjustment));
         transaction.setType(adjustment > 0 ? StockTransaction.TransactionType.IN : StockTransaction.TransactionType.OUT);
         transaction.setNotes("Stock adjustment: " + notes + " (From: " + currentStock + " → To: " + newQuantity + ")");
-        transaction.setReferenceNumber("ADJ-" + System.currentTimeMillis());
+        transaction.setReferenceNumber(referenceNumberService.nextAdjustmentReference());
 
         return createStockTransaction(transaction, handledById);
     }
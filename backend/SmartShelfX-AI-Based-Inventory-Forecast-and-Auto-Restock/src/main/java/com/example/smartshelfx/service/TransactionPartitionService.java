@@ -0,0 +1,324 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.archive.ColumnarTransactionFile;
+import com.example.smartshelfx.archive.StockTransactionArchive;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps stock_transactions range-partitioned by month on `timestamp` and moves old months
+ * to the columnar archive.
+ *
+ * The first run converts an unpartitioned table: MySQL requires the partition column in
+ * every unique key and does not allow foreign keys on partitioned tables, so the primary
+ * key becomes (id, timestamp) and the product/user foreign keys are dropped (the entity
+ * no longer declares them). That conversion rebuilds the table once.
+ *
+ * Partitions are named pYYYYMM and created {@code months-ahead} in advance by splitting the
+ * empty p_future catch-all. A month older than {@code after-months} is streamed to a file,
+ * the file's row count is checked against the partition, and only then is the partition
+ * dropped; the last count and the drop run under one table lock, so a row written in between
+ * keeps the partition. New transactions dated inside the archived period are rejected by
+ * StockTransactionService, so nothing lands in a month after it is archived. Months are
+ * archived only after StockLedgerService has snapshotted them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionService {
+
+    private static final String TABLE = "stock_transactions";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT PARTITION_NAME, TABLE_ROWS
+            FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+
+    private static final String ARCHIVE_SELECT_SQL = """
+            SELECT id, product_id, quantity, type, `timestamp`, handled_by, notes, reference_number
+            FROM stock_transactions PARTITION (%s)
+            ORDER BY `timestamp`, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockTransactionArchive archive;
+    private final StockLedgerService stockLedgerService;
+
+    @Value("${app.stock-tx.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.stock-tx.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.stock-tx.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${app.stock-tx.archive.after-months:12}")
+    private int archiveAfterMonths;
+
+    private JdbcTemplate streamingJdbc;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public record PartitionInfo(String name, YearMonth month, long estimatedRows) {
+    }
+
+    @PostConstruct
+    void init() {
+        // Connector/J streams rows one by one only with fetch size Integer.MIN_VALUE
+        streamingJdbc = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        streamingJdbc.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        if (!enabled) return;
+        try {
+            ensurePartitioned();
+            createAheadPartitions();
+        } catch (Exception e) {
+            log.error("Could not prepare stock_transactions partitions", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.stock-tx.partitioning.cron:0 20 0 * * *}")
+    public void scheduledMaintenance() {
+        if (!enabled) return;
+        if (running.get()) {
+            log.warn("Skipping stock_transactions maintenance: previous run still in progress");
+            return;
+        }
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.error("Scheduled stock_transactions maintenance failed", e);
+        }
+    }
+
+    /**
+     * Converts the table if needed, creates upcoming partitions and archives old ones.
+     */
+    public Map<String, Object> maintain() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Stock transaction partition maintenance is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            boolean converted = ensurePartitioned();
+            List<String> created = createAheadPartitions();
+            List<String> archived = archiveEnabled ? archiveOldPartitions() : List.of();
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("converted", converted);
+            summary.put("partitionsCreated", created);
+            summary.put("partitionsArchived", archived);
+            summary.put("archivedUntil", archive.archivedUntil());
+            summary.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+            log.info("stock_transactions maintenance: {}", summary);
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<PartitionInfo> listPartitions() {
+        return jdbcTemplate.query(LIST_PARTITIONS_SQL, (rs, i) -> {
+            String name = rs.getString(1);
+            return new PartitionInfo(name, monthOf(name), rs.getLong(2));
+        }, TABLE);
+    }
+
+    // ----------------------------------------------------------------
+    // PARTITION LAYOUT
+    // ----------------------------------------------------------------
+
+    private boolean ensurePartitioned() {
+        if (!listPartitions().isEmpty()) return false;
+
+        long started = System.nanoTime();
+        for (String fk : jdbcTemplate.queryForList("""
+                SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+                WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ?
+                """, String.class, TABLE)) {
+            jdbcTemplate.execute("ALTER TABLE stock_transactions DROP FOREIGN KEY `" + fk + "`");
+        }
+        jdbcTemplate.execute("ALTER TABLE stock_transactions DROP PRIMARY KEY, ADD PRIMARY KEY (id, `timestamp`)");
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(`timestamp`) FROM stock_transactions", Timestamp.class);
+        YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+
+        StringJoiner partitions = new StringJoiner(",\n", "(\n", ")");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(partitionDefinition(month));
+        }
+        partitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE stock_transactions PARTITION BY RANGE COLUMNS(`timestamp`) " + partitions);
+
+        log.info("Partitioned stock_transactions by month ({} .. {}) in {} ms",
+                first, last, (System.nanoTime() - started) / 1_000_000);
+        return true;
+    }
+
+    private List<String> createAheadPartitions() {
+        YearMonth lastExisting = listPartitions().stream()
+                .map(PartitionInfo::month)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        if (lastExisting == null) return List.of();
+
+        YearMonth target = YearMonth.now().plusMonths(monthsAhead);
+        List<String> created = new ArrayList<>();
+        StringJoiner partitions = new StringJoiner(",\n", "(\n", ")");
+        for (YearMonth month = lastExisting.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            partitions.add(partitionDefinition(month));
+            created.add(month.format(PARTITION_NAME));
+        }
+        if (created.isEmpty()) return created;
+
+        partitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE stock_transactions REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO " + partitions);
+        log.info("Created stock_transactions partitions {}", created);
+        return created;
+    }
+
+    private static String partitionDefinition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        if (partitionName == null || FUTURE_PARTITION.equals(partitionName)) return null;
+        try {
+            return YearMonth.parse(partitionName.substring(1), DateTimeFormatter.ofPattern("yyyyMM"));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // ARCHIVAL
+    // ----------------------------------------------------------------
+
+    private List<String> archiveOldPartitions() {
+        // Never less than 3 months, so the repository's 90-day hot window stays in the database
+        YearMonth cutoff = YearMonth.now().minusMonths(Math.max(3, archiveAfterMonths));
+        // Snapshots are folded from the table, so a month must be snapshotted before it leaves it
+        LocalDate snapshotsThrough = stockLedgerService.snapshotsThrough();
+        List<String> archived = new ArrayList<>();
+        for (PartitionInfo partition : listPartitions()) {
+            if (partition.month() == null || !partition.month().isBefore(cutoff)) continue;
+            if (snapshotsThrough == null || partition.month().plusMonths(1).atDay(1).isAfter(snapshotsThrough)) {
+                log.warn("Not archiving partition {}: stock snapshots only reach {}", partition.name(), snapshotsThrough);
+                break;
+            }
+            archiveMonth(partition);
+            archived.add(partition.name());
+        }
+        return archived;
+    }
+
+    private void archiveMonth(PartitionInfo partition) {
+        long started = System.nanoTime();
+        Path file = archive.fileFor(partition.month());
+
+        long written;
+        try (ColumnarTransactionFile.Writer writer = new ColumnarTransactionFile.Writer(file)) {
+            streamingJdbc.query(String.format(ARCHIVE_SELECT_SQL, partition.name()), (RowCallbackHandler) rs -> {
+                long handledBy = rs.getLong(6);
+                Long handledById = rs.wasNull() ? null : handledBy;
+                try {
+                    writer.append(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getString(4),
+                            rs.getTimestamp(5).toLocalDateTime(), handledById, rs.getString(7), rs.getString(8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+            written = writer.getRows();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive " + file, e);
+        }
+
+        long inFile;
+        try {
+            inFile = ColumnarTransactionFile.rowCount(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not verify archive " + file, e);
+        }
+        if (inFile != written) {
+            throw new IllegalStateException("Archive of " + partition.name() + " has " + inFile
+                    + " rows but " + written + " were written; partition kept");
+        }
+
+        dropArchivedPartition(partition, file, inFile);
+
+        long bytes;
+        try {
+            bytes = Files.size(file);
+        } catch (IOException e) {
+            bytes = -1;
+        }
+        log.info("Archived partition {}: {} rows, {} bytes in {} ms",
+                partition.name(), inFile, bytes, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Counts the partition again and drops it while holding a write lock on the table, so no
+     * insert can land between the count and the drop. LOCK TABLES belongs to the connection,
+     * so all statements run on one. The month is registered as archived before the lock is
+     * released; writers blocked on the lock then see it as archived.
+     */
+    private void dropArchivedPartition(PartitionInfo partition, Path file, long archivedRows) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLES stock_transactions WRITE");
+                try {
+                    long inPartition;
+                    try (ResultSet rs = statement.executeQuery(
+                            "SELECT COUNT(*) FROM stock_transactions PARTITION (" + partition.name() + ")")) {
+                        rs.next();
+                        inPartition = rs.getLong(1);
+                    }
+                    if (inPartition != archivedRows) {
+                        throw new IllegalStateException("Archive of " + partition.name() + " has " + archivedRows
+                                + " rows but the partition has " + inPartition + "; partition kept");
+                    }
+                    statement.execute("ALTER TABLE stock_transactions DROP PARTITION " + partition.name());
+                    archive.register(partition.month(), file);
+                } finally {
+                    statement.execute("UNLOCK TABLES");
+                }
+            }
+            return null;
+        });
+    }
+}
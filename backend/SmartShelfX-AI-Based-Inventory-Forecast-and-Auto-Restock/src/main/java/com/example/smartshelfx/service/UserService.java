@@ -4,6 +4,7 @@ import com.example.smartshelfx.model.User;
 import com.example.smartshelfx.model.Role;
 import com.example.smartshelfx.repository.UserRepository;
 import com.example.smartshelfx.security.CustomUserDetails;
+import com.example.smartshelfx.security.UserStatusCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +22,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatusCache userStatusCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -67,18 +69,23 @@ public class UserService implements UserDetailsService {
     }
 
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatusCache.evict(saved.getId());
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userStatusCache.evict(id);
     }
 
     // ✔ Update user role
     public User updateUserRole(Long id, Role newRole) {
         User user = getUserById(id);
         user.setRole(newRole);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatusCache.evict(id);
+        return saved;
     }
 
     // ✔ Required by AlertService
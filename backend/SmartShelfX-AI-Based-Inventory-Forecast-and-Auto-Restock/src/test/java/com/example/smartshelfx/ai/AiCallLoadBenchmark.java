@@ -0,0 +1,111 @@
+package com.example.smartshelfx.ai;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A burst of AI requests arriving together with ordinary requests, once on virtual threads
+ * and once on a platform pool the size of Tomcat's default (200 threads). The ChatModel is a
+ * mock that sleeps for the model latency, behind an AiCallLimiter with the defaults from
+ * application.properties (16 permits, 30 s acquire timeout); an ordinary request sleeps for a
+ * short query. On the platform pool the AI requests waiting for a permit hold request
+ * threads, so ordinary requests queue behind them; on virtual threads they do not.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.ai.AiCallLoadBenchmark
+ * Arguments: AI requests (default 400), ordinary requests (default 2000), model latency ms
+ * (default 100), ordinary request ms (default 2).
+ */
+public class AiCallLoadBenchmark {
+
+	private static final int PERMITS = 16;
+	private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+	private static final int PLATFORM_THREADS = 200;
+
+	public static void main(String[] args) throws Exception {
+		int aiRequests = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+		int plainRequests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+		long modelMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+		long plainMs = args.length > 3 ? Long.parseLong(args[3]) : 2;
+
+		System.out.printf("ai requests=%d (model %d ms, %d permits), ordinary requests=%d (%d ms)%n",
+				aiRequests, modelMs, PERMITS, plainRequests, plainMs);
+		try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+			run("virtual threads", virtual, aiRequests, plainRequests, modelMs, plainMs);
+		}
+		try (ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+			run("platform pool (" + PLATFORM_THREADS + ")", platform, aiRequests, plainRequests, modelMs, plainMs);
+		}
+	}
+
+	private static void run(String label, ExecutorService requests, int aiRequests, int plainRequests,
+	                        long modelMs, long plainMs) throws Exception {
+		AiCallLimiter limiter = limiter(modelMs);
+		AtomicInteger rejected = new AtomicInteger();
+		long[] plainLatencies = new long[plainRequests];
+
+		long started = System.nanoTime();
+		List<Future<?>> futures = new ArrayList<>();
+		// The AI burst arrives first, then the ordinary traffic behind it
+		for (int i = 0; i < aiRequests; i++) {
+			futures.add(requests.submit(() -> {
+				try {
+					limiter.call("forecast please");
+				} catch (IllegalStateException e) {
+					rejected.incrementAndGet();
+				}
+			}));
+		}
+		for (int i = 0; i < plainRequests; i++) {
+			int n = i;
+			long submitted = System.nanoTime();
+			futures.add(requests.submit(() -> {
+				sleep(plainMs);
+				plainLatencies[n] = System.nanoTime() - submitted;
+			}));
+		}
+		for (Future<?> future : futures) future.get();
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		Arrays.sort(plainLatencies);
+		System.out.printf("%s: %.2f s, ai calls %s, rejected %d; ordinary p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+				label, seconds, limiter.getStats().get("calls"), rejected.get(),
+				plainLatencies[plainRequests / 2] / 1e6, plainLatencies[(int) (plainRequests * 0.99)] / 1e6,
+				plainLatencies[plainRequests - 1] / 1e6);
+	}
+
+	private static AiCallLimiter limiter(long modelMs) {
+		ChatModel chatModel = mock(ChatModel.class);
+		when(chatModel.call(anyString())).thenAnswer(invocation -> {
+			sleep(modelMs);
+			return "ok";
+		});
+		AiCallLimiter limiter = new AiCallLimiter(chatModel);
+		ReflectionTestUtils.setField(limiter, "maxConcurrentCalls", PERMITS);
+		ReflectionTestUtils.setField(limiter, "acquireTimeoutMs", ACQUIRE_TIMEOUT_MS);
+		limiter.init();
+		return limiter;
+	}
+
+	private static void sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.example.smartshelfx.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routing and failover against two in-memory H2 databases standing in for the primary and the
+ * replica. Each database knows its own name, and the replica's Seconds_Behind_Source comes from
+ * a table the test controls.
+ */
+class ReplicaRoutingDataSourceTest {
+
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+
+	private HikariDataSource primary;
+	private String replicaUrl;
+	private JdbcTemplate replicaAdmin;
+	private ReplicaRoutingDataSource routing;
+	private JdbcTemplate jdbc;
+	private DataSourceTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		int n = DATABASES.incrementAndGet();
+		primary = pool("jdbc:h2:mem:primary" + n + ";DB_CLOSE_DELAY=-1");
+		new JdbcTemplate(primary).execute("CREATE TABLE whoami AS SELECT 'primary' AS name");
+
+		replicaUrl = "jdbc:h2:mem:replica" + n + ";DB_CLOSE_DELAY=-1";
+		replicaAdmin = new JdbcTemplate(pool(replicaUrl));
+		replicaAdmin.execute("CREATE TABLE whoami AS SELECT 'replica' AS name");
+		replicaAdmin.execute("CREATE TABLE replica_status (Seconds_Behind_Source BIGINT)");
+		replicaAdmin.update("INSERT INTO replica_status VALUES (0)");
+
+		routing = routingTo(replicaUrl, true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		routing.destroy();
+		((HikariDataSource) replicaAdmin.getDataSource()).close();
+		primary.close();
+	}
+
+	@Test
+	void readOnlyServiceTransactionsUseTheReplica() {
+		assertEquals("replica", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+		assertEquals(1L, routing.getStatus().get("replicaConnections"));
+	}
+
+	@Test
+	void writesAndNonTransactionalCallsUseThePrimary() {
+		assertEquals("primary", inTransaction(false, "com.example.smartshelfx.service.ProductService.update"));
+		assertEquals("primary", jdbc.queryForObject("SELECT name FROM whoami", String.class));
+	}
+
+	@Test
+	void springDataImplicitReadOnlyTransactionsStayOnThePrimary() {
+		assertEquals("primary", inTransaction(true, "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findAll"));
+	}
+
+	@Test
+	void laggingReplicaFallsBackToThePrimaryAndRecovers() {
+		replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 30");
+		routing.checkReplicaLag();
+		assertEquals("primary", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+		assertFalse((Boolean) routing.getStatus().get("replicaUsable"));
+		assertEquals(1L, routing.getStatus().get("fallbackConnections"));
+
+		replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 2");
+		routing.checkReplicaLag();
+		assertEquals("replica", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+		assertEquals(2L, routing.getStatus().get("lagSeconds"));
+	}
+
+	@Test
+	void stoppedReplicationFallsBackToThePrimary() {
+		replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = NULL");
+		routing.checkReplicaLag();
+		assertEquals("primary", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+		assertEquals("replication is not running", routing.getStatus().get("problem"));
+	}
+
+	@Test
+	void plainSecondInstanceIsUsedOnlyWhenReplicationIsNotRequired() {
+		replicaAdmin.update("DELETE FROM replica_status");
+		routing.checkReplicaLag();
+		assertEquals("primary", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+
+		routing.destroy();
+		routing = routingTo(replicaUrl, false);
+		assertEquals("replica", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+	}
+
+	@Test
+	void unreachableReplicaDoesNotBlockStartupAndReadsUseThePrimary() {
+		routing.destroy();
+		// Nothing listens on port 1
+		routing = routingTo("jdbc:h2:tcp://localhost:1/missing", true);
+		assertFalse((Boolean) routing.getStatus().get("replicaUsable"));
+		assertTrue(((String) routing.getStatus().get("problem")).startsWith("unreachable"));
+		assertEquals("primary", inTransaction(true, "com.example.smartshelfx.service.AnalyticsService.overview"));
+	}
+
+	private ReplicaRoutingDataSource routingTo(String replicaUrl, boolean requireReplication) {
+		HikariConfig replicaConfig = new HikariConfig();
+		replicaConfig.setPoolName("replica");
+		replicaConfig.setJdbcUrl(replicaUrl);
+		replicaConfig.setConnectionTimeout(250);
+		replicaConfig.setReadOnly(true);
+		ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicaConfig, 5, requireReplication) {
+			@Override
+			String replicaStatusSql() {
+				return "SELECT Seconds_Behind_Source FROM replica_status";
+			}
+		};
+		dataSource.afterPropertiesSet();
+
+		// Same wiring as DataSourceConfig
+		LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(dataSource);
+		jdbc = new JdbcTemplate(proxy);
+		transactionManager = new DataSourceTransactionManager(proxy);
+		return dataSource;
+	}
+
+	private String inTransaction(boolean readOnly, String name) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setReadOnly(readOnly);
+		template.setName(name);
+		return template.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+	}
+
+	private static HikariDataSource pool(String url) {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(url);
+		config.setMaximumPoolSize(2);
+		return new HikariDataSource(config);
+	}
+}
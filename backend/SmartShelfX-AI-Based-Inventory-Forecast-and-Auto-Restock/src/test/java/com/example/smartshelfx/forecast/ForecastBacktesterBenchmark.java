@@ -0,0 +1,69 @@
+package com.example.smartshelfx.forecast;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Single-core throughput of the model-selection backtest on synthetic daily demand, with the
+ * defaults from application.properties (365 days, 4 origins, 7-day horizon) and all six
+ * models. Database loading is not included.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.forecast.ForecastBacktesterBenchmark -Dexec.args="50000"
+ * Argument: number of series (default 50000).
+ */
+public class ForecastBacktesterBenchmark {
+
+	private static final int DAYS = 365;
+	private static final int ORIGINS = 4;
+	private static final int HORIZON = 7;
+
+	public static void main(String[] args) {
+		int series = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+
+		List<ForecastAlgorithm> models = List.of(new MovingAverageForecast(), new SimpleExponentialSmoothing(),
+				new DoubleExponentialSmoothing(), new HoltWintersForecast(), new CrostonForecast(), new SbaForecast());
+		ForecastBacktester backtester = new ForecastBacktester();
+
+		Random random = new Random(11);
+		double[][] histories = new double[series][];
+		for (int s = 0; s < series; s++) {
+			histories[s] = demand(random);
+		}
+
+		// Warm up the JIT on a slice so the timed run measures steady state
+		for (int s = 0; s < Math.min(series, 2_000); s++) {
+			backtester.selectBest(models, histories[s], ORIGINS, HORIZON);
+		}
+
+		long started = System.nanoTime();
+		int selected = 0;
+		for (double[] history : histories) {
+			if (backtester.selectBest(models, history, ORIGINS, HORIZON) != null) selected++;
+		}
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		System.out.printf("series=%d days=%d models=%d origins=%d horizon=%d%n",
+				series, DAYS, models.size(), ORIGINS, HORIZON);
+		System.out.printf("%.2f s, %.0f series/s, %.0f backtests/s, %d with a selected model%n",
+				seconds, series / seconds, (double) series * models.size() / seconds, selected);
+	}
+
+	// Mix of smooth seasonal and intermittent demand, the two shapes the model set covers
+	private static double[] demand(Random random) {
+		double[] history = new double[DAYS];
+		boolean intermittent = random.nextInt(3) == 0;
+		double level = 2 + random.nextDouble() * 40;
+		double trend = (random.nextDouble() - 0.5) * 0.05;
+		for (int t = 0; t < DAYS; t++) {
+			if (intermittent) {
+				history[t] = random.nextDouble() < 0.15 ? 1 + random.nextInt((int) level + 1) : 0;
+			} else {
+				double weekly = 1 + 0.3 * Math.sin(2 * Math.PI * t / 7);
+				history[t] = Math.max(0, Math.round((level + trend * t) * weekly + random.nextGaussian() * level * 0.2));
+			}
+		}
+		return history;
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.smartshelfx.model;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Inserts stock transactions through Hibernate into an in-memory H2 database, with the batching
+ * settings from application.properties (batch_size 100, order_inserts) and again with batching
+ * off, and prints Hibernate's statement counts and the "JDBC batches executed" figure for each.
+ * With TSID keys the ids are known before the insert, so the batched run should execute one
+ * batch per 100 rows instead of one statement per row. In-process H2 has no network round trip
+ * to save, so the counts are the result here, not the wall time; against MySQL it is the
+ * round trips that batching removes.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.model.StockTransactionInsertBenchmark
+ * Argument: rows per run (default 20000).
+ */
+public class StockTransactionInsertBenchmark {
+
+	private static final List<Class<?>> ENTITIES = List.of(User.class, Product.class, StockTransaction.class,
+			PurchaseOrder.class, Forecast.class, Alert.class);
+
+	public static void main(String[] args) {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+		// Warm up the JIT on both settings so neither timed run pays for class loading
+		run(100, rows / 10);
+		run(0, rows / 10);
+
+		System.out.printf("rows=%d per run%n", rows);
+		System.out.println("batch_size 100: " + run(100, rows));
+		System.out.println("batching off:   " + run(0, rows));
+	}
+
+	private static String run(int batchSize, int rows) {
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySetting("hibernate.connection.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1")
+				.applySetting("hibernate.connection.username", "sa")
+				// Spring Boot's column naming, so the schema and its indexes match production
+				.applySetting("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName())
+				.applySetting("hibernate.hbm2ddl.auto", "create-drop")
+				.applySetting("hibernate.generate_statistics", "true")
+				.applySetting("hibernate.jdbc.batch_size", String.valueOf(batchSize))
+				.applySetting("hibernate.order_inserts", "true")
+				.build();
+		MetadataSources sources = new MetadataSources(registry);
+		ENTITIES.forEach(sources::addAnnotatedClass);
+
+		try (SessionFactory sessionFactory = sources.buildMetadata().buildSessionFactory()) {
+			Long productId = sessionFactory.fromTransaction(session -> {
+				Product product = new Product();
+				product.setName("Benchmark product");
+				product.setSku("BENCH-1");
+				product.setCategory("Benchmark");
+				product.setPrice(BigDecimal.TEN);
+				session.persist(product);
+				return product.getId();
+			});
+
+			Statistics statistics = sessionFactory.getStatistics();
+			statistics.clear();
+			BatchCounter batches = new BatchCounter();
+
+			long started = System.nanoTime();
+			try (Session session = sessionFactory.withOptions().eventListeners(batches).openSession()) {
+				Transaction transaction = session.beginTransaction();
+				Product product = session.getReference(Product.class, productId);
+				for (int i = 0; i < rows; i++) {
+					StockTransaction stockTransaction = new StockTransaction();
+					stockTransaction.setProduct(product);
+					stockTransaction.setQuantity(1 + i % 20);
+					stockTransaction.setType(i % 3 == 0 ? StockTransaction.TransactionType.IN
+							: StockTransaction.TransactionType.OUT);
+					stockTransaction.setReferenceNumber("BENCH-" + i);
+					session.persist(stockTransaction);
+				}
+				transaction.commit();
+			}
+			double ms = (System.nanoTime() - started) / 1e6;
+
+			return String.format("%.0f ms, %d inserts, %d statements prepared, %d JDBC batches executed",
+					ms, statistics.getEntityInsertCount(), statistics.getPrepareStatementCount(), batches.executed);
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registry);
+		}
+	}
+
+	private static class BatchCounter extends BaseSessionEventListener {
+		private long executed;
+
+		@Override
+		public void jdbcExecuteBatchStart() {
+			executed++;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.smartshelfx.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Id generation rate, single-threaded and contended. The generator issues at most 512 ids per
+ * millisecond per node and waits for the clock beyond that, so throughput is capped by design;
+ * this shows how close the hot path gets to the cap.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.model.TsidGeneratorBenchmark
+ * Arguments: ids (default 1000000), threads (default 8).
+ */
+public class TsidGeneratorBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int ids = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+		generate(ids); // warm-up
+		long started = System.nanoTime();
+		generate(ids);
+		report("1 thread", ids, started);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			started = System.nanoTime();
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(pool.submit(() -> generate(ids / threads)));
+			}
+			for (Future<?> future : futures) future.get();
+			report(threads + " threads", ids / threads * threads, started);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static long generate(int count) {
+		long last = 0;
+		for (int i = 0; i < count; i++) {
+			last = TsidGenerator.next();
+		}
+		return last;
+	}
+
+	private static void report(String label, long ids, long started) {
+		double ms = (System.nanoTime() - started) / 1e6;
+		System.out.printf("%s: %d ids in %.0f ms (%.0f ids/ms, cap 512)%n", label, ids, ms, ids / ms);
+	}
+}
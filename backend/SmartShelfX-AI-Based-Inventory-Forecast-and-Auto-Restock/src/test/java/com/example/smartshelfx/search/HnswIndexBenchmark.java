@@ -0,0 +1,133 @@
+package com.example.smartshelfx.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Build time, memory, query latency and recall@10 of the product search index on a synthetic
+ * catalog, with the defaults from application.properties (dim 128, M 16, ef 100). Recall is
+ * measured against a brute-force scan using the same quantized similarity.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.search.HnswIndexBenchmark -Dexec.args="1000000"
+ * Arguments: products (default 100000), queries (default 1000).
+ */
+public class HnswIndexBenchmark {
+
+	private static final int DIMENSIONS = 128;
+	private static final int M = 16;
+	private static final int EF_CONSTRUCTION = 100;
+	private static final int EF_SEARCH = 100;
+	private static final int K = 10;
+	private static final float[] FIELD_WEIGHTS = {2.0f, 1.5f, 1.0f};
+
+	public static void main(String[] args) {
+		int products = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+		Random random = new Random(7);
+		String[] words = vocabulary(random, 20_000);
+		String[] categories = Arrays.copyOf(vocabulary(random, 60), 60);
+		HashingTextEncoder encoder = new HashingTextEncoder(DIMENSIONS);
+
+		byte[] vectors = new byte[products * DIMENSIONS];
+		float[] scales = new float[products];
+		String[] names = new String[products];
+		for (int i = 0; i < products; i++) {
+			names[i] = phrase(random, words, 3);
+			scales[i] = encoder.encode(new String[]{names[i], categories[random.nextInt(categories.length)],
+					phrase(random, words, 8)}, FIELD_WEIGHTS, vectors, i * DIMENSIONS);
+		}
+
+		System.gc();
+		long heapBefore = usedHeap();
+		long started = System.nanoTime();
+		HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION, products);
+		for (int i = 0; i < products; i++) {
+			index.put(i, vectors, i * DIMENSIONS, scales[i]);
+		}
+		long buildMs = (System.nanoTime() - started) / 1_000_000;
+		System.gc();
+		long heapAfter = usedHeap();
+
+		long[] latencies = new long[queries];
+		double recallSum = 0;
+		byte[] query = new byte[DIMENSIONS];
+		for (int q = 0; q < queries; q++) {
+			String[] nameWords = names[random.nextInt(products)].split(" ");
+			float scale = encoder.encode(new String[]{nameWords[0] + " " + nameWords[1]}, new float[]{1.0f}, query, 0);
+
+			long t = System.nanoTime();
+			List<HnswIndex.Hit> hits = index.search(query, scale, K, EF_SEARCH);
+			latencies[q] = System.nanoTime() - t;
+
+			Set<Long> exact = bruteForce(vectors, scales, query, scale);
+			int found = 0;
+			for (HnswIndex.Hit hit : hits) {
+				if (exact.contains(hit.key())) found++;
+			}
+			recallSum += (double) found / Math.max(1, exact.size());
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("products=%d dim=%d M=%d efConstruction=%d efSearch=%d%n",
+				products, DIMENSIONS, M, EF_CONSTRUCTION, EF_SEARCH);
+		System.out.printf("build: %d ms, estimated %d MB, heap delta %d MB%n",
+				buildMs, index.estimatedBytes() >> 20, (heapAfter - heapBefore) >> 20);
+		System.out.printf("search: p50 %.3f ms, p99 %.3f ms, max %.3f ms over %d queries%n",
+				latencies[queries / 2] / 1e6, latencies[(int) (queries * 0.99)] / 1e6, latencies[queries - 1] / 1e6, queries);
+		System.out.printf("recall@%d vs brute force: %.3f%n", K, recallSum / queries);
+	}
+
+	private static Set<Long> bruteForce(byte[] vectors, float[] scales, byte[] query, float queryScale) {
+		PriorityQueue<float[]> top = new PriorityQueue<>((a, b) -> Float.compare(a[0], b[0]));
+		for (int node = 0; node < scales.length; node++) {
+			int base = node * DIMENSIONS;
+			int dot = 0;
+			for (int i = 0; i < DIMENSIONS; i++) {
+				dot += query[i] * vectors[base + i];
+			}
+			float score = dot * queryScale * scales[node];
+			if (top.size() < K) {
+				top.add(new float[]{score, node});
+			} else if (score > top.peek()[0]) {
+				top.poll();
+				top.add(new float[]{score, node});
+			}
+		}
+		Set<Long> keys = new HashSet<>();
+		for (float[] entry : top) keys.add((long) entry[1]);
+		return keys;
+	}
+
+	private static String[] vocabulary(Random random, int size) {
+		List<String> words = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			char[] word = new char[4 + random.nextInt(6)];
+			for (int c = 0; c < word.length; c++) word[c] = (char) ('a' + random.nextInt(26));
+			words.add(new String(word));
+		}
+		return words.toArray(String[]::new);
+	}
+
+	private static String phrase(Random random, String[] words, int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			if (i > 0) sb.append(' ');
+			// Skewed toward common words, like real product names
+			sb.append(words[(int) (words.length * Math.pow(random.nextDouble(), 2))]);
+		}
+		return sb.toString();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.smartshelfx.security;
+
+import com.example.smartshelfx.model.Role;
+import com.example.smartshelfx.repository.RevokedTokenRepository;
+import com.example.smartshelfx.repository.UserRepository;
+import com.example.smartshelfx.service.UserService;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request cost of JwtFilter for a token carrying the uid claim: one signature check, the
+ * revocation lookup and the user status cache, against the same request with no token. The
+ * status cache is warm after the first request, as it is for an active user; its database
+ * query is mocked, so a miss here costs nothing and the figure is the filter's CPU cost only.
+ *
+ * Not a unit test (surefire skips *Benchmark); run main() with the test classpath, e.g.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.example.smartshelfx.security.JwtFilterBenchmark
+ * Argument: requests per measured pass (default 200000).
+ */
+public class JwtFilterBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "SECRET", "benchmark-secret-key-at-least-32-bytes-long");
+		jwtUtil.init();
+
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findStatusById(anyLong())).thenReturn(List.<Object[]>of(new Object[]{true, Role.ROLE_MANAGER}));
+		UserStatusCache statusCache = new UserStatusCache(userRepository);
+		ReflectionTestUtils.setField(statusCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(statusCache, "maxSize", 10_000);
+
+		JwtFilter filter = new JwtFilter();
+		ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+		ReflectionTestUtils.setField(filter, "userService", mock(UserService.class));
+		ReflectionTestUtils.setField(filter, "tokenBlacklist", new TokenBlacklist(jwtUtil, mock(RevokedTokenRepository.class)));
+		ReflectionTestUtils.setField(filter, "userStatusCache", statusCache);
+
+		String token = jwtUtil.generateAccessToken("manager@example.com", Role.ROLE_MANAGER.name(), 42L);
+
+		// Warm up the JIT on both paths so the timed passes measure steady state
+		run(filter, null, requests);
+		run(filter, token, requests);
+
+		double bare = run(filter, null, requests);
+		double authenticated = run(filter, token, requests);
+
+		System.out.printf("requests=%d per pass%n", requests);
+		System.out.printf("no token:   %.2f us/request%n", bare);
+		System.out.printf("uid token:  %.2f us/request%n", authenticated);
+		System.out.printf("filter overhead: %.2f us/request (%.0f authentications/s on one thread)%n",
+				authenticated - bare, 1e6 / (authenticated - bare));
+		System.out.printf("filter stats: %s%n", filter.getStats());
+	}
+
+	// Mean microseconds per request through the filter, request setup included
+	private static double run(JwtFilter filter, String token, int requests) throws Exception {
+		long started = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+			if (token != null) request.addHeader("Authorization", "Bearer " + token);
+			filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+			if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+				throw new IllegalStateException("Token was not accepted");
+			}
+			SecurityContextHolder.clearContext();
+		}
+		return (System.nanoTime() - started) / 1e3 / requests;
+	}
+}
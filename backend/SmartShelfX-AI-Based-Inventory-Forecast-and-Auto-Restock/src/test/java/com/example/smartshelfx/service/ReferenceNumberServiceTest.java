@@ -0,0 +1,84 @@
+package com.example.smartshelfx.service;
+
+import com.example.smartshelfx.model.TsidGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReferenceNumberServiceTest {
+
+	private static final int THREADS = 16;
+	private static final int PER_THREAD = 62_500;
+
+	private final ReferenceNumberService service = new ReferenceNumberService();
+
+	// The generator issues at most 512 ids per millisecond, so a million take at least 1954 ms
+	@Test
+	void millionConcurrentNumbersAreUniqueAndIncreasingPerThread() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<String[]>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(pool.submit(() -> {
+					String[] numbers = new String[PER_THREAD];
+					start.await();
+					for (int i = 0; i < PER_THREAD; i++) {
+						numbers[i] = service.nextPurchaseOrderNumber();
+					}
+					return numbers;
+				}));
+			}
+			start.countDown();
+
+			Set<String> all = new HashSet<>(THREADS * PER_THREAD * 2);
+			for (Future<String[]> future : futures) {
+				String[] numbers = future.get();
+				for (int i = 0; i < numbers.length; i++) {
+					assertTrue(all.add(numbers[i]), "duplicate " + numbers[i]);
+					if (i > 0) {
+						assertTrue(numbers[i].compareTo(numbers[i - 1]) > 0,
+								numbers[i] + " not after " + numbers[i - 1]);
+					}
+				}
+			}
+			assertEquals(THREADS * PER_THREAD, all.size());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void burstsNeverRunAheadOfTheClock() {
+		long id = 0;
+		for (int i = 0; i < 100_000; i++) {
+			id = TsidGenerator.next();
+		}
+		// Top 41 bits are milliseconds since 2025-01-01 UTC
+		long issuedAt = (id >>> 12) + 1735689600000L;
+		assertTrue(issuedAt <= System.currentTimeMillis(), "id dated " + issuedAt + " is in the future");
+	}
+
+	@Test
+	void encodingIsFixedWidthAndSortsLikeTheId() {
+		long[] ids = {0L, 31L, 32L, 1L << 40, (1L << 53) - 2, (1L << 53) - 1};
+		for (int i = 0; i < ids.length; i++) {
+			String encoded = ReferenceNumberService.encode(ids[i]);
+			assertEquals(11, encoded.length());
+			if (i > 0) {
+				assertTrue(encoded.compareTo(ReferenceNumberService.encode(ids[i - 1])) > 0);
+			}
+		}
+		assertTrue(service.nextAdjustmentReference().matches("ADJ-[0-9A-HJKMNP-TV-Z]{11}"));
+	}
+}
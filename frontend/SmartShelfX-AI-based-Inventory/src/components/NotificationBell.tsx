@@ -117,17 +117,126 @@ const NotificationBell: React.FC<NotificationBellProps> = ({ onOpenAlertsPage })
     return () => document.removeEventListener("mousedown", handler);
   }, []);
 
-  // initial + polling
+  // Apply a pushed alert event without another round-trip
+  const handleStreamEvent = (name: string, data: string) => {
+    if (name === "alert") {
+      const pushed = JSON.parse(data);
+      const alert: Alert = {
+        id: pushed.alertId,
+        message: pushed.message ?? pushed.title,
+        type: pushed.type,
+        severity: pushed.priority,
+        read: false,
+        createdAt: pushed.createdAt,
+        productId: pushed.productId,
+        productName: pushed.productName,
+      };
+      setRecentAlerts((prev) => [alert, ...prev.filter((a) => a.id !== alert.id)].slice(0, 5));
+      setUnreadCount((c) => c + 1);
+    } else if (name === "alerts-read") {
+      // bulk updates describe a scope (all / type / type + product) instead of listing ids
+      const { alertIds, all, type, productId } = JSON.parse(data) as {
+        alertIds: number[];
+        all: boolean;
+        type?: string | null;
+        productId?: number | null;
+      };
+      const inScope = (a: Alert) =>
+        all ||
+        alertIds.includes(a.id) ||
+        (!!type && a.type === type && (productId == null || a.productId === productId));
+      setRecentAlerts((prev) => prev.map((a) => (inScope(a) ? { ...a, read: true } : a)));
+      // the count is authoritative on the server: one request instead of a poll loop
+      fetchUnreadCount();
+    }
+  };
+
+  // initial load, then server push (/api/stream); polling only while the stream is down
   useEffect(() => {
     fetchUnreadCount();
     fetchRecentAlerts();
+    if (!token) return;
 
-    const interval = setInterval(() => {
-      fetchUnreadCount();
-      fetchRecentAlerts();
-    }, 30000); // 30s
+    const controller = new AbortController();
+    let pollTimer: ReturnType<typeof setInterval> | null = null;
+    let retryTimer: ReturnType<typeof setTimeout> | null = null;
+    let retryDelay = 2000;
+    let connectedBefore = false;
+
+    const startPolling = () => {
+      if (pollTimer) return;
+      pollTimer = setInterval(() => {
+        fetchUnreadCount();
+        fetchRecentAlerts();
+      }, 30000); // 30s
+    };
+
+    const stopPolling = () => {
+      if (pollTimer) clearInterval(pollTimer);
+      pollTimer = null;
+    };
+
+    const connect = async () => {
+      try {
+        // fetch instead of EventSource so the Bearer header can be sent
+        const res = await fetch(`${API_BASE}/api/stream`, {
+          headers: { Authorization: `Bearer ${token}`, Accept: "text/event-stream" },
+          signal: controller.signal,
+        });
+        if (!res.ok || !res.body) throw new Error(`Stream unavailable: ${res.status}`);
 
-    return () => clearInterval(interval);
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = "";
+
+        while (true) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value.replace(/\r\n/g, "\n");
+
+          let sep;
+          while ((sep = buffer.indexOf("\n\n")) >= 0) {
+            const block = buffer.slice(0, sep);
+            buffer = buffer.slice(sep + 2);
+
+            let name = "message";
+            const dataLines: string[] = [];
+            for (const line of block.split("\n")) {
+              if (line.startsWith("event:")) name = line.slice(6).trim();
+              else if (line.startsWith("data:")) dataLines.push(line.slice(5).replace(/^ /, ""));
+            }
+
+            if (name === "ready") {
+              stopPolling();
+              retryDelay = 2000;
+              // catch up on anything missed while disconnected
+              if (connectedBefore) {
+                fetchUnreadCount();
+                fetchRecentAlerts();
+              }
+              connectedBefore = true;
+            } else if (dataLines.length > 0) {
+              handleStreamEvent(name, dataLines.join("\n"));
+            }
+          }
+        }
+      } catch (err) {
+        if (controller.signal.aborted) return;
+        console.warn("Alert stream disconnected, falling back to polling", err);
+      }
+      if (controller.signal.aborted) return;
+
+      startPolling();
+      retryTimer = setTimeout(connect, retryDelay);
+      retryDelay = Math.min(retryDelay * 2, 60000);
+    };
+
+    connect();
+
+    return () => {
+      controller.abort();
+      stopPolling();
+      if (retryTimer) clearTimeout(retryTimer);
+    };
   }, []);
 
   const badgeVisible = unreadCount > 0;
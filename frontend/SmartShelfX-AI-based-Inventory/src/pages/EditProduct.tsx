@@ -2,6 +2,7 @@ import React, { useEffect, useState } from "react";
 import { useParams, useNavigate } from "react-router-dom";
 import API from "../services/api";
 import AppLayout from "../components/AppLayout";
+import { productImageSrc } from "../utils/productImage";
 
 const EditProduct: React.FC = () => {
   const { id } = useParams();
@@ -69,9 +70,7 @@ const EditProduct: React.FC = () => {
 
   if (!form) return <AppLayout>Loading...</AppLayout>;
 
-  const existingImage = form.imageData
-    ? `data:${form.imageType};base64,${form.imageData}`
-    : null;
+  const existingImage = form.imageUrl ? productImageSrc(form.imageUrl) : null;
 
   return (
     <AppLayout>
@@ -140,6 +139,7 @@ const EditProduct: React.FC = () => {
             <label>Existing Image</label>
             <img
               src={existingImage}
+              loading="lazy"
               alt="Product"
               className="img-fluid rounded border d-block mb-3"
               style={{ maxWidth: "200px" }}
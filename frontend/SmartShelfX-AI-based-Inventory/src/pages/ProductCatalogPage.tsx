@@ -7,6 +7,7 @@ import {
   loadCart,
   type CartItem,
 } from "../utils/cartUtils"; // FIXED IMPORT PATH
+import { productImageSrc, productImageSrcSet } from "../utils/productImage";
 
 
 const API_BASE = "http://localhost:8080";
@@ -18,8 +19,7 @@ interface Product {
   category?: string;
   price: number;
   currentStock?: number;
-  imageData?: string | null;
-  imageType?: string | null;
+  imageUrl?: string | null;
   vendorName?: string | null;
   vendorId?: number | null;
 }
@@ -159,10 +159,7 @@ const ProductCatalogPage: React.FC = () => {
       name: p.name,
       quantity: 1,
       price: p.price,
-      imageUrl:
-        p.imageData && p.imageType
-          ? `data:${p.imageType};base64,${p.imageData}`
-          : undefined,
+      imageUrl: p.imageUrl ? productImageSrc(p.imageUrl, 64) : undefined,
     };
 
     addToCart(item);
@@ -259,11 +256,11 @@ const ProductCatalogPage: React.FC = () => {
             <div key={p.id} className="col-sm-6 col-md-4 col-lg-3">
               <div className="card h-100">
                 <img
-                  src={
-                    p.imageData && p.imageType
-                      ? `data:${p.imageType};base64,${p.imageData}`
-                      : "/no-image.png"
-                  }
+                  src={productImageSrc(p.imageUrl)}
+                  srcSet={productImageSrcSet(p.imageUrl)}
+                  sizes="(max-width: 576px) 100vw, 300px"
+                  loading="lazy"
+                  alt={p.name}
                   className="card-img-top"
                   style={{ objectFit: "cover", height: 150 }}
                 />
@@ -2,6 +2,7 @@ import React, { useEffect, useState } from "react";
 import { useParams } from "react-router-dom";
 import AppLayout from "../components/AppLayout";
 import API from "../services/api";
+import { productImageSrc, productImageSrcSet } from "../utils/productImage";
 
 const ProductDetails: React.FC = () => {
   const { id } = useParams();
@@ -18,10 +19,6 @@ const ProductDetails: React.FC = () => {
 
   if (!product) return <AppLayout>Loading...</AppLayout>;
 
-  const imageUrl = product.imageData
-    ? `data:${product.imageType};base64,${product.imageData}`
-    : null;
-
   return (
     <AppLayout>
       <h2>{product.name}</h2>
@@ -29,8 +26,15 @@ const ProductDetails: React.FC = () => {
       <div className="row mt-4">
 
         <div className="col-md-4">
-          {imageUrl ? (
-            <img src={imageUrl} alt={product.name} className="img-fluid rounded border" />
+          {product.imageUrl ? (
+            <img
+              src={productImageSrc(product.imageUrl, 1024)}
+              srcSet={productImageSrcSet(product.imageUrl)}
+              sizes="(max-width: 768px) 100vw, 33vw"
+              loading="lazy"
+              alt={product.name}
+              className="img-fluid rounded border"
+            />
           ) : (
             <div className="border p-4 text-center">No Image</div>
           )}
@@ -1,5 +1,6 @@
 import React, { useEffect, useState } from "react";
 import { addToCart, type CartItem } from "../utils/cartUtils";
+import { productImageSrc, productImageSrcSet } from "../utils/productImage";
 
 const API_BASE = "http://localhost:8080";
 
@@ -23,10 +24,6 @@ const ProductDetailsPage: React.FC = () => {
 
   if (!product) return <div className="container mt-5">Loading...</div>;
 
-  const img =
-    product.imageData && product.imageType
-      ? `data:${product.imageType};base64,${product.imageData}`
-      : "/no-image.png";
 
   const handleAddToCart = () => {
     const item: CartItem = {
@@ -34,7 +31,7 @@ const ProductDetailsPage: React.FC = () => {
       name: product.name,
       price: product.price,
       quantity: 1,
-      imageUrl: img,
+      imageUrl: product.imageUrl ? productImageSrc(product.imageUrl, 64) : undefined,
       sku: product.sku,
     };
 
@@ -47,7 +44,14 @@ const ProductDetailsPage: React.FC = () => {
       <h2>{product.name}</h2>
       <div className="row mt-3">
         <div className="col-md-5">
-          <img src={img} className="img-fluid rounded shadow" alt={product.name} />
+          <img
+            src={productImageSrc(product.imageUrl, 1024)}
+            srcSet={productImageSrcSet(product.imageUrl)}
+            sizes="(max-width: 768px) 100vw, 40vw"
+            loading="lazy"
+            className="img-fluid rounded shadow"
+            alt={product.name}
+          />
         </div>
 
         <div className="col-md-7">
@@ -1,6 +1,7 @@
 import React, { useEffect, useRef, useState } from "react";
 import Chart from "chart.js/auto";
 import { addToCart, loadCart, type CartItem } from "../utils/cartUtils";
+import { productImageSrc, productImageSrcSet } from "../utils/productImage";
 
 const API_BASE = "http://localhost:8080";
 
@@ -58,13 +59,6 @@ const VendorDashboard: React.FC = () => {
     });
   }
 
-  const renderImage = (p: any) => {
-    if (p.imageData && p.imageType) {
-      return `data:${p.imageType};base64,${p.imageData}`;
-    }
-    return "/no-image.png";
-  };
-
   const handleAddToCart = (p: any) => {
     const item: CartItem = {
       productId: p.id,
@@ -72,7 +66,7 @@ const VendorDashboard: React.FC = () => {
       price: p.price,
       quantity: 1,
       sku: p.sku,
-      imageUrl: renderImage(p),
+      imageUrl: productImageSrc(p.imageUrl, 64),
     };
 
     addToCart(item);
@@ -121,7 +115,10 @@ const VendorDashboard: React.FC = () => {
             <div key={p.id} className="col-sm-6 col-md-4 col-lg-3">
               <div className="card h-100 shadow-sm">
                 <img
-                  src={renderImage(p)}
+                  src={productImageSrc(p.imageUrl)}
+                  srcSet={productImageSrcSet(p.imageUrl)}
+                  sizes="(max-width: 576px) 100vw, 300px"
+                  loading="lazy"
                   className="card-img-top"
                   style={{ height: 140, objectFit: "cover" }}
                   alt={p.name}
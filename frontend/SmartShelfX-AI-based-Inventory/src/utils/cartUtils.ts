@@ -6,8 +6,6 @@ export interface CartItem {
   price: number;
   quantity: number;
   sku?: string;
-  imageData?: string | null;
-  imageType?: string | null;
   imageUrl?: string;
 }
 
@@ -0,0 +1,20 @@
+// src/utils/productImage.ts
+
+// Product images come from the upload store. `imageUrl` on a product is the image's path on
+// the backend; ?size= returns the smallest pre-generated thumbnail that is at least that many
+// pixels on its longest side, so grids never download the original upload.
+
+const API_BASE = "http://localhost:8080";
+
+const THUMBNAIL_SIZES = [256, 1024];
+
+export const NO_IMAGE = "/no-image.png";
+
+export function productImageSrc(imageUrl?: string | null, size = 256): string {
+  return imageUrl ? `${API_BASE}${imageUrl}?size=${size}` : NO_IMAGE;
+}
+
+export function productImageSrcSet(imageUrl?: string | null): string | undefined {
+  if (!imageUrl) return undefined;
+  return THUMBNAIL_SIZES.map((s) => `${API_BASE}${imageUrl}?size=${s} ${s}w`).join(", ");
+}